@@ -0,0 +1,59 @@
+package com.restaurantes.gdl.benchmarks;
+
+import com.restaurantes.gdl.busqueda.IndiceBusqueda;
+import com.restaurantes.gdl.busqueda.ResultadoBusqueda;
+import com.restaurantes.gdl.generator.DataGenerator;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsqueda mientras se escribe con el índice de texto en memoria: una palabra exacta muy
+ * común, un prefijo, una palabra mal escrita (distancia de edición) y una consulta de varias
+ * palabras que intersecta listas.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BusquedaBenchmark {
+
+    private static final int LIMITE = 10;
+
+    @Param({"100000", "500000"})
+    public int cantidad;
+
+    private IndiceBusqueda indice;
+
+    @Setup
+    public void setup() {
+        indice = new IndiceBusqueda();
+        // Como en PipelineImportacion, cada restaurante generado recibe su _id antes de indexarse
+        new DataGenerator(42L).generarStream(cantidad).forEach(r -> indice.agregar(new ObjectId(),
+                r.getNombre(), r.getTipoComida(), r.getEspecialidades(), r.getCalificacion()));
+    }
+
+    @Benchmark
+    public List<ResultadoBusqueda> exacta() {
+        return indice.buscar("tacos", LIMITE);
+    }
+
+    @Benchmark
+    public List<ResultadoBusqueda> prefijo() {
+        return indice.buscar("birr", LIMITE);
+    }
+
+    @Benchmark
+    public List<ResultadoBusqueda> aproximada() {
+        return indice.buscar("birieria", LIMITE);
+    }
+
+    @Benchmark
+    public List<ResultadoBusqueda> variasPalabras() {
+        return indice.buscar("tacos pastor chapalita", LIMITE);
+    }
+}
@@ -0,0 +1,89 @@
+package com.restaurantes.gdl.benchmarks;
+
+import com.restaurantes.gdl.generator.DataGenerator;
+import com.restaurantes.gdl.model.FiltrosRestaurante;
+import com.restaurantes.gdl.model.IndiceEspacial;
+import com.restaurantes.gdl.model.RestauranteTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+/**
+ * "Restaurantes cerca de mí": k vecinos más cercanos con el KD-tree en memoria frente a
+ * recorrer la tabla completa.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CercanosBenchmark {
+
+    private static final double RADIO_METROS = 3000;
+    private static final int K = 10;
+
+    @Param({"100000", "1000000"})
+    public int cantidad;
+
+    private RestauranteTable tabla;
+    private IndiceEspacial indice;
+    private IntPredicate todos;
+    private final SplittableRandom random = new SplittableRandom(42L);
+
+    @Setup
+    public void setup() {
+        tabla = new DataGenerator(42L).generarStream(cantidad).collect(RestauranteTable.collector());
+        indice = IndiceEspacial.construir(tabla);
+        todos = FiltrosRestaurante.ninguno().predicado(tabla);
+    }
+
+    @Benchmark
+    public int[] kdTree() {
+        return indice.filasCercanas(longitud(), latitud(), RADIO_METROS, K, todos);
+    }
+
+    @Benchmark
+    public Object kdTreeConRestaurantes() {
+        return indice.buscarCercanos(longitud(), latitud(), RADIO_METROS, K, FiltrosRestaurante.ninguno());
+    }
+
+    @Benchmark
+    public int[] recorridoCompleto() {
+        double lon = longitud();
+        double lat = latitud();
+        double cosLat = Math.cos(Math.toRadians(lat));
+        int[] mejores = new int[K];
+        double[] distancias = new double[K];
+        Arrays.fill(distancias, Double.MAX_VALUE);
+        for (int fila = 0; fila < tabla.tamaño(); fila++) {
+            // Aproximación equirectangular: suficiente para comparar el costo del recorrido
+            double dx = (tabla.longitud(fila) - lon) * cosLat;
+            double dy = tabla.latitud(fila) - lat;
+            double d = dx * dx + dy * dy;
+            if (d < distancias[K - 1]) {
+                int i = K - 1;
+                while (i > 0 && distancias[i - 1] > d) {
+                    distancias[i] = distancias[i - 1];
+                    mejores[i] = mejores[i - 1];
+                    i--;
+                }
+                distancias[i] = d;
+                mejores[i] = fila;
+            }
+        }
+        return mejores;
+    }
+
+    // Puntos al azar dentro del área metropolitana de Guadalajara
+    private double longitud() {
+        return -103.5 + random.nextDouble() * 0.4;
+    }
+
+    private double latitud() {
+        return 20.5 + random.nextDouble() * 0.3;
+    }
+}
@@ -0,0 +1,74 @@
+package com.restaurantes.gdl.benchmarks;
+
+import com.restaurantes.gdl.codec.RestauranteCodecs;
+import com.restaurantes.gdl.model.Restaurante;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodificación de un volcado real de mongodump, documento por documento.
+ * Ejecutar desde {@code restaurantes-benchmarks/} o pasar {@code -p dump=<ruta>}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DumpBenchmark {
+
+    @Param("../backups/backup_20251019_111305/restaurantes_gdl/restaurantes.bson")
+    public String dump;
+
+    private byte[] datos;
+    private int[] desplazamientos;
+    private int[] longitudes;
+    private Codec<Document> documentCodec;
+    private int indice;
+
+    @Setup
+    public void setup() throws IOException {
+        documentCodec = RestauranteCodecs.REGISTRO.get(Document.class);
+        datos = Files.readAllBytes(Path.of(dump));
+
+        // Cada documento BSON inicia con su longitud total (int32 little-endian)
+        ByteBuffer buffer = ByteBuffer.wrap(datos).order(ByteOrder.LITTLE_ENDIAN);
+        List<int[]> docs = new ArrayList<>();
+        for (int offset = 0; offset < datos.length; ) {
+            int longitud = buffer.getInt(offset);
+            docs.add(new int[]{offset, longitud});
+            offset += longitud;
+        }
+        desplazamientos = docs.stream().mapToInt(d -> d[0]).toArray();
+        longitudes = docs.stream().mapToInt(d -> d[1]).toArray();
+    }
+
+    private RawBsonDocument siguiente() {
+        int i = indice++;
+        if (indice == desplazamientos.length) {
+            indice = 0;
+        }
+        return new RawBsonDocument(datos, desplazamientos[i], longitudes[i]);
+    }
+
+    @Benchmark
+    public Restaurante decodificarDocument() {
+        return Restaurante.fromDocument(siguiente().decode(documentCodec));
+    }
+
+    @Benchmark
+    public Restaurante decodificarCodec() {
+        return siguiente().decode(RestauranteCodecs.RESTAURANTE);
+    }
+}
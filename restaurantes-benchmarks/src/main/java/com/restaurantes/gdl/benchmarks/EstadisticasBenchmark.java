@@ -0,0 +1,70 @@
+package com.restaurantes.gdl.benchmarks;
+
+import com.restaurantes.gdl.generator.DataGenerator;
+import com.restaurantes.gdl.model.Restaurante;
+import com.restaurantes.gdl.model.RestauranteTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Conteos en memoria por municipio y por tipo de comida sobre el catálogo completo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EstadisticasBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int cantidad;
+
+    private List<Restaurante> restaurantes;
+    private RestauranteTable tabla;
+
+    @Setup
+    public void setup() {
+        restaurantes = new DataGenerator(42L).generarRestaurantes(cantidad);
+        tabla = RestauranteTable.desde(restaurantes);
+    }
+
+    @Benchmark
+    public Object conteoBucle() {
+        Map<String, int[]> porMunicipio = new HashMap<>();
+        Map<String, int[]> porTipo = new HashMap<>();
+        for (Restaurante r : restaurantes) {
+            porMunicipio.computeIfAbsent(r.getMunicipio(), k -> new int[1])[0]++;
+            porTipo.computeIfAbsent(r.getTipoComida(), k -> new int[1])[0]++;
+        }
+        return new Object[]{porMunicipio, porTipo};
+    }
+
+    @Benchmark
+    public Object conteoGroupingBy() {
+        Map<String, Long> porMunicipio = restaurantes.stream()
+                .collect(Collectors.groupingBy(Restaurante::getMunicipio, Collectors.counting()));
+        Map<String, Long> porTipo = restaurantes.stream()
+                .collect(Collectors.groupingBy(Restaurante::getTipoComida, Collectors.counting()));
+        return new Object[]{porMunicipio, porTipo};
+    }
+
+    @Benchmark
+    public Object conteoParalelo() {
+        Map<String, Long> porMunicipio = restaurantes.parallelStream()
+                .collect(Collectors.groupingByConcurrent(Restaurante::getMunicipio, Collectors.counting()));
+        Map<String, Long> porTipo = restaurantes.parallelStream()
+                .collect(Collectors.groupingByConcurrent(Restaurante::getTipoComida, Collectors.counting()));
+        return new Object[]{porMunicipio, porTipo};
+    }
+
+    @Benchmark
+    public Object conteoColumnar() {
+        return new Object[]{tabla.contarPorMunicipio(), tabla.contarPorTipoComida()};
+    }
+}
@@ -0,0 +1,46 @@
+package com.restaurantes.gdl.benchmarks;
+
+import com.restaurantes.gdl.generator.AsignadorNombres;
+import com.restaurantes.gdl.generator.DataGenerator;
+import com.restaurantes.gdl.model.Restaurante;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nombres y registros generados por segundo. Cada operación produce un solo elemento, así
+ * {@code gc.alloc.rate.norm} de {@code -prof gc} se lee directamente como bytes por registro.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GeneradorBenchmark {
+
+    private static final long SEMILLA = 42L;
+
+    private AsignadorNombres asignador;
+    private Iterator<Restaurante> registros;
+    private long indice;
+
+    @Setup
+    public void setup() {
+        DataGenerator generador = new DataGenerator(SEMILLA);
+        // Las mismas tablas de nombres que usa el generador
+        asignador = generador.getAsignadorNombres();
+        registros = generador.generarStream(Long.MAX_VALUE, false).iterator();
+    }
+
+    @Benchmark
+    public String nombre() {
+        return asignador.nombre(indice++);
+    }
+
+    @Benchmark
+    public Restaurante registro() {
+        return registros.next();
+    }
+}
@@ -0,0 +1,67 @@
+package com.restaurantes.gdl.benchmarks;
+
+import com.restaurantes.gdl.codec.RestauranteCodecs;
+import com.restaurantes.gdl.generator.DataGenerator;
+import com.restaurantes.gdl.model.Restaurante;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ruta {@code toDocument()/fromDocument()} contra {@code RestauranteCodec}, por registro.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MapeoBenchmark {
+
+    private static final int MUESTRA = 1024;
+
+    private Codec<Document> documentCodec;
+    private Restaurante[] restaurantes;
+    private RawBsonDocument[] codificados;
+    private int indice;
+
+    @Setup
+    public void setup() {
+        documentCodec = RestauranteCodecs.REGISTRO.get(Document.class);
+        List<Restaurante> lista = new DataGenerator(42L).generarRestaurantes(MUESTRA);
+        restaurantes = lista.toArray(new Restaurante[0]);
+        codificados = new RawBsonDocument[MUESTRA];
+        for (int i = 0; i < MUESTRA; i++) {
+            codificados[i] = new RawBsonDocument(restaurantes[i], RestauranteCodecs.RESTAURANTE);
+        }
+    }
+
+    private int siguiente() {
+        indice = (indice + 1) & (MUESTRA - 1);
+        return indice;
+    }
+
+    @Benchmark
+    public RawBsonDocument codificarDocument() {
+        return new RawBsonDocument(restaurantes[siguiente()].toDocument(), documentCodec);
+    }
+
+    @Benchmark
+    public RawBsonDocument codificarCodec() {
+        return new RawBsonDocument(restaurantes[siguiente()], RestauranteCodecs.RESTAURANTE);
+    }
+
+    @Benchmark
+    public Restaurante decodificarDocument() {
+        return Restaurante.fromDocument(codificados[siguiente()].decode(documentCodec));
+    }
+
+    @Benchmark
+    public Restaurante decodificarCodec() {
+        return codificados[siguiente()].decode(RestauranteCodecs.RESTAURANTE);
+    }
+}
@@ -0,0 +1,68 @@
+package com.restaurantes.gdl.benchmarks;
+
+import com.restaurantes.gdl.generator.DataGenerator;
+import com.restaurantes.gdl.model.RestauranteTable;
+import com.restaurantes.gdl.recomendacion.MotorRecomendaciones;
+import com.restaurantes.gdl.recomendacion.PerfilUsuario;
+import com.restaurantes.gdl.recomendacion.Recomendacion;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-K de restaurantes parecidos: semillas que no están en caché (recorrido completo),
+ * una semilla ya calculada y un perfil con varios favoritos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecomendacionesBenchmark {
+
+    private static final int K = 10;
+
+    @Param({"100000", "500000"})
+    public int cantidad;
+
+    private RestauranteTable tabla;
+    private MotorRecomendaciones motor;
+    private ObjectId semillaCaliente;
+    private PerfilUsuario perfil;
+    private final SplittableRandom random = new SplittableRandom(42L);
+
+    @Setup
+    public void setup() {
+        // El generador no asigna _id; el motor busca las semillas por id
+        tabla = new DataGenerator(42L).generarStream(cantidad)
+                .peek(r -> r.setId(new ObjectId()))
+                .collect(RestauranteTable.collector());
+        motor = MotorRecomendaciones.construir(tabla);
+        semillaCaliente = tabla.id(0);
+        motor.recomendar(semillaCaliente, K);
+        perfil = PerfilUsuario.builder()
+                .favorito(tabla.id(1)).favorito(tabla.id(2)).favorito(tabla.id(3))
+                .precio(250.0)
+                .build();
+    }
+
+    @Benchmark
+    public List<Recomendacion> semillaFria() {
+        // Pocas veces repite semilla, así que casi siempre recorre la tabla
+        return motor.recomendar(tabla.id(random.nextInt(cantidad)), K);
+    }
+
+    @Benchmark
+    public List<Recomendacion> semillaEnCache() {
+        return motor.recomendar(semillaCaliente, K);
+    }
+
+    @Benchmark
+    public List<Recomendacion> perfil() {
+        return motor.recomendar(perfil, K);
+    }
+}
@@ -2,11 +2,26 @@ package com.restaurantes.gdl;
 
 import com.restaurantes.gdl.generator.DataGenerator;
 import com.restaurantes.gdl.model.Restaurante;
+import com.restaurantes.gdl.backup.ConfiguracionBackup;
+import com.restaurantes.gdl.backup.ResultadoBackup;
+import com.restaurantes.gdl.busqueda.ResultadoBusqueda;
+import com.restaurantes.gdl.csv.MapeoCsv;
+import com.restaurantes.gdl.pipeline.PipelineEtapas;
+import com.restaurantes.gdl.pipeline.ResultadoPipeline;
 import com.restaurantes.gdl.service.BackupService;
+import com.restaurantes.gdl.service.ConfiguracionImportacion;
+import com.restaurantes.gdl.service.EstadisticasReport;
+import com.restaurantes.gdl.service.GestorTrabajosBackup;
 import com.restaurantes.gdl.service.MongoDBService;
+import com.restaurantes.gdl.service.TrabajoBackup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.Date;
 import java.util.List;
 import java.util.Scanner;
 
@@ -19,6 +34,8 @@ public class Main {
     private static final String DATABASE_NAME = "restaurantes_gdl";
     private static final String COLLECTION_NAME = "restaurantes";
     private static final int CANTIDAD_RESTAURANTES = 100;
+    private static final String CSV_SOCIOS = "data/restaurants.csv";
+    private static final String MODO_HEADLESS = "--headless";
 
     public static void main(String[] args) {
         logger.info("==============================================");
@@ -26,18 +43,27 @@ public class Main {
         logger.info("  Área Metropolitana de Guadalajara, México");
         logger.info("==============================================\n");
 
-        try (MongoDBService mongoService = new MongoDBService(MONGO_URI, DATABASE_NAME, COLLECTION_NAME)) {
+        boolean exitoso = true;
+        try (MongoDBService mongoService = new MongoDBService(MONGO_URI, DATABASE_NAME, COLLECTION_NAME);
+             GestorTrabajosBackup trabajos = new GestorTrabajosBackup(new BackupService(MONGO_URI, DATABASE_NAME))) {
 
-            // Mostrar menú interactivo
-            mostrarMenu(mongoService);
+            if (args.length > 0 && args[0].equals(MODO_HEADLESS)) {
+                exitoso = ejecutarSinMenu(args, mongoService, trabajos);
+            } else {
+                // Mostrar menú interactivo
+                mostrarMenu(mongoService, trabajos);
+            }
 
         } catch (Exception e) {
             logger.error("Error fatal en la aplicación", e);
             System.exit(1);
         }
+        if (!exitoso) {
+            System.exit(1);
+        }
     }
 
-    private static void mostrarMenu(MongoDBService mongoService) {
+    private static void mostrarMenu(MongoDBService mongoService, GestorTrabajosBackup trabajos) {
         Scanner scanner = new Scanner(System.in);
         boolean continuar = true;
 
@@ -47,10 +73,19 @@ public class Main {
             System.out.println("╠════════════════════════════════════════╣");
             System.out.println("║ 1. Generar e importar datos            ║");
             System.out.println("║ 2. Crear índices                       ║");
-            System.out.println("║ 3. Realizar backup (mongodump)         ║");
+            System.out.println("║ 3. Realizar backup (segundo plano)     ║");
             System.out.println("║ 4. Mostrar estadísticas                ║");
             System.out.println("║ 5. Limpiar colección                   ║");
             System.out.println("║ 6. Ejecutar todo (1 + 2 + 3)           ║");
+            System.out.println("║ 7. Backup incremental                  ║");
+            System.out.println("║ 8. Backup al repositorio deduplicado   ║");
+            System.out.println("║ 9. Backup comprimido                   ║");
+            System.out.println("║ 10. Estado / cancelar backup           ║");
+            System.out.println("║ 11. Programar backups periódicos       ║");
+            System.out.println("║ 12. Importar CSV de socios             ║");
+            System.out.println("║ 13. Exportar a NDJSON                  ║");
+            System.out.println("║ 14. Importar NDJSON                    ║");
+            System.out.println("║ 15. Buscar restaurantes                ║");
             System.out.println("║ 0. Salir                               ║");
             System.out.println("╚════════════════════════════════════════╝");
             System.out.print("\nSelecciona una opción: ");
@@ -67,7 +102,7 @@ public class Main {
                         mongoService.crearIndices();
                         break;
                     case 3:
-                        realizarBackup();
+                        trabajos.iniciar(ConfiguracionBackup.porDefecto());
                         break;
                     case 4:
                         mongoService.mostrarEstadisticas();
@@ -76,7 +111,36 @@ public class Main {
                         confirmarYLimpiar(mongoService, scanner);
                         break;
                     case 6:
-                        ejecutarTodo(mongoService);
+                        ejecutarTodo(mongoService, trabajos);
+                        break;
+                    case 7:
+                        trabajos.iniciarIncremental();
+                        break;
+                    case 8:
+                        trabajos.iniciarRepositorio();
+                        break;
+                    case 9:
+                        trabajos.iniciar(ConfiguracionBackup.builder().comprimir(true).build());
+                        break;
+                    case 10:
+                        mostrarEstadoBackup(trabajos, scanner);
+                        break;
+                    case 11:
+                        programarBackups(trabajos, scanner);
+                        break;
+                    case 12:
+                        importarCsv(mongoService, scanner);
+                        break;
+                    case 13:
+                        mongoService.exportarNdjson(Path.of("exports", "ndjson_"
+                                + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date())),
+                                Runtime.getRuntime().availableProcessors());
+                        break;
+                    case 14:
+                        importarNdjson(mongoService, scanner);
+                        break;
+                    case 15:
+                        buscarTexto(mongoService, scanner);
                         break;
                     case 0:
                         continuar = false;
@@ -111,9 +175,51 @@ public class Main {
         logger.info("✓ Datos importados exitosamente a MongoDB");
     }
 
-    private static void realizarBackup() {
-        BackupService backupService = new BackupService(MONGO_URI, DATABASE_NAME);
-        backupService.realizarBackup();
+    private static void importarCsv(MongoDBService mongoService, Scanner scanner) throws IOException {
+        System.out.print("Archivo CSV [" + CSV_SOCIOS + "]: ");
+        String ruta = scanner.nextLine().trim();
+        mongoService.importarCsv(Path.of(ruta.isEmpty() ? CSV_SOCIOS : ruta),
+                MapeoCsv.feedSocios(), ConfiguracionImportacion.porDefecto());
+    }
+
+    private static void importarNdjson(MongoDBService mongoService, Scanner scanner) throws IOException {
+        System.out.print("Directorio de la exportación: ");
+        mongoService.importarNdjson(Path.of(scanner.nextLine().trim()), ConfiguracionImportacion.porDefecto());
+    }
+
+    private static void buscarTexto(MongoDBService mongoService, Scanner scanner) {
+        System.out.print("Buscar (nombre, tipo de comida o especialidad): ");
+        String consulta = scanner.nextLine().trim();
+        long inicio = System.nanoTime();
+        List<ResultadoBusqueda> resultados = mongoService.buscarTexto(consulta, 10);
+        logger.info("{} resultado(s) en {} µs", resultados.size(), (System.nanoTime() - inicio) / 1_000);
+        resultados.forEach(r -> logger.info("  {} · {} · {}", r.getNombre(), r.getTipoComida(), r.getCalificacion()));
+    }
+
+    private static void mostrarEstadoBackup(GestorTrabajosBackup trabajos, Scanner scanner) {
+        if (trabajos.getHistorial().isEmpty()) {
+            logger.info("No se ha ejecutado ningún backup en esta sesión");
+            return;
+        }
+        trabajos.getHistorial().forEach(t -> logger.info("  {}", t.resumen()));
+        if (trabajos.getActual().filter(t -> !t.isTerminado()).isPresent()) {
+            System.out.print("¿Cancelar el backup en curso? (S/N): ");
+            String respuesta = scanner.nextLine().trim().toUpperCase();
+            if ((respuesta.equals("S") || respuesta.equals("SI")) && trabajos.cancelarActual()) {
+                logger.info("Cancelación solicitada");
+            }
+        }
+    }
+
+    private static void programarBackups(GestorTrabajosBackup trabajos, Scanner scanner) {
+        System.out.print("Intervalo en minutos (0 para desactivar): ");
+        int minutos = scanner.nextInt();
+        scanner.nextLine();
+        if (minutos <= 0) {
+            trabajos.cancelarProgramacion();
+        } else {
+            trabajos.programar(Duration.ofMinutes(minutos), ConfiguracionBackup.porDefecto());
+        }
     }
 
     private static void confirmarYLimpiar(MongoDBService mongoService, Scanner scanner) {
@@ -135,33 +241,78 @@ public class Main {
         }
     }
 
-    private static void ejecutarTodo(MongoDBService mongoService) {
+    private static void ejecutarTodo(MongoDBService mongoService, GestorTrabajosBackup trabajos) {
         logger.info("\n╔════════════════════════════════════════╗");
         logger.info("║   EJECUTANDO PROCESO COMPLETO          ║");
         logger.info("╚════════════════════════════════════════╝\n");
 
-        // Paso 1: Generar e importar datos
-        logger.info("PASO 1: Generación e importación de datos");
-        logger.info("─────────────────────────────────────────");
-        generarEImportarDatos(mongoService);
-
-        // Paso 2: Crear índices
-        logger.info("\nPASO 2: Creación de índices");
-        logger.info("─────────────────────────────────────────");
-        mongoService.crearIndices();
+        ResultadoPipeline resultado = pipelineCompleto(mongoService, trabajos, CANTIDAD_RESTAURANTES, false).ejecutar();
+        logger.info("\n{}", resultado.resumen());
 
-        // Paso 3: Realizar backup
-        logger.info("\nPASO 3: Backup de la base de datos");
-        logger.info("─────────────────────────────────────────");
-        realizarBackup();
+        if (resultado.isExitoso()) {
+            logger.info("\n╔════════════════════════════════════════╗");
+            logger.info("║   ✓ PROCESO COMPLETADO EXITOSAMENTE    ║");
+            logger.info("╚════════════════════════════════════════╝\n");
+        }
+    }
 
-        // Paso 4: Mostrar estadísticas
-        logger.info("\nPASO 4: Estadísticas finales");
-        logger.info("─────────────────────────────────────────");
-        mongoService.mostrarEstadisticas();
+    /**
+     * Generación → importación → índices → backup, con las estadísticas en paralelo a
+     * índices y backup. La generación es un stream que se importa conforme se produce.
+     */
+    private static PipelineEtapas pipelineCompleto(MongoDBService mongoService, GestorTrabajosBackup trabajos,
+                                                   long cantidad, boolean limpiar) {
+        PipelineEtapas pipeline = new PipelineEtapas();
+        String[] antesDeImportar = {};
+        if (limpiar) {
+            pipeline.etapa("limpiar", "documentos", () -> {
+                mongoService.limpiarColeccion();
+                return 0;
+            });
+            antesDeImportar = new String[]{"limpiar"};
+        }
+        return pipeline
+                .etapa("importar", "documentos", () -> mongoService.importarRestaurantes(
+                        new DataGenerator().generarStream(cantidad), ConfiguracionImportacion.porDefecto())
+                        .getDocumentos(), antesDeImportar)
+                .etapa("indices", "índices", () -> {
+                    mongoService.crearIndices();
+                    return 0;
+                }, "importar")
+                .etapa("estadisticas", "documentos", () -> {
+                    EstadisticasReport report = mongoService.obtenerEstadisticas();
+                    mongoService.mostrarEstadisticas(report);
+                    return report.getTotal();
+                }, "importar")
+                .etapa("backup", "documentos", () -> {
+                    TrabajoBackup trabajo = trabajos.iniciar(ConfiguracionBackup.porDefecto())
+                            .orElseThrow(() -> new IllegalStateException("Ya hay un backup en curso"));
+                    ResultadoBackup backup = trabajo.esperar();
+                    if (backup == null) {
+                        throw new IllegalStateException("Backup " + trabajo.getEstado() + ": " + trabajo.getError());
+                    }
+                    return backup.getDocumentos();
+                }, "indices");
+    }
 
-        logger.info("\n╔════════════════════════════════════════╗");
-        logger.info("║   ✓ PROCESO COMPLETADO EXITOSAMENTE    ║");
-        logger.info("╚════════════════════════════════════════╝\n");
+    /**
+     * Modo sin menú para ejecuciones programadas:
+     * {@code --headless [--cantidad=N] [--limpiar]}. Termina con código 1 si alguna etapa no se completó.
+     */
+    private static boolean ejecutarSinMenu(String[] args, MongoDBService mongoService, GestorTrabajosBackup trabajos) {
+        long cantidad = CANTIDAD_RESTAURANTES;
+        boolean limpiar = false;
+        for (String arg : args) {
+            if (arg.startsWith("--cantidad=")) {
+                cantidad = Long.parseLong(arg.substring("--cantidad=".length()));
+            } else if (arg.equals("--limpiar")) {
+                limpiar = true;
+            } else if (!arg.equals(MODO_HEADLESS)) {
+                throw new IllegalArgumentException("Argumento no reconocido: " + arg);
+            }
+        }
+        ResultadoPipeline resultado = pipelineCompleto(mongoService, trabajos, cantidad, limpiar).ejecutar();
+        logger.info("\n{}", resultado.resumen());
+        return resultado.isExitoso();
     }
 }
\ No newline at end of file
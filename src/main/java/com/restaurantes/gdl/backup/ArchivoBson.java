@@ -0,0 +1,134 @@
+package com.restaurantes.gdl.backup;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Acceso por mapeo de memoria a un archivo {@code .bson} de mongodump: una secuencia de
+ * documentos BSON, cada uno precedido por su longitud total en int32 little-endian.
+ * <p>
+ * Como el formato no tiene marcas de sincronización, partir el archivo exige recorrer los
+ * prefijos de longitud desde el inicio; ese recorrido solo toca 4 bytes por documento.
+ * Los segmentos resultantes empiezan y terminan en frontera de documento y se pueden
+ * procesar en paralelo, cada uno con su propio mapeo.
+ */
+public class ArchivoBson implements AutoCloseable {
+
+    // Tamaño mínimo de un documento BSON: int32 de longitud + byte terminador
+    public static final int TAMAÑO_MINIMO_DOCUMENTO = 5;
+
+    // Límite de un MappedByteBuffer (índices int) con margen; ningún segmento lo supera
+    private static final long MAXIMO_SEGMENTO = 1L << 30;
+
+    private final Path ruta;
+    private final FileChannel canal;
+    private final long tamaño;
+    private final long maximoSegmento;
+
+    public ArchivoBson(Path ruta) throws IOException {
+        this(ruta, MAXIMO_SEGMENTO);
+    }
+
+    // Con un máximo pequeño las pruebas recorren varias ventanas sin un archivo de gigabytes
+    ArchivoBson(Path ruta, long maximoSegmento) throws IOException {
+        this.ruta = ruta;
+        this.canal = FileChannel.open(ruta, StandardOpenOption.READ);
+        this.tamaño = canal.size();
+        this.maximoSegmento = maximoSegmento;
+    }
+
+    public Path getRuta() {
+        return ruta;
+    }
+
+    public long tamaño() {
+        return tamaño;
+    }
+
+    /**
+     * Rango [inicio, inicio + longitud) del archivo que contiene documentos completos.
+     */
+    public record Segmento(long inicio, long longitud) {
+    }
+
+    /**
+     * Parte el archivo en aproximadamente {@code partes} segmentos de tamaño similar,
+     * alineados a documentos y de a lo más 1 GB cada uno.
+     *
+     * @throws CorruptoException si un prefijo de longitud es inválido o el último documento está truncado
+     */
+    public List<Segmento> segmentar(int partes) throws IOException {
+        long objetivo = Math.max(TAMAÑO_MINIMO_DOCUMENTO,
+                Math.min(maximoSegmento, (tamaño + partes - 1) / Math.max(1, partes)));
+        List<Segmento> segmentos = new ArrayList<>();
+
+        long inicioSegmento = 0;
+        long posicion = 0;
+        long inicioVentana = 0;
+        MappedByteBuffer ventana = null;
+        while (posicion < tamaño) {
+            if (ventana == null || posicion + 4 > inicioVentana + ventana.limit()) {
+                inicioVentana = posicion;
+                ventana = mapear(posicion, Math.min(maximoSegmento, tamaño - posicion));
+            }
+            if (tamaño - posicion < 4) {
+                throw new CorruptoException(ruta, posicion, "prefijo de longitud truncado");
+            }
+            int longitud = ventana.getInt((int) (posicion - inicioVentana));
+            if (longitud < TAMAÑO_MINIMO_DOCUMENTO || posicion + longitud > tamaño) {
+                throw new CorruptoException(ruta, posicion, "longitud de documento inválida: " + longitud);
+            }
+            if (posicion > inicioSegmento && posicion + longitud - inicioSegmento > objetivo) {
+                segmentos.add(new Segmento(inicioSegmento, posicion - inicioSegmento));
+                inicioSegmento = posicion;
+            }
+            posicion += longitud;
+        }
+        if (posicion > inicioSegmento) {
+            segmentos.add(new Segmento(inicioSegmento, posicion - inicioSegmento));
+        }
+        return segmentos;
+    }
+
+    /**
+     * Mapea un segmento en modo lectura, con orden de bytes little-endian como BSON.
+     */
+    public MappedByteBuffer mapear(Segmento segmento) throws IOException {
+        return mapear(segmento.inicio(), segmento.longitud());
+    }
+
+    private MappedByteBuffer mapear(long inicio, long longitud) throws IOException {
+        MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, inicio, longitud);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    /**
+     * El archivo no respeta la estructura de documentos BSON consecutivos.
+     */
+    public static class CorruptoException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final long posicion;
+
+        public CorruptoException(Path ruta, long posicion, String detalle) {
+            super(ruta + " corrupto en el byte " + posicion + ": " + detalle);
+            this.posicion = posicion;
+        }
+
+        public long getPosicion() {
+            return posicion;
+        }
+    }
+}
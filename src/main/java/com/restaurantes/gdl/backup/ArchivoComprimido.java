@@ -0,0 +1,159 @@
+package com.restaurantes.gdl.backup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Lectura de un {@code .bson.dfz}: documentos BSON agrupados en bloques independientes
+ * comprimidos con deflate, seguidos de un índice de bloques.
+ * <pre>
+ * cabecera   magic "RGZB" | versión int32 | tamaño de bloque int32 | nivel int32
+ * bloques    deflate crudo, cada uno con documentos completos
+ * índice     por bloque: posición int64 | comprimido int32 | original int32 | documentos int32 | crc32 int32
+ * cola       posición del índice int64 | bloques int32 | magic "RGZB"
+ * </pre>
+ * Todo en little-endian, como BSON. Como cada bloque empieza en frontera de documento y el
+ * índice da su posición, cualquier bloque se puede leer sin tocar los anteriores y varios
+ * hilos pueden descomprimir bloques distintos a la vez.
+ */
+public class ArchivoComprimido implements AutoCloseable {
+
+    public static final int MAGIC = 0x425a4752; // "RGZB" leído como int32 little-endian
+    public static final int VERSION = 1;
+    static final int TAMAÑO_CABECERA = 16;
+    static final int TAMAÑO_ENTRADA = 24;
+    static final int TAMAÑO_COLA = 16;
+
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private final Path ruta;
+    private final FileChannel canal;
+    private final int tamañoBloque;
+    private final Bloque[] bloques;
+
+    /**
+     * Entrada del índice de bloques.
+     */
+    public record Bloque(long posicion, int comprimido, int original, int documentos, int crc) {
+    }
+
+    public ArchivoComprimido(Path ruta) throws IOException {
+        this.ruta = ruta;
+        this.canal = FileChannel.open(ruta, StandardOpenOption.READ);
+        try {
+            long tamaño = canal.size();
+            if (tamaño < TAMAÑO_CABECERA + TAMAÑO_COLA) {
+                throw new ArchivoBson.CorruptoException(ruta, 0, "archivo demasiado corto");
+            }
+            ByteBuffer cabecera = leer(0, TAMAÑO_CABECERA);
+            if (cabecera.getInt() != MAGIC || cabecera.getInt() != VERSION) {
+                throw new ArchivoBson.CorruptoException(ruta, 0, "cabecera no reconocida");
+            }
+            this.tamañoBloque = cabecera.getInt();
+
+            ByteBuffer cola = leer(tamaño - TAMAÑO_COLA, TAMAÑO_COLA);
+            long posicionIndice = cola.getLong();
+            int cantidad = cola.getInt();
+            if (cola.getInt() != MAGIC || posicionIndice + (long) cantidad * TAMAÑO_ENTRADA != tamaño - TAMAÑO_COLA) {
+                throw new ArchivoBson.CorruptoException(ruta, tamaño - TAMAÑO_COLA, "índice de bloques truncado");
+            }
+            ByteBuffer indice = leer(posicionIndice, cantidad * TAMAÑO_ENTRADA);
+            this.bloques = new Bloque[cantidad];
+            for (int i = 0; i < cantidad; i++) {
+                bloques[i] = new Bloque(indice.getLong(), indice.getInt(), indice.getInt(), indice.getInt(), indice.getInt());
+            }
+        } catch (IOException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    public Path getRuta() {
+        return ruta;
+    }
+
+    public int getTamañoBloque() {
+        return tamañoBloque;
+    }
+
+    public int cantidadBloques() {
+        return bloques.length;
+    }
+
+    public Bloque bloque(int i) {
+        return bloques[i];
+    }
+
+    public long documentos() {
+        long total = 0;
+        for (Bloque bloque : bloques) {
+            total += bloque.documentos();
+        }
+        return total;
+    }
+
+    public long tamañoOriginal() {
+        long total = 0;
+        for (Bloque bloque : bloques) {
+            total += bloque.original();
+        }
+        return total;
+    }
+
+    /**
+     * Descomprime un bloque y verifica su CRC. Seguro para llamarse desde varios hilos.
+     *
+     * @return los documentos del bloque, en orden little-endian y listos para leerse
+     */
+    public ByteBuffer leerBloque(int i) throws IOException {
+        Bloque bloque = bloques[i];
+        ByteBuffer comprimido = leer(bloque.posicion(), bloque.comprimido());
+        byte[] original = new byte[bloque.original()];
+        Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        inflater.setInput(comprimido);
+        try {
+            int escritos = 0;
+            while (escritos < original.length && !inflater.finished()) {
+                int n = inflater.inflate(original, escritos, original.length - escritos);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                escritos += n;
+            }
+            if (escritos != original.length) {
+                throw new ArchivoBson.CorruptoException(ruta, bloque.posicion(), "bloque " + i + " incompleto");
+            }
+        } catch (DataFormatException e) {
+            throw new ArchivoBson.CorruptoException(ruta, bloque.posicion(), "bloque " + i + ": " + e.getMessage());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(original);
+        if ((int) crc.getValue() != bloque.crc()) {
+            throw new ArchivoBson.CorruptoException(ruta, bloque.posicion(), "CRC del bloque " + i + " no coincide");
+        }
+        return ByteBuffer.wrap(original).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private ByteBuffer leer(long posicion, int longitud) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(longitud).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, posicion + buffer.position()) < 0) {
+                throw new ArchivoBson.CorruptoException(ruta, posicion + buffer.position(), "fin de archivo inesperado");
+            }
+        }
+        return buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+}
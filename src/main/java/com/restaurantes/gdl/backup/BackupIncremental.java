@@ -0,0 +1,283 @@
+package com.restaurantes.gdl.backup;
+
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Backups incrementales encadenados a un backup completo mediante change streams.
+ * <p>
+ * El backup completo guarda en {@code resume_token.json} el punto del change stream previo
+ * a la lectura de datos. Cada incremento lee los eventos desde el último token guardado y los
+ * escribe como un segmento de solo anexado en {@code incrementales/NNNNNN.seg}: documentos
+ * BSON con la operación, la colección, el {@code _id} y, para inserciones y reemplazos, el
+ * documento completo. La reproducción es idempotente (reemplazo con upsert y borrado por
+ * {@code _id}), así que los eventos ocurridos durante el volcado base se pueden aplicar sin
+ * riesgo. Requiere un replica set (basta uno de un solo nodo en localhost).
+ */
+public class BackupIncremental {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackupIncremental.class);
+
+    public static final String PUNTO_REANUDACION = "resume_token.json";
+    public static final String DIRECTORIO_INCREMENTALES = "incrementales";
+    private static final String EXTENSION_SEGMENTO = ".seg";
+
+    private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
+
+    private final MongoClient mongoClient;
+    private final String databaseName;
+
+    public BackupIncremental(MongoClient mongoClient, String databaseName) {
+        this.mongoClient = mongoClient;
+        this.databaseName = databaseName;
+    }
+
+    /**
+     * Guarda en el backup base el token actual del change stream de la base.
+     * Debe llamarse antes de leer los datos del volcado completo.
+     *
+     * @return false si el servidor no admite change streams (no es replica set)
+     */
+    public boolean registrarPuntoInicial(Path directorioBackup) throws IOException {
+        BsonDocument token;
+        try (MongoChangeStreamCursor<ChangeStreamDocument<BsonDocument>> cursor =
+                     mongoClient.getDatabase(databaseName).watch(BsonDocument.class).cursor()) {
+            token = cursor.getResumeToken();
+        } catch (Exception e) {
+            logger.debug("Change streams no disponibles; el backup no admitirá incrementales: {}", e.getMessage());
+            return false;
+        }
+        if (token == null) {
+            return false;
+        }
+        guardarToken(directorioBackup, token);
+        return true;
+    }
+
+    /**
+     * Escribe un nuevo segmento con los cambios desde el último punto registrado en el backup
+     * hasta el momento en que empieza la llamada. Los eventos posteriores quedan para el
+     * siguiente incremento, así que una carga de escritura sostenida no impide terminar.
+     *
+     * @return eventos escritos (0 si no hubo cambios; en ese caso no se crea segmento)
+     */
+    public long respaldarCambios(Path directorioBackup) throws IOException {
+        return respaldarCambios(directorioBackup, new ProgresoBackup());
+    }
+
+    /**
+     * Como {@link #respaldarCambios(Path)}, publicando cada evento escrito en {@code progreso}.
+     * Si se cancela o falla no queda segmento y el punto de reanudación no avanza.
+     */
+    public long respaldarCambios(Path directorioBackup, ProgresoBackup progreso) throws IOException {
+        Path archivoToken = directorioBackup.resolve(PUNTO_REANUDACION);
+        if (!Files.exists(archivoToken)) {
+            throw new IOException("El backup no tiene punto de reanudación: " + directorioBackup);
+        }
+        BsonDocument token = FormatoDump.leerJson(archivoToken).getDocument("token");
+
+        Path directorio = Files.createDirectories(directorioBackup.resolve(DIRECTORIO_INCREMENTALES));
+        Path segmento = directorio.resolve(String.format("%06d", siguienteNumero(directorio)) + EXTENSION_SEGMENTO);
+        Path temporal = segmento.resolveSibling(segmento.getFileName() + ".tmp");
+
+        long eventos = 0;
+        long inicio = System.nanoTime();
+        BsonTimestamp corte = momentoActual();
+        ChangeStreamIterable<BsonDocument> stream = mongoClient.getDatabase(databaseName)
+                .watch(BsonDocument.class)
+                .startAfter(token)
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(500, TimeUnit.MILLISECONDS);
+        try (MongoChangeStreamCursor<ChangeStreamDocument<BsonDocument>> cursor = stream.cursor();
+             FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // Se leen eventos hasta el corte, o hasta alcanzar el presente si llega antes:
+            // tryNext devuelve null cuando no hay más
+            boolean alcanzado = false;
+            ChangeStreamDocument<BsonDocument> evento;
+            while ((evento = cursor.tryNext()) != null) {
+                if (corte != null && evento.getClusterTime() != null && evento.getClusterTime().compareTo(corte) > 0) {
+                    // Este evento no se escribe: el token queda en el anterior para releerlo después
+                    alcanzado = true;
+                    break;
+                }
+                progreso.revisarCancelacion();
+                BsonDocument registro = registro(evento);
+                if (registro != null) {
+                    progreso.registrar(escribir(canal, registro));
+                    eventos++;
+                }
+                token = evento.getResumeToken();
+            }
+            if (!alcanzado && cursor.getResumeToken() != null) {
+                token = cursor.getResumeToken();
+            }
+            canal.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+
+        if (eventos == 0) {
+            Files.delete(temporal);
+        } else {
+            Files.move(temporal, segmento, StandardCopyOption.ATOMIC_MOVE);
+        }
+        guardarToken(directorioBackup, token);
+        logger.info("✓ Incremental: {} eventos en {} ms{}", eventos,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio),
+                eventos == 0 ? "" : " → " + segmento.getFileName());
+        return eventos;
+    }
+
+    // operationTime del servidor en este instante
+    private BsonTimestamp momentoActual() {
+        try (ClientSession sesion = mongoClient.startSession()) {
+            mongoClient.getDatabase(databaseName).runCommand(sesion, new BsonDocument("ping", new BsonInt32(1)));
+            return sesion.getOperationTime();
+        }
+    }
+
+    /**
+     * Aplica en orden los segmentos incrementales del backup sobre una base ya restaurada.
+     */
+    public long reproducir(Path directorioBackup) throws IOException {
+        Path directorio = directorioBackup.resolve(DIRECTORIO_INCREMENTALES);
+        if (!Files.isDirectory(directorio)) {
+            return 0;
+        }
+        MongoDatabase database = mongoClient.getDatabase(databaseName);
+        long aplicados = 0;
+        for (Path segmento : segmentos(directorio)) {
+            try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.READ)) {
+                MappedByteBuffer datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+                datos.order(ByteOrder.LITTLE_ENDIAN);
+                while (datos.hasRemaining()) {
+                    byte[] bytes = new byte[datos.getInt(datos.position())];
+                    datos.get(bytes);
+                    aplicar(database, new RawBsonDocument(bytes));
+                    aplicados++;
+                }
+            }
+            logger.info("✓ Segmento incremental aplicado: {}", segmento.getFileName());
+        }
+        return aplicados;
+    }
+
+    private static void aplicar(MongoDatabase database, BsonDocument registro) {
+        String op = registro.getString("op").getValue();
+        MongoCollection<BsonDocument> coleccion = database.getCollection(
+                registro.getString("coll").getValue(), BsonDocument.class);
+        switch (op) {
+            case "upsert":
+                coleccion.replaceOne(Filters.eq("_id", registro.get("_id")), registro.getDocument("doc"), UPSERT);
+                break;
+            case "delete":
+                coleccion.deleteOne(Filters.eq("_id", registro.get("_id")));
+                break;
+            case "drop":
+                coleccion.drop();
+                break;
+            default:
+                logger.warn("Operación incremental desconocida: {}", op);
+        }
+    }
+
+    /**
+     * Traduce un evento a su registro de segmento, o null si no afecta datos.
+     */
+    private static BsonDocument registro(ChangeStreamDocument<BsonDocument> evento) {
+        if (evento.getNamespace() == null) {
+            return null;
+        }
+        BsonDocument registro = new BsonDocument("coll", new BsonString(evento.getNamespace().getCollectionName()));
+        BsonValue id = evento.getDocumentKey() == null ? null : evento.getDocumentKey().get("_id");
+        switch (evento.getOperationType()) {
+            case INSERT:
+            case UPDATE:
+            case REPLACE:
+                if (evento.getFullDocument() == null) {
+                    // Borrado después del cambio; el evento delete correspondiente llegará más adelante
+                    return null;
+                }
+                registro.append("op", new BsonString("upsert"))
+                        .append("_id", id)
+                        .append("doc", evento.getFullDocument());
+                break;
+            case DELETE:
+                registro.append("op", new BsonString("delete")).append("_id", id);
+                break;
+            case DROP:
+                registro.append("op", new BsonString("drop"));
+                break;
+            default:
+                return null;
+        }
+        return registro;
+    }
+
+    // Devuelve los bytes escritos
+    private static int escribir(FileChannel canal, BsonDocument registro) throws IOException {
+        ByteBuffer bytes = new RawBsonDocument(registro, new BsonDocumentCodec()).getByteBuffer().asNIO();
+        int tamaño = bytes.remaining();
+        while (bytes.hasRemaining()) {
+            canal.write(bytes);
+        }
+        return tamaño;
+    }
+
+    private static void guardarToken(Path directorioBackup, BsonDocument token) throws IOException {
+        Path archivo = directorioBackup.resolve(PUNTO_REANUDACION);
+        Path temporal = archivo.resolveSibling(PUNTO_REANUDACION + ".tmp");
+        FormatoDump.escribirJson(temporal, new BsonDocument("token", token));
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static List<Path> segmentos(Path directorio) throws IOException {
+        try (Stream<Path> listado = Files.list(directorio)) {
+            return listado
+                    .filter(p -> p.getFileName().toString().endsWith(EXTENSION_SEGMENTO))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static int siguienteNumero(Path directorio) throws IOException {
+        List<Path> existentes = segmentos(directorio);
+        if (existentes.isEmpty()) {
+            return 1;
+        }
+        String ultimo = existentes.get(existentes.size() - 1).getFileName().toString();
+        return Integer.parseInt(ultimo.substring(0, ultimo.length() - EXTENSION_SEGMENTO.length())) + 1;
+    }
+}
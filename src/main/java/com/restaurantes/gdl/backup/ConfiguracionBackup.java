@@ -0,0 +1,44 @@
+package com.restaurantes.gdl.backup;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.zip.Deflater;
+
+/**
+ * Parámetros del motor de backup nativo.
+ */
+@Value
+@Builder
+public class ConfiguracionBackup {
+
+    // Lectores concurrentes por colección, cada uno sobre un rango de _id
+    @Builder.Default
+    int lectores = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    // Bytes que acumula cada lector antes de escribir al archivo
+    @Builder.Default
+    int tamañoBuffer = 8 * 1024 * 1024;
+
+    // Por debajo de esta cantidad de documentos no vale la pena particionar
+    @Builder.Default
+    long minimoDocumentosParticion = 50_000;
+
+    // Escribe <coleccion>.bson.dfz en bloques deflate independientes en lugar del .bson
+    @Builder.Default
+    boolean comprimir = false;
+
+    // Tamaño máximo sin comprimir de cada bloque; los bloques terminan en frontera de documento
+    @Builder.Default
+    int tamañoBloque = 1024 * 1024;
+
+    @Builder.Default
+    int nivelCompresion = Deflater.DEFAULT_COMPRESSION;
+
+    @Builder.Default
+    int compresores = Runtime.getRuntime().availableProcessors();
+
+    public static ConfiguracionBackup porDefecto() {
+        return ConfiguracionBackup.builder().build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.restaurantes.gdl.backup;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Parámetros de la restauración nativa.
+ */
+@Value
+@Builder
+public class ConfiguracionRestauracion {
+
+    // Hilos que insertan segmentos del archivo en paralelo
+    @Builder.Default
+    int escritores = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    @Builder.Default
+    int tamañoLote = 1000;
+
+    @Builder.Default
+    int bytesMaximosLote = 8 * 1024 * 1024;
+
+    // Equivalente a mongorestore --drop
+    @Builder.Default
+    boolean eliminarAntes = true;
+
+    public static ConfiguracionRestauracion porDefecto() {
+        return ConfiguracionRestauracion.builder().build();
+    }
+}
@@ -0,0 +1,83 @@
+package com.restaurantes.gdl.backup;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+import org.bson.BsonDouble;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+
+import java.util.List;
+
+/**
+ * Consulta sobre un archivo de backup, ejecutada por {@link MotorConsultaDump} sin servidor.
+ * <pre>
+ * ConsultaDump.builder()
+ *     .filtro(ConsultaDump.igual("municipio", "Zapopan"))
+ *     .filtro(ConsultaDump.rango("calificacion", 4.0, null))
+ *     .agruparPor("tipoComida")
+ *     .promedio("precioPromedio")
+ *     .build();
+ * </pre>
+ * Los filtros se combinan con AND y aplican a campos de primer nivel. Sin {@code agruparPor}
+ * se devuelven hasta {@code limite} documentos con los {@code campos} indicados (todos si no
+ * se indica ninguno).
+ */
+@Value
+@Builder
+public class ConsultaDump {
+
+    @Singular("filtro")
+    List<Filtro> filtros;
+
+    @Singular("campo")
+    List<String> campos;
+
+    String agruparPor;
+
+    @Singular("promedio")
+    List<String> promedios;
+
+    @Builder.Default
+    int limite = 100;
+
+    /**
+     * Condición sobre un campo: igualdad si {@code igual} no es null; si no, rango numérico
+     * inclusivo con límites opcionales.
+     */
+    public record Filtro(String campo, BsonValue igual, Double minimo, Double maximo) {
+
+        boolean acepta(BsonValue valor) {
+            if (valor == null) {
+                return false;
+            }
+            if (igual != null) {
+                if (igual.isNumber() && valor.isNumber()) {
+                    return igual.asNumber().doubleValue() == valor.asNumber().doubleValue();
+                }
+                return igual.equals(valor);
+            }
+            if (!valor.isNumber()) {
+                return false;
+            }
+            double numero = valor.asNumber().doubleValue();
+            return (minimo == null || numero >= minimo) && (maximo == null || numero <= maximo);
+        }
+    }
+
+    public static Filtro igual(String campo, String valor) {
+        return new Filtro(campo, new BsonString(valor), null, null);
+    }
+
+    public static Filtro igual(String campo, double valor) {
+        return new Filtro(campo, new BsonDouble(valor), null, null);
+    }
+
+    /**
+     * @param minimo null para no acotar por abajo
+     * @param maximo null para no acotar por arriba
+     */
+    public static Filtro rango(String campo, Double minimo, Double maximo) {
+        return new Filtro(campo, null, minimo, maximo);
+    }
+}
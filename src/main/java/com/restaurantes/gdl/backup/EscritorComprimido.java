@@ -0,0 +1,194 @@
+package com.restaurantes.gdl.backup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Escribe un {@code .bson.dfz} (formato en {@link ArchivoComprimido}).
+ * <p>
+ * Los bloques llegan completos, se comprimen en un pool y se escriben en el orden en que
+ * llegaron; una cola acotada de bloques pendientes limita la memoria y frena a los productores
+ * cuando la compresión no da abasto. Lo pueden alimentar varios lectores a la vez.
+ * <p>
+ * Solo un {@link #close()} exitoso deja un archivo: si el cierre falla, o si el llamador
+ * invoca {@link #abortar()} porque un lector falló, el archivo se borra en lugar de quedar
+ * truncado con un índice que lo haga pasar por completo.
+ */
+public class EscritorComprimido implements AutoCloseable {
+
+    // Un Deflater por hilo del pool: crearlos reserva memoria nativa
+    private static final ThreadLocal<Deflater> DEFLATERS =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+
+    private final Path ruta;
+    private final FileChannel canal;
+    private final ExecutorService compresores;
+    private final int nivel;
+    private final int maximoPendientes;
+    private final ArrayDeque<Future<Comprimido>> pendientes = new ArrayDeque<>();
+    private final List<ArchivoComprimido.Bloque> indice = new ArrayList<>();
+    private long posicion = ArchivoComprimido.TAMAÑO_CABECERA;
+    private long bytesOriginales;
+    private boolean cerrado;
+
+    private record Comprimido(byte[] datos, int longitud, int original, int documentos, int crc) {
+    }
+
+    public EscritorComprimido(Path ruta, ExecutorService compresores, int tamañoBloque, int nivel,
+                              int maximoPendientes) throws IOException {
+        this.ruta = ruta;
+        this.canal = FileChannel.open(ruta, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        this.compresores = compresores;
+        this.nivel = nivel;
+        this.maximoPendientes = maximoPendientes;
+        ByteBuffer cabecera = ByteBuffer.allocate(ArchivoComprimido.TAMAÑO_CABECERA).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(ArchivoComprimido.MAGIC)
+                .putInt(ArchivoComprimido.VERSION)
+                .putInt(tamañoBloque)
+                .putInt(nivel);
+        escribir(cabecera.flip(), 0);
+    }
+
+    /**
+     * Encola un bloque de documentos completos. El arreglo pasa a ser del escritor.
+     */
+    public synchronized void agregarBloque(byte[] datos, int longitud, int documentos) throws IOException {
+        if (cerrado) {
+            throw new IOException("El escritor ya se cerró o se abortó: " + ruta);
+        }
+        pendientes.add(compresores.submit(() -> comprimir(datos, longitud, documentos)));
+        bytesOriginales += longitud;
+        while (pendientes.size() > maximoPendientes || (!pendientes.isEmpty() && pendientes.peek().isDone())) {
+            escribirSiguiente();
+        }
+    }
+
+    public synchronized long getBytesOriginales() {
+        return bytesOriginales;
+    }
+
+    /**
+     * Bytes comprimidos escritos hasta ahora, sin contar índice ni cola.
+     */
+    public synchronized long getBytesComprimidos() {
+        return posicion - ArchivoComprimido.TAMAÑO_CABECERA;
+    }
+
+    public synchronized long getDocumentos() {
+        long total = 0;
+        for (ArchivoComprimido.Bloque bloque : indice) {
+            total += bloque.documentos();
+        }
+        return total;
+    }
+
+    /**
+     * Escribe los bloques pendientes, el índice y la cola. No hace nada si ya se abortó.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (cerrado) {
+            return;
+        }
+        boolean completo = false;
+        try {
+            while (!pendientes.isEmpty()) {
+                escribirSiguiente();
+            }
+            ByteBuffer datosIndice = ByteBuffer
+                    .allocate(indice.size() * ArchivoComprimido.TAMAÑO_ENTRADA + ArchivoComprimido.TAMAÑO_COLA)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            for (ArchivoComprimido.Bloque bloque : indice) {
+                datosIndice.putLong(bloque.posicion())
+                        .putInt(bloque.comprimido())
+                        .putInt(bloque.original())
+                        .putInt(bloque.documentos())
+                        .putInt(bloque.crc());
+            }
+            datosIndice.putLong(posicion).putInt(indice.size()).putInt(ArchivoComprimido.MAGIC);
+            escribir(datosIndice.flip(), posicion);
+            canal.force(false);
+            completo = true;
+        } finally {
+            descartarPendientes();
+            if (!completo) {
+                Files.deleteIfExists(ruta);
+            }
+        }
+    }
+
+    /**
+     * Descarta lo pendiente y borra el archivo sin escribir índice ni cola, para que un backup
+     * incompleto no pase por válido. Después de abortar, {@link #close()} no hace nada.
+     */
+    public synchronized void abortar() throws IOException {
+        if (cerrado) {
+            return;
+        }
+        descartarPendientes();
+        Files.deleteIfExists(ruta);
+    }
+
+    private void descartarPendientes() throws IOException {
+        cerrado = true;
+        pendientes.forEach(p -> p.cancel(true));
+        pendientes.clear();
+        canal.close();
+    }
+
+    private void escribirSiguiente() throws IOException {
+        Comprimido bloque;
+        try {
+            bloque = pendientes.poll().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Compresión interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error al comprimir un bloque", e.getCause());
+        }
+        escribir(ByteBuffer.wrap(bloque.datos(), 0, bloque.longitud()), posicion);
+        indice.add(new ArchivoComprimido.Bloque(posicion, bloque.longitud(), bloque.original(),
+                bloque.documentos(), bloque.crc()));
+        posicion += bloque.longitud();
+    }
+
+    private Comprimido comprimir(byte[] datos, int longitud, int documentos) {
+        Deflater deflater = DEFLATERS.get();
+        deflater.reset();
+        deflater.setLevel(nivel);
+        deflater.setInput(datos, 0, longitud);
+        deflater.finish();
+        // Datos incompresibles pueden crecer un poco con deflate
+        byte[] salida = new byte[longitud + longitud / 1000 + 64];
+        int escritos = 0;
+        while (!deflater.finished()) {
+            if (escritos == salida.length) {
+                salida = Arrays.copyOf(salida, salida.length * 2);
+            }
+            escritos += deflater.deflate(salida, escritos, salida.length - escritos);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(datos, 0, longitud);
+        return new Comprimido(salida, escritos, longitud, documentos, (int) crc.getValue());
+    }
+
+    private void escribir(ByteBuffer datos, long destino) throws IOException {
+        while (datos.hasRemaining()) {
+            destino += canal.write(datos, destino);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.restaurantes.gdl.backup;
+
+import org.bson.BsonDocument;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Convenciones del formato de directorio de mongodump, compartidas por el backup y la
+ * restauración nativos para que los directorios {@code backups/backup_*} sigan siendo
+ * intercambiables con {@code mongodump}/{@code mongorestore}.
+ * <pre>
+ * backup_YYYYMMDD_HHMMSS/
+ *   prelude.json
+ *   &lt;db&gt;/&lt;coleccion&gt;.bson
+ *   &lt;db&gt;/&lt;coleccion&gt;.metadata.json
+ * </pre>
+ * Un backup comprimido usa {@code <coleccion>.bson.dfz} ({@link ArchivoComprimido}) en lugar
+ * del {@code .bson}; ese archivo solo lo entiende la restauración nativa.
+ */
+public final class FormatoDump {
+
+    public static final String PRELUDE = "prelude.json";
+    public static final String EXTENSION_BSON = ".bson";
+    public static final String EXTENSION_BSON_COMPRIMIDO = ".bson.dfz";
+    public static final String EXTENSION_METADATA = ".metadata.json";
+
+    // mongodump escribe la metadata en Extended JSON canónico ({"$numberInt": "2"})
+    public static final JsonWriterSettings JSON = JsonWriterSettings.builder()
+            .outputMode(JsonMode.EXTENDED)
+            .build();
+
+    private FormatoDump() {
+    }
+
+    public static Path archivoBson(Path directorioDb, String coleccion) {
+        return directorioDb.resolve(coleccion + EXTENSION_BSON);
+    }
+
+    public static Path archivoBsonComprimido(Path directorioDb, String coleccion) {
+        return directorioDb.resolve(coleccion + EXTENSION_BSON_COMPRIMIDO);
+    }
+
+    public static Path archivoMetadata(Path directorioDb, String coleccion) {
+        return directorioDb.resolve(coleccion + EXTENSION_METADATA);
+    }
+
+    public static void escribirJson(Path archivo, BsonDocument documento) throws IOException {
+        Files.writeString(archivo, documento.toJson(JSON), StandardCharsets.UTF_8);
+    }
+
+    public static BsonDocument leerJson(Path archivo) throws IOException {
+        return BsonDocument.parse(Files.readString(archivo, StandardCharsets.UTF_8));
+    }
+}
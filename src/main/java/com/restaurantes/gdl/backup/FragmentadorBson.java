@@ -0,0 +1,106 @@
+package com.restaurantes.gdl.backup;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Corta una secuencia de documentos BSON en chunks definidos por contenido y los guarda en
+ * un {@link RepositorioBackup}.
+ * <p>
+ * Un chunk termina después de un documento cuyo hash cumple una máscara, así que los cortes
+ * dependen solo del contenido cercano: un documento modificado cambia uno o dos chunks y el
+ * resto coincide con los del backup anterior. Cada lector de rango usa su propio fragmentador.
+ */
+class FragmentadorBson implements MotorBackup.DestinoRango {
+
+    static final int TAMAÑO_MINIMO = 64 * 1024;
+    static final int TAMAÑO_MAXIMO = 8 * 1024 * 1024;
+
+    // Un corte cada ~1024 documentos en promedio (~400 KB con los documentos del catálogo)
+    private static final long MASCARA_CORTE = (1 << 10) - 1;
+
+    private static final long FNV_BASE = 0xcbf29ce484222325L;
+    private static final long FNV_PRIMO = 0x100000001b3L;
+
+    private final RepositorioBackup repositorio;
+    private final BsonArray chunks = new BsonArray();
+
+    private byte[] buffer = new byte[TAMAÑO_MINIMO * 4];
+    private int usados;
+    private long documentosChunk;
+
+    private long documentos;
+    private long bytes;
+    private long bytesNuevos;
+
+    FragmentadorBson(RepositorioBackup repositorio) {
+        this.repositorio = repositorio;
+    }
+
+    @Override
+    public void agregar(ByteBuffer documento) throws IOException {
+        int longitud = documento.remaining();
+        if (usados + longitud > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, usados + longitud));
+        }
+        int inicio = usados;
+        documento.get(buffer, inicio, longitud);
+        usados += longitud;
+        documentosChunk++;
+
+        long hash = FNV_BASE;
+        for (int i = inicio; i < usados; i++) {
+            hash = (hash ^ (buffer[i] & 0xff)) * FNV_PRIMO;
+        }
+        if ((usados >= TAMAÑO_MINIMO && (hash & MASCARA_CORTE) == 0) || usados >= TAMAÑO_MAXIMO) {
+            cortar();
+        }
+    }
+
+    @Override
+    public void terminar() throws IOException {
+        if (usados > 0) {
+            cortar();
+        }
+    }
+
+    private void cortar() throws IOException {
+        String hash = RepositorioBackup.hash(buffer, usados);
+        if (repositorio.guardarChunk(hash, buffer, usados)) {
+            bytesNuevos += usados;
+        }
+        chunks.add(new BsonDocument("hash", new BsonString(hash))
+                .append("bytes", new BsonInt64(usados))
+                .append("documentos", new BsonInt64(documentosChunk)));
+        documentos += documentosChunk;
+        bytes += usados;
+        usados = 0;
+        documentosChunk = 0;
+        if (buffer.length > TAMAÑO_MAXIMO) {
+            // Un documento enorme hizo crecer el buffer; no se retiene
+            buffer = new byte[TAMAÑO_MINIMO * 4];
+        }
+    }
+
+    BsonArray getChunks() {
+        return chunks;
+    }
+
+    long getDocumentos() {
+        return documentos;
+    }
+
+    long getBytes() {
+        return bytes;
+    }
+
+    long getBytesNuevos() {
+        return bytesNuevos;
+    }
+}
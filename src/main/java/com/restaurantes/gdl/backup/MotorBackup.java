@@ -0,0 +1,450 @@
+package com.restaurantes.gdl.backup;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import org.bson.BsonArray;
+import org.bson.BsonBinary;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Backup nativo en Java, sin depender de las MongoDB Database Tools.
+ * <p>
+ * Cada colección se parte en rangos de {@code _id} (límites tomados de una muestra
+ * {@code $sample}) que leen en paralelo varios cursores de {@link RawBsonDocument}: los bytes
+ * llegan del servidor y se copian al archivo sin decodificarse. Cada lector acumula un buffer
+ * grande y reserva su posición en el {@code .bson} con un contador atómico, de modo que las
+ * escrituras posicionales de {@link FileChannel} no se bloquean entre sí. El resultado usa
+ * la misma estructura que mongodump, así que {@code mongorestore} lo acepta tal cual.
+ * Si el servidor admite change streams, el backup queda listo para encadenar incrementales
+ * ({@link BackupIncremental}). Como alternativa al directorio, el mismo recorrido puede
+ * escribir a un {@link RepositorioBackup} deduplicado.
+ */
+public class MotorBackup {
+
+    private static final Logger logger = LoggerFactory.getLogger(MotorBackup.class);
+
+    private static final String VERSION_HERRAMIENTA = "restaurantes-gdl-java";
+
+    private final MongoClient mongoClient;
+    private final String databaseName;
+    private final ConfiguracionBackup config;
+    private final ProgresoBackup progreso;
+
+    public MotorBackup(MongoClient mongoClient, String databaseName, ConfiguracionBackup config) {
+        this(mongoClient, databaseName, config, new ProgresoBackup());
+    }
+
+    /**
+     * @param progreso se actualiza durante el backup; su {@link ProgresoBackup#cancelar()} lo
+     *                 interrumpe con {@link CancellationException}
+     */
+    public MotorBackup(MongoClient mongoClient, String databaseName, ConfiguracionBackup config,
+                       ProgresoBackup progreso) {
+        this.mongoClient = mongoClient;
+        this.databaseName = databaseName;
+        this.config = config;
+        this.progreso = progreso;
+    }
+
+    /**
+     * Escribe el backup completo de la base en {@code destino} (que no debe existir aún).
+     */
+    public ResultadoBackup respaldar(Path destino) throws IOException {
+        long inicio = System.nanoTime();
+        MongoDatabase database = mongoClient.getDatabase(databaseName);
+        Path directorioDb = destino.resolve(databaseName);
+        Files.createDirectories(directorioDb);
+
+        FormatoDump.escribirJson(destino.resolve(FormatoDump.PRELUDE), prelude());
+        // El punto de reanudación se toma antes de leer datos: lo escrito durante el volcado
+        // se vuelve a aplicar (de forma idempotente) con el primer incremental
+        new BackupIncremental(mongoClient, databaseName).registrarPuntoInicial(destino);
+
+        ExecutorService lectores = Executors.newFixedThreadPool(config.getLectores(), hilos("backup-lector-"));
+        ExecutorService compresores = config.isComprimir()
+                ? Executors.newFixedThreadPool(config.getCompresores(), hilos("backup-compresor-"))
+                : null;
+        long documentos = 0;
+        long bytes = 0;
+        int colecciones = 0;
+        try {
+            for (BsonDocument info : coleccionesConDatos(database)) {
+                long[] totales = compresores == null
+                        ? respaldarColeccion(database, info, directorioDb, lectores)
+                        : respaldarColeccionComprimida(database, info, directorioDb, lectores, compresores);
+                documentos += totales[0];
+                bytes += totales[1];
+                colecciones++;
+            }
+        } finally {
+            lectores.shutdownNow();
+            if (compresores != null) {
+                compresores.shutdownNow();
+            }
+        }
+
+        long duracionMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        return new ResultadoBackup(destino, colecciones, documentos, bytes, duracionMs);
+    }
+
+    /**
+     * Escribe el backup en un repositorio deduplicado: los documentos se cortan en chunks por
+     * contenido mientras se leen y solo se guardan los chunks que el repositorio no tenía.
+     * El manifiesto se escribe al final, cuando todos sus chunks ya existen.
+     */
+    public ResultadoBackup respaldar(RepositorioBackup repositorio, String nombre) throws IOException {
+        long inicio = System.nanoTime();
+        MongoDatabase database = mongoClient.getDatabase(databaseName);
+        BsonArray colecciones = new BsonArray();
+
+        ExecutorService lectores = Executors.newFixedThreadPool(config.getLectores(), hilos("backup-lector-"));
+        long documentos = 0;
+        long bytes = 0;
+        long bytesNuevos = 0;
+        try {
+            for (BsonDocument info : coleccionesConDatos(database)) {
+                String coleccion = info.getString("name").getValue();
+                List<FragmentadorBson> fragmentadores = new ArrayList<>();
+                leerColeccion(database, coleccion, lectores, () -> {
+                    FragmentadorBson fragmentador = new FragmentadorBson(repositorio);
+                    fragmentadores.add(fragmentador);
+                    return fragmentador;
+                });
+
+                // Los chunks de cada rango se concatenan en el orden de los rangos
+                BsonArray chunks = new BsonArray();
+                long documentosColeccion = 0;
+                long bytesColeccion = 0;
+                for (FragmentadorBson fragmentador : fragmentadores) {
+                    chunks.addAll(fragmentador.getChunks());
+                    documentosColeccion += fragmentador.getDocumentos();
+                    bytesColeccion += fragmentador.getBytes();
+                    bytesNuevos += fragmentador.getBytesNuevos();
+                }
+                colecciones.add(new BsonDocument("nombre", new BsonString(coleccion))
+                        .append("documentos", new BsonInt64(documentosColeccion))
+                        .append("bytes", new BsonInt64(bytesColeccion))
+                        .append("sha256", new BsonString(RepositorioBackup.checksum(chunks)))
+                        .append("metadata", metadata(database, info))
+                        .append("chunks", chunks));
+                documentos += documentosColeccion;
+                bytes += bytesColeccion;
+            }
+        } finally {
+            lectores.shutdownNow();
+        }
+
+        repositorio.guardarManifiesto(nombre, new BsonDocument("nombre", new BsonString(nombre))
+                .append("fecha", new BsonDateTime(System.currentTimeMillis()))
+                .append("baseDatos", new BsonString(databaseName))
+                .append("documentos", new BsonInt64(documentos))
+                .append("bytes", new BsonInt64(bytes))
+                .append("prelude", prelude())
+                .append("colecciones", colecciones));
+
+        long duracionMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        logger.info("Repositorio: {} MB nuevos de {} MB respaldados",
+                String.format("%.2f", bytesNuevos / (1024.0 * 1024.0)),
+                String.format("%.2f", bytes / (1024.0 * 1024.0)));
+        return new ResultadoBackup(repositorio.getRaiz(), colecciones.size(), documentos, bytes, duracionMs);
+    }
+
+    private List<BsonDocument> coleccionesConDatos(MongoDatabase database) {
+        List<BsonDocument> colecciones = new ArrayList<>();
+        for (BsonDocument info : database.listCollections(BsonDocument.class)) {
+            String nombre = info.getString("name").getValue();
+            if (nombre.startsWith("system.")) {
+                continue;
+            }
+            if (!"collection".equals(info.getString("type", new BsonString("collection")).getValue())) {
+                logger.warn("Se omite '{}': las vistas no contienen datos", nombre);
+                continue;
+            }
+            colecciones.add(info);
+            progreso.sumarEstimados(database.getCollection(nombre).estimatedDocumentCount());
+        }
+        return colecciones;
+    }
+
+    private long[] respaldarColeccion(MongoDatabase database, BsonDocument info, Path directorioDb,
+                                      ExecutorService lectores) throws IOException {
+        String nombre = info.getString("name").getValue();
+        AtomicLong posicion = new AtomicLong();
+        long documentos;
+        try (FileChannel canal = FileChannel.open(FormatoDump.archivoBson(directorioDb, nombre),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            documentos = leerColeccion(database, nombre, lectores, () -> new DestinoArchivo(canal, posicion));
+            canal.force(false);
+        }
+
+        FormatoDump.escribirJson(FormatoDump.archivoMetadata(directorioDb, nombre), metadata(database, info));
+        return new long[]{documentos, posicion.get()};
+    }
+
+    /**
+     * Variante comprimida: cada lector arma bloques de documentos completos y el escritor
+     * los comprime en el pool {@code compresores}.
+     */
+    private long[] respaldarColeccionComprimida(MongoDatabase database, BsonDocument info, Path directorioDb,
+                                                ExecutorService lectores, ExecutorService compresores)
+            throws IOException {
+        String nombre = info.getString("name").getValue();
+        EscritorComprimido escritor = new EscritorComprimido(
+                FormatoDump.archivoBsonComprimido(directorioDb, nombre), compresores,
+                config.getTamañoBloque(), config.getNivelCompresion(), config.getCompresores() * 2);
+        long documentos;
+        try (escritor) {
+            try {
+                documentos = leerColeccion(database, nombre, lectores, () -> new DestinoBloques(escritor));
+            } catch (IOException | RuntimeException e) {
+                // Cerrarlo escribiría el índice de un archivo incompleto
+                escritor.abortar();
+                throw e;
+            }
+        }
+        long originales = escritor.getBytesOriginales();
+        long comprimidos = escritor.getBytesComprimidos();
+        logger.info("'{}' comprimida: {} MB → {} MB", nombre,
+                String.format("%.2f", originales / (1024.0 * 1024.0)),
+                String.format("%.2f", comprimidos / (1024.0 * 1024.0)));
+
+        FormatoDump.escribirJson(FormatoDump.archivoMetadata(directorioDb, nombre), metadata(database, info));
+        return new long[]{documentos, originales};
+    }
+
+    /**
+     * Lee la colección en paralelo por rangos de {@code _id}; cada rango escribe en un destino
+     * propio creado (en orden de rango) por {@code destinos}.
+     */
+    private long leerColeccion(MongoDatabase database, String nombre, ExecutorService lectores,
+                               Supplier<DestinoRango> destinos) throws IOException {
+        MongoCollection<RawBsonDocument> coleccion = database.getCollection(nombre, RawBsonDocument.class);
+        List<Bson> rangos = RangosId.particionar(coleccion, config.getLectores(), config.getMinimoDocumentosParticion());
+        logger.info("Respaldando '{}' con {} lector(es)...", nombre, rangos.size());
+
+        AtomicLong documentos = new AtomicLong();
+        List<Future<?>> tareas = new ArrayList<>();
+        for (Bson rango : rangos) {
+            DestinoRango destino = destinos.get();
+            tareas.add(lectores.submit(() -> {
+                documentos.addAndGet(leerRango(coleccion, rango, destino));
+                return null;
+            }));
+        }
+        esperar(tareas);
+        return documentos.get();
+    }
+
+    private long leerRango(MongoCollection<RawBsonDocument> coleccion, Bson rango,
+                           DestinoRango destino) throws IOException {
+        long leidos = 0;
+        try (MongoCursor<RawBsonDocument> cursor = coleccion.find(rango)
+                .hint(new BsonDocument("_id", new BsonInt32(1)))
+                .batchSize(10_000)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                ByteBuffer doc = cursor.next().getByteBuffer().asNIO();
+                progreso.registrar(doc.remaining());
+                destino.agregar(doc);
+                if ((++leidos & 1023) == 0) {
+                    progreso.revisarCancelacion();
+                }
+            }
+        }
+        destino.terminar();
+        return leidos;
+    }
+
+    /**
+     * Recibe los documentos de un rango en el orden del cursor.
+     */
+    interface DestinoRango {
+        void agregar(ByteBuffer documento) throws IOException;
+
+        void terminar() throws IOException;
+    }
+
+    /**
+     * Destino en el {@code .bson}: acumula en un buffer directo y reserva su posición en el
+     * archivo con un contador compartido entre los lectores.
+     */
+    private final class DestinoArchivo implements DestinoRango {
+        private final FileChannel canal;
+        private final AtomicLong posicion;
+        private ByteBuffer buffer;
+
+        DestinoArchivo(FileChannel canal, AtomicLong posicion) {
+            this.canal = canal;
+            this.posicion = posicion;
+        }
+
+        @Override
+        public void agregar(ByteBuffer doc) throws IOException {
+            if (buffer == null) {
+                // Se reserva en el hilo lector, no al crear el destino
+                buffer = ByteBuffer.allocateDirect(config.getTamañoBuffer());
+            }
+            if (doc.remaining() > buffer.remaining()) {
+                volcar(buffer, canal, posicion);
+                if (doc.remaining() > buffer.capacity()) {
+                    // Documento más grande que el buffer: se escribe directo
+                    escribirEn(doc, canal, posicion);
+                    return;
+                }
+            }
+            buffer.put(doc);
+        }
+
+        @Override
+        public void terminar() throws IOException {
+            if (buffer != null) {
+                volcar(buffer, canal, posicion);
+            }
+        }
+    }
+
+    /**
+     * Destino comprimido: junta documentos hasta el tamaño de bloque y entrega cada bloque
+     * al {@link EscritorComprimido}. Un documento mayor que el bloque va solo en el suyo.
+     */
+    private final class DestinoBloques implements DestinoRango {
+        private final EscritorComprimido escritor;
+        private byte[] bloque;
+        private int usados;
+        private int documentos;
+
+        DestinoBloques(EscritorComprimido escritor) {
+            this.escritor = escritor;
+        }
+
+        @Override
+        public void agregar(ByteBuffer doc) throws IOException {
+            int longitud = doc.remaining();
+            if (bloque != null && usados + longitud > bloque.length) {
+                entregar();
+            }
+            if (bloque == null) {
+                bloque = new byte[Math.max(config.getTamañoBloque(), longitud)];
+            }
+            doc.get(bloque, usados, longitud);
+            usados += longitud;
+            documentos++;
+        }
+
+        @Override
+        public void terminar() throws IOException {
+            if (usados > 0) {
+                entregar();
+            }
+        }
+
+        private void entregar() throws IOException {
+            // El arreglo pasa al escritor; el siguiente bloque usa uno nuevo
+            escritor.agregarBloque(bloque, usados, documentos);
+            bloque = null;
+            usados = 0;
+            documentos = 0;
+        }
+    }
+
+    private static void volcar(ByteBuffer buffer, FileChannel canal, AtomicLong posicion) throws IOException {
+        buffer.flip();
+        if (buffer.hasRemaining()) {
+            escribirEn(buffer, canal, posicion);
+        }
+        buffer.clear();
+    }
+
+    private static void escribirEn(ByteBuffer datos, FileChannel canal, AtomicLong posicion) throws IOException {
+        long destino = posicion.getAndAdd(datos.remaining());
+        while (datos.hasRemaining()) {
+            destino += canal.write(datos, destino);
+        }
+    }
+
+    private BsonDocument prelude() {
+        BsonDocument buildInfo = mongoClient.getDatabase("admin")
+                .runCommand(new BsonDocument("buildInfo", new BsonInt32(1)), BsonDocument.class);
+        return new BsonDocument()
+                .append("ServerVersion", buildInfo.getString("version", new BsonString("")))
+                .append("ToolVersion", new BsonString(VERSION_HERRAMIENTA));
+    }
+
+    private static BsonDocument metadata(MongoDatabase database, BsonDocument info) {
+        String nombre = info.getString("name").getValue();
+        BsonArray indices = new BsonArray();
+        database.getCollection(nombre).listIndexes(BsonDocument.class).forEach(indices::add);
+
+        BsonDocument metadata = new BsonDocument();
+        BsonDocument opciones = info.getDocument("options", new BsonDocument());
+        if (!opciones.isEmpty()) {
+            metadata.append("options", opciones);
+        }
+        metadata.append("indexes", indices);
+        BsonDocument infoColeccion = info.getDocument("info", new BsonDocument());
+        if (infoColeccion.isBinary("uuid")) {
+            BsonBinary uuid = infoColeccion.getBinary("uuid");
+            metadata.append("uuid", new BsonString(HexFormat.of().formatHex(uuid.getData())));
+        }
+        metadata.append("collectionName", new BsonString(nombre));
+        metadata.append("type", new BsonString("collection"));
+        return metadata;
+    }
+
+    private static void esperar(List<Future<?>> tareas) throws IOException {
+        try {
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            tareas.forEach(t -> t.cancel(true));
+            throw new IOException("Backup interrumpido", e);
+        } catch (ExecutionException e) {
+            tareas.forEach(t -> t.cancel(true));
+            if (e.getCause() instanceof CancellationException cancelacion) {
+                throw cancelacion;
+            }
+            throw new IOException("Error al leer la colección", e.getCause());
+        }
+    }
+
+    private static ThreadFactory hilos(String prefijo) {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefijo + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
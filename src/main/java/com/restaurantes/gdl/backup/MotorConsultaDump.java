@@ -0,0 +1,320 @@
+package com.restaurantes.gdl.backup;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.ByteBufNIO;
+import org.bson.RawBsonDocument;
+import org.bson.io.ByteBufferBsonInput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecuta consultas directamente sobre un {@code .bson} o {@code .bson.dfz} de backup, sin
+ * restaurarlo ni necesitar un servidor.
+ * <p>
+ * El archivo se parte en segmentos (o bloques, si está comprimido) que se procesan en
+ * paralelo. Por documento se hace una sola pasada que lee solo los campos que la consulta
+ * usa y salta el resto sin decodificarlo; únicamente los documentos que coinciden y se
+ * devuelven se copian a un {@link RawBsonDocument}, del que la proyección toma sus campos
+ * de forma perezosa.
+ */
+public class MotorConsultaDump {
+
+    private static final String SIN_VALOR = "(sin valor)";
+
+    private final int hilos;
+
+    public MotorConsultaDump(int hilos) {
+        this.hilos = hilos;
+    }
+
+    /**
+     * Ubica el archivo de una colección dentro de un directorio de backup, comprimido o no.
+     */
+    public static Path archivoColeccion(Path directorioBackup, String baseDatos, String coleccion) throws IOException {
+        Path directorioDb = directorioBackup.resolve(baseDatos);
+        Path bson = FormatoDump.archivoBson(directorioDb, coleccion);
+        if (Files.exists(bson)) {
+            return bson;
+        }
+        Path comprimido = FormatoDump.archivoBsonComprimido(directorioDb, coleccion);
+        if (Files.exists(comprimido)) {
+            return comprimido;
+        }
+        throw new IOException("La colección '" + coleccion + "' no está en el backup " + directorioBackup);
+    }
+
+    public ResultadoConsultaDump ejecutar(Path archivo, ConsultaDump consulta) throws IOException {
+        long inicio = System.nanoTime();
+        Plan plan = new Plan(consulta);
+        ExecutorService pool = Executors.newFixedThreadPool(hilos, hilos());
+        List<Parcial> parciales;
+        try {
+            if (archivo.getFileName().toString().endsWith(FormatoDump.EXTENSION_BSON_COMPRIMIDO)) {
+                try (ArchivoComprimido bloques = new ArchivoComprimido(archivo)) {
+                    List<Callable<Parcial>> tareas = new ArrayList<>();
+                    for (int i = 0; i < bloques.cantidadBloques(); i++) {
+                        int bloque = i;
+                        tareas.add(() -> plan.procesar(bloques.leerBloque(bloque)));
+                    }
+                    parciales = ejecutar(pool, tareas);
+                }
+            } else {
+                try (ArchivoBson bson = new ArchivoBson(archivo)) {
+                    List<Callable<Parcial>> tareas = new ArrayList<>();
+                    for (ArchivoBson.Segmento segmento : bson.segmentar(hilos * 4)) {
+                        tareas.add(() -> plan.procesar(bson.mapear(segmento)));
+                    }
+                    parciales = ejecutar(pool, tareas);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return plan.combinar(parciales, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+    }
+
+    /**
+     * La consulta traducida a índices: cada campo que se lee tiene una posición fija en el
+     * arreglo de valores de un documento.
+     */
+    private static final class Plan {
+        private final ConsultaDump consulta;
+        private final String[] leidos;
+        private final int[] indiceFiltro;
+        private final int indiceGrupo;
+        private final int[] indicePromedio;
+
+        Plan(ConsultaDump consulta) {
+            this.consulta = consulta;
+            Set<String> campos = new LinkedHashSet<>();
+            consulta.getFiltros().forEach(f -> campos.add(f.campo()));
+            if (consulta.getAgruparPor() != null) {
+                campos.add(consulta.getAgruparPor());
+                campos.addAll(consulta.getPromedios());
+            }
+            this.leidos = campos.toArray(new String[0]);
+            this.indiceFiltro = consulta.getFiltros().stream().mapToInt(f -> indice(f.campo())).toArray();
+            this.indiceGrupo = consulta.getAgruparPor() == null ? -1 : indice(consulta.getAgruparPor());
+            this.indicePromedio = consulta.getPromedios().stream().mapToInt(this::indice).toArray();
+        }
+
+        private int indice(String campo) {
+            for (int i = 0; i < leidos.length; i++) {
+                if (leidos[i].equals(campo)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        Parcial procesar(ByteBuffer datos) {
+            Parcial parcial = new Parcial();
+            BsonValue[] valores = new BsonValue[leidos.length];
+            int posicion = datos.position();
+            int limite = datos.limit();
+            while (posicion < limite) {
+                int longitud = datos.getInt(posicion);
+                ByteBuffer documento = datos.slice(posicion, longitud);
+                posicion += longitud;
+                parcial.examinados++;
+
+                leerCampos(documento, valores);
+                if (!coincide(valores)) {
+                    continue;
+                }
+                parcial.coincidencias++;
+                if (indiceGrupo >= 0) {
+                    agrupar(parcial, valores);
+                } else if (parcial.documentos.size() < consulta.getLimite()) {
+                    parcial.documentos.add(proyectar(documento));
+                }
+            }
+            return parcial;
+        }
+
+        /**
+         * Una pasada por los elementos del documento: los campos de la consulta se leen, el
+         * resto se salta. Termina en cuanto tiene todos los campos buscados.
+         */
+        private void leerCampos(ByteBuffer documento, BsonValue[] valores) {
+            Arrays.fill(valores, null);
+            if (leidos.length == 0) {
+                return;
+            }
+            try (BsonBinaryReader reader = new BsonBinaryReader(new ByteBufferBsonInput(new ByteBufNIO(documento.duplicate())))) {
+                reader.readStartDocument();
+                int pendientes = leidos.length;
+                BsonType tipo;
+                while (pendientes > 0 && (tipo = reader.readBsonType()) != BsonType.END_OF_DOCUMENT) {
+                    int i = indice(reader.readName());
+                    if (i < 0) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    valores[i] = leerValor(reader, tipo);
+                    pendientes--;
+                }
+            }
+        }
+
+        private static BsonValue leerValor(BsonBinaryReader reader, BsonType tipo) {
+            switch (tipo) {
+                case STRING:
+                    return new BsonString(reader.readString());
+                case DOUBLE:
+                    return new BsonDouble(reader.readDouble());
+                case INT32:
+                    return new BsonInt32(reader.readInt32());
+                case INT64:
+                    return new BsonInt64(reader.readInt64());
+                default:
+                    // Subdocumentos y otros tipos no participan en filtros ni promedios
+                    reader.skipValue();
+                    return null;
+            }
+        }
+
+        private boolean coincide(BsonValue[] valores) {
+            List<ConsultaDump.Filtro> filtros = consulta.getFiltros();
+            for (int i = 0; i < indiceFiltro.length; i++) {
+                if (!filtros.get(i).acepta(valores[indiceFiltro[i]])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void agrupar(Parcial parcial, BsonValue[] valores) {
+            BsonValue clave = valores[indiceGrupo];
+            String grupo = clave == null ? SIN_VALOR
+                    : clave.isString() ? clave.asString().getValue()
+                    : String.valueOf(clave.asNumber().doubleValue());
+            double[] acumulado = parcial.grupos.computeIfAbsent(grupo, k -> new double[1 + 2 * indicePromedio.length]);
+            acumulado[0]++;
+            for (int i = 0; i < indicePromedio.length; i++) {
+                BsonValue valor = valores[indicePromedio[i]];
+                if (valor != null && valor.isNumber()) {
+                    acumulado[1 + 2 * i] += valor.asNumber().doubleValue();
+                    acumulado[2 + 2 * i]++;
+                }
+            }
+        }
+
+        private BsonDocument proyectar(ByteBuffer documento) {
+            byte[] bytes = new byte[documento.remaining()];
+            documento.duplicate().get(bytes);
+            RawBsonDocument crudo = new RawBsonDocument(bytes);
+            if (consulta.getCampos().isEmpty()) {
+                return crudo;
+            }
+            BsonDocument proyectado = new BsonDocument();
+            for (String campo : consulta.getCampos()) {
+                BsonValue valor = crudo.get(campo);
+                if (valor != null) {
+                    proyectado.append(campo, valor);
+                }
+            }
+            return proyectado;
+        }
+
+        ResultadoConsultaDump combinar(List<Parcial> parciales, long duracionMs) {
+            long examinados = 0;
+            long coincidencias = 0;
+            List<BsonDocument> documentos = new ArrayList<>();
+            Map<String, double[]> grupos = new HashMap<>();
+            for (Parcial parcial : parciales) {
+                examinados += parcial.examinados;
+                coincidencias += parcial.coincidencias;
+                for (BsonDocument doc : parcial.documentos) {
+                    if (documentos.size() < consulta.getLimite()) {
+                        documentos.add(doc);
+                    }
+                }
+                parcial.grupos.forEach((clave, valores) -> grupos.merge(clave, valores, (a, b) -> {
+                    for (int i = 0; i < a.length; i++) {
+                        a[i] += b[i];
+                    }
+                    return a;
+                }));
+            }
+
+            Map<String, ResultadoConsultaDump.Grupo> resultado = new LinkedHashMap<>();
+            grupos.entrySet().stream()
+                    .sorted((a, b) -> Double.compare(b.getValue()[0], a.getValue()[0]))
+                    .forEach(e -> {
+                        double[] v = e.getValue();
+                        Map<String, Double> promedios = new LinkedHashMap<>();
+                        for (int i = 0; i < indicePromedio.length; i++) {
+                            promedios.put(consulta.getPromedios().get(i), v[2 + 2 * i] == 0 ? 0 : v[1 + 2 * i] / v[2 + 2 * i]);
+                        }
+                        resultado.put(e.getKey(), new ResultadoConsultaDump.Grupo((long) v[0], promedios));
+                    });
+            return new ResultadoConsultaDump(examinados, coincidencias, documentos, resultado, duracionMs);
+        }
+    }
+
+    private static final class Parcial {
+        long examinados;
+        long coincidencias;
+        final List<BsonDocument> documentos = new ArrayList<>();
+        // Por grupo: {conteo, suma_0, n_0, suma_1, n_1, ...}
+        final Map<String, double[]> grupos = new HashMap<>();
+    }
+
+    private static List<Parcial> ejecutar(ExecutorService pool, List<Callable<Parcial>> tareas) throws IOException {
+        List<Future<Parcial>> futuros = new ArrayList<>(tareas.size());
+        tareas.forEach(t -> futuros.add(pool.submit(t)));
+        List<Parcial> parciales = new ArrayList<>(futuros.size());
+        try {
+            for (Future<Parcial> futuro : futuros) {
+                parciales.add(futuro.get());
+            }
+            return parciales;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Consulta interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Error al consultar el archivo", e.getCause());
+        } finally {
+            futuros.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private static ThreadFactory hilos() {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "consulta-dump-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
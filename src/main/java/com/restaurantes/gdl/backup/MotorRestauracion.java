@@ -0,0 +1,247 @@
+package com.restaurantes.gdl.backup;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Restauración nativa desde un directorio con formato mongodump.
+ * <p>
+ * Cada {@code .bson} se mapea en memoria y se parte en segmentos alineados a documentos;
+ * varios escritores insertan los segmentos en paralelo como BSON crudo en lotes no ordenados.
+ * Los índices de {@code .metadata.json} se crean al final con un único {@code createIndexes},
+ * cuando la colección ya está cargada, en lugar de mantenerlos durante la carga.
+ * Los {@code .bson.dfz} comprimidos se cargan igual, con un bloque por tarea.
+ * Después se reproduce la cadena de incrementales del backup, si existe.
+ */
+public class MotorRestauracion {
+
+    private static final Logger logger = LoggerFactory.getLogger(MotorRestauracion.class);
+
+    private static final InsertManyOptions NO_ORDENADO = new InsertManyOptions()
+            .ordered(false)
+            .bypassDocumentValidation(true);
+
+    private final MongoClient mongoClient;
+    private final String databaseName;
+    private final ConfiguracionRestauracion config;
+
+    public MotorRestauracion(MongoClient mongoClient, String databaseName, ConfiguracionRestauracion config) {
+        this.mongoClient = mongoClient;
+        this.databaseName = databaseName;
+        this.config = config;
+    }
+
+    /**
+     * Restaura todas las colecciones de {@code <directorioBackup>/<databaseName>/}.
+     */
+    public ResultadoRestauracion restaurar(Path directorioBackup) throws IOException {
+        Path directorioDb = directorioBackup.resolve(databaseName);
+        if (!Files.isDirectory(directorioDb)) {
+            throw new IOException("No existe el directorio de la base en el backup: " + directorioDb);
+        }
+        MongoDatabase database = mongoClient.getDatabase(databaseName);
+
+        List<Path> archivos;
+        try (Stream<Path> listado = Files.list(directorioDb)) {
+            archivos = listado
+                    .filter(p -> p.getFileName().toString().endsWith(FormatoDump.EXTENSION_BSON)
+                            || p.getFileName().toString().endsWith(FormatoDump.EXTENSION_BSON_COMPRIMIDO))
+                    .sorted()
+                    .toList();
+        }
+
+        ExecutorService escritores = Executors.newFixedThreadPool(config.getEscritores(), hilos());
+        long documentos = 0;
+        long bytes = 0;
+        long nanosCarga = 0;
+        long nanosIndices = 0;
+        try {
+            for (Path archivo : archivos) {
+                String nombreArchivo = archivo.getFileName().toString();
+                boolean comprimido = nombreArchivo.endsWith(FormatoDump.EXTENSION_BSON_COMPRIMIDO);
+                String coleccion = nombreArchivo.substring(0, nombreArchivo.length() - (comprimido
+                        ? FormatoDump.EXTENSION_BSON_COMPRIMIDO : FormatoDump.EXTENSION_BSON).length());
+                BsonDocument metadata = leerMetadata(directorioDb, coleccion);
+
+                long inicio = System.nanoTime();
+                prepararColeccion(database, coleccion, metadata);
+                MongoCollection<RawBsonDocument> destino = database.getCollection(coleccion, RawBsonDocument.class);
+                long[] totales = comprimido
+                        ? cargarComprimido(destino, archivo, escritores)
+                        : cargar(destino, archivo, escritores);
+                documentos += totales[0];
+                bytes += totales[1];
+                long finCarga = System.nanoTime();
+                nanosCarga += finCarga - inicio;
+
+                crearIndices(database, coleccion, metadata);
+                nanosIndices += System.nanoTime() - finCarga;
+                logger.info("✓ '{}' restaurada: {} documentos (carga {} ms, índices {} ms)", coleccion, totales[0],
+                        TimeUnit.NANOSECONDS.toMillis(finCarga - inicio),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - finCarga));
+            }
+        } finally {
+            escritores.shutdownNow();
+        }
+
+        long eventos = new BackupIncremental(mongoClient, databaseName).reproducir(directorioBackup);
+        if (eventos > 0) {
+            logger.info("✓ {} evento(s) incrementales aplicados", eventos);
+        }
+
+        return new ResultadoRestauracion(directorioBackup, archivos.size(), documentos, bytes,
+                TimeUnit.NANOSECONDS.toMillis(nanosCarga), TimeUnit.NANOSECONDS.toMillis(nanosIndices));
+    }
+
+    private long[] cargar(MongoCollection<RawBsonDocument> coleccion, Path archivo,
+                          ExecutorService escritores) throws IOException {
+        AtomicLong documentos = new AtomicLong();
+        try (ArchivoBson bson = new ArchivoBson(archivo)) {
+            List<ArchivoBson.Segmento> segmentos = bson.segmentar(config.getEscritores() * 4);
+            List<Future<?>> tareas = new ArrayList<>(segmentos.size());
+            for (ArchivoBson.Segmento segmento : segmentos) {
+                tareas.add(escritores.submit(() -> {
+                    documentos.addAndGet(insertarSegmento(coleccion, bson.mapear(segmento)));
+                    return null;
+                }));
+            }
+            esperar(tareas);
+            return new long[]{documentos.get(), bson.tamaño()};
+        }
+    }
+
+    /**
+     * Cada tarea descomprime e inserta un bloque; los bloques se reparten entre los escritores
+     * en el orden del índice.
+     */
+    private long[] cargarComprimido(MongoCollection<RawBsonDocument> coleccion, Path archivo,
+                                    ExecutorService escritores) throws IOException {
+        AtomicLong documentos = new AtomicLong();
+        try (ArchivoComprimido comprimido = new ArchivoComprimido(archivo)) {
+            List<Future<?>> tareas = new ArrayList<>(comprimido.cantidadBloques());
+            for (int i = 0; i < comprimido.cantidadBloques(); i++) {
+                int bloque = i;
+                tareas.add(escritores.submit(() -> {
+                    documentos.addAndGet(insertarSegmento(coleccion, comprimido.leerBloque(bloque)));
+                    return null;
+                }));
+            }
+            esperar(tareas);
+            return new long[]{documentos.get(), comprimido.tamañoOriginal()};
+        }
+    }
+
+    private long insertarSegmento(MongoCollection<RawBsonDocument> coleccion, ByteBuffer datos) {
+        List<RawBsonDocument> lote = new ArrayList<>(config.getTamañoLote());
+        int bytesLote = 0;
+        long insertados = 0;
+        while (datos.hasRemaining()) {
+            int longitud = datos.getInt(datos.position());
+            // El driver necesita un byte[] propio por documento
+            byte[] bytes = new byte[longitud];
+            datos.get(bytes);
+            if (!lote.isEmpty() && (lote.size() >= config.getTamañoLote()
+                    || bytesLote + longitud > config.getBytesMaximosLote())) {
+                coleccion.insertMany(lote, NO_ORDENADO);
+                insertados += lote.size();
+                lote = new ArrayList<>(config.getTamañoLote());
+                bytesLote = 0;
+            }
+            lote.add(new RawBsonDocument(bytes));
+            bytesLote += longitud;
+        }
+        if (!lote.isEmpty()) {
+            coleccion.insertMany(lote, NO_ORDENADO);
+            insertados += lote.size();
+        }
+        return insertados;
+    }
+
+    private void prepararColeccion(MongoDatabase database, String coleccion, BsonDocument metadata) {
+        if (config.isEliminarAntes()) {
+            database.getCollection(coleccion).drop();
+        }
+        BsonDocument opciones = metadata.getDocument("options", new BsonDocument());
+        if (!opciones.isEmpty()) {
+            BsonDocument crear = new BsonDocument("create", new BsonString(coleccion));
+            crear.putAll(opciones);
+            database.runCommand(crear);
+        }
+    }
+
+    private void crearIndices(MongoDatabase database, String coleccion, BsonDocument metadata) {
+        BsonArray indices = new BsonArray();
+        for (BsonValue valor : metadata.getArray("indexes", new BsonArray())) {
+            BsonDocument indice = valor.asDocument().clone();
+            if ("_id_".equals(indice.getString("name", new BsonString("")).getValue())) {
+                continue;
+            }
+            // Campo obsoleto en volcados antiguos; el servidor lo rechaza
+            indice.remove("ns");
+            indices.add(indice);
+        }
+        if (indices.isEmpty()) {
+            return;
+        }
+        database.runCommand(new BsonDocument("createIndexes", new BsonString(coleccion))
+                .append("indexes", indices));
+        logger.info("✓ {} índice(s) creados en '{}'", indices.size(), coleccion);
+    }
+
+    private static BsonDocument leerMetadata(Path directorioDb, String coleccion) throws IOException {
+        Path archivo = FormatoDump.archivoMetadata(directorioDb, coleccion);
+        if (!Files.exists(archivo)) {
+            return new BsonDocument();
+        }
+        return FormatoDump.leerJson(archivo);
+    }
+
+    private static void esperar(List<Future<?>> tareas) throws IOException {
+        try {
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            tareas.forEach(t -> t.cancel(true));
+            throw new IOException("Restauración interrumpida", e);
+        } catch (ExecutionException e) {
+            tareas.forEach(t -> t.cancel(true));
+            throw new IOException("Error al insertar un segmento", e.getCause());
+        }
+    }
+
+    private static ThreadFactory hilos() {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "restauracion-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
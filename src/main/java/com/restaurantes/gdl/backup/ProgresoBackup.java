@@ -0,0 +1,91 @@
+package com.restaurantes.gdl.backup;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Progreso de un backup en curso, actualizado por los lectores y consultable desde otro hilo.
+ * También transporta la solicitud de cancelación: los lectores la revisan entre lotes y
+ * terminan con {@link CancellationException}.
+ */
+public class ProgresoBackup {
+
+    private final LongAdder documentos = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final long inicioNanos = System.nanoTime();
+    private volatile long finNanos;
+    private volatile long documentosEstimados;
+    private volatile boolean cancelado;
+
+    void sumarEstimados(long cantidad) {
+        documentosEstimados += cantidad;
+    }
+
+    void registrar(int bytesDocumento) {
+        documentos.increment();
+        bytes.add(bytesDocumento);
+    }
+
+    void revisarCancelacion() {
+        if (cancelado) {
+            throw new CancellationException("Backup cancelado");
+        }
+    }
+
+    /**
+     * Congela el tiempo transcurrido; el ritmo reportado deja de cambiar.
+     */
+    public void finalizar() {
+        if (finNanos == 0) {
+            finNanos = System.nanoTime();
+        }
+    }
+
+    public void cancelar() {
+        cancelado = true;
+    }
+
+    public boolean isCancelado() {
+        return cancelado;
+    }
+
+    public long getDocumentos() {
+        return documentos.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * Conteo estimado de la base (metadata de las colecciones); 0 mientras no se conoce.
+     */
+    public long getDocumentosEstimados() {
+        return documentosEstimados;
+    }
+
+    public long getTranscurridoMs() {
+        long fin = finNanos;
+        return TimeUnit.NANOSECONDS.toMillis((fin == 0 ? System.nanoTime() : fin) - inicioNanos);
+    }
+
+    public double getMegabytesPorSegundo() {
+        long ms = getTranscurridoMs();
+        return ms == 0 ? 0 : getBytes() / (1024.0 * 1024.0) / (ms / 1000.0);
+    }
+
+    /**
+     * Segundos restantes al ritmo actual de documentos, o -1 si aún no se puede estimar.
+     */
+    public long getEtaSegundos() {
+        long hechos = getDocumentos();
+        long estimados = documentosEstimados;
+        long ms = getTranscurridoMs();
+        if (hechos == 0 || estimados == 0 || ms == 0) {
+            return -1;
+        }
+        double porSegundo = hechos / (ms / 1000.0);
+        return Math.max(0, Math.round((estimados - hechos) / porSegundo));
+    }
+}
@@ -0,0 +1,88 @@
+package com.restaurantes.gdl.backup;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Partición de una colección en rangos de {@code _id} para leerla con varios cursores en
+ * paralelo. Los límites salen de una muestra {@code $sample}, así que los rangos tienen
+ * tamaños parecidos sin recorrer la colección.
+ * <p>
+ * Los operadores de rango solo comparan dentro del mismo tipo BSON, así que los rangos solo
+ * cubren la colección si todos los {@code _id} son del tipo muestreado. Eso se comprueba con
+ * el menor y el mayor {@code _id} (dos consultas cubiertas por el índice): el índice ordena
+ * primero por tipo, así que si ambos son del tipo muestreado todo lo demás cae entre ellos y
+ * al alcance de los rangos (los números de distinto tipo comparan entre sí). Si no, se lee
+ * con un solo rango en lugar de un rango extra sin límites que recorrería todo el índice.
+ */
+public final class RangosId {
+
+    private static final int MUESTRAS_POR_RANGO = 32;
+
+    private RangosId() {
+    }
+
+    /**
+     * Calcula filtros de rango sobre {@code _id} que cubren toda la colección sin traslaparse.
+     * Con menos de {@code minimoDocumentos} documentos, o con {@code partes} menor a 2,
+     * devuelve un único filtro vacío.
+     */
+    public static List<Bson> particionar(MongoCollection<?> coleccion, int partes, long minimoDocumentos) {
+        long estimados = coleccion.estimatedDocumentCount();
+        if (partes < 2 || estimados < minimoDocumentos) {
+            return List.of(new BsonDocument());
+        }
+
+        List<BsonValue> muestra = new ArrayList<>();
+        int tamañoMuestra = (int) Math.min(estimados, (long) partes * MUESTRAS_POR_RANGO);
+        coleccion.withDocumentClass(BsonDocument.class).aggregate(List.of(
+                        Aggregates.sample(tamañoMuestra),
+                        Aggregates.project(Projections.include("_id")),
+                        Aggregates.sort(Sorts.ascending("_id"))))
+                .forEach(doc -> muestra.add(doc.get("_id")));
+
+        // Con _id de tipos mezclados, en la muestra o fuera de ella, se recurre a un solo rango
+        BsonType tipo = muestra.isEmpty() ? null : muestra.get(0).getBsonType();
+        if (tipo == null || muestra.stream().anyMatch(v -> v.getBsonType() != tipo)
+                || tipoExtremo(coleccion, 1) != tipo || tipoExtremo(coleccion, -1) != tipo) {
+            return List.of(new BsonDocument());
+        }
+
+        List<BsonValue> limites = new ArrayList<>();
+        for (int i = 1; i < partes; i++) {
+            BsonValue limite = muestra.get(i * muestra.size() / partes);
+            if (limites.isEmpty() || !limites.get(limites.size() - 1).equals(limite)) {
+                limites.add(limite);
+            }
+        }
+
+        List<Bson> rangos = new ArrayList<>();
+        rangos.add(Filters.lt("_id", limites.get(0)));
+        for (int i = 1; i < limites.size(); i++) {
+            rangos.add(Filters.and(Filters.gte("_id", limites.get(i - 1)), Filters.lt("_id", limites.get(i))));
+        }
+        rangos.add(Filters.gte("_id", limites.get(limites.size() - 1)));
+        return rangos;
+    }
+
+    // Tipo del menor (orden 1) o mayor (orden -1) _id, leído solo del índice
+    private static BsonType tipoExtremo(MongoCollection<?> coleccion, int orden) {
+        BsonDocument extremo = coleccion.withDocumentClass(BsonDocument.class).find()
+                .sort(new BsonDocument("_id", new BsonInt32(orden)))
+                .projection(Projections.include("_id"))
+                .limit(1)
+                .first();
+        return extremo == null ? null : extremo.get("_id").getBsonType();
+    }
+}
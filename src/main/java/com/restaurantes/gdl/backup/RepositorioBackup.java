@@ -0,0 +1,281 @@
+package com.restaurantes.gdl.backup;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Repositorio de backups con deduplicación por contenido.
+ * <pre>
+ * repositorio/
+ *   chunks/&lt;ab&gt;/&lt;sha256&gt;        datos BSON (documentos completos, concatenados)
+ *   manifiestos/&lt;backup&gt;.json
+ * </pre>
+ * Cada manifiesto describe un backup: prelude, y por colección su metadata, la lista ordenada
+ * de chunks, documentos, bytes y un checksum sobre la lista de hashes, todo calculado mientras
+ * se escribe. Los chunks son compartidos entre backups, así que guardar muchos backups de un
+ * catálogo que cambia poco cuesta cerca de una copia. Tamaños, poda por retención y recolección
+ * de basura solo leen manifiestos; ningún reporte recorre los chunks.
+ */
+public class RepositorioBackup {
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositorioBackup.class);
+
+    public static final String DIRECTORIO_CHUNKS = "chunks";
+    public static final String DIRECTORIO_MANIFIESTOS = "manifiestos";
+    private static final String EXTENSION_MANIFIESTO = ".json";
+
+    // Chunks escritos o reutilizados en este lapso no se recolectan: pueden pertenecer a un
+    // backup en curso cuyo manifiesto aún no existe
+    private static final Duration GRACIA_RECOLECCION = Duration.ofHours(1);
+
+    private final Path raiz;
+    private final Path chunks;
+    private final Path manifiestos;
+
+    public RepositorioBackup(Path raiz) throws IOException {
+        this.raiz = raiz;
+        this.chunks = Files.createDirectories(raiz.resolve(DIRECTORIO_CHUNKS));
+        this.manifiestos = Files.createDirectories(raiz.resolve(DIRECTORIO_MANIFIESTOS));
+    }
+
+    public Path getRaiz() {
+        return raiz;
+    }
+
+    /**
+     * Tamaños del repositorio calculados solo a partir de los manifiestos.
+     *
+     * @param bytesLogicos     suma de los backups como si fueran independientes
+     * @param bytesAlmacenados suma de los chunks distintos referenciados
+     */
+    public record Resumen(int backups, long documentos, long bytesLogicos, long bytesAlmacenados, int chunks) {
+        public double getFactorDeduplicacion() {
+            return bytesAlmacenados == 0 ? 0 : (double) bytesLogicos / bytesAlmacenados;
+        }
+    }
+
+    /**
+     * Resultado de una recolección de basura.
+     */
+    public record Recoleccion(int chunksEliminados, long bytesLiberados) {
+    }
+
+    /**
+     * Guarda un chunk si no existe. Escribe a un temporal y lo renombra, de modo que un chunk
+     * visible siempre está completo; dos lectores con el mismo contenido no se estorban.
+     *
+     * @return true si el chunk era nuevo
+     */
+    boolean guardarChunk(String hash, byte[] datos, int longitud) throws IOException {
+        Path ruta = rutaChunk(hash);
+        if (Files.exists(ruta)) {
+            // Renueva la fecha para que la recolección no lo borre mientras este backup termina
+            Files.setLastModifiedTime(ruta, FileTime.from(Instant.now()));
+            return false;
+        }
+        Files.createDirectories(ruta.getParent());
+        Path temporal = Files.createTempFile(ruta.getParent(), hash, ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+            ByteBuffer contenido = ByteBuffer.wrap(datos, 0, longitud);
+            while (contenido.hasRemaining()) {
+                canal.write(contenido);
+            }
+        }
+        Files.move(temporal, ruta, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return true;
+    }
+
+    public void guardarManifiesto(String nombre, BsonDocument manifiesto) throws IOException {
+        Path archivo = manifiestos.resolve(nombre + EXTENSION_MANIFIESTO);
+        Path temporal = manifiestos.resolve(nombre + EXTENSION_MANIFIESTO + ".tmp");
+        FormatoDump.escribirJson(temporal, manifiesto);
+        Files.move(temporal, archivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public BsonDocument leerManifiesto(String nombre) throws IOException {
+        return FormatoDump.leerJson(manifiestos.resolve(nombre + EXTENSION_MANIFIESTO));
+    }
+
+    /**
+     * Nombres de los backups del repositorio, del más antiguo al más reciente.
+     */
+    public List<String> listarBackups() throws IOException {
+        try (Stream<Path> listado = Files.list(manifiestos)) {
+            return listado
+                    .map(p -> p.getFileName().toString())
+                    .filter(n -> n.endsWith(EXTENSION_MANIFIESTO))
+                    .map(n -> n.substring(0, n.length() - EXTENSION_MANIFIESTO.length()))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    public Resumen resumen() throws IOException {
+        Map<String, Long> distintos = new HashMap<>();
+        long documentos = 0;
+        long bytesLogicos = 0;
+        List<String> backups = listarBackups();
+        for (String nombre : backups) {
+            BsonDocument manifiesto = leerManifiesto(nombre);
+            documentos += manifiesto.getInt64("documentos").getValue();
+            bytesLogicos += manifiesto.getInt64("bytes").getValue();
+            for (BsonDocument chunk : chunksDe(manifiesto)) {
+                distintos.put(chunk.getString("hash").getValue(), chunk.getInt64("bytes").getValue());
+            }
+        }
+        long bytesAlmacenados = distintos.values().stream().mapToLong(Long::longValue).sum();
+        return new Resumen(backups.size(), documentos, bytesLogicos, bytesAlmacenados, distintos.size());
+    }
+
+    /**
+     * Elimina los manifiestos más antiguos que la retención, conservando siempre los
+     * {@code minimoConservar} más recientes. Los chunks se liberan con {@link #recolectarBasura()}.
+     *
+     * @return backups eliminados
+     */
+    public List<String> podar(Duration retencion, int minimoConservar) throws IOException {
+        Instant limite = Instant.now().minus(retencion);
+        List<String> backups = listarBackups();
+        List<String> eliminados = new ArrayList<>();
+        for (int i = 0; i < backups.size() - minimoConservar; i++) {
+            String nombre = backups.get(i);
+            Instant fecha = Instant.ofEpochMilli(leerManifiesto(nombre).getDateTime("fecha").getValue());
+            if (fecha.isBefore(limite)) {
+                Files.delete(manifiestos.resolve(nombre + EXTENSION_MANIFIESTO));
+                eliminados.add(nombre);
+            }
+        }
+        if (!eliminados.isEmpty()) {
+            logger.info("Backups eliminados por retención: {}", eliminados);
+        }
+        return eliminados;
+    }
+
+    /**
+     * Borra los chunks que ningún manifiesto referencia.
+     */
+    public Recoleccion recolectarBasura() throws IOException {
+        Set<String> referenciados = new HashSet<>();
+        for (String nombre : listarBackups()) {
+            for (BsonDocument chunk : chunksDe(leerManifiesto(nombre))) {
+                referenciados.add(chunk.getString("hash").getValue());
+            }
+        }
+
+        FileTime limite = FileTime.from(Instant.now().minus(GRACIA_RECOLECCION));
+        int eliminados = 0;
+        long liberados = 0;
+        List<Path> candidatos;
+        try (Stream<Path> listado = Files.walk(chunks, 2)) {
+            candidatos = listado.filter(Files::isRegularFile).toList();
+        }
+        for (Path archivo : candidatos) {
+            String nombre = archivo.getFileName().toString();
+            if (referenciados.contains(nombre) || Files.getLastModifiedTime(archivo).compareTo(limite) > 0) {
+                continue;
+            }
+            long tamaño = Files.size(archivo);
+            Files.delete(archivo);
+            eliminados++;
+            liberados += tamaño;
+        }
+        logger.info("Recolección: {} chunk(s) eliminados, {} MB liberados", eliminados,
+                String.format("%.2f", liberados / (1024.0 * 1024.0)));
+        return new Recoleccion(eliminados, liberados);
+    }
+
+    /**
+     * Reconstruye un backup del repositorio como directorio mongodump en {@code destino},
+     * verificando el hash de cada chunk al leerlo.
+     */
+    public void materializar(String nombre, Path destino) throws IOException {
+        BsonDocument manifiesto = leerManifiesto(nombre);
+        String baseDatos = manifiesto.getString("baseDatos").getValue();
+        Path directorioDb = Files.createDirectories(destino.resolve(baseDatos));
+        FormatoDump.escribirJson(destino.resolve(FormatoDump.PRELUDE), manifiesto.getDocument("prelude"));
+
+        for (BsonValue valor : manifiesto.getArray("colecciones")) {
+            BsonDocument coleccion = valor.asDocument();
+            String nombreColeccion = coleccion.getString("nombre").getValue();
+            try (FileChannel canal = FileChannel.open(FormatoDump.archivoBson(directorioDb, nombreColeccion),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                for (BsonValue chunk : coleccion.getArray("chunks")) {
+                    String hash = chunk.asDocument().getString("hash").getValue();
+                    byte[] datos = Files.readAllBytes(rutaChunk(hash));
+                    if (!hash.equals(hash(datos, datos.length))) {
+                        throw new IOException("Chunk corrupto en el repositorio: " + hash);
+                    }
+                    ByteBuffer contenido = ByteBuffer.wrap(datos);
+                    while (contenido.hasRemaining()) {
+                        canal.write(contenido);
+                    }
+                }
+            }
+            FormatoDump.escribirJson(FormatoDump.archivoMetadata(directorioDb, nombreColeccion),
+                    coleccion.getDocument("metadata"));
+        }
+    }
+
+    static String hash(byte[] datos, int longitud) {
+        MessageDigest digest = sha256();
+        digest.update(datos, 0, longitud);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Checksum de un archivo lógico: SHA-256 sobre la lista ordenada de hashes de sus chunks.
+     */
+    static String checksum(BsonArray chunks) {
+        MessageDigest digest = sha256();
+        for (BsonValue chunk : chunks) {
+            digest.update(HexFormat.of().parseHex(chunk.asDocument().getString("hash").getValue()));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private Path rutaChunk(String hash) {
+        return chunks.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static List<BsonDocument> chunksDe(BsonDocument manifiesto) {
+        List<BsonDocument> resultado = new ArrayList<>();
+        for (BsonValue coleccion : manifiesto.getArray("colecciones")) {
+            for (BsonValue chunk : coleccion.asDocument().getArray("chunks")) {
+                resultado.add(chunk.asDocument());
+            }
+        }
+        return resultado;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.restaurantes.gdl.backup;
+
+import lombok.Value;
+
+import java.nio.file.Path;
+
+/**
+ * Resumen de un backup: destino, volumen escrito y duración.
+ */
+@Value
+public class ResultadoBackup {
+    Path directorio;
+    int colecciones;
+    long documentos;
+    long bytes;
+    long duracionMs;
+
+    public double getMegabytesPorSegundo() {
+        return duracionMs == 0 ? 0 : bytes / (1024.0 * 1024.0) / (duracionMs / 1000.0);
+    }
+}
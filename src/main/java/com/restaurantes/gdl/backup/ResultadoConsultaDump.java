@@ -0,0 +1,28 @@
+package com.restaurantes.gdl.backup;
+
+import lombok.Value;
+import org.bson.BsonDocument;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado de una {@link ConsultaDump}: documentos proyectados o grupos, según la consulta.
+ */
+@Value
+public class ResultadoConsultaDump {
+    long examinados;
+    long coincidencias;
+    // Vacío si la consulta agrupa
+    List<BsonDocument> documentos;
+    // Ordenados de mayor a menor conteo; vacío si la consulta no agrupa
+    Map<String, Grupo> grupos;
+    long duracionMs;
+
+    @Value
+    public static class Grupo {
+        long conteo;
+        // Promedio por campo, sobre los documentos del grupo que tienen ese campo numérico
+        Map<String, Double> promedios;
+    }
+}
@@ -0,0 +1,22 @@
+package com.restaurantes.gdl.backup;
+
+import lombok.Value;
+
+import java.nio.file.Path;
+
+/**
+ * Resumen de una restauración: volumen cargado y tiempo de carga frente al de índices.
+ */
+@Value
+public class ResultadoRestauracion {
+    Path directorio;
+    int colecciones;
+    long documentos;
+    long bytes;
+    long duracionCargaMs;
+    long duracionIndicesMs;
+
+    public long getDuracionMs() {
+        return duracionCargaMs + duracionIndicesMs;
+    }
+}
@@ -0,0 +1,50 @@
+package com.restaurantes.gdl.backup;
+
+import lombok.Value;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Resultado de verificar un backup: por colección, lo encontrado en el archivo y las
+ * diferencias con la base en vivo.
+ */
+@Value
+public class ResultadoVerificacion {
+    Path directorio;
+    List<Coleccion> colecciones;
+    long duracionMs;
+
+    public boolean isValido() {
+        return colecciones.stream().allMatch(Coleccion::isValida);
+    }
+
+    public long getDocumentos() {
+        return colecciones.stream().mapToLong(Coleccion::getDocumentos).sum();
+    }
+
+    @Value
+    public static class Coleccion {
+        String nombre;
+        long documentos;
+        long bytes;
+        // CRC32C por segmento combinados en orden; igual para el mismo archivo
+        String checksum;
+        // -1 si no se comparó con la base en vivo
+        long documentosEnVivo;
+        List<String> indicesFaltantes;
+        List<String> errores;
+
+        public boolean isValida() {
+            return errores.isEmpty();
+        }
+
+        /**
+         * Los documentos o índices difieren de la base en vivo. No invalida el backup: la base
+         * pudo cambiar después de respaldarse.
+         */
+        public boolean isDesfasada() {
+            return (documentosEnVivo >= 0 && documentosEnVivo != documentos) || !indicesFaltantes.isEmpty();
+        }
+    }
+}
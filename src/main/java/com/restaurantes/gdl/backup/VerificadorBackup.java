@@ -0,0 +1,267 @@
+package com.restaurantes.gdl.backup;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoDatabase;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Verificación de un backup sin decodificar documentos.
+ * <p>
+ * Cada archivo se mapea en memoria y se recorre por los prefijos de longitud: se comprueba
+ * que cada documento tenga longitud válida y termine en el byte 0, se cuentan los documentos
+ * y se calcula un CRC32C por segmento, todo en paralelo. Los segmentos tienen un tamaño fijo,
+ * así que el checksum resultante es reproducible para el mismo archivo. Si hay conexión, el
+ * conteo y los índices de {@code metadata.json} se comparan con la colección en vivo.
+ */
+public class VerificadorBackup {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerificadorBackup.class);
+
+    private static final long TAMAÑO_SEGMENTO = 64L * 1024 * 1024;
+
+    private final MongoClient mongoClient;
+    private final String databaseName;
+    private final int hilos;
+
+    /**
+     * @param mongoClient null para verificar solo la estructura, sin comparar con la base
+     */
+    public VerificadorBackup(MongoClient mongoClient, String databaseName, int hilos) {
+        this.mongoClient = mongoClient;
+        this.databaseName = databaseName;
+        this.hilos = hilos;
+    }
+
+    public ResultadoVerificacion verificar(Path directorioBackup) throws IOException {
+        long inicio = System.nanoTime();
+        Path directorioDb = directorioBackup.resolve(databaseName);
+        if (!Files.isDirectory(directorioDb)) {
+            throw new IOException("No existe el directorio de la base en el backup: " + directorioDb);
+        }
+
+        List<Path> archivos;
+        try (Stream<Path> listado = Files.list(directorioDb)) {
+            archivos = listado
+                    .filter(p -> p.getFileName().toString().endsWith(FormatoDump.EXTENSION_BSON)
+                            || p.getFileName().toString().endsWith(FormatoDump.EXTENSION_BSON_COMPRIMIDO))
+                    .sorted()
+                    .toList();
+        }
+        Path incrementales = directorioBackup.resolve(BackupIncremental.DIRECTORIO_INCREMENTALES);
+        if (Files.isDirectory(incrementales)) {
+            try (Stream<Path> listado = Files.list(incrementales)) {
+                archivos = Stream.concat(archivos.stream(), listado
+                        .filter(p -> p.getFileName().toString().endsWith(".seg"))
+                        .sorted()).toList();
+            }
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(hilos, hilos());
+        List<ResultadoVerificacion.Coleccion> colecciones = new ArrayList<>();
+        try {
+            for (Path archivo : archivos) {
+                ResultadoVerificacion.Coleccion resultado = verificarArchivo(directorioDb, archivo, pool);
+                colecciones.add(resultado);
+                if (!resultado.isValida()) {
+                    logger.error("✗ {}: {}", resultado.getNombre(), resultado.getErrores());
+                } else if (resultado.isDesfasada()) {
+                    logger.warn("⚠ '{}': {} documentos en el backup, {} en vivo, índices faltantes {}",
+                            resultado.getNombre(), resultado.getDocumentos(), resultado.getDocumentosEnVivo(),
+                            resultado.getIndicesFaltantes());
+                } else {
+                    logger.info("✓ '{}': {} documentos, checksum {}", resultado.getNombre(),
+                            resultado.getDocumentos(), resultado.getChecksum());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return new ResultadoVerificacion(directorioBackup, colecciones,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+    }
+
+    private ResultadoVerificacion.Coleccion verificarArchivo(Path directorioDb, Path archivo, ExecutorService pool)
+            throws IOException {
+        String nombreArchivo = archivo.getFileName().toString();
+        boolean comprimido = nombreArchivo.endsWith(FormatoDump.EXTENSION_BSON_COMPRIMIDO);
+        boolean incremental = !archivo.getParent().equals(directorioDb);
+        String nombre = incremental ? BackupIncremental.DIRECTORIO_INCREMENTALES + "/" + nombreArchivo
+                : nombreArchivo.substring(0, nombreArchivo.length() - (comprimido
+                ? FormatoDump.EXTENSION_BSON_COMPRIMIDO : FormatoDump.EXTENSION_BSON).length());
+
+        List<String> errores = new ArrayList<>();
+        long[][] segmentos;
+        long bytes;
+        try {
+            if (comprimido) {
+                try (ArchivoComprimido bloques = new ArchivoComprimido(archivo)) {
+                    segmentos = recorrerBloques(bloques, pool);
+                    bytes = bloques.tamañoOriginal();
+                }
+            } else {
+                try (ArchivoBson bson = new ArchivoBson(archivo)) {
+                    segmentos = recorrerSegmentos(bson, pool);
+                    bytes = bson.tamaño();
+                }
+            }
+        } catch (IOException e) {
+            errores.add(e.getMessage());
+            return new ResultadoVerificacion.Coleccion(nombre, 0, 0, "", -1, List.of(), errores);
+        }
+
+        long documentos = 0;
+        CRC32C combinado = new CRC32C();
+        ByteBuffer crcs = ByteBuffer.allocate(Integer.BYTES * segmentos.length);
+        for (long[] segmento : segmentos) {
+            documentos += segmento[0];
+            crcs.putInt((int) segmento[1]);
+        }
+        combinado.update(crcs.flip());
+        String checksum = String.format("%08x", combinado.getValue());
+
+        long enVivo = -1;
+        List<String> faltantes = List.of();
+        if (!incremental) {
+            BsonDocument metadata = leerMetadata(directorioDb, nombre);
+            if (metadata == null) {
+                errores.add("falta " + nombre + FormatoDump.EXTENSION_METADATA);
+            } else if (mongoClient != null) {
+                MongoDatabase database = mongoClient.getDatabase(databaseName);
+                enVivo = database.getCollection(nombre).countDocuments();
+                faltantes = indicesFaltantes(database, nombre, metadata);
+            }
+        }
+        return new ResultadoVerificacion.Coleccion(nombre, documentos, bytes, checksum, enVivo, faltantes, errores);
+    }
+
+    /**
+     * Recorre los segmentos en paralelo; devuelve por segmento {documentos, crc32c}.
+     */
+    private static long[][] recorrerSegmentos(ArchivoBson bson, ExecutorService pool) throws IOException {
+        int partes = (int) Math.max(1, (bson.tamaño() + TAMAÑO_SEGMENTO - 1) / TAMAÑO_SEGMENTO);
+        List<ArchivoBson.Segmento> segmentos = bson.segmentar(partes);
+        List<Future<long[]>> tareas = new ArrayList<>(segmentos.size());
+        for (ArchivoBson.Segmento segmento : segmentos) {
+            tareas.add(pool.submit(() -> recorrer(bson.mapear(segmento), bson.getRuta(), segmento.inicio())));
+        }
+        return esperar(tareas);
+    }
+
+    /**
+     * Descomprime los bloques en paralelo (cada uno verifica su CRC32) y los recorre igual que un .bson.
+     */
+    private static long[][] recorrerBloques(ArchivoComprimido bloques, ExecutorService pool) throws IOException {
+        List<Future<long[]>> tareas = new ArrayList<>(bloques.cantidadBloques());
+        for (int i = 0; i < bloques.cantidadBloques(); i++) {
+            int indice = i;
+            tareas.add(pool.submit(() -> {
+                ArchivoComprimido.Bloque bloque = bloques.bloque(indice);
+                long[] resultado = recorrer(bloques.leerBloque(indice), bloques.getRuta(), bloque.posicion());
+                if (resultado[0] != bloque.documentos()) {
+                    throw new ArchivoBson.CorruptoException(bloques.getRuta(), bloque.posicion(),
+                            "el bloque " + indice + " tiene " + resultado[0] + " documentos y el índice dice "
+                                    + bloque.documentos());
+                }
+                return resultado;
+            }));
+        }
+        return esperar(tareas);
+    }
+
+    /**
+     * Valida y cuenta los documentos de un buffer little-endian sin decodificarlos.
+     */
+    private static long[] recorrer(ByteBuffer datos, Path ruta, long inicio) throws IOException {
+        long documentos = 0;
+        int limite = datos.limit();
+        int posicion = datos.position();
+        while (posicion < limite) {
+            if (limite - posicion < ArchivoBson.TAMAÑO_MINIMO_DOCUMENTO) {
+                throw new ArchivoBson.CorruptoException(ruta, inicio + posicion, "documento truncado");
+            }
+            int longitud = datos.getInt(posicion);
+            if (longitud < ArchivoBson.TAMAÑO_MINIMO_DOCUMENTO || longitud > limite - posicion) {
+                throw new ArchivoBson.CorruptoException(ruta, inicio + posicion, "longitud de documento inválida: " + longitud);
+            }
+            if (datos.get(posicion + longitud - 1) != 0) {
+                throw new ArchivoBson.CorruptoException(ruta, inicio + posicion, "documento sin terminador");
+            }
+            posicion += longitud;
+            documentos++;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(datos);
+        return new long[]{documentos, crc.getValue()};
+    }
+
+    private static List<String> indicesFaltantes(MongoDatabase database, String coleccion, BsonDocument metadata) {
+        Set<String> enVivo = new HashSet<>();
+        database.getCollection(coleccion).listIndexes(BsonDocument.class)
+                .forEach(indice -> enVivo.add(indice.getString("name").getValue()));
+        List<String> faltantes = new ArrayList<>();
+        for (BsonValue valor : metadata.getArray("indexes", new BsonArray())) {
+            String nombre = valor.asDocument().getString("name", new BsonString("")).getValue();
+            if (!enVivo.contains(nombre)) {
+                faltantes.add(nombre);
+            }
+        }
+        return faltantes;
+    }
+
+    private static BsonDocument leerMetadata(Path directorioDb, String coleccion) throws IOException {
+        Path archivo = FormatoDump.archivoMetadata(directorioDb, coleccion);
+        return Files.exists(archivo) ? FormatoDump.leerJson(archivo) : null;
+    }
+
+    private static long[][] esperar(List<Future<long[]>> tareas) throws IOException {
+        long[][] resultados = new long[tareas.size()][];
+        try {
+            for (int i = 0; i < resultados.length; i++) {
+                resultados[i] = tareas.get(i).get();
+            }
+            return resultados;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            tareas.forEach(t -> t.cancel(true));
+            throw new IOException("Verificación interrumpida", e);
+        } catch (ExecutionException e) {
+            tareas.forEach(t -> t.cancel(true));
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Error al verificar un segmento", e.getCause());
+        }
+    }
+
+    private static ThreadFactory hilos() {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "verificacion-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
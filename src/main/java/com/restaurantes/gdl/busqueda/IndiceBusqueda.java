@@ -0,0 +1,398 @@
+package com.restaurantes.gdl.busqueda;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice de búsqueda de texto en memoria sobre nombre, tipo de comida y especialidades, para
+ * búsqueda mientras se escribe sin recorrer la colección.
+ * <p>
+ * Los textos se normalizan (minúsculas, sin acentos) y se parten en palabras; cada palabra
+ * distinta vive una sola vez en un {@link TrieTerminos} con su lista de documentos. Cada
+ * palabra de la consulta coincide con los términos del índice de tres formas, de mejor a
+ * peor: exacta, como prefijo ("birr" → "birrieria") o aproximada, a una distancia de edición
+ * que crece con su longitud ("birieria" → "birrieria"). Un restaurante aparece si todas las
+ * palabras de la consulta coinciden con alguno de sus campos; el puntaje suma la mejor
+ * coincidencia de cada palabra, pesada por campo, y los empates se rompen por calificación.
+ * <p>
+ * Se actualiza de forma incremental: volver a agregar un id reemplaza al documento anterior.
+ * Las búsquedas pueden correr en paralelo entre sí; las escrituras las excluyen.
+ */
+public class IndiceBusqueda {
+
+    private static final int CAMPO_NOMBRE = 0;
+    private static final int CAMPO_TIPO_COMIDA = 1;
+    private static final int CAMPO_ESPECIALIDAD = 2;
+    private static final float[] PESO_CAMPO = {1.0f, 0.8f, 0.6f};
+
+    private static final float CALIDAD_EXACTA = 1.0f;
+    // Un prefijo vale entre 0.5 y 0.9 según qué tanto del término cubre
+    private static final float CALIDAD_PREFIJO = 0.5f;
+    private static final float CALIDAD_PREFIJO_COBERTURA = 0.4f;
+    private static final float CALIDAD_APROXIMADA = 0.6f;
+
+    // Las consultas más largas se truncan; el conteo por documento cabe en un byte
+    private static final int MAXIMO_PALABRAS = 16;
+
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+    private final TrieTerminos terminos = new TrieTerminos();
+
+    // Listas de documentos por término; cada entrada es documento << 2 | campo
+    private int[][] listas = new int[1024][];
+    private int[] largos = new int[1024];
+
+    private int cantidad;
+    private ObjectId[] ids = new ObjectId[1024];
+    private String[] nombres = new String[1024];
+    private String[] tiposComida = new String[1024];
+    private float[] calificaciones = new float[1024];
+    private final BitSet reemplazados = new BitSet();
+    private final Map<ObjectId, Integer> documentoPorId = new HashMap<>();
+
+    private final ThreadLocal<Espacio> espacios = ThreadLocal.withInitial(Espacio::new);
+
+    /**
+     * Agrega o reemplaza los restaurantes de un lote con los campos {@code _id},
+     * {@code nombre}, {@code tipoComida}, {@code especialidades} y {@code calificacion}.
+     */
+    public void agregarDocumentos(List<? extends BsonDocument> documentos) {
+        candado.writeLock().lock();
+        try {
+            for (BsonDocument doc : documentos) {
+                BsonValue id = doc.get("_id");
+                if (id == null || !id.isObjectId()) {
+                    continue;
+                }
+                List<String> especialidades = new ArrayList<>();
+                BsonValue lista = doc.get("especialidades");
+                if (lista != null && lista.isArray()) {
+                    for (BsonValue especialidad : lista.asArray()) {
+                        if (especialidad.isString()) {
+                            especialidades.add(especialidad.asString().getValue());
+                        }
+                    }
+                }
+                BsonValue calificacion = doc.get("calificacion");
+                agregarSinCandado(id.asObjectId().getValue(), texto(doc.get("nombre")), texto(doc.get("tipoComida")),
+                        especialidades, calificacion != null && calificacion.isNumber()
+                                ? calificacion.asNumber().doubleValue() : 0);
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    public void agregar(ObjectId id, String nombre, String tipoComida, List<String> especialidades,
+                        double calificacion) {
+        candado.writeLock().lock();
+        try {
+            agregarSinCandado(id, nombre, tipoComida, especialidades, calificacion);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private void agregarSinCandado(ObjectId id, String nombre, String tipoComida, List<String> especialidades,
+                                   double calificacion) {
+        int documento = cantidad++;
+        if (documento == ids.length) {
+            int capacidad = documento * 2;
+            ids = Arrays.copyOf(ids, capacidad);
+            nombres = Arrays.copyOf(nombres, capacidad);
+            tiposComida = Arrays.copyOf(tiposComida, capacidad);
+            calificaciones = Arrays.copyOf(calificaciones, capacidad);
+        }
+        ids[documento] = id;
+        nombres[documento] = nombre;
+        tiposComida[documento] = tipoComida;
+        calificaciones[documento] = (float) calificacion;
+        Integer anterior = documentoPorId.put(id, documento);
+        if (anterior != null) {
+            reemplazados.set(anterior);
+        }
+        indexar(nombre, documento, CAMPO_NOMBRE);
+        indexar(tipoComida, documento, CAMPO_TIPO_COMIDA);
+        if (especialidades != null) {
+            for (String especialidad : especialidades) {
+                indexar(especialidad, documento, CAMPO_ESPECIALIDAD);
+            }
+        }
+    }
+
+    private void indexar(String texto, int documento, int campo) {
+        int entrada = documento << 2 | campo;
+        for (String palabra : Normalizacion.terminos(texto)) {
+            int termino = terminos.agregar(palabra);
+            if (termino == listas.length) {
+                listas = Arrays.copyOf(listas, termino * 2);
+                largos = Arrays.copyOf(largos, termino * 2);
+            }
+            int[] lista = listas[termino];
+            int largo = largos[termino];
+            if (largo > 0 && lista[largo - 1] == entrada) {
+                // La palabra se repite en el mismo campo
+                continue;
+            }
+            if (lista == null) {
+                lista = listas[termino] = new int[4];
+            } else if (largo == lista.length) {
+                lista = listas[termino] = Arrays.copyOf(lista, largo * 2);
+            }
+            lista[largo] = entrada;
+            largos[termino] = largo + 1;
+        }
+    }
+
+    /**
+     * Quita todos los documentos, p. ej. al vaciar la colección.
+     */
+    public void vaciar() {
+        candado.writeLock().lock();
+        try {
+            Arrays.fill(largos, 0);
+            Arrays.fill(ids, 0, cantidad, null);
+            Arrays.fill(nombres, 0, cantidad, null);
+            Arrays.fill(tiposComida, 0, cantidad, null);
+            cantidad = 0;
+            reemplazados.clear();
+            documentoPorId.clear();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Restaurantes vigentes en el índice.
+     */
+    public int tamaño() {
+        candado.readLock().lock();
+        try {
+            return documentoPorId.size();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Hasta {@code limite} restaurantes que coinciden con todas las palabras de la consulta,
+     * del mejor puntaje al peor y, a igual puntaje, de la mejor calificación a la peor.
+     */
+    public List<ResultadoBusqueda> buscar(String consulta, int limite) {
+        List<String> palabras = Normalizacion.terminos(consulta);
+        if (palabras.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        if (palabras.size() > MAXIMO_PALABRAS) {
+            palabras = palabras.subList(0, MAXIMO_PALABRAS);
+        }
+        candado.readLock().lock();
+        try {
+            Espacio espacio = espacios.get();
+            espacio.preparar(cantidad, terminos.tamaño());
+            try {
+                ListaEnteros candidatos = null;
+                for (int i = 0; i < palabras.size() && (candidatos == null || candidatos.tamaño > 0); i++) {
+                    candidatos = coincidencias(palabras.get(i), i, espacio);
+                }
+                return mejores(candidatos, limite, espacio);
+            } finally {
+                espacio.limpiar();
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Suma al puntaje de cada documento que coincidió con las {@code palabra} palabras previas
+     * su mejor coincidencia con esta, y devuelve los que siguen en carrera.
+     */
+    private ListaEnteros coincidencias(String palabra, int numeroPalabra, Espacio espacio) {
+        ListaEnteros terminosVistos = espacio.terminosVistos;
+        float[] calidadTermino = espacio.calidadTermino;
+        terminos.conPrefijo(palabra, termino -> {
+            int largoTermino = terminos.termino(termino).length();
+            float calidad = largoTermino == palabra.length() ? CALIDAD_EXACTA
+                    : CALIDAD_PREFIJO + CALIDAD_PREFIJO_COBERTURA * palabra.length() / largoTermino;
+            registrar(termino, calidad, terminosVistos, calidadTermino);
+        });
+        int maximo = distanciaMaxima(palabra.length());
+        if (maximo > 0) {
+            terminos.aproximados(palabra, maximo, (termino, distancia) -> registrar(termino,
+                    CALIDAD_APROXIMADA * (1 - (float) distancia / palabra.length()), terminosVistos, calidadTermino));
+        }
+
+        ListaEnteros tocados = numeroPalabra == 0 ? espacio.primeros
+                : numeroPalabra % 2 == 0 ? espacio.tocadosPar : espacio.tocadosImpar;
+        tocados.tamaño = 0;
+        float[] mejor = espacio.mejor;
+        byte[] palabrasCumplidas = espacio.palabrasCumplidas;
+        for (int t = 0; t < terminosVistos.tamaño; t++) {
+            int termino = terminosVistos.valores[t];
+            float calidad = calidadTermino[termino];
+            calidadTermino[termino] = 0;
+            int[] lista = listas[termino];
+            for (int e = 0, largo = largos[termino]; e < largo; e++) {
+                int documento = lista[e] >>> 2;
+                if (palabrasCumplidas[documento] != numeroPalabra || reemplazados.get(documento)) {
+                    continue;
+                }
+                float puntaje = calidad * PESO_CAMPO[lista[e] & 3];
+                if (mejor[documento] == 0) {
+                    tocados.agregar(documento);
+                }
+                if (puntaje > mejor[documento]) {
+                    mejor[documento] = puntaje;
+                }
+            }
+        }
+        terminosVistos.tamaño = 0;
+        for (int i = 0; i < tocados.tamaño; i++) {
+            int documento = tocados.valores[i];
+            espacio.total[documento] += mejor[documento];
+            mejor[documento] = 0;
+            palabrasCumplidas[documento]++;
+        }
+        return tocados;
+    }
+
+    private static void registrar(int termino, float calidad, ListaEnteros terminosVistos, float[] calidadTermino) {
+        if (calidadTermino[termino] == 0) {
+            terminosVistos.agregar(termino);
+        }
+        calidadTermino[termino] = Math.max(calidadTermino[termino], calidad);
+    }
+
+    // Ediciones toleradas según la longitud de la palabra; las muy cortas solo por prefijo
+    private static int distanciaMaxima(int longitud) {
+        return longitud < 4 ? 0 : longitud < 8 ? 1 : 2;
+    }
+
+    /**
+     * Los {@code limite} mejores candidatos con un montículo de mínimos acotado: la raíz es el
+     * peor de los que van quedando.
+     */
+    private List<ResultadoBusqueda> mejores(ListaEnteros candidatos, int limite, Espacio espacio) {
+        float[] total = espacio.total;
+        int k = Math.min(limite, candidatos.tamaño);
+        int[] monticulo = new int[k];
+        int n = 0;
+        for (int i = 0; i < candidatos.tamaño; i++) {
+            int documento = candidatos.valores[i];
+            if (n < k) {
+                int j = n++;
+                while (j > 0 && peor(documento, monticulo[(j - 1) >>> 1], total)) {
+                    monticulo[j] = monticulo[(j - 1) >>> 1];
+                    j = (j - 1) >>> 1;
+                }
+                monticulo[j] = documento;
+            } else if (peor(monticulo[0], documento, total)) {
+                monticulo[0] = documento;
+                hundir(monticulo, n, total);
+            }
+        }
+        ResultadoBusqueda[] resultado = new ResultadoBusqueda[n];
+        // Sacar la raíz repetidamente da los resultados del peor al mejor
+        while (n > 0) {
+            int documento = monticulo[0];
+            monticulo[0] = monticulo[--n];
+            hundir(monticulo, n, total);
+            resultado[n] = new ResultadoBusqueda(ids[documento], nombres[documento], tiposComida[documento],
+                    calificaciones[documento], total[documento]);
+        }
+        return Arrays.asList(resultado);
+    }
+
+    private void hundir(int[] monticulo, int n, float[] total) {
+        int i = 0;
+        while (true) {
+            int hijo = 2 * i + 1;
+            if (hijo >= n) {
+                return;
+            }
+            if (hijo + 1 < n && peor(monticulo[hijo + 1], monticulo[hijo], total)) {
+                hijo++;
+            }
+            if (!peor(monticulo[hijo], monticulo[i], total)) {
+                return;
+            }
+            int t = monticulo[i];
+            monticulo[i] = monticulo[hijo];
+            monticulo[hijo] = t;
+            i = hijo;
+        }
+    }
+
+    // Orden de los resultados: puntaje, calificación y, para que sea estable, el más antiguo primero
+    private boolean peor(int a, int b, float[] total) {
+        if (total[a] != total[b]) {
+            return total[a] < total[b];
+        }
+        if (calificaciones[a] != calificaciones[b]) {
+            return calificaciones[a] < calificaciones[b];
+        }
+        return a > b;
+    }
+
+    private static String texto(BsonValue valor) {
+        return valor != null && valor.isString() ? valor.asString().getValue() : null;
+    }
+
+    private static final class ListaEnteros {
+        int[] valores = new int[64];
+        int tamaño;
+
+        void agregar(int valor) {
+            if (tamaño == valores.length) {
+                valores = Arrays.copyOf(valores, tamaño * 2);
+            }
+            valores[tamaño++] = valor;
+        }
+    }
+
+    /**
+     * Arreglos de trabajo de una búsqueda, uno por hilo. Se dimensionan al índice y entre
+     * búsquedas se dejan en cero limpiando solo las posiciones tocadas, así una consulta no
+     * asigna ni recorre memoria proporcional al tamaño del índice.
+     */
+    private static final class Espacio {
+        float[] total = new float[0];
+        float[] mejor = new float[0];
+        byte[] palabrasCumplidas = new byte[0];
+        float[] calidadTermino = new float[0];
+        final ListaEnteros terminosVistos = new ListaEnteros();
+        // La primera palabra toca a todos los candidatos que habrá; las siguientes filtran
+        final ListaEnteros primeros = new ListaEnteros();
+        final ListaEnteros tocadosPar = new ListaEnteros();
+        final ListaEnteros tocadosImpar = new ListaEnteros();
+
+        void preparar(int documentos, int terminos) {
+            if (total.length < documentos) {
+                int capacidad = Math.max(documentos, total.length * 2);
+                total = new float[capacidad];
+                mejor = new float[capacidad];
+                palabrasCumplidas = new byte[capacidad];
+            }
+            if (calidadTermino.length < terminos) {
+                calidadTermino = new float[Math.max(terminos, calidadTermino.length * 2)];
+            }
+        }
+
+        void limpiar() {
+            for (int i = 0; i < primeros.tamaño; i++) {
+                total[primeros.valores[i]] = 0;
+                palabrasCumplidas[primeros.valores[i]] = 0;
+            }
+            primeros.tamaño = 0;
+        }
+    }
+}
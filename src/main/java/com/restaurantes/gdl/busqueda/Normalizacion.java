@@ -0,0 +1,57 @@
+package com.restaurantes.gdl.busqueda;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forma canónica de los textos indexados y consultados: minúsculas y sin acentos, partida en
+ * palabras de letras y dígitos. "Birriería Doña Chuy" da {@code [birrieria, dona, chuy]}.
+ */
+final class Normalizacion {
+
+    private Normalizacion() {
+    }
+
+    static List<String> terminos(String texto) {
+        List<String> terminos = new ArrayList<>();
+        if (texto == null) {
+            return terminos;
+        }
+        String normalizado = sinAcentos(texto);
+        StringBuilder termino = new StringBuilder();
+        for (int i = 0; i < normalizado.length(); i++) {
+            char c = normalizado.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                termino.append(Character.toLowerCase(c));
+            } else if (!termino.isEmpty()) {
+                terminos.add(termino.toString());
+                termino.setLength(0);
+            }
+        }
+        if (!termino.isEmpty()) {
+            terminos.add(termino.toString());
+        }
+        return terminos;
+    }
+
+    private static String sinAcentos(String texto) {
+        boolean ascii = true;
+        for (int i = 0; i < texto.length() && ascii; i++) {
+            ascii = texto.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            return texto;
+        }
+        // NFD separa cada letra de sus diacríticos (á = a + ´), que luego se descartan
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        StringBuilder resultado = new StringBuilder(descompuesto.length());
+        for (int i = 0; i < descompuesto.length(); i++) {
+            char c = descompuesto.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                resultado.append(c);
+            }
+        }
+        return resultado.toString();
+    }
+}
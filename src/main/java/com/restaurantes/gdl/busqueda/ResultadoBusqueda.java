@@ -0,0 +1,18 @@
+package com.restaurantes.gdl.busqueda;
+
+import lombok.Value;
+import org.bson.types.ObjectId;
+
+/**
+ * Un restaurante encontrado por {@link IndiceBusqueda}, con lo necesario para mostrarlo en
+ * una lista de sugerencias; el documento completo se pide por id.
+ */
+@Value
+public class ResultadoBusqueda {
+    ObjectId id;
+    String nombre;
+    String tipoComida;
+    double calificacion;
+    // Suma, por palabra de la consulta, de la calidad de su mejor coincidencia
+    double puntaje;
+}
@@ -0,0 +1,208 @@
+package com.restaurantes.gdl.busqueda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Diccionario de términos como trie comprimido (radix): cada arista lleva una cadena en lugar
+ * de un solo carácter, así que las cadenas de nodos con un único hijo se colapsan. Asigna a
+ * cada término un id consecutivo y responde búsquedas por prefijo y por distancia de edición
+ * acotada recorriendo el árbol una sola vez.
+ * <p>
+ * No es seguro para hilos; {@link IndiceBusqueda} lo protege.
+ */
+final class TrieTerminos {
+
+    /**
+     * Recibe cada término aproximado con su distancia de edición a la consulta.
+     */
+    interface ConsumidorAproximado {
+        void aceptar(int termino, int distancia);
+    }
+
+    private static final Nodo[] SIN_HIJOS = new Nodo[0];
+
+    private static final class Nodo {
+        char[] etiqueta;
+        // Ordenados por el primer carácter de su etiqueta
+        Nodo[] hijos = SIN_HIJOS;
+        int termino = -1;
+
+        Nodo(char[] etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+
+        int buscarHijo(char c) {
+            int lo = 0;
+            int hi = hijos.length - 1;
+            while (lo <= hi) {
+                int medio = (lo + hi) >>> 1;
+                char actual = hijos[medio].etiqueta[0];
+                if (actual < c) {
+                    lo = medio + 1;
+                } else if (actual > c) {
+                    hi = medio - 1;
+                } else {
+                    return medio;
+                }
+            }
+            return -(lo + 1);
+        }
+
+        void insertarHijo(int posicion, Nodo hijo) {
+            Nodo[] nuevos = new Nodo[hijos.length + 1];
+            System.arraycopy(hijos, 0, nuevos, 0, posicion);
+            nuevos[posicion] = hijo;
+            System.arraycopy(hijos, posicion, nuevos, posicion + 1, hijos.length - posicion);
+            hijos = nuevos;
+        }
+    }
+
+    private final Nodo raiz = new Nodo(new char[0]);
+    private final List<String> terminos = new ArrayList<>();
+    private int longitudMaxima;
+
+    int tamaño() {
+        return terminos.size();
+    }
+
+    String termino(int id) {
+        return terminos.get(id);
+    }
+
+    /**
+     * Id del término, agregándolo si no existía.
+     */
+    int agregar(String termino) {
+        char[] s = termino.toCharArray();
+        Nodo nodo = raiz;
+        int i = 0;
+        while (true) {
+            if (i == s.length) {
+                if (nodo.termino < 0) {
+                    nodo.termino = nuevoId(termino);
+                }
+                return nodo.termino;
+            }
+            int posicion = nodo.buscarHijo(s[i]);
+            if (posicion < 0) {
+                Nodo hoja = new Nodo(Arrays.copyOfRange(s, i, s.length));
+                hoja.termino = nuevoId(termino);
+                nodo.insertarHijo(-(posicion + 1), hoja);
+                return hoja.termino;
+            }
+            Nodo hijo = nodo.hijos[posicion];
+            int comun = 0;
+            while (comun < hijo.etiqueta.length && i + comun < s.length && hijo.etiqueta[comun] == s[i + comun]) {
+                comun++;
+            }
+            if (comun < hijo.etiqueta.length) {
+                // Parte la arista: el tramo común queda en un nodo intermedio
+                Nodo intermedio = new Nodo(Arrays.copyOf(hijo.etiqueta, comun));
+                hijo.etiqueta = Arrays.copyOfRange(hijo.etiqueta, comun, hijo.etiqueta.length);
+                intermedio.hijos = new Nodo[]{hijo};
+                nodo.hijos[posicion] = intermedio;
+                hijo = intermedio;
+            }
+            nodo = hijo;
+            i += comun;
+        }
+    }
+
+    private int nuevoId(String termino) {
+        terminos.add(termino);
+        longitudMaxima = Math.max(longitudMaxima, termino.length());
+        return terminos.size() - 1;
+    }
+
+    /**
+     * Todos los términos que empiezan con {@code prefijo}, incluido él mismo si existe.
+     */
+    void conPrefijo(String prefijo, IntConsumer consumidor) {
+        Nodo nodo = nodoDePrefijo(prefijo);
+        if (nodo != null) {
+            recorrer(nodo, consumidor);
+        }
+    }
+
+    private Nodo nodoDePrefijo(String prefijo) {
+        Nodo nodo = raiz;
+        int i = 0;
+        while (i < prefijo.length()) {
+            int posicion = nodo.buscarHijo(prefijo.charAt(i));
+            if (posicion < 0) {
+                return null;
+            }
+            nodo = nodo.hijos[posicion];
+            char[] etiqueta = nodo.etiqueta;
+            int j = 0;
+            while (j < etiqueta.length && i < prefijo.length()) {
+                if (etiqueta[j++] != prefijo.charAt(i++)) {
+                    return null;
+                }
+            }
+        }
+        return nodo;
+    }
+
+    private static void recorrer(Nodo nodo, IntConsumer consumidor) {
+        if (nodo.termino >= 0) {
+            consumidor.accept(nodo.termino);
+        }
+        for (Nodo hijo : nodo.hijos) {
+            recorrer(hijo, consumidor);
+        }
+    }
+
+    /**
+     * Términos a distancia de edición no mayor que {@code maximo} de {@code consulta}, contando
+     * inserción, borrado, sustitución y transposición de dos letras contiguas. Calcula una fila
+     * de la matriz de distancias por carácter del camino, compartida entre los términos con el
+     * mismo prefijo, y abandona una rama en cuanto toda su fila supera {@code maximo}.
+     */
+    void aproximados(String consulta, int maximo, ConsumidorAproximado consumidor) {
+        int n = consulta.length();
+        int[][] filas = new int[longitudMaxima + 1][n + 1];
+        for (int j = 0; j <= n; j++) {
+            filas[0][j] = j;
+        }
+        char[] camino = new char[longitudMaxima + 1];
+        char[] caracteres = consulta.toCharArray();
+        for (Nodo hijo : raiz.hijos) {
+            aproximados(hijo, 0, caracteres, maximo, filas, camino, consumidor);
+        }
+    }
+
+    private void aproximados(Nodo nodo, int profundidad, char[] consulta, int maximo, int[][] filas,
+                             char[] camino, ConsumidorAproximado consumidor) {
+        int n = consulta.length;
+        for (char c : nodo.etiqueta) {
+            int d = ++profundidad;
+            camino[d] = c;
+            int[] anterior = filas[d - 1];
+            int[] fila = filas[d];
+            fila[0] = d;
+            int minimo = d;
+            for (int j = 1; j <= n; j++) {
+                int costo = consulta[j - 1] == c ? 0 : 1;
+                int valor = Math.min(Math.min(anterior[j] + 1, fila[j - 1] + 1), anterior[j - 1] + costo);
+                if (d > 1 && j > 1 && consulta[j - 1] == camino[d - 1] && consulta[j - 2] == c) {
+                    valor = Math.min(valor, filas[d - 2][j - 2] + 1);
+                }
+                fila[j] = valor;
+                minimo = Math.min(minimo, valor);
+            }
+            if (minimo > maximo) {
+                return;
+            }
+        }
+        if (nodo.termino >= 0 && filas[profundidad][n] <= maximo) {
+            consumidor.aceptar(nodo.termino, filas[profundidad][n]);
+        }
+        for (Nodo hijo : nodo.hijos) {
+            aproximados(hijo, profundidad, consulta, maximo, filas, camino, consumidor);
+        }
+    }
+}
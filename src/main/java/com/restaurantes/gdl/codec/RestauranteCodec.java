@@ -0,0 +1,193 @@
+package com.restaurantes.gdl.codec;
+
+import com.restaurantes.gdl.model.Restaurante;
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codec escrito a mano para {@link Restaurante}. Codifica y decodifica directamente contra el
+ * flujo BSON, evitando el árbol de {@code Document} que generan {@code toDocument()} y
+ * {@code fromDocument()}. El orden de campos es el mismo que el de {@code toDocument()},
+ * con {@code _id} al inicio como lo deja el driver.
+ */
+public class RestauranteCodec implements CollectibleCodec<Restaurante> {
+
+    private final UbicacionCodec ubicacionCodec;
+
+    public RestauranteCodec(UbicacionCodec ubicacionCodec) {
+        this.ubicacionCodec = ubicacionCodec;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Restaurante restaurante, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (restaurante.getId() != null) {
+            writer.writeObjectId("_id", restaurante.getId());
+        }
+        escribirString(writer, "nombre", restaurante.getNombre());
+        escribirString(writer, "direccion", restaurante.getDireccion());
+        escribirString(writer, "municipio", restaurante.getMunicipio());
+        escribirString(writer, "tipoComida", restaurante.getTipoComida());
+        writer.writeDouble("calificacion", restaurante.getCalificacion());
+        writer.writeDouble("precioPromedio", restaurante.getPrecioPromedio());
+        escribirString(writer, "horario", restaurante.getHorario());
+
+        writer.writeName("ubicacion");
+        if (restaurante.getUbicacion() == null) {
+            writer.writeNull();
+        } else {
+            encoderContext.encodeWithChildContext(ubicacionCodec, writer, restaurante.getUbicacion());
+        }
+
+        escribirString(writer, "telefono", restaurante.getTelefono());
+
+        writer.writeName("especialidades");
+        if (restaurante.getEspecialidades() == null) {
+            writer.writeNull();
+        } else {
+            writer.writeStartArray();
+            for (String especialidad : restaurante.getEspecialidades()) {
+                writer.writeString(especialidad);
+            }
+            writer.writeEndArray();
+        }
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Restaurante decode(BsonReader reader, DecoderContext decoderContext) {
+        Restaurante restaurante = new Restaurante();
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id":
+                    restaurante.setId(reader.readObjectId());
+                    break;
+                case "nombre":
+                    restaurante.setNombre(leerString(reader));
+                    break;
+                case "direccion":
+                    restaurante.setDireccion(leerString(reader));
+                    break;
+                case "municipio":
+                    restaurante.setMunicipio(leerString(reader));
+                    break;
+                case "tipoComida":
+                    restaurante.setTipoComida(leerString(reader));
+                    break;
+                case "calificacion":
+                    restaurante.setCalificacion(leerDouble(reader));
+                    break;
+                case "precioPromedio":
+                    restaurante.setPrecioPromedio(leerDouble(reader));
+                    break;
+                case "horario":
+                    restaurante.setHorario(leerString(reader));
+                    break;
+                case "ubicacion":
+                    if (reader.getCurrentBsonType() == BsonType.NULL) {
+                        reader.readNull();
+                    } else {
+                        restaurante.setUbicacion(ubicacionCodec.decode(reader, decoderContext));
+                    }
+                    break;
+                case "telefono":
+                    restaurante.setTelefono(leerString(reader));
+                    break;
+                case "especialidades":
+                    restaurante.setEspecialidades(leerListaStrings(reader));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        return restaurante;
+    }
+
+    @Override
+    public Class<Restaurante> getEncoderClass() {
+        return Restaurante.class;
+    }
+
+    @Override
+    public Restaurante generateIdIfAbsentFromDocument(Restaurante restaurante) {
+        if (restaurante.getId() == null) {
+            restaurante.setId(new ObjectId());
+        }
+        return restaurante;
+    }
+
+    @Override
+    public boolean documentHasId(Restaurante restaurante) {
+        return restaurante.getId() != null;
+    }
+
+    @Override
+    public BsonValue getDocumentId(Restaurante restaurante) {
+        if (restaurante.getId() == null) {
+            throw new IllegalStateException("El restaurante no tiene _id");
+        }
+        return new BsonObjectId(restaurante.getId());
+    }
+
+    private static void escribirString(BsonWriter writer, String nombre, String valor) {
+        if (valor == null) {
+            writer.writeNull(nombre);
+        } else {
+            writer.writeString(nombre, valor);
+        }
+    }
+
+    static String leerString(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.NULL) {
+            reader.readNull();
+            return null;
+        }
+        return reader.readString();
+    }
+
+    // Acepta cualquier tipo numérico: documentos insertados desde otras fuentes
+    // (p. ej. el backend Express) pueden traer enteros en lugar de doubles
+    static double leerDouble(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return reader.readInt64();
+            case DECIMAL128:
+                return reader.readDecimal128().doubleValue();
+            case NULL:
+                reader.readNull();
+                return 0;
+            default:
+                return reader.readDouble();
+        }
+    }
+
+    private static List<String> leerListaStrings(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.NULL) {
+            reader.readNull();
+            return null;
+        }
+        List<String> valores = new ArrayList<>(4);
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            valores.add(reader.readString());
+        }
+        reader.readEndArray();
+        return valores;
+    }
+}
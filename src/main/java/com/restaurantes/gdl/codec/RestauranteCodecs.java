@@ -0,0 +1,23 @@
+package com.restaurantes.gdl.codec;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+
+/**
+ * Registro de codecs del dominio combinado con el registro por defecto del driver,
+ * de modo que las colecciones de {@code Document} siguen funcionando igual.
+ */
+public final class RestauranteCodecs {
+
+    public static final UbicacionCodec UBICACION = new UbicacionCodec();
+    public static final RestauranteCodec RESTAURANTE = new RestauranteCodec(UBICACION);
+
+    public static final CodecRegistry REGISTRO = CodecRegistries.fromRegistries(
+            CodecRegistries.fromCodecs(RESTAURANTE, UBICACION),
+            MongoClientSettings.getDefaultCodecRegistry()
+    );
+
+    private RestauranteCodecs() {
+    }
+}
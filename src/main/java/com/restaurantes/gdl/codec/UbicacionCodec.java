@@ -0,0 +1,64 @@
+package com.restaurantes.gdl.codec;
+
+import com.restaurantes.gdl.model.Restaurante;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codec GeoJSON para {@link Restaurante.Ubicacion}: escribe y lee {@code type} y
+ * {@code coordinates} directamente sobre el flujo BSON, sin Document intermedio.
+ */
+public class UbicacionCodec implements Codec<Restaurante.Ubicacion> {
+
+    @Override
+    public void encode(BsonWriter writer, Restaurante.Ubicacion ubicacion, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writer.writeString("type", ubicacion.getType());
+        writer.writeStartArray("coordinates");
+        for (Double coordenada : ubicacion.getCoordinates()) {
+            writer.writeDouble(coordenada);
+        }
+        writer.writeEndArray();
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Restaurante.Ubicacion decode(BsonReader reader, DecoderContext decoderContext) {
+        String type = null;
+        List<Double> coordinates = null;
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "type":
+                    type = RestauranteCodec.leerString(reader);
+                    break;
+                case "coordinates":
+                    coordinates = new ArrayList<>(2);
+                    reader.readStartArray();
+                    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                        coordinates.add(RestauranteCodec.leerDouble(reader));
+                    }
+                    reader.readEndArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        return new Restaurante.Ubicacion(type, coordinates);
+    }
+
+    @Override
+    public Class<Restaurante.Ubicacion> getEncoderClass() {
+        return Restaurante.Ubicacion.class;
+    }
+}
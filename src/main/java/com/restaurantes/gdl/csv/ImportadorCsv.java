@@ -0,0 +1,253 @@
+package com.restaurantes.gdl.csv;
+
+import com.restaurantes.gdl.model.Restaurante;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Lectura en paralelo de feeds CSV de restaurantes.
+ * <p>
+ * El archivo se mapea en memoria y se parte en trozos que terminan en salto de línea; cada
+ * trozo lo interpreta un hilo con su propio {@link ParserCsv}. Los restaurantes salen por
+ * lotes a una cola acotada que se consume como {@link Iterator}, de modo que se pueden pasar
+ * directo al pipeline de importación sin materializar el archivo completo. El orden de las
+ * filas entre trozos no se conserva.
+ */
+public class ImportadorCsv {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportadorCsv.class);
+
+    private static final List<Restaurante> FIN = new ArrayList<>();
+
+    // Suficiente para repartir entre hilos y lejos del límite de un MappedByteBuffer
+    private static final long TAMAÑO_TROZO = 16L * 1024 * 1024;
+
+    private static final int TAMAÑO_LOTE = 1000;
+
+    private final MapeoCsv mapeo;
+    private final int hilos;
+
+    public ImportadorCsv(MapeoCsv mapeo, int hilos) {
+        this.mapeo = mapeo;
+        this.hilos = Math.max(1, hilos);
+    }
+
+    /**
+     * Empieza a leer el archivo en segundo plano. El resultado se debe cerrar, aunque no se
+     * haya consumido por completo.
+     *
+     * @throws IOException si el encabezado no contiene alguna de las columnas del mapeo
+     */
+    public LecturaCsv leer(Path archivo) throws IOException {
+        FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ);
+        try {
+            long tamaño = canal.size();
+            long inicioDatos = finDeLinea(canal, 0, tamaño);
+            MapeoCsv.Campo[] campos = resolverEncabezado(canal, inicioDatos);
+            List<long[]> trozos = trozos(canal, inicioDatos, tamaño);
+            logger.info("Leyendo {} ({} MB) en {} trozo(s) con {} hilo(s)",
+                    archivo.getFileName(), tamaño / (1024 * 1024), trozos.size(), Math.min(hilos, trozos.size()));
+            return new LecturaCsv(canal, campos, trozos);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    private MapeoCsv.Campo[] resolverEncabezado(FileChannel canal, long finEncabezado) throws IOException {
+        ByteBuffer bytes = canal.map(FileChannel.MapMode.READ_ONLY, 0, finEncabezado);
+        String encabezado = StandardCharsets.UTF_8.decode(bytes).toString().strip();
+        if (encabezado.startsWith("\uFEFF")) {
+            encabezado = encabezado.substring(1);
+        }
+        // El separador es configurable ('|', '.', ...): se cita para que split no lo lea como regex
+        String[] nombres = encabezado.split(Pattern.quote(String.valueOf(mapeo.getSeparador())), -1);
+        MapeoCsv.Campo[] campos = new MapeoCsv.Campo[nombres.length];
+        int asignadas = 0;
+        for (int i = 0; i < nombres.length; i++) {
+            String nombre = nombres[i].strip();
+            if (nombre.length() > 1 && nombre.startsWith("\"") && nombre.endsWith("\"")) {
+                nombre = nombre.substring(1, nombre.length() - 1);
+            }
+            campos[i] = mapeo.getColumnas().get(nombre);
+            if (campos[i] != null) {
+                asignadas++;
+            }
+        }
+        if (asignadas < mapeo.getColumnas().size()) {
+            throw new IOException("El encabezado '" + encabezado + "' no contiene todas las columnas del mapeo "
+                    + mapeo.getColumnas().keySet());
+        }
+        return campos;
+    }
+
+    /**
+     * Rangos [inicio, fin) de aproximadamente {@link #TAMAÑO_TROZO} bytes, cada uno cortado
+     * justo después de un salto de línea.
+     */
+    private static List<long[]> trozos(FileChannel canal, long inicio, long tamaño) throws IOException {
+        List<long[]> trozos = new ArrayList<>();
+        while (inicio < tamaño) {
+            long fin = inicio + TAMAÑO_TROZO >= tamaño ? tamaño : finDeLinea(canal, inicio + TAMAÑO_TROZO, tamaño);
+            trozos.add(new long[]{inicio, fin});
+            inicio = fin;
+        }
+        return trozos;
+    }
+
+    /**
+     * Posición siguiente al primer salto de línea a partir de {@code desde}, o el final del archivo.
+     */
+    private static long finDeLinea(FileChannel canal, long desde, long tamaño) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long posicion = desde;
+        while (posicion < tamaño) {
+            buffer.clear();
+            int leidos = canal.read(buffer, posicion);
+            if (leidos <= 0) {
+                break;
+            }
+            for (int i = 0; i < leidos; i++) {
+                if (buffer.get(i) == '\n') {
+                    return posicion + i + 1;
+                }
+            }
+            posicion += leidos;
+        }
+        return tamaño;
+    }
+
+    /**
+     * Restaurantes del archivo conforme se van interpretando.
+     */
+    public final class LecturaCsv implements Iterator<Restaurante>, AutoCloseable {
+
+        private final FileChannel canal;
+        private final ExecutorService pool;
+        private final BlockingQueue<List<Restaurante>> cola = new ArrayBlockingQueue<>(hilos * 2);
+        private final AtomicInteger pendientes;
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private final AtomicLong filasInvalidas = new AtomicLong();
+        private Iterator<Restaurante> actual = List.<Restaurante>of().iterator();
+        private boolean terminado;
+
+        private LecturaCsv(FileChannel canal, MapeoCsv.Campo[] campos, List<long[]> trozos) {
+            this.canal = canal;
+            this.pendientes = new AtomicInteger(trozos.size());
+            this.pool = Executors.newFixedThreadPool(Math.max(1, Math.min(hilos, trozos.size())), hilos());
+            if (trozos.isEmpty()) {
+                cola.add(FIN);
+            }
+            for (long[] trozo : trozos) {
+                pool.execute(() -> procesar(campos, trozo[0], trozo[1]));
+            }
+        }
+
+        private void procesar(MapeoCsv.Campo[] campos, long inicio, long fin) {
+            try {
+                MappedByteBuffer datos = canal.map(FileChannel.MapMode.READ_ONLY, inicio, fin - inicio);
+                ParserCsv parser = new ParserCsv(campos, mapeo.getSeparador(), TAMAÑO_LOTE);
+                parser.procesar(datos, this::publicar);
+                if (parser.getFilasInvalidas() > 0) {
+                    filasInvalidas.addAndGet(parser.getFilasInvalidas());
+                    logger.warn("{} fila(s) inválida(s) en el trozo que inicia en el byte {}; primera: {}",
+                            parser.getFilasInvalidas(), inicio, parser.getPrimerError());
+                }
+            } catch (Throwable e) {
+                error.compareAndSet(null, e);
+            } finally {
+                if (pendientes.decrementAndGet() == 0) {
+                    publicar(FIN);
+                } else if (error.get() != null) {
+                    // Adelanta el fin para que el consumidor vea el error sin esperar al resto
+                    cola.offer(FIN);
+                }
+            }
+        }
+
+        private void publicar(List<Restaurante> lote) {
+            try {
+                cola.put(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Lectura del CSV cancelada", e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!actual.hasNext()) {
+                if (terminado) {
+                    return false;
+                }
+                List<Restaurante> lote;
+                try {
+                    lote = cola.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Lectura del CSV interrumpida", e);
+                }
+                if (lote == FIN) {
+                    terminado = true;
+                    if (error.get() != null) {
+                        throw new IllegalStateException("Error al leer el CSV", error.get());
+                    }
+                    return false;
+                }
+                actual = lote.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public Restaurante next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return actual.next();
+        }
+
+        /**
+         * Filas descartadas por no coincidir con el encabezado o tener valores no interpretables.
+         */
+        public long getFilasInvalidas() {
+            return filasInvalidas.get();
+        }
+
+        @Override
+        public void close() throws IOException {
+            pool.shutdownNow();
+            canal.close();
+        }
+    }
+
+    private static ThreadFactory hilos() {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "csv-parser-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package com.restaurantes.gdl.csv;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * Asignación de columnas de un CSV (por nombre de encabezado) a campos de
+ * {@link com.restaurantes.gdl.model.Restaurante}. Las columnas sin asignar se ignoran.
+ */
+@Value
+@Builder
+public class MapeoCsv {
+
+    public enum Campo {
+        NOMBRE,
+        DIRECCION,
+        MUNICIPIO,
+        TIPO_COMIDA,
+        CALIFICACION,
+        PRECIO_PROMEDIO,
+        HORARIO,
+        TELEFONO,
+        LONGITUD,
+        LATITUD,
+        // Lista separada por ';'
+        ESPECIALIDADES,
+        // Fecha ISO-8601; se conserva como marca de tiempo del ObjectId
+        FECHA_ALTA
+    }
+
+    @Singular("columna")
+    Map<String, Campo> columnas;
+
+    @Builder.Default
+    char separador = ',';
+
+    /**
+     * Formato de los feeds de socios ({@code data/restaurants.csv}):
+     * {@code name,location,category,rating,createdAt}.
+     */
+    public static MapeoCsv feedSocios() {
+        return MapeoCsv.builder()
+                .columna("name", Campo.NOMBRE)
+                .columna("location", Campo.MUNICIPIO)
+                .columna("category", Campo.TIPO_COMIDA)
+                .columna("rating", Campo.CALIFICACION)
+                .columna("createdAt", Campo.FECHA_ALTA)
+                .build();
+    }
+}
@@ -0,0 +1,419 @@
+package com.restaurantes.gdl.csv;
+
+import com.restaurantes.gdl.model.Restaurante;
+import org.bson.types.ObjectId;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Interpreta un trozo de CSV (líneas completas) directamente sobre los bytes mapeados.
+ * <p>
+ * Números y fechas se leen de los bytes sin crear objetos intermedios; los textos de baja
+ * cardinalidad (municipio, tipo de comida, horario) pasan por un pequeño caché para que
+ * filas repetidas compartan la misma instancia de String. Admite campos entre comillas con
+ * {@code ""} como escape, pero no saltos de línea dentro de un campo. Cada hilo usa su propio
+ * parser.
+ */
+class ParserCsv {
+
+    private static final double[] POTENCIAS_10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    // Por encima de 2^53 la mantisa ya no es exacta en double
+    private static final long MANTISA_EXACTA = 1L << 53;
+
+    private static final int TAMAÑO_CACHE = 256;
+
+    private final MapeoCsv.Campo[] campos;
+    private final byte separador;
+    private final int tamañoLote;
+
+    private final int[] inicios;
+    private final int[] fines;
+    private final boolean[] citados;
+    private byte[] texto = new byte[256];
+
+    private final byte[][] cacheBytes = new byte[TAMAÑO_CACHE][];
+    private final String[] cacheTextos = new String[TAMAÑO_CACHE];
+
+    private long filasInvalidas;
+    private String primerError;
+
+    /**
+     * @param campos campo asignado a cada columna del archivo, null si se ignora
+     */
+    ParserCsv(MapeoCsv.Campo[] campos, char separador, int tamañoLote) {
+        this.campos = campos;
+        this.separador = (byte) separador;
+        this.tamañoLote = tamañoLote;
+        this.inicios = new int[campos.length];
+        this.fines = new int[campos.length];
+        this.citados = new boolean[campos.length];
+    }
+
+    long getFilasInvalidas() {
+        return filasInvalidas;
+    }
+
+    String getPrimerError() {
+        return primerError;
+    }
+
+    /**
+     * Interpreta todas las líneas de {@code datos} y entrega los restaurantes por lotes.
+     */
+    void procesar(ByteBuffer datos, Consumer<List<Restaurante>> destino) {
+        List<Restaurante> lote = new ArrayList<>(tamañoLote);
+        int posicion = datos.position();
+        int limite = datos.limit();
+        while (posicion < limite) {
+            int finLinea = posicion;
+            while (finLinea < limite && datos.get(finLinea) != '\n') {
+                finLinea++;
+            }
+            int siguiente = finLinea + 1;
+            if (finLinea > posicion && datos.get(finLinea - 1) == '\r') {
+                finLinea--;
+            }
+            if (finLinea > posicion) {
+                Restaurante restaurante = fila(datos, posicion, finLinea);
+                if (restaurante != null) {
+                    lote.add(restaurante);
+                    if (lote.size() == tamañoLote) {
+                        destino.accept(lote);
+                        lote = new ArrayList<>(tamañoLote);
+                    }
+                }
+            }
+            posicion = siguiente;
+        }
+        if (!lote.isEmpty()) {
+            destino.accept(lote);
+        }
+    }
+
+    private Restaurante fila(ByteBuffer datos, int inicio, int fin) {
+        try {
+            if (!separar(datos, inicio, fin)) {
+                throw new IllegalArgumentException("se esperaban " + campos.length + " columnas");
+            }
+            Restaurante r = new Restaurante();
+            double longitud = Double.NaN;
+            double latitud = Double.NaN;
+            for (int c = 0; c < campos.length; c++) {
+                if (campos[c] == null) {
+                    continue;
+                }
+                switch (campos[c]) {
+                    case NOMBRE -> r.setNombre(texto(datos, c));
+                    case DIRECCION -> r.setDireccion(texto(datos, c));
+                    case TELEFONO -> r.setTelefono(texto(datos, c));
+                    case MUNICIPIO -> r.setMunicipio(textoRepetido(datos, c));
+                    case TIPO_COMIDA -> r.setTipoComida(textoRepetido(datos, c));
+                    case HORARIO -> r.setHorario(textoRepetido(datos, c));
+                    case CALIFICACION -> r.setCalificacion(leerDouble(datos, inicios[c], fines[c]));
+                    case PRECIO_PROMEDIO -> r.setPrecioPromedio(leerDouble(datos, inicios[c], fines[c]));
+                    case LONGITUD -> longitud = leerDouble(datos, inicios[c], fines[c]);
+                    case LATITUD -> latitud = leerDouble(datos, inicios[c], fines[c]);
+                    case ESPECIALIDADES -> r.setEspecialidades(lista(texto(datos, c)));
+                    // El contador del driver es único en todo el proceso y los bytes aleatorios
+                    // cambian entre procesos: filas con la misma fecha no chocan entre trozos ni
+                    // entre importaciones
+                    case FECHA_ALTA -> r.setId(new ObjectId(
+                            new Date(leerFechaEpoch(datos, inicios[c], fines[c]) * 1000)));
+                }
+            }
+            if (!Double.isNaN(longitud) && !Double.isNaN(latitud)) {
+                r.setUbicacion(new Restaurante.Ubicacion("Point", List.of(longitud, latitud)));
+            }
+            return r;
+        } catch (RuntimeException e) {
+            if (filasInvalidas++ == 0) {
+                primerError = StandardCharsets.UTF_8.decode(datos.slice(inicio, fin - inicio)) + " → " + e.getMessage();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Ubica las columnas de la línea; devuelve false si no coincide el número de columnas.
+     */
+    private boolean separar(ByteBuffer datos, int inicio, int fin) {
+        int columna = 0;
+        int posicion = inicio;
+        while (true) {
+            if (columna == campos.length) {
+                return false;
+            }
+            boolean citado = posicion < fin && datos.get(posicion) == '"';
+            int finCampo;
+            if (citado) {
+                int i = posicion + 1;
+                while (i < fin) {
+                    if (datos.get(i) == '"') {
+                        if (i + 1 < fin && datos.get(i + 1) == '"') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                inicios[columna] = posicion + 1;
+                fines[columna] = i;
+                finCampo = Math.min(fin, i + 1);
+            } else {
+                finCampo = posicion;
+                while (finCampo < fin && datos.get(finCampo) != separador) {
+                    finCampo++;
+                }
+                inicios[columna] = posicion;
+                fines[columna] = finCampo;
+            }
+            citados[columna] = citado;
+            columna++;
+            if (finCampo >= fin) {
+                return columna == campos.length;
+            }
+            posicion = finCampo + 1;
+        }
+    }
+
+    private String texto(ByteBuffer datos, int columna) {
+        int longitud = copiar(datos, columna);
+        return longitud == 0 ? null : new String(texto, 0, longitud, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Como {@link #texto}, pero reutiliza la instancia si el mismo valor apareció antes.
+     */
+    private String textoRepetido(ByteBuffer datos, int columna) {
+        int longitud = copiar(datos, columna);
+        if (longitud == 0) {
+            return null;
+        }
+        int hash = 1;
+        for (int i = 0; i < longitud; i++) {
+            hash = 31 * hash + texto[i];
+        }
+        int ranura = (hash ^ (hash >>> 16)) & (TAMAÑO_CACHE - 1);
+        byte[] guardado = cacheBytes[ranura];
+        if (guardado != null && Arrays.equals(guardado, 0, guardado.length, texto, 0, longitud)) {
+            return cacheTextos[ranura];
+        }
+        String valor = new String(texto, 0, longitud, StandardCharsets.UTF_8);
+        cacheBytes[ranura] = Arrays.copyOf(texto, longitud);
+        cacheTextos[ranura] = valor;
+        return valor;
+    }
+
+    /**
+     * Copia el campo al buffer de texto (sin comillas, con {@code ""} → {@code "}), recortado.
+     */
+    private int copiar(ByteBuffer datos, int columna) {
+        int inicio = inicios[columna];
+        int fin = fines[columna];
+        if (!citados[columna]) {
+            while (inicio < fin && datos.get(inicio) == ' ') {
+                inicio++;
+            }
+            while (fin > inicio && datos.get(fin - 1) == ' ') {
+                fin--;
+            }
+        }
+        if (fin - inicio > texto.length) {
+            texto = new byte[Math.max(texto.length * 2, fin - inicio)];
+        }
+        int n = 0;
+        for (int i = inicio; i < fin; i++) {
+            byte b = datos.get(i);
+            texto[n++] = b;
+            if (b == '"' && citados[columna]) {
+                i++;
+            }
+        }
+        return n;
+    }
+
+    private static List<String> lista(String valor) {
+        if (valor == null) {
+            return List.of();
+        }
+        List<String> elementos = new ArrayList<>();
+        for (String elemento : valor.split(";")) {
+            if (!elemento.isBlank()) {
+                elementos.add(elemento.trim());
+            }
+        }
+        return elementos;
+    }
+
+    /**
+     * Decimal con signo, parte fraccionaria y exponente opcionales. Con mantisa de hasta 2^53
+     * y a lo más 22 decimales el resultado es exacto (un solo redondeo); fuera de ese rango se
+     * recurre a {@link Double#parseDouble}.
+     */
+    static double leerDouble(ByteBuffer datos, int inicio, int fin) {
+        int i = inicio;
+        while (i < fin && datos.get(i) == ' ') {
+            i++;
+        }
+        while (fin > i && datos.get(fin - 1) == ' ') {
+            fin--;
+        }
+        if (i == fin) {
+            return 0;
+        }
+        int inicioNumero = i;
+        boolean negativo = false;
+        if (datos.get(i) == '-' || datos.get(i) == '+') {
+            negativo = datos.get(i) == '-';
+            i++;
+        }
+        long mantisa = 0;
+        int decimales = 0;
+        int digitos = 0;
+        boolean punto = false;
+        for (; i < fin; i++) {
+            byte b = datos.get(i);
+            if (b >= '0' && b <= '9') {
+                mantisa = mantisa * 10 + (b - '0');
+                digitos++;
+                if (punto) {
+                    decimales++;
+                }
+                if (mantisa >= MANTISA_EXACTA) {
+                    return respaldo(datos, inicioNumero, fin);
+                }
+            } else if (b == '.' && !punto) {
+                punto = true;
+            } else {
+                break;
+            }
+        }
+        int exponente = 0;
+        if (i < fin && (datos.get(i) == 'e' || datos.get(i) == 'E')) {
+            return respaldo(datos, inicioNumero, fin);
+        }
+        if (i != fin || digitos == 0) {
+            throw new NumberFormatException("número inválido");
+        }
+        exponente -= decimales;
+        double valor = exponente < 0
+                ? (-exponente < POTENCIAS_10.length ? mantisa / POTENCIAS_10[-exponente] : respaldo(datos, inicioNumero, fin))
+                : mantisa;
+        return negativo ? -valor : valor;
+    }
+
+    private static double respaldo(ByteBuffer datos, int inicio, int fin) {
+        return Double.parseDouble(StandardCharsets.US_ASCII.decode(datos.slice(inicio, fin - inicio)).toString());
+    }
+
+    /**
+     * Fecha ISO-8601 ({@code 2025-10-01}, {@code 2025-10-01T12:00:00Z},
+     * {@code 2025-10-01T12:00:00.250-06:00}) a segundos epoch. Sin zona se asume UTC.
+     */
+    static long leerFechaEpoch(ByteBuffer datos, int inicio, int fin) {
+        while (inicio < fin && datos.get(inicio) == ' ') {
+            inicio++;
+        }
+        while (fin > inicio && datos.get(fin - 1) == ' ') {
+            fin--;
+        }
+        if (fin - inicio < 10 || datos.get(inicio + 4) != '-' || datos.get(inicio + 7) != '-') {
+            throw new IllegalArgumentException("fecha inválida");
+        }
+        int año = digitos(datos, inicio, 4);
+        int mes = digitos(datos, inicio + 5, 2);
+        int dia = digitos(datos, inicio + 8, 2);
+        if (mes < 1 || mes > 12 || dia < 1 || dia > diasDelMes(año, mes)) {
+            throw new IllegalArgumentException("fecha inválida");
+        }
+        long segundos = diasDesdeEpoch(año, mes, dia) * 86_400L;
+        int i = inicio + 10;
+        if (i < fin && (datos.get(i) == 'T' || datos.get(i) == ' ')) {
+            if (fin - i < 6 || datos.get(i + 3) != ':') {
+                throw new IllegalArgumentException("hora inválida");
+            }
+            segundos += rango(digitos(datos, i + 1, 2), 23) * 3600L + rango(digitos(datos, i + 4, 2), 59) * 60L;
+            i += 6;
+            if (i < fin && datos.get(i) == ':') {
+                if (fin - i < 3) {
+                    throw new IllegalArgumentException("hora inválida");
+                }
+                segundos += rango(digitos(datos, i + 1, 2), 59);
+                i += 3;
+                if (i < fin && datos.get(i) == '.') {
+                    // Las fracciones de segundo no caben en un ObjectId; como java.time, hasta 9 dígitos
+                    int desde = ++i;
+                    while (i < fin && datos.get(i) >= '0' && datos.get(i) <= '9') {
+                        i++;
+                    }
+                    if (i - desde > 9) {
+                        throw new IllegalArgumentException("hora inválida");
+                    }
+                }
+            }
+        }
+        if (i < fin) {
+            byte zona = datos.get(i);
+            if (zona == 'Z') {
+                i++;
+            } else if ((zona == '+' || zona == '-') && fin - i >= 6 && datos.get(i + 3) == ':') {
+                long desfase = digitos(datos, i + 1, 2) * 3600L + rango(digitos(datos, i + 4, 2), 59) * 60L;
+                if (desfase > 18 * 3600L) {
+                    throw new IllegalArgumentException("zona inválida");
+                }
+                segundos -= zona == '+' ? desfase : -desfase;
+                i += 6;
+            }
+        }
+        if (i != fin) {
+            throw new IllegalArgumentException("fecha inválida");
+        }
+        return segundos;
+    }
+
+    private static int digitos(ByteBuffer datos, int inicio, int cantidad) {
+        int valor = 0;
+        for (int i = inicio; i < inicio + cantidad; i++) {
+            byte b = datos.get(i);
+            if (b < '0' || b > '9') {
+                throw new IllegalArgumentException("se esperaba un dígito");
+            }
+            valor = valor * 10 + (b - '0');
+        }
+        return valor;
+    }
+
+    private static int rango(int valor, int maximo) {
+        if (valor > maximo) {
+            throw new IllegalArgumentException("hora inválida");
+        }
+        return valor;
+    }
+
+    private static int diasDelMes(int año, int mes) {
+        if (mes == 2) {
+            return (año % 4 == 0 && año % 100 != 0) || año % 400 == 0 ? 29 : 28;
+        }
+        return mes == 4 || mes == 6 || mes == 9 || mes == 11 ? 30 : 31;
+    }
+
+    // Algoritmo days_from_civil de H. Hinnant (calendario gregoriano proléptico)
+    private static long diasDesdeEpoch(int año, int mes, int dia) {
+        int y = mes <= 2 ? año - 1 : año;
+        int era = Math.floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int doy = (153 * (mes + (mes > 2 ? -3 : 9)) + 2) / 5 + dia - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146_097L + doe - 719_468;
+    }
+}
@@ -0,0 +1,108 @@
+package com.restaurantes.gdl.generator;
+
+/**
+ * Asigna a cada índice de fila un nombre único sin reintentos ni conjunto global.
+ * <p>
+ * El espacio de nombres es el producto de los componentes (prefijo × base × calificador…).
+ * Cada índice se lleva a una permutación pseudoaleatoria de ese espacio mediante una red de
+ * Feistel sembrada; al agotarse una vuelta completa se agrega un sufijo numérico, por lo que
+ * la unicidad se mantiene para cualquier cantidad de filas. El costo por nombre es O(1).
+ */
+public class AsignadorNombres {
+
+    private static final int RONDAS_FEISTEL = 4;
+
+    private final String[][] componentes;
+    private final long total;
+    private final int bitsMitad;
+    private final long mascara;
+    private final long[] llaves;
+
+    /**
+     * @param componentes listas de valores que se concatenan en orden; una cadena vacía
+     *                    dentro de un componente significa "sin este componente"
+     */
+    public AsignadorNombres(long semilla, String[]... componentes) {
+        if (componentes.length == 0) {
+            throw new IllegalArgumentException("Se requiere al menos un componente de nombre");
+        }
+        long producto = 1;
+        for (String[] componente : componentes) {
+            if (componente.length == 0) {
+                throw new IllegalArgumentException("Los componentes de nombre no pueden estar vacíos");
+            }
+            producto = Math.multiplyExact(producto, componente.length);
+        }
+        this.componentes = componentes.clone();
+        this.total = producto;
+
+        int bits = Math.max(2, 64 - Long.numberOfLeadingZeros(producto - 1));
+        this.bitsMitad = (bits + 1) / 2;
+        this.mascara = (1L << bitsMitad) - 1;
+
+        this.llaves = new long[RONDAS_FEISTEL];
+        for (int r = 0; r < RONDAS_FEISTEL; r++) {
+            llaves[r] = DataGenerator.mix64(semilla + (r + 1) * 0x9E3779B97F4A7C15L);
+        }
+    }
+
+    /**
+     * Tamaño del espacio antes de recurrir a sufijos numéricos.
+     */
+    public long getCombinacionesBase() {
+        return total;
+    }
+
+    public String nombre(long indice) {
+        return nombre(indice, new StringBuilder(48));
+    }
+
+    /**
+     * Igual que {@link #nombre(long)} pero reutilizando el buffer del llamador, de modo que
+     * la única asignación es el String resultante.
+     */
+    public String nombre(long indice, StringBuilder sb) {
+        if (indice < 0) {
+            throw new IllegalArgumentException("El índice no puede ser negativo: " + indice);
+        }
+        long vuelta = indice / total;
+        long posicion = permutar(indice % total, vuelta);
+
+        sb.setLength(0);
+        // Descomposición en base mixta: el último componente varía más rápido
+        long divisor = total;
+        for (String[] componente : componentes) {
+            divisor /= componente.length;
+            String valor = componente[(int) ((posicion / divisor) % componente.length)];
+            if (!valor.isEmpty()) {
+                if (sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(valor);
+            }
+        }
+        if (vuelta > 0) {
+            sb.append(' ').append(vuelta + 1);
+        }
+        return sb.toString();
+    }
+
+    // Cycle-walking: el dominio de Feistel es a lo más 4 veces el espacio real
+    private long permutar(long x, long vuelta) {
+        do {
+            x = feistel(x, vuelta);
+        } while (x >= total);
+        return x;
+    }
+
+    private long feistel(long x, long vuelta) {
+        long izq = x >>> bitsMitad;
+        long der = x & mascara;
+        for (int r = 0; r < RONDAS_FEISTEL; r++) {
+            long nuevo = izq ^ (DataGenerator.mix64(der ^ llaves[r] ^ vuelta) & mascara);
+            izq = der;
+            der = nuevo;
+        }
+        return (izq << bitsMitad) | der;
+    }
+}
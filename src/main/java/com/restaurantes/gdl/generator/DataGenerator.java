@@ -3,7 +3,10 @@ package com.restaurantes.gdl.generator;
 import com.restaurantes.gdl.model.Restaurante;
 
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class DataGenerator {
 
@@ -28,127 +31,283 @@ public class DataGenerator {
             "Rincón", "Fogón", "Sazón", "Palacio", "Villa", "Hacienda"
     };
 
-    private static final Map<String, double[]> COORDENADAS_MUNICIPIOS = Map.of(
-            "Guadalajara", new double[]{-103.3467, 20.6767},
-            "Zapopan", new double[]{-103.3925, 20.7214},
-            "Tlaquepaque", new double[]{-103.3137, 20.6401},
-            "Tonalá", new double[]{-103.2324, 20.6227},
-            "Tlajomulco de Zúñiga", new double[]{-103.4425, 20.4742}
+    // "" = sin calificador; amplía el espacio de nombres antes de recurrir a sufijos numéricos
+    private static final String[] CALIFICADORES_NOMBRES = {
+            "", "de Providencia", "de Chapalita", "de la Americana", "del Centro",
+            "de Santa Tere", "de Mezquitán", "de Oblatos", "de Jardines del Bosque",
+            "de Ladrón de Guevara", "del Country", "de Santa Anita", "de Las Águilas",
+            "de Ciudad Granja", "del Batán", "de San Andrés"
+    };
+
+    // Centro [lng, lat] de cada municipio, en el mismo orden que MUNICIPIOS
+    private static final double[][] COORDENADAS_MUNICIPIOS = {
+            {-103.3467, 20.6767},
+            {-103.3925, 20.7214},
+            {-103.3137, 20.6401},
+            {-103.2324, 20.6227},
+            {-103.4425, 20.4742}
+    };
+
+    private static final String[] CALLES = {
+            "Av. Chapultepec", "Av. Americas", "Calle Independencia",
+            "Av. López Mateos", "Calle Morelos", "Av. Juárez", "Calle Hidalgo",
+            "Av. Patria", "Calle Libertad", "Av. Vallarta"
+    };
+
+    private static final String[] HORARIOS = {
+            "Lun-Dom 8:00-22:00",
+            "Lun-Sab 9:00-21:00",
+            "Lun-Dom 10:00-23:00",
+            "Lun-Vie 11:00-20:00, Sab-Dom 10:00-22:00",
+            "Lun-Dom 7:00-18:00",
+            "Mar-Dom 12:00-22:00"
+    };
+
+    private static final Map<String, String[]> ESPECIALIDADES = Map.of(
+            "Mexicana", new String[]{"Enchiladas", "Pozole", "Mole", "Chiles Rellenos"},
+            "Tacos", new String[]{"Tacos al Pastor", "Tacos de Birria", "Tacos Dorados"},
+            "Mariscos", new String[]{"Ceviche", "Camarones", "Pescado Zarandeado"},
+            "Italiana", new String[]{"Pasta Carbonara", "Lasagna", "Risotto"},
+            "Japonesa", new String[]{"Ramen", "Tempura", "Yakitori"},
+            "Sushi", new String[]{"Nigiri", "Makis", "Sashimi"}
     );
 
-    private static final Random random = new Random();
+    private static final String[] ESPECIALIDADES_GENERICAS = {"Platillo 1", "Platillo 2", "Platillo 3"};
 
-    public List<Restaurante> generarRestaurantes(int cantidad) {
-        List<Restaurante> restaurantes = new ArrayList<>();
-        Set<String> nombresUsados = new HashSet<>();
-
-        for (int i = 0; i < cantidad; i++) {
-            String nombre = generarNombreUnico(nombresUsados);
-            String municipio = MUNICIPIOS[random.nextInt(MUNICIPIOS.length)];
-            String tipoComida = TIPOS_COMIDA[random.nextInt(TIPOS_COMIDA.length)];
-
-            Restaurante restaurante = Restaurante.builder()
-                    .nombre(nombre)
-                    .direccion(generarDireccion())
-                    .municipio(municipio)
-                    .tipoComida(tipoComida)
-                    .calificacion(redondear(3.5 + random.nextDouble() * 1.5, 1))
-                    .precioPromedio(redondear(100 + random.nextDouble() * 400, 2))
-                    .horario(generarHorario())
-                    .ubicacion(generarUbicacion(municipio))
-                    .telefono(generarTelefono())
-                    .especialidades(generarEspecialidades(tipoComida))
-                    .build();
-
-            restaurantes.add(restaurante);
-        }
+    // Especialidades de cada tipo, indexadas igual que TIPOS_COMIDA
+    private static final String[][] ESPECIALIDADES_POR_TIPO = new String[TIPOS_COMIDA.length][];
 
-        return restaurantes;
+    static {
+        for (int i = 0; i < TIPOS_COMIDA.length; i++) {
+            ESPECIALIDADES_POR_TIPO[i] = ESPECIALIDADES.getOrDefault(TIPOS_COMIDA[i], ESPECIALIDADES_GENERICAS);
+        }
     }
 
-    private String generarNombreUnico(Set<String> nombresUsados) {
-        String nombre;
-        int intentos = 0;
-        do {
-            String prefijo = PREFIJOS_NOMBRES[random.nextInt(PREFIJOS_NOMBRES.length)];
-            String base = NOMBRES_BASE[random.nextInt(NOMBRES_BASE.length)];
-            nombre = prefijo + " " + base;
+    private static final double[] FACTORES_REDONDEO = {1, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6};
 
-            if (random.nextDouble() > 0.7) {
-                nombre += " " + (random.nextInt(3) + 1);
-            }
-            intentos++;
-        } while (nombresUsados.contains(nombre) && intentos < 100);
+    // Registros por bloque: cada bloque tiene su propio generador derivado de la semilla maestra,
+    // así el resultado no depende de cómo fork-join reparta el rango entre hilos
+    public static final int TAMAÑO_BLOQUE = 4096;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long semilla;
+    private final AsignadorNombres asignadorNombres;
+
+    public DataGenerator() {
+        this(new SplittableRandom().nextLong());
+    }
 
-        nombresUsados.add(nombre);
-        return nombre;
+    public DataGenerator(long semilla) {
+        this.semilla = semilla;
+        this.asignadorNombres = new AsignadorNombres(semilla,
+                PREFIJOS_NOMBRES, NOMBRES_BASE, CALIFICADORES_NOMBRES);
     }
 
-    private String generarDireccion() {
-        String[] calles = {"Av. Chapultepec", "Av. Americas", "Calle Independencia",
-                "Av. López Mateos", "Calle Morelos", "Av. Juárez", "Calle Hidalgo",
-                "Av. Patria", "Calle Libertad", "Av. Vallarta"};
+    public long getSemilla() {
+        return semilla;
+    }
 
-        int numero = 100 + random.nextInt(9900);
-        String calle = calles[random.nextInt(calles.length)];
+    /**
+     * Asignador de nombres de este generador, sobre sus tablas de prefijos, bases y
+     * calificadores.
+     */
+    public AsignadorNombres getAsignadorNombres() {
+        return asignadorNombres;
+    }
 
-        return calle + " " + numero;
+    public List<Restaurante> generarRestaurantes(int cantidad) {
+        return generarStream(cantidad, false)
+                .collect(Collectors.toCollection(() -> new ArrayList<>(cantidad)));
     }
 
-    private String generarHorario() {
-        String[] horarios = {
-                "Lun-Dom 8:00-22:00",
-                "Lun-Sab 9:00-21:00",
-                "Lun-Dom 10:00-23:00",
-                "Lun-Vie 11:00-20:00, Sab-Dom 10:00-22:00",
-                "Lun-Dom 7:00-18:00",
-                "Mar-Dom 12:00-22:00"
-        };
-        return horarios[random.nextInt(horarios.length)];
+    /**
+     * Genera {@code cantidad} restaurantes de forma perezosa, sin materializar la lista.
+     * Con {@code paralelo = true} el stream se reparte en el pool común de fork-join;
+     * para una misma semilla el contenido y el orden son idénticos en ambos modos.
+     */
+    public Stream<Restaurante> generarStream(long cantidad, boolean paralelo) {
+        if (cantidad < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa: " + cantidad);
+        }
+        return StreamSupport.stream(new RestauranteSpliterator(0, cantidad, null), paralelo);
     }
 
-    private Restaurante.Ubicacion generarUbicacion(String municipio) {
-        double[] centro = COORDENADAS_MUNICIPIOS.get(municipio);
-        double offsetLng = (random.nextDouble() - 0.5) * 0.1;
-        double offsetLat = (random.nextDouble() - 0.5) * 0.1;
-
-        return Restaurante.Ubicacion.builder()
-                .type("Point")
-                .coordinates(Arrays.asList(
-                        redondear(centro[0] + offsetLng, 6),
-                        redondear(centro[1] + offsetLat, 6)
-                ))
-                .build();
+    public Stream<Restaurante> generarStream(long cantidad) {
+        return generarStream(cantidad, true);
     }
 
-    private String generarTelefono() {
-        return String.format("33-%04d-%04d",
-                random.nextInt(10000),
-                random.nextInt(10000));
+    private SplittableRandom randomDeBloque(long bloque) {
+        return new SplittableRandom(mix64(semilla + bloque * GOLDEN_GAMMA));
     }
 
-    private List<String> generarEspecialidades(String tipoComida) {
-        Map<String, List<String>> especialidadesPorTipo = Map.of(
-                "Mexicana", Arrays.asList("Enchiladas", "Pozole", "Mole", "Chiles Rellenos"),
-                "Tacos", Arrays.asList("Tacos al Pastor", "Tacos de Birria", "Tacos Dorados"),
-                "Mariscos", Arrays.asList("Ceviche", "Camarones", "Pescado Zarandeado"),
-                "Italiana", Arrays.asList("Pasta Carbonara", "Lasagna", "Risotto"),
-                "Japonesa", Arrays.asList("Ramen", "Tempura", "Yakitori"),
-                "Sushi", Arrays.asList("Nigiri", "Makis", "Sashimi")
-        );
-
-        List<String> especialidades = especialidadesPorTipo.getOrDefault(
-                tipoComida,
-                Arrays.asList("Platillo 1", "Platillo 2", "Platillo 3")
-        );
-
-        int cantidad = 2 + random.nextInt(2);
-        Collections.shuffle(especialidades);
-        return especialidades.subList(0, Math.min(cantidad, especialidades.size()));
+    // Finalizador de SplitMix64: decorrelaciona semillas de bloques consecutivos
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
 
-    private double redondear(double valor, int decimales) {
-        double factor = Math.pow(10, decimales);
+    private static double redondear(double valor, int decimales) {
+        double factor = FACTORES_REDONDEO[decimales];
         return Math.round(valor * factor) / factor;
     }
-}
\ No newline at end of file
+
+    /**
+     * Estado de generación de un solo hilo: el generador del bloque en curso y buffers
+     * reutilizables, de modo que por registro solo se asignan el objeto y sus valores.
+     */
+    private final class Sintetizador {
+        private SplittableRandom random;
+        private final StringBuilder nombre = new StringBuilder(48);
+        private final char[] buffer = new char[48];
+
+        Restaurante generar(long indice) {
+            if (random == null || indice % TAMAÑO_BLOQUE == 0) {
+                random = randomDeBloque(indice / TAMAÑO_BLOQUE);
+            }
+            int municipio = random.nextInt(MUNICIPIOS.length);
+            int tipoComida = random.nextInt(TIPOS_COMIDA.length);
+
+            return new Restaurante(
+                    null,
+                    asignadorNombres.nombre(indice, nombre),
+                    generarDireccion(),
+                    MUNICIPIOS[municipio],
+                    TIPOS_COMIDA[tipoComida],
+                    redondear(3.5 + random.nextDouble() * 1.5, 1),
+                    redondear(100 + random.nextDouble() * 400, 2),
+                    HORARIOS[random.nextInt(HORARIOS.length)],
+                    generarUbicacion(municipio),
+                    generarTelefono(),
+                    generarEspecialidades(tipoComida));
+        }
+
+        private String generarDireccion() {
+            int numero = 100 + random.nextInt(9900);
+            String calle = CALLES[random.nextInt(CALLES.length)];
+
+            int n = calle.length();
+            calle.getChars(0, n, buffer, 0);
+            buffer[n++] = ' ';
+            if (numero >= 1000) {
+                n = escribirDigitos(numero, 4, n);
+            } else {
+                n = escribirDigitos(numero, 3, n);
+            }
+            return new String(buffer, 0, n);
+        }
+
+        private String generarTelefono() {
+            buffer[0] = '3';
+            buffer[1] = '3';
+            buffer[2] = '-';
+            escribirDigitos(random.nextInt(10000), 4, 3);
+            buffer[7] = '-';
+            escribirDigitos(random.nextInt(10000), 4, 8);
+            return new String(buffer, 0, 12);
+        }
+
+        // Escribe 'valor' con exactamente 'digitos' cifras (rellenando con ceros) a partir de 'desde'
+        private int escribirDigitos(int valor, int digitos, int desde) {
+            for (int i = desde + digitos - 1; i >= desde; i--) {
+                buffer[i] = (char) ('0' + valor % 10);
+                valor /= 10;
+            }
+            return desde + digitos;
+        }
+
+        private Restaurante.Ubicacion generarUbicacion(int municipio) {
+            double[] centro = COORDENADAS_MUNICIPIOS[municipio];
+            double offsetLng = (random.nextDouble() - 0.5) * 0.1;
+            double offsetLat = (random.nextDouble() - 0.5) * 0.1;
+
+            return new Restaurante.Ubicacion("Point", List.of(
+                    redondear(centro[0] + offsetLng, 6),
+                    redondear(centro[1] + offsetLat, 6)));
+        }
+
+        // Selección ordenada de 2 o 3 especialidades distintas por índice, sin barajar
+        private List<String> generarEspecialidades(int tipoComida) {
+            String[] opciones = ESPECIALIDADES_POR_TIPO[tipoComida];
+            int n = opciones.length;
+            int cantidad = Math.min(2 + random.nextInt(2), n);
+
+            int primera = random.nextInt(n);
+            int segunda = (primera + 1 + random.nextInt(n - 1)) % n;
+            if (cantidad == 2) {
+                return List.of(opciones[primera], opciones[segunda]);
+            }
+            // k-ésimo índice libre entre los n - 2 restantes
+            int k = random.nextInt(n - 2);
+            int tercera = 0;
+            while (tercera == primera || tercera == segunda || k-- > 0) {
+                tercera++;
+            }
+            return List.of(opciones[primera], opciones[segunda], opciones[tercera]);
+        }
+    }
+
+    /**
+     * Recorre el rango [indice, fin) generando cada registro en el momento. Las divisiones
+     * siempre caen en frontera de bloque para que cada registro salga del mismo generador.
+     */
+    private final class RestauranteSpliterator implements Spliterator<Restaurante> {
+        private long indice;
+        private final long fin;
+        private Sintetizador sintetizador;
+
+        RestauranteSpliterator(long indice, long fin, Sintetizador sintetizador) {
+            this.indice = indice;
+            this.fin = fin;
+            this.sintetizador = sintetizador;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Restaurante> action) {
+            if (indice >= fin) {
+                return false;
+            }
+            action.accept(siguiente());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Restaurante> action) {
+            while (indice < fin) {
+                action.accept(siguiente());
+            }
+        }
+
+        private Restaurante siguiente() {
+            if (sintetizador == null) {
+                sintetizador = new Sintetizador();
+            }
+            return sintetizador.generar(indice++);
+        }
+
+        @Override
+        public Spliterator<Restaurante> trySplit() {
+            long mitad = ((indice + fin) >>> 1) / TAMAÑO_BLOQUE * TAMAÑO_BLOQUE;
+            if (mitad <= indice || mitad >= fin) {
+                return null;
+            }
+            // El prefijo conserva el generador del bloque en curso; este spliterator
+            // arranca en frontera de bloque y lo volverá a derivar
+            RestauranteSpliterator prefijo = new RestauranteSpliterator(indice, mitad, sintetizador);
+            indice = mitad;
+            sintetizador = null;
+            return prefijo;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fin - indice;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+}
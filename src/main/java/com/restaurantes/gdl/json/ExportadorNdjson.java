@@ -0,0 +1,155 @@
+package com.restaurantes.gdl.json;
+
+import com.google.gson.stream.JsonWriter;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.restaurantes.gdl.backup.RangosId;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exporta una colección a NDJSON (un documento Extended JSON relajado por línea).
+ * <p>
+ * La colección se parte en rangos de {@code _id} y cada rango se escribe a su propio archivo
+ * desde un cursor de {@link RawBsonDocument}: los bytes del servidor se traducen a JSON en
+ * streaming, sin decodificar a {@code Document} ni acumular la colección en memoria.
+ */
+public class ExportadorNdjson {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportadorNdjson.class);
+
+    public static final String EXTENSION = ".ndjson";
+
+    // Por debajo de esta cantidad de documentos basta un solo archivo
+    private static final long MINIMO_DOCUMENTOS_PARTICION = 10_000;
+
+    private static final int TAMAÑO_BUFFER = 1 << 16;
+
+    private final int partes;
+
+    public ExportadorNdjson(int partes) {
+        this.partes = partes;
+    }
+
+    /**
+     * Escribe {@code <coleccion>-NNN.ndjson} en {@code directorio}; los rangos que resultan
+     * vacíos no generan archivo.
+     */
+    public ResultadoExportacion exportar(MongoCollection<?> coleccion, Path directorio) throws IOException {
+        long inicio = System.nanoTime();
+        Files.createDirectories(directorio);
+        MongoCollection<RawBsonDocument> raw = coleccion.withDocumentClass(RawBsonDocument.class);
+        String nombre = coleccion.getNamespace().getCollectionName();
+        List<Bson> rangos = RangosId.particionar(raw, partes, MINIMO_DOCUMENTOS_PARTICION);
+        logger.info("Exportando '{}' a NDJSON en {} archivo(s)...", nombre, rangos.size());
+
+        ExecutorService pool = Executors.newFixedThreadPool(rangos.size(), hilos());
+        List<Path> archivos = new ArrayList<>();
+        List<Future<Long>> tareas = new ArrayList<>();
+        try {
+            for (int i = 0; i < rangos.size(); i++) {
+                Path archivo = directorio.resolve(String.format("%s-%03d%s", nombre, i, EXTENSION));
+                Bson rango = rangos.get(i);
+                archivos.add(archivo);
+                tareas.add(pool.submit(() -> exportarRango(raw, rango, archivo)));
+            }
+
+            long documentos = 0;
+            long bytes = 0;
+            List<Path> generados = new ArrayList<>();
+            for (int i = 0; i < tareas.size(); i++) {
+                long escritos = esperar(tareas.get(i));
+                Path archivo = archivos.get(i);
+                if (escritos == 0) {
+                    Files.deleteIfExists(archivo);
+                    continue;
+                }
+                documentos += escritos;
+                bytes += Files.size(archivo);
+                generados.add(archivo);
+            }
+
+            ResultadoExportacion resultado = new ResultadoExportacion(directorio, generados, documentos, bytes,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+            logger.info("✓ {} documentos exportados en {} archivo(s), {} MB ({} ms)",
+                    resultado.getDocumentos(), generados.size(),
+                    String.format("%.1f", bytes / (1024.0 * 1024.0)), resultado.getDuracionMs());
+            return resultado;
+        } finally {
+            tareas.forEach(t -> t.cancel(true));
+            pool.shutdownNow();
+        }
+    }
+
+    private static long exportarRango(MongoCollection<RawBsonDocument> coleccion, Bson rango, Path archivo)
+            throws IOException {
+        long escritos = 0;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Writer salida = new BufferedWriter(Channels.newWriter(canal, StandardCharsets.UTF_8), TAMAÑO_BUFFER);
+             MongoCursor<RawBsonDocument> cursor = coleccion.find(rango)
+                     .hint(new BsonDocument("_id", new BsonInt32(1)))
+                     .batchSize(10_000)
+                     .iterator()) {
+            JsonWriter json = new JsonWriter(salida);
+            // Varios valores de primer nivel en el mismo flujo, uno por línea
+            json.setLenient(true);
+            while (cursor.hasNext()) {
+                try (BsonBinaryReader reader = new BsonBinaryReader(cursor.next().getByteBuffer().asNIO())) {
+                    ExtendedJson.escribirDocumento(reader, json);
+                }
+                salida.write('\n');
+                escritos++;
+            }
+            json.flush();
+        }
+        return escritos;
+    }
+
+    private static long esperar(Future<Long> tarea) throws IOException {
+        try {
+            return tarea.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Exportación interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Error al exportar a NDJSON", e.getCause());
+        }
+    }
+
+    private static ThreadFactory hilos() {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "exportador-json-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,311 @@
+package com.restaurantes.gdl.json;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.bson.BsonBinary;
+import org.bson.BsonReader;
+import org.bson.BsonRegularExpression;
+import org.bson.BsonTimestamp;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Traducción directa entre BSON y Extended JSON (modo relajado) sobre los lectores y
+ * escritores de streaming de Gson y del driver, sin pasar por {@code Document} ni por un
+ * árbol JSON intermedio.
+ * <p>
+ * Los números se escriben como JSON plano cuando el tipo se puede recuperar al leer: enteros
+ * sin punto decimal son int32 (o int64 si no caben) y con punto o exponente son double. Los
+ * int64 que caben en int32 y los double no finitos usan la forma canónica
+ * ({@code $numberLong}, {@code $numberDouble}) para no perder el tipo.
+ */
+final class ExtendedJson {
+
+    private ExtendedJson() {
+    }
+
+    /**
+     * Escribe el documento en que está posicionado {@code reader} (antes de su inicio).
+     */
+    static void escribirDocumento(BsonReader reader, JsonWriter json) throws IOException {
+        reader.readStartDocument();
+        json.beginObject();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            json.name(reader.readName());
+            escribirValor(reader, json);
+        }
+        reader.readEndDocument();
+        json.endObject();
+    }
+
+    private static void escribirValor(BsonReader reader, JsonWriter json) throws IOException {
+        switch (reader.getCurrentBsonType()) {
+            case DOCUMENT -> escribirDocumento(reader, json);
+            case ARRAY -> {
+                reader.readStartArray();
+                json.beginArray();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    escribirValor(reader, json);
+                }
+                reader.readEndArray();
+                json.endArray();
+            }
+            case STRING -> json.value(reader.readString());
+            case INT32 -> json.value(reader.readInt32());
+            case INT64 -> {
+                long valor = reader.readInt64();
+                if (valor == (int) valor) {
+                    envoltura(json, "$numberLong", Long.toString(valor));
+                } else {
+                    json.value(valor);
+                }
+            }
+            case DOUBLE -> {
+                double valor = reader.readDouble();
+                if (Double.isFinite(valor)) {
+                    json.value(valor);
+                } else {
+                    envoltura(json, "$numberDouble", Double.isNaN(valor) ? "NaN" : valor > 0 ? "Infinity" : "-Infinity");
+                }
+            }
+            case BOOLEAN -> json.value(reader.readBoolean());
+            case NULL -> {
+                reader.readNull();
+                json.nullValue();
+            }
+            case OBJECT_ID -> envoltura(json, "$oid", reader.readObjectId().toHexString());
+            case DATE_TIME -> {
+                long millis = reader.readDateTime();
+                json.beginObject().name("$date");
+                // El modo relajado usa ISO-8601 solo para años 1970-9999
+                if (millis >= 0 && millis <= 253_402_300_799_999L) {
+                    json.value(Instant.ofEpochMilli(millis).toString());
+                } else {
+                    json.beginObject().name("$numberLong").value(Long.toString(millis)).endObject();
+                }
+                json.endObject();
+            }
+            case DECIMAL128 -> envoltura(json, "$numberDecimal", reader.readDecimal128().toString());
+            case BINARY -> {
+                BsonBinary binario = reader.readBinaryData();
+                json.beginObject().name("$binary").beginObject()
+                        .name("base64").value(Base64.getEncoder().encodeToString(binario.getData()))
+                        .name("subType").value(String.format("%02x", binario.getType()))
+                        .endObject().endObject();
+            }
+            case TIMESTAMP -> {
+                BsonTimestamp ts = reader.readTimestamp();
+                json.beginObject().name("$timestamp").beginObject()
+                        .name("t").value(Integer.toUnsignedLong(ts.getTime()))
+                        .name("i").value(Integer.toUnsignedLong(ts.getInc()))
+                        .endObject().endObject();
+            }
+            case REGULAR_EXPRESSION -> {
+                BsonRegularExpression regex = reader.readRegularExpression();
+                json.beginObject().name("$regularExpression").beginObject()
+                        .name("pattern").value(regex.getPattern())
+                        .name("options").value(regex.getOptions())
+                        .endObject().endObject();
+            }
+            case MIN_KEY -> {
+                reader.readMinKey();
+                envoltura(json, "$minKey", 1);
+            }
+            case MAX_KEY -> {
+                reader.readMaxKey();
+                envoltura(json, "$maxKey", 1);
+            }
+            default -> throw new IllegalArgumentException("Tipo BSON no soportado en el intercambio JSON: "
+                    + reader.getCurrentBsonType());
+        }
+    }
+
+    private static void envoltura(JsonWriter json, String operador, String valor) throws IOException {
+        json.beginObject().name(operador).value(valor).endObject();
+    }
+
+    private static void envoltura(JsonWriter json, String operador, int valor) throws IOException {
+        json.beginObject().name(operador).value(valor).endObject();
+    }
+
+    /**
+     * Lee el siguiente objeto JSON de {@code json} y lo escribe como documento en {@code writer}.
+     */
+    static void leerDocumento(JsonReader json, BsonWriter writer) throws IOException {
+        json.beginObject();
+        writer.writeStartDocument();
+        while (json.hasNext()) {
+            writer.writeName(json.nextName());
+            leerValor(json, writer);
+        }
+        json.endObject();
+        writer.writeEndDocument();
+    }
+
+    private static void leerValor(JsonReader json, BsonWriter writer) throws IOException {
+        switch (json.peek()) {
+            case BEGIN_OBJECT -> leerObjeto(json, writer);
+            case BEGIN_ARRAY -> {
+                json.beginArray();
+                writer.writeStartArray();
+                while (json.hasNext()) {
+                    leerValor(json, writer);
+                }
+                json.endArray();
+                writer.writeEndArray();
+            }
+            case STRING -> writer.writeString(json.nextString());
+            case NUMBER -> leerNumero(json.nextString(), writer);
+            case BOOLEAN -> writer.writeBoolean(json.nextBoolean());
+            case NULL -> {
+                json.nextNull();
+                writer.writeNull();
+            }
+            default -> throw new IOException("JSON inesperado en " + json.getPath() + ": " + json.peek());
+        }
+    }
+
+    /**
+     * Un objeto cuyo primer campo es un operador de Extended JSON es un valor escalar; si no,
+     * es un subdocumento.
+     */
+    private static void leerObjeto(JsonReader json, BsonWriter writer) throws IOException {
+        json.beginObject();
+        if (!json.hasNext()) {
+            json.endObject();
+            writer.writeStartDocument();
+            writer.writeEndDocument();
+            return;
+        }
+        String primero = json.nextName();
+        if (!leerOperador(primero, json, writer)) {
+            writer.writeStartDocument();
+            writer.writeName(primero);
+            leerValor(json, writer);
+            while (json.hasNext()) {
+                writer.writeName(json.nextName());
+                leerValor(json, writer);
+            }
+            writer.writeEndDocument();
+        }
+        json.endObject();
+    }
+
+    private static boolean leerOperador(String operador, JsonReader json, BsonWriter writer) throws IOException {
+        switch (operador) {
+            case "$oid" -> writer.writeObjectId(new ObjectId(json.nextString()));
+            case "$numberLong" -> writer.writeInt64(Long.parseLong(json.nextString()));
+            case "$numberInt" -> writer.writeInt32(Integer.parseInt(json.nextString()));
+            case "$numberDouble" -> writer.writeDouble(Double.parseDouble(json.nextString()));
+            case "$numberDecimal" -> writer.writeDecimal128(Decimal128.parse(json.nextString()));
+            case "$date" -> {
+                if (json.peek() == JsonToken.BEGIN_OBJECT) {
+                    json.beginObject();
+                    json.nextName();
+                    writer.writeDateTime(Long.parseLong(json.nextString()));
+                    json.endObject();
+                } else if (json.peek() == JsonToken.NUMBER) {
+                    writer.writeDateTime(json.nextLong());
+                } else {
+                    writer.writeDateTime(Instant.parse(json.nextString()).toEpochMilli());
+                }
+            }
+            case "$binary" -> {
+                byte[] datos = null;
+                byte subtipo = 0;
+                json.beginObject();
+                while (json.hasNext()) {
+                    String nombre = json.nextName();
+                    if (nombre.equals("base64")) {
+                        datos = Base64.getDecoder().decode(json.nextString());
+                    } else if (nombre.equals("subType")) {
+                        subtipo = (byte) Integer.parseInt(json.nextString(), 16);
+                    } else {
+                        json.skipValue();
+                    }
+                }
+                json.endObject();
+                if (datos == null) {
+                    throw new IOException("$binary sin base64 en " + json.getPath());
+                }
+                writer.writeBinaryData(new BsonBinary(subtipo, datos));
+            }
+            case "$timestamp" -> {
+                long t = 0;
+                long i = 0;
+                json.beginObject();
+                while (json.hasNext()) {
+                    String nombre = json.nextName();
+                    if (nombre.equals("t")) {
+                        t = json.nextLong();
+                    } else if (nombre.equals("i")) {
+                        i = json.nextLong();
+                    } else {
+                        json.skipValue();
+                    }
+                }
+                json.endObject();
+                writer.writeTimestamp(new BsonTimestamp((int) t, (int) i));
+            }
+            case "$regularExpression" -> {
+                String patron = "";
+                String opciones = "";
+                json.beginObject();
+                while (json.hasNext()) {
+                    String nombre = json.nextName();
+                    if (nombre.equals("pattern")) {
+                        patron = json.nextString();
+                    } else if (nombre.equals("options")) {
+                        opciones = json.nextString();
+                    } else {
+                        json.skipValue();
+                    }
+                }
+                json.endObject();
+                writer.writeRegularExpression(new BsonRegularExpression(patron, opciones));
+            }
+            case "$minKey" -> {
+                json.skipValue();
+                writer.writeMinKey();
+            }
+            case "$maxKey" -> {
+                json.skipValue();
+                writer.writeMaxKey();
+            }
+            default -> {
+                return false;
+            }
+        }
+        if (json.hasNext()) {
+            throw new IOException("Campos extra junto a " + operador + " en " + json.getPath());
+        }
+        return true;
+    }
+
+    private static void leerNumero(String literal, BsonWriter writer) {
+        if (literal.indexOf('.') >= 0 || literal.indexOf('e') >= 0 || literal.indexOf('E') >= 0) {
+            writer.writeDouble(Double.parseDouble(literal));
+            return;
+        }
+        long valor;
+        try {
+            valor = Long.parseLong(literal);
+        } catch (NumberFormatException e) {
+            // Entero fuera del rango de int64: solo cabe como double
+            writer.writeDouble(Double.parseDouble(literal));
+            return;
+        }
+        if (valor == (int) valor) {
+            writer.writeInt32((int) valor);
+        } else {
+            writer.writeInt64(valor);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.restaurantes.gdl.json;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.mongodb.client.MongoCollection;
+import com.restaurantes.gdl.service.ConfiguracionImportacion;
+import com.restaurantes.gdl.service.PipelineImportacion;
+import com.restaurantes.gdl.service.ResultadoImportacion;
+import org.bson.BsonBinaryWriter;
+import org.bson.RawBsonDocument;
+import org.bson.io.BasicOutputBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Importa archivos NDJSON de Extended JSON, como los que genera {@link ExportadorNdjson}.
+ * <p>
+ * Cada archivo se lee en su propio hilo con un {@link JsonReader} y cada objeto se escribe
+ * directamente a BSON, sin árbol intermedio; los documentos alimentan un
+ * {@link PipelineImportacion} por archivo. Los escritores configurados se reparten entre los
+ * archivos que se importan a la vez.
+ */
+public class ImportadorNdjson {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportadorNdjson.class);
+
+    private static final int TAMAÑO_BUFFER = 1 << 16;
+
+    private final MongoCollection<?> coleccion;
+    private final ConfiguracionImportacion config;
+    private final Consumer<List<RawBsonDocument>> alEscribirLote;
+
+    public ImportadorNdjson(MongoCollection<?> coleccion, ConfiguracionImportacion config,
+                            Consumer<List<RawBsonDocument>> alEscribirLote) {
+        this.coleccion = coleccion;
+        this.config = config;
+        this.alEscribirLote = alEscribirLote;
+    }
+
+    /**
+     * Archivos {@code .ndjson} de un directorio de exportación, en orden de nombre.
+     */
+    public static List<Path> archivos(Path directorio) throws IOException {
+        try (Stream<Path> contenido = Files.list(directorio)) {
+            return contenido.filter(p -> p.getFileName().toString().endsWith(ExportadorNdjson.EXTENSION))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    public ResultadoImportacion importar(List<Path> archivos) throws IOException {
+        if (archivos.isEmpty()) {
+            throw new IOException("No hay archivos NDJSON que importar");
+        }
+        long inicio = System.nanoTime();
+        int paralelos = Math.min(archivos.size(), Math.max(1, config.getEscritores()));
+        ConfiguracionImportacion porArchivo = config.toBuilder()
+                .escritores(Math.max(1, config.getEscritores() / paralelos))
+                .build();
+        logger.info("Importando {} archivo(s) NDJSON, {} a la vez...", archivos.size(), paralelos);
+
+        ExecutorService pool = Executors.newFixedThreadPool(paralelos, hilos());
+        List<Future<ResultadoImportacion>> tareas = new ArrayList<>();
+        try {
+            for (Path archivo : archivos) {
+                tareas.add(pool.submit(() -> importarArchivo(archivo, porArchivo)));
+            }
+            List<ResultadoImportacion> parciales = new ArrayList<>();
+            for (Future<ResultadoImportacion> tarea : tareas) {
+                parciales.add(esperar(tarea));
+            }
+            return combinar(parciales, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        } finally {
+            tareas.forEach(t -> t.cancel(true));
+            pool.shutdownNow();
+        }
+    }
+
+    private ResultadoImportacion importarArchivo(Path archivo, ConfiguracionImportacion porArchivo)
+            throws IOException {
+        try (LecturaNdjson lectura = new LecturaNdjson(archivo)) {
+            return new PipelineImportacion(coleccion, porArchivo, alEscribirLote).importarDocumentos(lectura);
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw new IOException("Error en " + archivo.getFileName() + ": " + io.getCause().getMessage(), io.getCause());
+            }
+            throw e;
+        }
+    }
+
+    private static ResultadoImportacion combinar(List<ResultadoImportacion> parciales, long duracionMs) {
+        long documentos = 0;
+        long lotes = 0;
+        long bytes = 0;
+        double sumaLatencias = 0;
+        double maxima = 0;
+        for (ResultadoImportacion parcial : parciales) {
+            documentos += parcial.getDocumentos();
+            lotes += parcial.getLotes();
+            bytes += parcial.getBytes();
+            sumaLatencias += parcial.getLatenciaPromedioLoteMs() * parcial.getLotes();
+            maxima = Math.max(maxima, parcial.getLatenciaMaximaLoteMs());
+        }
+        return new ResultadoImportacion(documentos, lotes, bytes, duracionMs,
+                lotes == 0 ? 0 : sumaLatencias / lotes, maxima);
+    }
+
+    /**
+     * Documentos de un archivo NDJSON, convertidos a BSON conforme se piden.
+     */
+    private static final class LecturaNdjson implements Iterator<RawBsonDocument>, AutoCloseable {
+
+        private final JsonReader json;
+        private final BasicOutputBuffer buffer = new BasicOutputBuffer();
+
+        LecturaNdjson(Path archivo) throws IOException {
+            FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ);
+            this.json = new JsonReader(new BufferedReader(Channels.newReader(canal, StandardCharsets.UTF_8),
+                    TAMAÑO_BUFFER));
+            // Varios objetos de primer nivel separados por saltos de línea
+            json.setLenient(true);
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                return json.peek() != JsonToken.END_DOCUMENT;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public RawBsonDocument next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            buffer.truncateToPosition(0);
+            try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+                ExtendedJson.leerDocumento(json, writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new RawBsonDocument(buffer.toByteArray());
+        }
+
+        @Override
+        public void close() throws IOException {
+            json.close();
+        }
+    }
+
+    private static ResultadoImportacion esperar(Future<ResultadoImportacion> tarea) throws IOException {
+        try {
+            return tarea.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Importación interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Error al importar NDJSON", e.getCause());
+        }
+    }
+
+    private static ThreadFactory hilos() {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "importador-json-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
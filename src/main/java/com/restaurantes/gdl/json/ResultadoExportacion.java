@@ -0,0 +1,23 @@
+package com.restaurantes.gdl.json;
+
+import lombok.Value;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Resumen de una exportación NDJSON: archivos generados (uno por rango de {@code _id}),
+ * volumen y duración.
+ */
+@Value
+public class ResultadoExportacion {
+    Path directorio;
+    List<Path> archivos;
+    long documentos;
+    long bytes;
+    long duracionMs;
+
+    public double getDocumentosPorSegundo() {
+        return duracionMs == 0 ? documentos : documentos * 1000.0 / duracionMs;
+    }
+}
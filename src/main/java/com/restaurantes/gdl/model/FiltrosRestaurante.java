@@ -0,0 +1,95 @@
+package com.restaurantes.gdl.model;
+
+import com.mongodb.client.model.Filters;
+import lombok.Builder;
+import lombok.Value;
+import org.bson.BsonDocument;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Criterios opcionales sobre los atributos de un restaurante; los que quedan en null no
+ * filtran. Se traducen tanto a un filtro del servidor como a un predicado sobre las filas de
+ * una {@link RestauranteTable}.
+ */
+@Value
+@Builder
+public class FiltrosRestaurante {
+
+    private static final FiltrosRestaurante NINGUNO = FiltrosRestaurante.builder().build();
+
+    ObjectId id;
+    String municipio;
+    String tipoComida;
+    Double calificacionMinima;
+    Double precioMinimo;
+    Double precioMaximo;
+
+    public static FiltrosRestaurante ninguno() {
+        return NINGUNO;
+    }
+
+    public Bson aFiltroMongo() {
+        List<Bson> condiciones = new ArrayList<>();
+        if (id != null) {
+            condiciones.add(Filters.eq("_id", id));
+        }
+        if (municipio != null) {
+            condiciones.add(Filters.eq("municipio", municipio));
+        }
+        if (tipoComida != null) {
+            condiciones.add(Filters.eq("tipoComida", tipoComida));
+        }
+        if (calificacionMinima != null) {
+            condiciones.add(Filters.gte("calificacion", calificacionMinima));
+        }
+        if (precioMinimo != null) {
+            condiciones.add(Filters.gte("precioPromedio", precioMinimo));
+        }
+        if (precioMaximo != null) {
+            condiciones.add(Filters.lte("precioPromedio", precioMaximo));
+        }
+        return condiciones.isEmpty() ? new BsonDocument() : Filters.and(condiciones);
+    }
+
+    /**
+     * Predicado sobre filas de {@code tabla}, con municipio y tipo de comida resueltos a
+     * códigos de diccionario una sola vez.
+     */
+    public IntPredicate predicado(RestauranteTable tabla) {
+        int codigoMunicipio = municipio == null ? -1 : tabla.getDiccionarioMunicipios().codigo(municipio);
+        int codigoTipo = tipoComida == null ? -1 : tabla.getDiccionarioTiposComida().codigo(tipoComida);
+        if ((municipio != null && codigoMunicipio < 0) || (tipoComida != null && codigoTipo < 0)) {
+            // El valor no aparece en la tabla: ninguna fila puede coincidir
+            return fila -> false;
+        }
+        // La tabla guarda calificación y precio como float
+        float calificacion = calificacionMinima == null ? Float.NEGATIVE_INFINITY : calificacionMinima.floatValue();
+        float precioMin = precioMinimo == null ? Float.NEGATIVE_INFINITY : precioMinimo.floatValue();
+        float precioMax = precioMaximo == null ? Float.POSITIVE_INFINITY : precioMaximo.floatValue();
+        return fila -> (id == null || id.equals(tabla.id(fila)))
+                && (codigoMunicipio < 0 || tabla.codigoMunicipio(fila) == codigoMunicipio)
+                && (codigoTipo < 0 || tabla.codigoTipoComida(fila) == codigoTipo)
+                && tabla.calificacion(fila) >= calificacion
+                && tabla.precio(fila) >= precioMin
+                && tabla.precio(fila) <= precioMax;
+    }
+
+    /**
+     * Evalúa los filtros sobre los valores de un documento, con la misma semántica que
+     * {@link #aFiltroMongo()}.
+     */
+    public boolean acepta(ObjectId idDocumento, String municipioDocumento, String tipoComidaDocumento,
+                          double calificacion, double precio) {
+        return (id == null || id.equals(idDocumento))
+                && (municipio == null || municipio.equals(municipioDocumento))
+                && (tipoComida == null || tipoComida.equals(tipoComidaDocumento))
+                && (calificacionMinima == null || calificacion >= calificacionMinima)
+                && (precioMinimo == null || precio >= precioMinimo)
+                && (precioMaximo == null || precio <= precioMaximo);
+    }
+}
@@ -0,0 +1,330 @@
+package com.restaurantes.gdl.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Índice espacial en memoria sobre las coordenadas de una {@link RestauranteTable}, para
+ * responder "los k restaurantes más cercanos" sin ir al servidor.
+ * <p>
+ * Cada punto se convierte a un vector unitario 3D; la distancia euclidiana (cuerda) entre
+ * vectores crece con la distancia sobre la esfera, así que un KD-tree 3D da los vecinos
+ * correctos sin casos especiales en el antimeridiano ni en los polos. El árbol es implícito:
+ * las coordenadas y filas se reordenan en arreglos primitivos de modo que el nodo del rango
+ * {@code [lo, hi)} queda en su punto medio, sin objetos por nodo. Es inmutable y se puede
+ * consultar desde varios hilos a la vez.
+ */
+public class IndiceEspacial {
+
+    // Radio con el que MongoDB convierte radianes a metros en índices 2dsphere
+    public static final double RADIO_TIERRA_METROS = 6_378_100;
+
+    // Por debajo de este tamaño un rango se recorre completo en lugar de seguir partiéndolo
+    private static final int TAMAÑO_HOJA = 8;
+
+    private final RestauranteTable tabla;
+    private final int tamaño;
+    private final double[][] coordenadas;
+    private final int[] filas;
+    private final byte[] ejes;
+
+    private IndiceEspacial(RestauranteTable tabla) {
+        this.tabla = tabla;
+        int conUbicacion = 0;
+        for (int fila = 0; fila < tabla.tamaño(); fila++) {
+            if (!Double.isNaN(tabla.longitud(fila)) && !Double.isNaN(tabla.latitud(fila))) {
+                conUbicacion++;
+            }
+        }
+        this.tamaño = conUbicacion;
+        this.coordenadas = new double[3][tamaño];
+        this.filas = new int[tamaño];
+        this.ejes = new byte[tamaño];
+        int i = 0;
+        for (int fila = 0; fila < tabla.tamaño(); fila++) {
+            double lon = tabla.longitud(fila);
+            double lat = tabla.latitud(fila);
+            if (Double.isNaN(lon) || Double.isNaN(lat)) {
+                continue;
+            }
+            double radLon = Math.toRadians(lon);
+            double radLat = Math.toRadians(lat);
+            coordenadas[0][i] = Math.cos(radLat) * Math.cos(radLon);
+            coordenadas[1][i] = Math.cos(radLat) * Math.sin(radLon);
+            coordenadas[2][i] = Math.sin(radLat);
+            filas[i] = fila;
+            i++;
+        }
+        construir(0, tamaño);
+    }
+
+    /**
+     * Construye el índice; las filas sin coordenadas quedan fuera.
+     */
+    public static IndiceEspacial construir(RestauranteTable tabla) {
+        return new IndiceEspacial(tabla);
+    }
+
+    public RestauranteTable getTabla() {
+        return tabla;
+    }
+
+    public int tamaño() {
+        return tamaño;
+    }
+
+    /**
+     * Hasta {@code limite} restaurantes a no más de {@code radioMetros} del punto que cumplen
+     * los filtros, del más cercano al más lejano.
+     */
+    public List<RestauranteCercano> buscarCercanos(double lon, double lat, double radioMetros, int limite,
+                                                   FiltrosRestaurante filtros) {
+        Busqueda busqueda = buscar(lon, lat, radioMetros, limite, filtros.predicado(tabla));
+        busqueda.ordenar();
+        List<RestauranteCercano> resultado = new ArrayList<>(busqueda.cantidad);
+        for (int i = 0; i < busqueda.cantidad; i++) {
+            resultado.add(new RestauranteCercano(tabla.restaurante(filas[busqueda.posiciones[i]]),
+                    metros(busqueda.distancias[i])));
+        }
+        return resultado;
+    }
+
+    /**
+     * Como {@link #buscarCercanos} pero devuelve solo las filas de la tabla, sin crear
+     * objetos por resultado.
+     */
+    public int[] filasCercanas(double lon, double lat, double radioMetros, int limite, IntPredicate filtro) {
+        Busqueda busqueda = buscar(lon, lat, radioMetros, limite, filtro);
+        busqueda.ordenar();
+        int[] resultado = new int[busqueda.cantidad];
+        for (int i = 0; i < resultado.length; i++) {
+            resultado[i] = filas[busqueda.posiciones[i]];
+        }
+        return resultado;
+    }
+
+    private Busqueda buscar(double lon, double lat, double radioMetros, int limite, IntPredicate filtro) {
+        double radLon = Math.toRadians(lon);
+        double radLat = Math.toRadians(lat);
+        double angulo = Math.min(Math.PI, radioMetros / RADIO_TIERRA_METROS);
+        double cuerda = 2 * Math.sin(angulo / 2);
+        Busqueda busqueda = new Busqueda(Math.max(0, limite), cuerda * cuerda, filtro);
+        if (limite > 0 && radioMetros >= 0) {
+            buscar(0, tamaño, Math.cos(radLat) * Math.cos(radLon), Math.cos(radLat) * Math.sin(radLon),
+                    Math.sin(radLat), busqueda);
+        }
+        return busqueda;
+    }
+
+    private void buscar(int lo, int hi, double qx, double qy, double qz, Busqueda busqueda) {
+        if (hi - lo <= TAMAÑO_HOJA) {
+            for (int i = lo; i < hi; i++) {
+                busqueda.considerar(i, distancia2(i, qx, qy, qz));
+            }
+            return;
+        }
+        int medio = (lo + hi) >>> 1;
+        busqueda.considerar(medio, distancia2(medio, qx, qy, qz));
+        int eje = ejes[medio];
+        double q = eje == 0 ? qx : eje == 1 ? qy : qz;
+        double diferencia = q - coordenadas[eje][medio];
+        if (diferencia < 0) {
+            buscar(lo, medio, qx, qy, qz, busqueda);
+            if (diferencia * diferencia <= busqueda.limite()) {
+                buscar(medio + 1, hi, qx, qy, qz, busqueda);
+            }
+        } else {
+            buscar(medio + 1, hi, qx, qy, qz, busqueda);
+            if (diferencia * diferencia <= busqueda.limite()) {
+                buscar(lo, medio, qx, qy, qz, busqueda);
+            }
+        }
+    }
+
+    private double distancia2(int i, double qx, double qy, double qz) {
+        double dx = coordenadas[0][i] - qx;
+        double dy = coordenadas[1][i] - qy;
+        double dz = coordenadas[2][i] - qz;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static double metros(double cuerda2) {
+        return 2 * RADIO_TIERRA_METROS * Math.asin(Math.min(1, Math.sqrt(cuerda2) / 2));
+    }
+
+    // ==================== Construcción ====================
+
+    private void construir(int lo, int hi) {
+        if (hi - lo <= TAMAÑO_HOJA) {
+            return;
+        }
+        int eje = ejeDeMayorExtension(lo, hi);
+        int medio = (lo + hi) >>> 1;
+        seleccionar(lo, hi - 1, medio, coordenadas[eje]);
+        ejes[medio] = (byte) eje;
+        construir(lo, medio);
+        construir(medio + 1, hi);
+    }
+
+    private int ejeDeMayorExtension(int lo, int hi) {
+        int mejor = 0;
+        double mayor = -1;
+        for (int eje = 0; eje < 3; eje++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = lo; i < hi; i++) {
+                min = Math.min(min, coordenadas[eje][i]);
+                max = Math.max(max, coordenadas[eje][i]);
+            }
+            if (max - min > mayor) {
+                mayor = max - min;
+                mejor = eje;
+            }
+        }
+        return mejor;
+    }
+
+    /**
+     * Quickselect: deja en {@code k} el elemento que ocuparía esa posición si {@code [lo, hi]}
+     * estuviera ordenado por {@code clave}, con los menores o iguales a su izquierda.
+     */
+    private void seleccionar(int lo, int hi, int k, double[] clave) {
+        while (hi > lo) {
+            int medio = (lo + hi) >>> 1;
+            // Mediana de tres como pivote, para no degradar con datos ya ordenados
+            if (clave[medio] < clave[lo]) {
+                intercambiar(medio, lo);
+            }
+            if (clave[hi] < clave[lo]) {
+                intercambiar(hi, lo);
+            }
+            if (clave[hi] < clave[medio]) {
+                intercambiar(hi, medio);
+            }
+            double pivote = clave[medio];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (clave[i] < pivote) {
+                    i++;
+                }
+                while (clave[j] > pivote) {
+                    j--;
+                }
+                if (i <= j) {
+                    intercambiar(i++, j--);
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void intercambiar(int a, int b) {
+        for (double[] eje : coordenadas) {
+            double t = eje[a];
+            eje[a] = eje[b];
+            eje[b] = t;
+        }
+        int t = filas[a];
+        filas[a] = filas[b];
+        filas[b] = t;
+    }
+
+    /**
+     * Estado de una consulta: montículo de máximos acotado a {@code k} con los mejores
+     * candidatos vistos, sobre arreglos primitivos.
+     */
+    private final class Busqueda {
+        private final int k;
+        private final double radio2;
+        private final IntPredicate filtro;
+        private final double[] distancias;
+        private final int[] posiciones;
+        private int cantidad;
+
+        Busqueda(int k, double radio2, IntPredicate filtro) {
+            this.k = k;
+            this.radio2 = radio2;
+            this.filtro = filtro;
+            this.distancias = new double[k];
+            this.posiciones = new int[k];
+        }
+
+        /**
+         * Distancia² a partir de la cual ya no vale la pena explorar.
+         */
+        double limite() {
+            return cantidad == k ? distancias[0] : radio2;
+        }
+
+        void considerar(int posicion, double distancia2) {
+            if (distancia2 > radio2 || (cantidad == k && distancia2 >= distancias[0])
+                    || !filtro.test(filas[posicion])) {
+                return;
+            }
+            if (cantidad < k) {
+                int i = cantidad++;
+                // Subir
+                while (i > 0) {
+                    int padre = (i - 1) >>> 1;
+                    if (distancias[padre] >= distancia2) {
+                        break;
+                    }
+                    distancias[i] = distancias[padre];
+                    posiciones[i] = posiciones[padre];
+                    i = padre;
+                }
+                distancias[i] = distancia2;
+                posiciones[i] = posicion;
+            } else {
+                // Reemplaza la raíz (el peor candidato) y la hunde
+                distancias[0] = distancia2;
+                posiciones[0] = posicion;
+                hundir(0, cantidad);
+            }
+        }
+
+        /**
+         * Ordena los candidatos en su lugar, del más cercano al más lejano (heapsort).
+         */
+        void ordenar() {
+            for (int fin = cantidad - 1; fin > 0; fin--) {
+                intercambiar(0, fin);
+                hundir(0, fin);
+            }
+        }
+
+        private void hundir(int i, int n) {
+            while (true) {
+                int hijo = 2 * i + 1;
+                if (hijo >= n) {
+                    return;
+                }
+                if (hijo + 1 < n && distancias[hijo + 1] > distancias[hijo]) {
+                    hijo++;
+                }
+                if (distancias[hijo] <= distancias[i]) {
+                    return;
+                }
+                intercambiar(i, hijo);
+                i = hijo;
+            }
+        }
+
+        private void intercambiar(int a, int b) {
+            double d = distancias[a];
+            distancias[a] = distancias[b];
+            distancias[b] = d;
+            int p = posiciones[a];
+            posiciones[a] = posiciones[b];
+            posiciones[b] = p;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.restaurantes.gdl.model;
+
+import lombok.Value;
+
+/**
+ * Resultado de una búsqueda por cercanía: el restaurante y su distancia al punto consultado.
+ */
+@Value
+public class RestauranteCercano {
+    Restaurante restaurante;
+    double distanciaMetros;
+}
@@ -0,0 +1,451 @@
+package com.restaurantes.gdl.model;
+
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+
+/**
+ * Tabla columnar (struct-of-arrays) de restaurantes para análisis en memoria.
+ * <p>
+ * Las coordenadas, calificación y precio se guardan en arreglos primitivos; municipio,
+ * tipo de comida y horario como códigos de un byte sobre un diccionario; las especialidades
+ * como códigos contiguos delimitados por un arreglo de desplazamientos. Dirección y teléfono
+ * no se conservan: para eso está {@link Restaurante}.
+ */
+public class RestauranteTable {
+
+    private final int tamaño;
+    private final ObjectId[] ids;
+    private final String[] nombres;
+    private final double[] longitudes;
+    private final double[] latitudes;
+    private final float[] calificaciones;
+    private final float[] precios;
+    private final byte[] municipios;
+    private final byte[] tiposComida;
+    private final byte[] horarios;
+    private final int[] inicioEspecialidades;
+    private final int[] especialidades;
+
+    private final Diccionario diccionarioMunicipios;
+    private final Diccionario diccionarioTiposComida;
+    private final Diccionario diccionarioHorarios;
+    private final Diccionario diccionarioEspecialidades;
+
+    private RestauranteTable(Builder b) {
+        this.tamaño = b.tamaño;
+        this.ids = Arrays.copyOf(b.ids, tamaño);
+        this.nombres = Arrays.copyOf(b.nombres, tamaño);
+        this.longitudes = Arrays.copyOf(b.longitudes, tamaño);
+        this.latitudes = Arrays.copyOf(b.latitudes, tamaño);
+        this.calificaciones = Arrays.copyOf(b.calificaciones, tamaño);
+        this.precios = Arrays.copyOf(b.precios, tamaño);
+        this.municipios = Arrays.copyOf(b.municipios, tamaño);
+        this.tiposComida = Arrays.copyOf(b.tiposComida, tamaño);
+        this.horarios = Arrays.copyOf(b.horarios, tamaño);
+        this.inicioEspecialidades = Arrays.copyOf(b.inicioEspecialidades, tamaño + 1);
+        this.especialidades = Arrays.copyOf(b.especialidades, b.inicioEspecialidades[tamaño]);
+        this.diccionarioMunicipios = b.diccionarioMunicipios;
+        this.diccionarioTiposComida = b.diccionarioTiposComida;
+        this.diccionarioHorarios = b.diccionarioHorarios;
+        this.diccionarioEspecialidades = b.diccionarioEspecialidades;
+    }
+
+    public static Builder builder() {
+        return new Builder(1024);
+    }
+
+    public static RestauranteTable desde(Iterator<Restaurante> restaurantes) {
+        Builder builder = builder();
+        while (restaurantes.hasNext()) {
+            builder.agregar(restaurantes.next());
+        }
+        return builder.construir();
+    }
+
+    public static RestauranteTable desde(Iterable<Restaurante> restaurantes) {
+        return desde(restaurantes.iterator());
+    }
+
+    /**
+     * Collector que permite construir la tabla desde un stream paralelo (por ejemplo
+     * {@code DataGenerator.generarStream}): cada hilo llena su propio builder y al
+     * combinarlos se recodifican los diccionarios.
+     */
+    public static Collector<Restaurante, Builder, RestauranteTable> collector() {
+        Supplier<Builder> proveedor = RestauranteTable::builder;
+        BiConsumer<Builder, Restaurante> acumulador = Builder::agregar;
+        BinaryOperator<Builder> combinador = Builder::agregarTodo;
+        Function<Builder, RestauranteTable> finalizador = Builder::construir;
+        return Collector.of(proveedor, acumulador, combinador, finalizador);
+    }
+
+    public int tamaño() {
+        return tamaño;
+    }
+
+    public ObjectId id(int fila) {
+        return ids[fila];
+    }
+
+    public String nombre(int fila) {
+        return nombres[fila];
+    }
+
+    public double longitud(int fila) {
+        return longitudes[fila];
+    }
+
+    public double latitud(int fila) {
+        return latitudes[fila];
+    }
+
+    public float calificacion(int fila) {
+        return calificaciones[fila];
+    }
+
+    public float precio(int fila) {
+        return precios[fila];
+    }
+
+    public int codigoMunicipio(int fila) {
+        return municipios[fila] & 0xFF;
+    }
+
+    public int codigoTipoComida(int fila) {
+        return tiposComida[fila] & 0xFF;
+    }
+
+    public int codigoHorario(int fila) {
+        return horarios[fila] & 0xFF;
+    }
+
+    public String municipio(int fila) {
+        return diccionarioMunicipios.valor(codigoMunicipio(fila));
+    }
+
+    public String tipoComida(int fila) {
+        return diccionarioTiposComida.valor(codigoTipoComida(fila));
+    }
+
+    public String horario(int fila) {
+        return diccionarioHorarios.valor(codigoHorario(fila));
+    }
+
+    public List<String> especialidades(int fila) {
+        int inicio = inicioEspecialidades[fila];
+        int fin = inicioEspecialidades[fila + 1];
+        List<String> valores = new ArrayList<>(fin - inicio);
+        for (int i = inicio; i < fin; i++) {
+            valores.add(diccionarioEspecialidades.valor(especialidades[i]));
+        }
+        return valores;
+    }
+
+    /**
+     * Reconstruye el restaurante de la fila; dirección y teléfono quedan en null porque la
+     * tabla no los guarda.
+     */
+    public Restaurante restaurante(int fila) {
+        Restaurante.Ubicacion ubicacion = Double.isNaN(longitudes[fila]) ? null
+                : new Restaurante.Ubicacion("Point", List.of(longitudes[fila], latitudes[fila]));
+        return Restaurante.builder()
+                .id(ids[fila])
+                .nombre(nombres[fila])
+                .municipio(municipio(fila))
+                .tipoComida(tipoComida(fila))
+                .calificacion(aDouble(calificaciones[fila]))
+                .precioPromedio(aDouble(precios[fila]))
+                .horario(horario(fila))
+                .ubicacion(ubicacion)
+                .especialidades(especialidades(fila))
+                .build();
+    }
+
+    // El decimal más corto que representa al float (4.3f → 4.3, no 4.300000190734863)
+    private static double aDouble(float valor) {
+        return Double.parseDouble(Float.toString(valor));
+    }
+
+    /**
+     * Códigos de especialidad de la fila: {@code especialidades()[inicio..fin)} con
+     * inicio = {@code inicioEspecialidades()[fila]} y fin = {@code inicioEspecialidades()[fila + 1]}.
+     */
+    public int[] inicioEspecialidades() {
+        return inicioEspecialidades;
+    }
+
+    public int[] especialidades() {
+        return especialidades;
+    }
+
+    public Diccionario getDiccionarioMunicipios() {
+        return diccionarioMunicipios;
+    }
+
+    public Diccionario getDiccionarioTiposComida() {
+        return diccionarioTiposComida;
+    }
+
+    public Diccionario getDiccionarioHorarios() {
+        return diccionarioHorarios;
+    }
+
+    public Diccionario getDiccionarioEspecialidades() {
+        return diccionarioEspecialidades;
+    }
+
+    /**
+     * Filas como {@code IntStream}; con {@code paralelo} se reparte en el pool común.
+     */
+    public IntStream filas(boolean paralelo) {
+        IntStream filas = IntStream.range(0, tamaño);
+        return paralelo ? filas.parallel() : filas;
+    }
+
+    // ==================== Agregaciones ====================
+
+    public long[] contarPorMunicipio() {
+        return contarCodigos(municipios, diccionarioMunicipios.tamaño());
+    }
+
+    public long[] contarPorTipoComida() {
+        return contarCodigos(tiposComida, diccionarioTiposComida.tamaño());
+    }
+
+    public Map<String, Long> conteoPorMunicipio() {
+        return aMapa(contarPorMunicipio(), diccionarioMunicipios);
+    }
+
+    public Map<String, Long> conteoPorTipoComida() {
+        return aMapa(contarPorTipoComida(), diccionarioTiposComida);
+    }
+
+    public double promedioCalificacion() {
+        if (tamaño == 0) {
+            return 0;
+        }
+        double suma = 0;
+        for (int i = 0; i < tamaño; i++) {
+            suma += calificaciones[i];
+        }
+        return suma / tamaño;
+    }
+
+    public double promedioPrecio() {
+        if (tamaño == 0) {
+            return 0;
+        }
+        double suma = 0;
+        for (int i = 0; i < tamaño; i++) {
+            suma += precios[i];
+        }
+        return suma / tamaño;
+    }
+
+    /**
+     * Cuenta las filas con calificación y precio dentro de los rangos dados (inclusivos).
+     */
+    public long contarEnRango(float calificacionMin, float precioMin, float precioMax) {
+        long total = 0;
+        for (int i = 0; i < tamaño; i++) {
+            // Sin ramas: suma de comparaciones para que el JIT pueda vectorizar
+            total += (calificaciones[i] >= calificacionMin ? 1 : 0)
+                    & (precios[i] >= precioMin ? 1 : 0)
+                    & (precios[i] <= precioMax ? 1 : 0);
+        }
+        return total;
+    }
+
+    private long[] contarCodigos(byte[] columna, int categorias) {
+        long[] conteos = new long[Math.max(categorias, 1)];
+        for (int i = 0; i < tamaño; i++) {
+            conteos[columna[i] & 0xFF]++;
+        }
+        return conteos;
+    }
+
+    private static Map<String, Long> aMapa(long[] conteos, Diccionario diccionario) {
+        Map<String, Long> mapa = new HashMap<>();
+        for (int codigo = 0; codigo < diccionario.tamaño(); codigo++) {
+            mapa.put(diccionario.valor(codigo), conteos[codigo]);
+        }
+        return mapa;
+    }
+
+    /**
+     * Diccionario valor ↔ código denso, asignado en orden de aparición.
+     */
+    public static class Diccionario {
+        private final int maximo;
+        private final List<String> valores = new ArrayList<>();
+        private final Map<String, Integer> codigos = new HashMap<>();
+
+        Diccionario(int maximo) {
+            this.maximo = maximo;
+        }
+
+        int codificar(String valor) {
+            Integer codigo = codigos.get(valor);
+            if (codigo != null) {
+                return codigo;
+            }
+            if (valores.size() >= maximo) {
+                throw new IllegalStateException("El diccionario excede " + maximo + " valores distintos");
+            }
+            int nuevo = valores.size();
+            valores.add(valor);
+            codigos.put(valor, nuevo);
+            return nuevo;
+        }
+
+        /**
+         * Código del valor o -1 si no aparece en la tabla.
+         */
+        public int codigo(String valor) {
+            Integer codigo = codigos.get(valor);
+            return codigo == null ? -1 : codigo;
+        }
+
+        public String valor(int codigo) {
+            return valores.get(codigo);
+        }
+
+        public int tamaño() {
+            return valores.size();
+        }
+    }
+
+    /**
+     * Acumula filas en arreglos que crecen por duplicación.
+     */
+    public static class Builder {
+        private static final int MAX_CATEGORIAS = 256;
+
+        private int tamaño;
+        private ObjectId[] ids;
+        private String[] nombres;
+        private double[] longitudes;
+        private double[] latitudes;
+        private float[] calificaciones;
+        private float[] precios;
+        private byte[] municipios;
+        private byte[] tiposComida;
+        private byte[] horarios;
+        private int[] inicioEspecialidades;
+        private int[] especialidades;
+
+        private final Diccionario diccionarioMunicipios = new Diccionario(MAX_CATEGORIAS);
+        private final Diccionario diccionarioTiposComida = new Diccionario(MAX_CATEGORIAS);
+        private final Diccionario diccionarioHorarios = new Diccionario(MAX_CATEGORIAS);
+        private final Diccionario diccionarioEspecialidades = new Diccionario(Integer.MAX_VALUE);
+
+        Builder(int capacidad) {
+            ids = new ObjectId[capacidad];
+            nombres = new String[capacidad];
+            longitudes = new double[capacidad];
+            latitudes = new double[capacidad];
+            calificaciones = new float[capacidad];
+            precios = new float[capacidad];
+            municipios = new byte[capacidad];
+            tiposComida = new byte[capacidad];
+            horarios = new byte[capacidad];
+            inicioEspecialidades = new int[capacidad + 1];
+            especialidades = new int[capacidad * 3];
+        }
+
+        public Builder agregar(Restaurante r) {
+            double lon = Double.NaN;
+            double lat = Double.NaN;
+            if (r.getUbicacion() != null && r.getUbicacion().getCoordinates() != null
+                    && r.getUbicacion().getCoordinates().size() >= 2) {
+                lon = r.getUbicacion().getCoordinates().get(0);
+                lat = r.getUbicacion().getCoordinates().get(1);
+            }
+            List<String> esp = r.getEspecialidades() == null ? List.of() : r.getEspecialidades();
+            int fila = reservarFila(esp.size());
+            ids[fila] = r.getId();
+            nombres[fila] = r.getNombre();
+            longitudes[fila] = lon;
+            latitudes[fila] = lat;
+            calificaciones[fila] = (float) r.getCalificacion();
+            precios[fila] = (float) r.getPrecioPromedio();
+            municipios[fila] = (byte) diccionarioMunicipios.codificar(r.getMunicipio());
+            tiposComida[fila] = (byte) diccionarioTiposComida.codificar(r.getTipoComida());
+            horarios[fila] = (byte) diccionarioHorarios.codificar(r.getHorario());
+            int inicio = inicioEspecialidades[fila];
+            for (int i = 0; i < esp.size(); i++) {
+                especialidades[inicio + i] = diccionarioEspecialidades.codificar(esp.get(i));
+            }
+            inicioEspecialidades[fila + 1] = inicio + esp.size();
+            return this;
+        }
+
+        /**
+         * Anexa las filas de otro builder, traduciendo sus códigos a los diccionarios de este.
+         */
+        public Builder agregarTodo(Builder otro) {
+            for (int j = 0; j < otro.tamaño; j++) {
+                int inicioOtro = otro.inicioEspecialidades[j];
+                int cantidadEsp = otro.inicioEspecialidades[j + 1] - inicioOtro;
+                int fila = reservarFila(cantidadEsp);
+                ids[fila] = otro.ids[j];
+                nombres[fila] = otro.nombres[j];
+                longitudes[fila] = otro.longitudes[j];
+                latitudes[fila] = otro.latitudes[j];
+                calificaciones[fila] = otro.calificaciones[j];
+                precios[fila] = otro.precios[j];
+                municipios[fila] = (byte) diccionarioMunicipios.codificar(
+                        otro.diccionarioMunicipios.valor(otro.municipios[j] & 0xFF));
+                tiposComida[fila] = (byte) diccionarioTiposComida.codificar(
+                        otro.diccionarioTiposComida.valor(otro.tiposComida[j] & 0xFF));
+                horarios[fila] = (byte) diccionarioHorarios.codificar(
+                        otro.diccionarioHorarios.valor(otro.horarios[j] & 0xFF));
+                int inicio = inicioEspecialidades[fila];
+                for (int i = 0; i < cantidadEsp; i++) {
+                    especialidades[inicio + i] = diccionarioEspecialidades.codificar(
+                            otro.diccionarioEspecialidades.valor(otro.especialidades[inicioOtro + i]));
+                }
+                inicioEspecialidades[fila + 1] = inicio + cantidadEsp;
+            }
+            return this;
+        }
+
+        public RestauranteTable construir() {
+            return new RestauranteTable(this);
+        }
+
+        // Garantiza espacio para una fila más y sus especialidades; devuelve el índice de la fila
+        private int reservarFila(int cantidadEspecialidades) {
+            if (tamaño == ids.length) {
+                int capacidad = Math.max(16, ids.length * 2);
+                ids = Arrays.copyOf(ids, capacidad);
+                nombres = Arrays.copyOf(nombres, capacidad);
+                longitudes = Arrays.copyOf(longitudes, capacidad);
+                latitudes = Arrays.copyOf(latitudes, capacidad);
+                calificaciones = Arrays.copyOf(calificaciones, capacidad);
+                precios = Arrays.copyOf(precios, capacidad);
+                municipios = Arrays.copyOf(municipios, capacidad);
+                tiposComida = Arrays.copyOf(tiposComida, capacidad);
+                horarios = Arrays.copyOf(horarios, capacidad);
+                inicioEspecialidades = Arrays.copyOf(inicioEspecialidades, capacidad + 1);
+            }
+            int necesario = inicioEspecialidades[tamaño] + cantidadEspecialidades;
+            if (necesario > especialidades.length) {
+                especialidades = Arrays.copyOf(especialidades, Math.max(necesario, especialidades.length * 2));
+            }
+            return tamaño++;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.restaurantes.gdl.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecuta etapas con dependencias declaradas (un grafo acíclico) sin intervención del usuario.
+ * <pre>
+ * new PipelineEtapas()
+ *     .etapa("importar", "documentos", () -> ...)
+ *     .etapa("indices", "índices", () -> ..., "importar")
+ *     .etapa("estadisticas", "documentos", () -> ..., "importar")
+ *     .etapa("backup", "documentos", () -> ..., "indices")
+ *     .ejecutar();
+ * </pre>
+ * Cada etapa arranca en cuanto terminan sus dependencias, de modo que las etapas
+ * independientes corren a la vez y el total se acerca a la ruta crítica en lugar de a la
+ * suma. Si una etapa falla, las que dependen de ella (directa o indirectamente) se marcan
+ * como canceladas sin ejecutarse; las demás siguen.
+ */
+public class PipelineEtapas {
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelineEtapas.class);
+
+    /**
+     * Trabajo de una etapa; devuelve cuántas unidades procesó (0 si no aplica).
+     */
+    @FunctionalInterface
+    public interface Tarea {
+        long ejecutar() throws Exception;
+    }
+
+    private record Etapa(String nombre, String unidad, Tarea tarea, List<String> dependencias) {
+    }
+
+    private final Map<String, Etapa> etapas = new LinkedHashMap<>();
+
+    /**
+     * Declara una etapa. Las dependencias deben estar declaradas antes, lo que además
+     * garantiza que el grafo no tenga ciclos.
+     */
+    public PipelineEtapas etapa(String nombre, String unidad, Tarea tarea, String... dependencias) {
+        if (etapas.containsKey(nombre)) {
+            throw new IllegalArgumentException("Etapa duplicada: " + nombre);
+        }
+        for (String dependencia : dependencias) {
+            if (!etapas.containsKey(dependencia)) {
+                throw new IllegalArgumentException("La etapa '" + nombre + "' depende de '" + dependencia
+                        + "', que no está declarada antes");
+            }
+        }
+        etapas.put(nombre, new Etapa(nombre, unidad, tarea, List.of(dependencias)));
+        return this;
+    }
+
+    public ResultadoPipeline ejecutar() {
+        long inicio = System.nanoTime();
+        // Una etapa por hilo: todas podrían estar listas a la vez y suelen bloquear en E/S
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, etapas.size()), hilos());
+        Map<String, CompletableFuture<ResultadoEtapa>> futuros = new LinkedHashMap<>();
+        try {
+            for (Etapa etapa : etapas.values()) {
+                List<CompletableFuture<ResultadoEtapa>> previas = etapa.dependencias().stream()
+                        .map(futuros::get)
+                        .toList();
+                futuros.put(etapa.nombre(), CompletableFuture.allOf(previas.toArray(CompletableFuture[]::new))
+                        .thenApplyAsync(v -> correr(etapa, previas, inicio), pool));
+            }
+            List<ResultadoEtapa> resultados = new ArrayList<>();
+            futuros.values().forEach(f -> resultados.add(f.join()));
+
+            long duracionMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+            long suma = resultados.stream().mapToLong(ResultadoEtapa::getDuracionMs).sum();
+            return new ResultadoPipeline(resultados, duracionMs, suma, rutaCritica(resultados));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private ResultadoEtapa correr(Etapa etapa, List<CompletableFuture<ResultadoEtapa>> previas, long inicioPipeline) {
+        long inicioMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioPipeline);
+        for (CompletableFuture<ResultadoEtapa> previa : previas) {
+            ResultadoEtapa dependencia = previa.join();
+            if (dependencia.getEstado() != ResultadoEtapa.Estado.COMPLETADA) {
+                logger.warn("Etapa '{}' cancelada: '{}' terminó como {}", etapa.nombre(),
+                        dependencia.getNombre(), dependencia.getEstado());
+                return new ResultadoEtapa(etapa.nombre(), ResultadoEtapa.Estado.CANCELADA, inicioMs, 0, 0,
+                        etapa.unidad(), "depende de '" + dependencia.getNombre() + "'");
+            }
+        }
+
+        logger.info("▶ Etapa '{}' iniciada", etapa.nombre());
+        long inicio = System.nanoTime();
+        try {
+            long unidades = etapa.tarea().ejecutar();
+            long duracionMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+            logger.info("✓ Etapa '{}' completada en {} ms", etapa.nombre(), duracionMs);
+            return new ResultadoEtapa(etapa.nombre(), ResultadoEtapa.Estado.COMPLETADA, inicioMs, duracionMs,
+                    unidades, etapa.unidad(), null);
+        } catch (Exception e) {
+            long duracionMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+            logger.error("✗ Etapa '{}' falló tras {} ms", etapa.nombre(), duracionMs, e);
+            return new ResultadoEtapa(etapa.nombre(), ResultadoEtapa.Estado.FALLIDA, inicioMs, duracionMs,
+                    0, etapa.unidad(), String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * Duración de la cadena de dependencias más larga; las etapas están en orden topológico.
+     */
+    private long rutaCritica(List<ResultadoEtapa> resultados) {
+        Map<String, Long> finales = new HashMap<>();
+        long maximo = 0;
+        for (ResultadoEtapa resultado : resultados) {
+            long previo = etapas.get(resultado.getNombre()).dependencias().stream()
+                    .mapToLong(finales::get)
+                    .max()
+                    .orElse(0);
+            long fin = previo + resultado.getDuracionMs();
+            finales.put(resultado.getNombre(), fin);
+            maximo = Math.max(maximo, fin);
+        }
+        return maximo;
+    }
+
+    private static ThreadFactory hilos() {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "etapa-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
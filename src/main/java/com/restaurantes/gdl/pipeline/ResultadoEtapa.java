@@ -0,0 +1,31 @@
+package com.restaurantes.gdl.pipeline;
+
+import lombok.Value;
+
+/**
+ * Resultado de una etapa de {@link PipelineEtapas}: estado, momento de inicio relativo al
+ * arranque del pipeline, duración y volumen procesado.
+ */
+@Value
+public class ResultadoEtapa {
+
+    public enum Estado {
+        COMPLETADA,
+        FALLIDA,
+        // No se ejecutó porque falló (o se canceló) alguna de sus dependencias
+        CANCELADA
+    }
+
+    String nombre;
+    Estado estado;
+    long inicioMs;
+    long duracionMs;
+    long unidades;
+    // Nombre de lo que cuenta {@code unidades} ("documentos", "índices", ...)
+    String unidad;
+    String error;
+
+    public double getUnidadesPorSegundo() {
+        return duracionMs == 0 ? unidades : unidades * 1000.0 / duracionMs;
+    }
+}
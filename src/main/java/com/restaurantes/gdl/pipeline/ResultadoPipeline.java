@@ -0,0 +1,45 @@
+package com.restaurantes.gdl.pipeline;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Resumen de una ejecución de {@link PipelineEtapas}.
+ */
+@Value
+public class ResultadoPipeline {
+    // En el orden en que se declararon
+    List<ResultadoEtapa> etapas;
+    long duracionMs;
+    // Lo que habría tardado ejecutando las etapas una tras otra
+    long sumaEtapasMs;
+    // Cadena de dependencias más larga según las duraciones medidas
+    long rutaCriticaMs;
+
+    public boolean isExitoso() {
+        return etapas.stream().allMatch(e -> e.getEstado() == ResultadoEtapa.Estado.COMPLETADA);
+    }
+
+    /**
+     * Tabla de tiempos por etapa, lista para el log.
+     */
+    public String resumen() {
+        StringBuilder texto = new StringBuilder(String.format("%-16s %-11s %9s %9s %20s%n",
+                "Etapa", "Estado", "Inicio ms", "Dur. ms", "Ritmo"));
+        for (ResultadoEtapa etapa : etapas) {
+            String ritmo = etapa.getEstado() == ResultadoEtapa.Estado.COMPLETADA && etapa.getUnidades() > 0
+                    ? String.format("%.0f %s/s", etapa.getUnidadesPorSegundo(), etapa.getUnidad())
+                    : "";
+            texto.append(String.format("%-16s %-11s %9d %9d %20s", etapa.getNombre(), etapa.getEstado(),
+                    etapa.getInicioMs(), etapa.getDuracionMs(), ritmo));
+            if (etapa.getError() != null) {
+                texto.append("  ").append(etapa.getError());
+            }
+            texto.append(System.lineSeparator());
+        }
+        texto.append(String.format("Total %d ms (suma de etapas %d ms, ruta crítica %d ms)",
+                duracionMs, sumaEtapasMs, rutaCriticaMs));
+        return texto.toString();
+    }
+}
@@ -0,0 +1,499 @@
+package com.restaurantes.gdl.recomendacion;
+
+import com.restaurantes.gdl.model.FiltrosRestaurante;
+import com.restaurantes.gdl.model.RestauranteTable;
+import com.restaurantes.gdl.service.CacheConsultas;
+import org.bson.types.ObjectId;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Recomendaciones "parecidos a este" sobre una {@link RestauranteTable}, sin servicios externos.
+ * <p>
+ * Cada restaurante es un vector de características: one-hot de tipo de comida y municipio,
+ * especialidades hasheadas en {@value #CUBETAS_ESPECIALIDADES} cubetas, y calificación, precio
+ * y ubicación. La similitud con una semilla es un solo producto punto: las partes categóricas
+ * suman cuando coinciden y las numéricas suman su peso menos la distancia al cuadrado, que es
+ * lineal en {@code v} y {@code v²} ((v - q)² = v² - 2qv + q²). Por ser lineal, un perfil con varios
+ * favoritos es el promedio de sus consultas.
+ * <p>
+ * Los one-hot se guardan como un código por fila que combina tipo y municipio (el producto
+ * con ellos es buscar un peso por código) y el resto en columnas {@code float}; los cuadrados
+ * no se guardan sino que se calculan al recorrer, porque el recorrido está limitado por el
+ * ancho de banda de memoria y no por las multiplicaciones. La búsqueda
+ * recorre las filas por particiones en paralelo, cada una en bloques que caben en caché con
+ * bucles que el JIT vectoriza, y se queda con los k mejores en un montículo acotado. Las
+ * recomendaciones por semilla se guardan en un caché LRU, que {@link #precalcular} puede
+ * llenar de antemano con las semillas más pedidas.
+ * <p>
+ * Es una foto de la tabla: inmutable y consultable desde varios hilos.
+ */
+public class MotorRecomendaciones {
+
+    private static final int CUBETAS_ESPECIALIDADES = 8;
+
+    // Columnas del vector denso
+    private static final int CALIFICACION = CUBETAS_ESPECIALIDADES;
+    private static final int PRECIO = CALIFICACION + 1;
+    private static final int UBICACION = PRECIO + 1;
+    private static final int DIMENSIONES = UBICACION + 2;
+
+    // Aporte de cada grupo de características a la similitud
+    private static final float PESO_TIPO_COMIDA = 1.0f;
+    private static final float PESO_MUNICIPIO = 0.3f;
+    private static final float PESO_ESPECIALIDADES = 0.6f;
+    // Por desviación estándar de diferencia, al cuadrado
+    private static final float PESO_CALIFICACION = 0.15f;
+    private static final float PESO_PRECIO = 0.15f;
+    // Por cada ESCALA_UBICACION_KM de distancia, al cuadrado
+    private static final float PESO_UBICACION = 0.2f;
+    private static final double ESCALA_UBICACION_KM = 5;
+
+    private static final int TAMAÑO_PARTICION = 1 << 15;
+    private static final int TAMAÑO_BLOQUE = 1024;
+
+    private static final int CAPACIDAD_CACHE = 4096;
+    // La foto no cambia; el TTL solo recicla semillas que dejaron de pedirse
+    private static final Duration TTL_CACHE = Duration.ofHours(6);
+
+    private final RestauranteTable tabla;
+    private final int tamaño;
+    // Tipo de comida y municipio en un solo código: tipo * cantidadMunicipios + municipio.
+    // Con diccionarios de hasta 256 valores llega a 65 535, que cabe en un char sin signo
+    private final char[] categorias;
+    private final int cantidadTipos;
+    private final int cantidadMunicipios;
+    private final float[][] columnas;
+    private final Map<ObjectId, Integer> filaPorId;
+
+    // Para llevar calificación, precio y ubicación de una consulta a la escala de las columnas
+    private final double mediaCalificacion;
+    private final double desviacionCalificacion;
+    private final double mediaPrecio;
+    private final double desviacionPrecio;
+    private final double longitudCentro;
+    private final double latitudCentro;
+
+    private final CacheConsultas<ClaveSemilla, List<Recomendacion>> cache =
+            new CacheConsultas<>(CAPACIDAD_CACHE, TTL_CACHE);
+
+    private record ClaveSemilla(int fila, int limite, FiltrosRestaurante filtros) {
+    }
+
+    private MotorRecomendaciones(RestauranteTable tabla) {
+        this.tabla = tabla;
+        this.tamaño = tabla.tamaño();
+        this.cantidadTipos = Math.max(1, tabla.getDiccionarioTiposComida().tamaño());
+        this.cantidadMunicipios = Math.max(1, tabla.getDiccionarioMunicipios().tamaño());
+        this.categorias = new char[tamaño];
+        this.columnas = new float[DIMENSIONES][tamaño];
+        this.filaPorId = new HashMap<>(tamaño * 4 / 3 + 1);
+
+        double[] calificacion = momentos(fila -> tabla.calificacion(fila));
+        double[] precio = momentos(fila -> tabla.precio(fila));
+        mediaCalificacion = calificacion[0];
+        desviacionCalificacion = calificacion[1];
+        mediaPrecio = precio[0];
+        desviacionPrecio = precio[1];
+        double sumaLon = 0;
+        double sumaLat = 0;
+        int conUbicacion = 0;
+        for (int fila = 0; fila < tamaño; fila++) {
+            if (!Double.isNaN(tabla.longitud(fila)) && !Double.isNaN(tabla.latitud(fila))) {
+                sumaLon += tabla.longitud(fila);
+                sumaLat += tabla.latitud(fila);
+                conUbicacion++;
+            }
+        }
+        longitudCentro = conUbicacion == 0 ? 0 : sumaLon / conUbicacion;
+        latitudCentro = conUbicacion == 0 ? 0 : sumaLat / conUbicacion;
+
+        int[] cubetaEspecialidad = new int[tabla.getDiccionarioEspecialidades().tamaño()];
+        for (int codigo = 0; codigo < cubetaEspecialidad.length; codigo++) {
+            // Por el texto y no por el código, para que no dependa del orden de carga
+            int hash = tabla.getDiccionarioEspecialidades().valor(codigo).hashCode() * 0x9E3779B9;
+            cubetaEspecialidad[codigo] = hash >>> (32 - Integer.numberOfTrailingZeros(CUBETAS_ESPECIALIDADES));
+        }
+        int[] inicio = tabla.inicioEspecialidades();
+        int[] especialidades = tabla.especialidades();
+        for (int fila = 0; fila < tamaño; fila++) {
+            categorias[fila] = (char) (tabla.codigoTipoComida(fila) * cantidadMunicipios + tabla.codigoMunicipio(fila));
+            if (tabla.id(fila) != null) {
+                filaPorId.put(tabla.id(fila), fila);
+            }
+
+            // Conteo por cubeta normalizado a norma 1: el producto entre dos filas es el coseno.
+            // Al pasar un conteo de c a c + 1, la suma de cuadrados crece 2c + 1
+            double norma2 = 0;
+            for (int i = inicio[fila]; i < inicio[fila + 1]; i++) {
+                float previo = columnas[cubetaEspecialidad[especialidades[i]]][fila]++;
+                norma2 += 2 * previo + 1;
+            }
+            if (norma2 > 0) {
+                float inversa = (float) (1 / Math.sqrt(norma2));
+                for (int cubeta = 0; cubeta < CUBETAS_ESPECIALIDADES; cubeta++) {
+                    columnas[cubeta][fila] *= inversa;
+                }
+            }
+
+            columnas[CALIFICACION][fila] = (float) ((tabla.calificacion(fila) - mediaCalificacion) / desviacionCalificacion);
+            columnas[PRECIO][fila] = (float) ((tabla.precio(fila) - mediaPrecio) / desviacionPrecio);
+            // Sin ubicación queda en el centro
+            columnas[UBICACION][fila] = Double.isNaN(tabla.longitud(fila)) ? 0 : (float) x(tabla.longitud(fila));
+            columnas[UBICACION + 1][fila] = Double.isNaN(tabla.latitud(fila)) ? 0 : (float) y(tabla.latitud(fila));
+        }
+    }
+
+    public static MotorRecomendaciones construir(RestauranteTable tabla) {
+        return new MotorRecomendaciones(tabla);
+    }
+
+    public RestauranteTable getTabla() {
+        return tabla;
+    }
+
+    public CacheConsultas.Metricas getMetricasCache() {
+        return cache.getMetricas();
+    }
+
+    /**
+     * Los {@code limite} restaurantes más parecidos a la semilla, sin incluirla; vacío si la
+     * semilla no está en la tabla.
+     */
+    public List<Recomendacion> recomendar(ObjectId semilla, int limite) {
+        return recomendar(semilla, limite, FiltrosRestaurante.ninguno());
+    }
+
+    /**
+     * Como {@link #recomendar(ObjectId, int)} pero solo entre los que cumplen los filtros.
+     */
+    public List<Recomendacion> recomendar(ObjectId semilla, int limite, FiltrosRestaurante filtros) {
+        Integer fila = filaPorId.get(semilla);
+        if (fila == null || limite <= 0) {
+            return List.of();
+        }
+        return cache.obtener(new ClaveSemilla(fila, limite, filtros),
+                () -> buscar(Consulta.deFila(this, fila), limite, filtros, new int[]{fila}));
+    }
+
+    public List<Recomendacion> recomendar(PerfilUsuario perfil, int limite) {
+        return recomendar(perfil, limite, FiltrosRestaurante.ninguno());
+    }
+
+    /**
+     * Los {@code limite} restaurantes que mejor encajan con el perfil, sin repetir sus
+     * favoritos. Con favoritos se parte del promedio de sus vectores y las preferencias
+     * explícitas se suman encima. Un perfil sin favoritos conocidos ni preferencias no
+     * distingue a nadie y devuelve una lista vacía.
+     */
+    public List<Recomendacion> recomendar(PerfilUsuario perfil, int limite, FiltrosRestaurante filtros) {
+        if (limite <= 0) {
+            return List.of();
+        }
+        int[] favoritos = perfil.getFavoritos().stream()
+                .map(filaPorId::get)
+                .filter(fila -> fila != null)
+                .mapToInt(Integer::intValue)
+                .distinct()
+                .toArray();
+        Consulta consulta = new Consulta(this);
+        for (int fila : favoritos) {
+            consulta.sumar(Consulta.deFila(this, fila), 1.0 / favoritos.length);
+        }
+        int tipo = perfil.getTipoComida() == null ? -1
+                : tabla.getDiccionarioTiposComida().codigo(perfil.getTipoComida());
+        if (tipo >= 0) {
+            consulta.tiposComida[tipo] += PESO_TIPO_COMIDA;
+            consulta.pesoMaximo += PESO_TIPO_COMIDA;
+        }
+        int municipio = perfil.getMunicipio() == null ? -1
+                : tabla.getDiccionarioMunicipios().codigo(perfil.getMunicipio());
+        if (municipio >= 0) {
+            consulta.municipios[municipio] += PESO_MUNICIPIO;
+            consulta.pesoMaximo += PESO_MUNICIPIO;
+        }
+        if (perfil.getPrecio() != null) {
+            consulta.cercania(PRECIO, (perfil.getPrecio() - mediaPrecio) / desviacionPrecio, PESO_PRECIO);
+        }
+        if (perfil.getLongitud() != null && perfil.getLatitud() != null) {
+            consulta.cercaniaUbicacion(x(perfil.getLongitud()), y(perfil.getLatitud()));
+        }
+        if (consulta.pesoMaximo == 0) {
+            return List.of();
+        }
+        Arrays.sort(favoritos);
+        return buscar(consulta, limite, filtros, favoritos);
+    }
+
+    /**
+     * Calcula y guarda en caché las recomendaciones de estas semillas, para que las primeras
+     * peticiones ya no recorran la tabla. Devuelve cuántas semillas estaban en la tabla.
+     */
+    public int precalcular(Collection<ObjectId> semillas, int limite) {
+        List<ObjectId> conocidas = semillas.stream().filter(filaPorId::containsKey).toList();
+        conocidas.parallelStream().forEach(semilla -> recomendar(semilla, limite));
+        return conocidas.size();
+    }
+
+    // ==================== Búsqueda ====================
+
+    /**
+     * Recorre todas las filas menos las de {@code excluidas} (ordenadas) y devuelve las
+     * {@code limite} de mayor puntaje que cumplen los filtros.
+     */
+    private List<Recomendacion> buscar(Consulta consulta, int limite, FiltrosRestaurante filtros, int[] excluidas) {
+        IntPredicate filtro = filtros.equals(FiltrosRestaurante.ninguno()) ? null : filtros.predicado(tabla);
+        int particiones = (tamaño + TAMAÑO_PARTICION - 1) / TAMAÑO_PARTICION;
+        Monticulo mejores = IntStream.range(0, particiones)
+                .parallel()
+                .mapToObj(p -> {
+                    Monticulo monticulo = new Monticulo(limite);
+                    puntuar(consulta, p * TAMAÑO_PARTICION, Math.min(tamaño, (p + 1) * TAMAÑO_PARTICION),
+                            monticulo, filtro, excluidas);
+                    return monticulo;
+                })
+                .reduce(Monticulo::combinar)
+                .orElseGet(() -> new Monticulo(limite));
+        mejores.ordenar();
+        List<Recomendacion> resultado = new ArrayList<>(mejores.cantidad);
+        for (int i = 0; i < mejores.cantidad; i++) {
+            double similitud = (mejores.puntajes[i] + consulta.constante) / consulta.pesoMaximo;
+            resultado.add(new Recomendacion(tabla.restaurante(mejores.filas[i]), similitud));
+        }
+        return List.copyOf(resultado);
+    }
+
+    private void puntuar(Consulta consulta, int desde, int hasta, Monticulo monticulo, IntPredicate filtro,
+                         int[] excluidas) {
+        float[] puntajes = new float[TAMAÑO_BLOQUE];
+        // Peso de cada combinación tipo/municipio: una sola búsqueda por fila
+        float[] pesosCategoria = new float[cantidadTipos * cantidadMunicipios];
+        for (int tipo = 0; tipo < cantidadTipos; tipo++) {
+            for (int municipio = 0; municipio < cantidadMunicipios; municipio++) {
+                pesosCategoria[tipo * cantidadMunicipios + municipio] =
+                        consulta.tiposComida[tipo] + consulta.municipios[municipio];
+            }
+        }
+        for (int inicio = desde; inicio < hasta; inicio += TAMAÑO_BLOQUE) {
+            int n = Math.min(TAMAÑO_BLOQUE, hasta - inicio);
+            for (int i = 0; i < n; i++) {
+                puntajes[i] = pesosCategoria[categorias[inicio + i]];
+            }
+            // Columna por columna: sin dependencias entre filas, el JIT lo vectoriza
+            for (int d = 0; d < DIMENSIONES; d++) {
+                float lineal = consulta.lineal[d];
+                float cuadratico = consulta.cuadratico[d];
+                float[] columna = columnas[d];
+                if (cuadratico != 0) {
+                    for (int i = 0; i < n; i++) {
+                        float v = columna[inicio + i];
+                        puntajes[i] += v * (lineal + cuadratico * v);
+                    }
+                } else if (lineal != 0) {
+                    for (int i = 0; i < n; i++) {
+                        puntajes[i] += lineal * columna[inicio + i];
+                    }
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                if (puntajes[i] > monticulo.umbral()) {
+                    int fila = inicio + i;
+                    if (Arrays.binarySearch(excluidas, fila) < 0 && (filtro == null || filtro.test(fila))) {
+                        monticulo.ofrecer(puntajes[i], fila);
+                    }
+                }
+            }
+        }
+    }
+
+    // ==================== Características ====================
+
+    // Proyección equirectangular alrededor del centro, en unidades de ESCALA_UBICACION_KM
+    private double x(double longitud) {
+        return (longitud - longitudCentro) * 111.32 * Math.cos(Math.toRadians(latitudCentro)) / ESCALA_UBICACION_KM;
+    }
+
+    private double y(double latitud) {
+        return (latitud - latitudCentro) * 110.57 / ESCALA_UBICACION_KM;
+    }
+
+    private double[] momentos(IntToDoubleFunction valor) {
+        double suma = 0;
+        double suma2 = 0;
+        for (int fila = 0; fila < tamaño; fila++) {
+            double v = valor.applyAsDouble(fila);
+            suma += v;
+            suma2 += v * v;
+        }
+        double media = tamaño == 0 ? 0 : suma / tamaño;
+        double varianza = tamaño == 0 ? 0 : suma2 / tamaño - media * media;
+        // Con todos los valores iguales cualquier escala sirve
+        return new double[]{media, varianza > 1e-12 ? Math.sqrt(varianza) : 1};
+    }
+
+    /**
+     * Pesos de una consulta sobre el vector de características. El puntaje de una fila es
+     * {@code tiposComida[tipo] + municipios[municipio]} más, por columna,
+     * {@code lineal·v + cuadratico·v²}; sumarle {@code constante} y dividir entre
+     * {@code pesoMaximo} da la similitud.
+     */
+    private static final class Consulta {
+        final float[] tiposComida;
+        final float[] municipios;
+        final float[] lineal = new float[DIMENSIONES];
+        final float[] cuadratico = new float[DIMENSIONES];
+        double constante;
+        double pesoMaximo;
+
+        Consulta(MotorRecomendaciones motor) {
+            tiposComida = new float[motor.cantidadTipos];
+            municipios = new float[motor.cantidadMunicipios];
+        }
+
+        static Consulta deFila(MotorRecomendaciones motor, int fila) {
+            Consulta consulta = new Consulta(motor);
+            consulta.tiposComida[motor.categorias[fila] / motor.cantidadMunicipios] = PESO_TIPO_COMIDA;
+            consulta.municipios[motor.categorias[fila] % motor.cantidadMunicipios] = PESO_MUNICIPIO;
+            consulta.pesoMaximo = PESO_TIPO_COMIDA + PESO_MUNICIPIO;
+            boolean conEspecialidades = false;
+            for (int cubeta = 0; cubeta < CUBETAS_ESPECIALIDADES; cubeta++) {
+                float valor = motor.columnas[cubeta][fila];
+                consulta.lineal[cubeta] = PESO_ESPECIALIDADES * valor;
+                conEspecialidades |= valor != 0;
+            }
+            if (conEspecialidades) {
+                consulta.pesoMaximo += PESO_ESPECIALIDADES;
+            }
+            consulta.cercania(CALIFICACION, motor.columnas[CALIFICACION][fila], PESO_CALIFICACION);
+            consulta.cercania(PRECIO, motor.columnas[PRECIO][fila], PESO_PRECIO);
+            consulta.cercaniaUbicacion(motor.columnas[UBICACION][fila], motor.columnas[UBICACION + 1][fila]);
+            return consulta;
+        }
+
+        /**
+         * Suma {@code peso·(1 - (v - valor)²)} por la columna {@code v}: el peso completo si
+         * coincide, y cuenta en {@code pesoMaximo} como las partes categóricas.
+         */
+        void cercania(int columna, double valor, float peso) {
+            lineal[columna] += (float) (2 * peso * valor);
+            cuadratico[columna] -= peso;
+            constante += peso - peso * valor * valor;
+            pesoMaximo += peso;
+        }
+
+        void cercaniaUbicacion(double x, double y) {
+            cercania(UBICACION, x, PESO_UBICACION);
+            cercania(UBICACION + 1, y, PESO_UBICACION);
+        }
+
+        void sumar(Consulta otra, double factor) {
+            for (int i = 0; i < tiposComida.length; i++) {
+                tiposComida[i] += (float) (factor * otra.tiposComida[i]);
+            }
+            for (int i = 0; i < municipios.length; i++) {
+                municipios[i] += (float) (factor * otra.municipios[i]);
+            }
+            for (int d = 0; d < DIMENSIONES; d++) {
+                lineal[d] += (float) (factor * otra.lineal[d]);
+                cuadratico[d] += (float) (factor * otra.cuadratico[d]);
+            }
+            constante += factor * otra.constante;
+            pesoMaximo += factor * otra.pesoMaximo;
+        }
+    }
+
+    /**
+     * Montículo de mínimos acotado a {@code k}: la raíz es el peor de los mejores vistos.
+     */
+    private static final class Monticulo {
+        final float[] puntajes;
+        final int[] filas;
+        final int k;
+        int cantidad;
+
+        Monticulo(int k) {
+            this.k = k;
+            this.puntajes = new float[k];
+            this.filas = new int[k];
+        }
+
+        float umbral() {
+            return cantidad < k ? Float.NEGATIVE_INFINITY : puntajes[0];
+        }
+
+        void ofrecer(float puntaje, int fila) {
+            if (cantidad < k) {
+                int i = cantidad++;
+                while (i > 0 && peor(puntaje, fila, (i - 1) >>> 1)) {
+                    puntajes[i] = puntajes[(i - 1) >>> 1];
+                    filas[i] = filas[(i - 1) >>> 1];
+                    i = (i - 1) >>> 1;
+                }
+                puntajes[i] = puntaje;
+                filas[i] = fila;
+            } else if (!peor(puntaje, fila, 0)) {
+                puntajes[0] = puntaje;
+                filas[0] = fila;
+                hundir(cantidad);
+            }
+        }
+
+        Monticulo combinar(Monticulo otro) {
+            for (int i = 0; i < otro.cantidad; i++) {
+                ofrecer(otro.puntajes[i], otro.filas[i]);
+            }
+            return this;
+        }
+
+        /**
+         * Ordena en su lugar del mejor al peor (heapsort).
+         */
+        void ordenar() {
+            for (int fin = cantidad - 1; fin > 0; fin--) {
+                intercambiar(0, fin);
+                hundir(fin);
+            }
+        }
+
+        private void hundir(int n) {
+            int i = 0;
+            while (true) {
+                int hijo = 2 * i + 1;
+                if (hijo >= n) {
+                    return;
+                }
+                if (hijo + 1 < n && peor(puntajes[hijo + 1], filas[hijo + 1], hijo)) {
+                    hijo++;
+                }
+                if (!peor(puntajes[hijo], filas[hijo], i)) {
+                    return;
+                }
+                intercambiar(i, hijo);
+                i = hijo;
+            }
+        }
+
+        // A igual puntaje gana la fila más baja, para que el resultado no dependa de las particiones
+        private boolean peor(float puntaje, int fila, int posicion) {
+            return puntaje < puntajes[posicion] || (puntaje == puntajes[posicion] && fila > filas[posicion]);
+        }
+
+        private void intercambiar(int a, int b) {
+            float p = puntajes[a];
+            puntajes[a] = puntajes[b];
+            puntajes[b] = p;
+            int f = filas[a];
+            filas[a] = filas[b];
+            filas[b] = f;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.restaurantes.gdl.recomendacion;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+import org.bson.types.ObjectId;
+
+import java.util.List;
+
+/**
+ * Gustos de un usuario para {@link MotorRecomendaciones#recomendar(PerfilUsuario, int)}:
+ * restaurantes que le gustaron y, opcionalmente, preferencias explícitas. Los campos en null
+ * no cuentan.
+ */
+@Value
+@Builder
+public class PerfilUsuario {
+    @Singular("favorito")
+    List<ObjectId> favoritos;
+    String tipoComida;
+    String municipio;
+    Double precio;
+    Double longitud;
+    Double latitud;
+}
@@ -0,0 +1,14 @@
+package com.restaurantes.gdl.recomendacion;
+
+import com.restaurantes.gdl.model.Restaurante;
+import lombok.Value;
+
+/**
+ * Un restaurante recomendado y qué tan parecido es a la semilla o al perfil: 1 es idéntico y
+ * baja conforme difieren tipo, municipio, especialidades, calificación, precio y ubicación.
+ */
+@Value
+public class Recomendacion {
+    Restaurante restaurante;
+    double similitud;
+}
@@ -0,0 +1,74 @@
+package com.restaurantes.gdl.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Acumula en una sola pasada lo necesario para un {@link EstadisticasReport} del lado del cliente.
+ * Los precios se guardan en un arreglo primitivo para obtener percentiles exactos al final.
+ */
+class AcumuladorEstadisticas {
+
+    private final Map<String, long[]> porMunicipio = new HashMap<>();
+    private final Map<String, long[]> porTipoComida = new HashMap<>();
+    private final long[] histograma = new long[EstadisticasReport.CUBETAS_CALIFICACION];
+    private long total;
+    private double sumaCalificacion;
+    private double sumaPrecio;
+    private double precioMinimo = Double.POSITIVE_INFINITY;
+    private double precioMaximo = Double.NEGATIVE_INFINITY;
+    private double[] precios = new double[1024];
+
+    void agregar(String municipio, String tipoComida, double calificacion, double precio) {
+        porMunicipio.computeIfAbsent(municipio, k -> new long[1])[0]++;
+        porTipoComida.computeIfAbsent(tipoComida, k -> new long[1])[0]++;
+        histograma[EstadisticasReport.cubetaCalificacion(calificacion)]++;
+        sumaCalificacion += calificacion;
+        sumaPrecio += precio;
+        precioMinimo = Math.min(precioMinimo, precio);
+        precioMaximo = Math.max(precioMaximo, precio);
+        if (total == precios.length) {
+            precios = Arrays.copyOf(precios, precios.length * 2);
+        }
+        precios[(int) total++] = precio;
+    }
+
+    EstadisticasReport construir(long duracionMs) {
+        double[] ordenados = Arrays.copyOf(precios, (int) total);
+        Arrays.sort(ordenados);
+        return EstadisticasReport.builder()
+                .total(total)
+                .porMunicipio(ordenarPorConteo(porMunicipio))
+                .porTipoComida(ordenarPorConteo(porTipoComida))
+                .calificacionPromedio(total == 0 ? 0 : sumaCalificacion / total)
+                .histogramaCalificacion(histograma.clone())
+                .precioMinimo(total == 0 ? 0 : precioMinimo)
+                .precioMaximo(total == 0 ? 0 : precioMaximo)
+                .precioPromedio(total == 0 ? 0 : sumaPrecio / total)
+                .precioP50(percentil(ordenados, 0.5))
+                .precioP90(percentil(ordenados, 0.9))
+                .precioP99(percentil(ordenados, 0.99))
+                .duracionMs(duracionMs)
+                .build();
+    }
+
+    // Percentil exacto por rango más cercano. $percentile en el servidor solo admite el método
+    // "approximate", así que con muchos precios p90 y p99 pueden diferir un poco entre ambos cálculos
+    private static double percentil(double[] ordenados, double p) {
+        if (ordenados.length == 0) {
+            return 0;
+        }
+        int rango = (int) Math.ceil(p * ordenados.length);
+        return ordenados[Math.max(0, rango - 1)];
+    }
+
+    static Map<String, Long> ordenarPorConteo(Map<String, long[]> conteos) {
+        Map<String, Long> ordenado = new LinkedHashMap<>();
+        conteos.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]))
+                .forEach(e -> ordenado.put(e.getKey(), e.getValue()[0]));
+        return ordenado;
+    }
+}
@@ -1,5 +1,21 @@
 package com.restaurantes.gdl.service;
 
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.restaurantes.gdl.backup.BackupIncremental;
+import com.restaurantes.gdl.backup.ConfiguracionBackup;
+import com.restaurantes.gdl.backup.ConfiguracionRestauracion;
+import com.restaurantes.gdl.backup.ConsultaDump;
+import com.restaurantes.gdl.backup.MotorBackup;
+import com.restaurantes.gdl.backup.MotorConsultaDump;
+import com.restaurantes.gdl.backup.MotorRestauracion;
+import com.restaurantes.gdl.backup.ProgresoBackup;
+import com.restaurantes.gdl.backup.RepositorioBackup;
+import com.restaurantes.gdl.backup.ResultadoBackup;
+import com.restaurantes.gdl.backup.ResultadoConsultaDump;
+import com.restaurantes.gdl.backup.ResultadoRestauracion;
+import com.restaurantes.gdl.backup.ResultadoVerificacion;
+import com.restaurantes.gdl.backup.VerificadorBackup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -7,14 +23,28 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 public class BackupService {
 
     private static final Logger logger = LoggerFactory.getLogger(BackupService.class);
+
+    private static final Path REPOSITORIO = Paths.get("backups", "repositorio");
+    private static final Duration RETENCION_REPOSITORIO = Duration.ofDays(30);
+    // La poda nunca deja el repositorio sin backups, aunque todos sean viejos
+    private static final int MINIMO_BACKUPS_REPOSITORIO = 1;
     private final String connectionString;
     private final String databaseName;
 
@@ -23,7 +53,246 @@ public class BackupService {
         this.databaseName = databaseName;
     }
 
-    public void realizarBackup() {
+    /**
+     * Backup con el motor nativo: no requiere mongodump y produce el mismo formato de directorio.
+     */
+    public ResultadoBackup realizarBackup() {
+        return realizarBackup(ConfiguracionBackup.porDefecto());
+    }
+
+    /**
+     * Backup nativo con cada colección en bloques deflate comprimidos en paralelo
+     * ({@code .bson.dfz}); se restaura con {@link #restaurarBackup(String)}, no con mongorestore.
+     */
+    public ResultadoBackup realizarBackupComprimido() {
+        return realizarBackup(ConfiguracionBackup.builder().comprimir(true).build());
+    }
+
+    public ResultadoBackup realizarBackup(ConfiguracionBackup config) {
+        try {
+            return ejecutarBackup(config, new ProgresoBackup());
+        } catch (IOException e) {
+            logger.error("Error de I/O durante el backup", e);
+        } catch (Exception e) {
+            logger.error("Error inesperado durante el backup", e);
+        }
+        return null;
+    }
+
+    /**
+     * Backup nativo que publica su avance en {@code progreso}. Si se cancela o falla, borra el
+     * directorio parcial y propaga la excepción ({@link CancellationException} al cancelar).
+     * La verificación posterior solo informa: un backup escrito completo nunca se borra.
+     */
+    public ResultadoBackup ejecutarBackup(ConfiguracionBackup config, ProgresoBackup progreso) throws IOException {
+        Path destino = Paths.get("backups", "backup_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date()));
+        logger.info("Iniciando backup de la base de datos '{}'...", databaseName);
+        logger.info("Destino: {}", destino);
+        if (Files.exists(destino)) {
+            // Nunca se borra un directorio que no creó este backup
+            throw new IOException("El destino del backup ya existe: " + destino);
+        }
+
+        try (MongoClient mongoClient = MongoClients.create(connectionString)) {
+            ResultadoBackup resultado;
+            try {
+                resultado = new MotorBackup(mongoClient, databaseName, config, progreso).respaldar(destino);
+            } catch (CancellationException e) {
+                logger.warn("Backup cancelado; se elimina el directorio parcial {}", destino);
+                eliminarDirectorio(destino);
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                // Un backup a medias junto a los buenos se confundiría con uno completo
+                logger.warn("Backup fallido; se elimina el directorio parcial {}", destino);
+                eliminarDirectorio(destino);
+                throw e;
+            }
+            logger.info("✓ Backup completado exitosamente");
+            logger.info("Ubicación: {}", destino.toAbsolutePath());
+            logger.info("{} colección(es), {} documentos, {} MB en {} ms ({} MB/s)",
+                    resultado.getColecciones(), resultado.getDocumentos(),
+                    String.format("%.2f", resultado.getBytes() / (1024.0 * 1024.0)),
+                    resultado.getDuracionMs(),
+                    String.format("%.1f", resultado.getMegabytesPorSegundo()));
+            // El backup ya está completo: si la verificación falla se informa, pero no se borra
+            try {
+                verificar(mongoClient, destino);
+            } catch (IOException | RuntimeException e) {
+                logger.error("✗ No se pudo verificar el backup en {}; se conserva para revisarlo", destino, e);
+            }
+            return resultado;
+        }
+    }
+
+    /**
+     * Backup al repositorio deduplicado de {@code backups/repositorio}: solo se escriben los
+     * chunks que no existían. Después aplica la retención de 30 días y libera los chunks
+     * que quedaron sin referencia.
+     */
+    public ResultadoBackup realizarBackupRepositorio() {
+        try {
+            return ejecutarBackupRepositorio(new ProgresoBackup());
+        } catch (Exception e) {
+            logger.error("Error durante el backup al repositorio", e);
+        }
+        return null;
+    }
+
+    /**
+     * Backup al repositorio que publica su avance en {@code progreso} y propaga los errores.
+     * Si se cancela o falla no se escribe manifiesto; los chunks que alcanzó a guardar quedan
+     * sin referencia y una recolección posterior los libera.
+     */
+    public ResultadoBackup ejecutarBackupRepositorio(ProgresoBackup progreso) throws IOException {
+        String nombre = "backup_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+        logger.info("Iniciando backup de '{}' al repositorio {}...", databaseName, REPOSITORIO);
+        try (MongoClient mongoClient = MongoClients.create(connectionString)) {
+            RepositorioBackup repositorio = new RepositorioBackup(REPOSITORIO);
+            ResultadoBackup resultado = new MotorBackup(mongoClient, databaseName, ConfiguracionBackup.porDefecto(),
+                    progreso).respaldar(repositorio, nombre);
+            logger.info("✓ Backup '{}' completado: {} documentos en {} ms",
+                    nombre, resultado.getDocumentos(), resultado.getDuracionMs());
+
+            repositorio.podar(RETENCION_REPOSITORIO, MINIMO_BACKUPS_REPOSITORIO);
+            repositorio.recolectarBasura();
+            mostrarResumenRepositorio(repositorio);
+            return resultado;
+        }
+    }
+
+    /**
+     * Restaura un backup del repositorio: lo reconstruye como directorio mongodump temporal
+     * y lo carga con el motor de restauración nativo.
+     */
+    public ResultadoRestauracion restaurarDesdeRepositorio(String nombre) {
+        Path temporal = null;
+        try {
+            RepositorioBackup repositorio = new RepositorioBackup(REPOSITORIO);
+            temporal = Files.createTempDirectory("restauracion_");
+            repositorio.materializar(nombre, temporal);
+            return restaurarBackup(temporal.toString());
+        } catch (Exception e) {
+            logger.error("Error al restaurar '{}' desde el repositorio", nombre, e);
+            return null;
+        } finally {
+            eliminarDirectorio(temporal);
+        }
+    }
+
+    private static void mostrarResumenRepositorio(RepositorioBackup repositorio) throws IOException {
+        RepositorioBackup.Resumen resumen = repositorio.resumen();
+        logger.info("Repositorio: {} backup(s), {} MB lógicos, {} MB almacenados en {} chunks (x{})",
+                resumen.backups(),
+                String.format("%.2f", resumen.bytesLogicos() / (1024.0 * 1024.0)),
+                String.format("%.2f", resumen.bytesAlmacenados() / (1024.0 * 1024.0)),
+                resumen.chunks(),
+                String.format("%.1f", resumen.getFactorDeduplicacion()));
+    }
+
+    private static void eliminarDirectorio(Path directorio) {
+        if (directorio == null || !Files.exists(directorio)) {
+            return;
+        }
+        try (Stream<Path> contenido = Files.walk(directorio)) {
+            for (Path p : contenido.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        } catch (IOException e) {
+            logger.warn("No se pudo eliminar el directorio {}", directorio, e);
+        }
+    }
+
+    /**
+     * Agrega un segmento incremental al backup completo más reciente que admita incrementales.
+     *
+     * @return eventos respaldados, o -1 si no hay backup base o hubo un error
+     */
+    public long realizarBackupIncremental() {
+        try {
+            return ejecutarBackupIncremental(new ProgresoBackup()).getDocumentos();
+        } catch (Exception e) {
+            logger.error("Error durante el backup incremental", e);
+        }
+        return -1;
+    }
+
+    /**
+     * Backup incremental sobre el último backup completo encadenable, publicando cada evento
+     * escrito en {@code progreso}. En el resultado, los documentos son los eventos.
+     */
+    public ResultadoBackup ejecutarBackupIncremental(ProgresoBackup progreso) throws IOException {
+        Optional<Path> base = ultimoBackupEncadenable();
+        if (base.isEmpty()) {
+            throw new IOException("No hay un backup completo con punto de reanudación (requiere replica set)");
+        }
+        logger.info("Backup incremental sobre: {}", base.get());
+        long inicio = System.nanoTime();
+        try (MongoClient mongoClient = MongoClients.create(connectionString)) {
+            long eventos = new BackupIncremental(mongoClient, databaseName).respaldarCambios(base.get(), progreso);
+            return new ResultadoBackup(base.get(), 0, eventos, progreso.getBytes(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        }
+    }
+
+    private static Optional<Path> ultimoBackupEncadenable() throws IOException {
+        Path backups = Paths.get("backups");
+        if (!Files.isDirectory(backups)) {
+            return Optional.empty();
+        }
+        // El nombre backup_yyyyMMdd_HHmmss ordena cronológicamente
+        try (Stream<Path> listado = Files.list(backups)) {
+            return listado
+                    .filter(p -> p.getFileName().toString().startsWith("backup_"))
+                    .filter(p -> Files.exists(p.resolve(BackupIncremental.PUNTO_REANUDACION)))
+                    .max(Path::compareTo);
+        }
+    }
+
+    /**
+     * Verifica la estructura de un backup sin decodificar documentos y la compara con la base en vivo.
+     */
+    public ResultadoVerificacion verificarBackup(String backupPath) {
+        try (MongoClient mongoClient = MongoClients.create(connectionString)) {
+            return verificar(mongoClient, Paths.get(backupPath));
+        } catch (Exception e) {
+            logger.error("Error durante la verificación", e);
+        }
+        return null;
+    }
+
+    /**
+     * Consulta una colección directamente sobre los archivos de un backup, sin restaurarlo
+     * ni conectarse al servidor.
+     */
+    public ResultadoConsultaDump consultarBackup(String backupPath, String coleccion, ConsultaDump consulta) {
+        try {
+            Path archivo = MotorConsultaDump.archivoColeccion(Paths.get(backupPath), databaseName, coleccion);
+            ResultadoConsultaDump resultado = new MotorConsultaDump(Runtime.getRuntime().availableProcessors())
+                    .ejecutar(archivo, consulta);
+            logger.info("Consulta sobre {}: {} de {} documentos coinciden ({} ms)", archivo,
+                    resultado.getCoincidencias(), resultado.getExaminados(), resultado.getDuracionMs());
+            return resultado;
+        } catch (Exception e) {
+            logger.error("Error al consultar el backup {}", backupPath, e);
+        }
+        return null;
+    }
+
+    private ResultadoVerificacion verificar(MongoClient mongoClient, Path directorio) throws IOException {
+        ResultadoVerificacion resultado = new VerificadorBackup(mongoClient, databaseName,
+                Runtime.getRuntime().availableProcessors()).verificar(directorio);
+        if (resultado.isValido()) {
+            logger.info("✓ Backup verificado: {} documentos en {} ms", resultado.getDocumentos(), resultado.getDuracionMs());
+        } else {
+            logger.error("✗ El backup en {} no pasó la verificación", directorio);
+        }
+        return resultado;
+    }
+
+    /**
+     * Backup delegando en el ejecutable mongodump (requiere MongoDB Database Tools).
+     */
+    public void realizarBackupMongodump() {
         try {
             // Verificar si mongodump está disponible
             if (!verificarMongoDump()) {
@@ -65,7 +334,7 @@ public class BackupService {
                     new InputStreamReader(process.getInputStream()))) {
                 String line;
                 while ((line = reader.readLine()) != null) {
-                    logger.info("mongodump: {}", line);
+                    logger.debug("mongodump: {}", line);
                 }
             }
 
@@ -142,7 +411,34 @@ public class BackupService {
         return tamaño;
     }
 
-    public void restaurarBackup(String backupPath) {
+    /**
+     * Restauración nativa: carga paralela desde el .bson mapeado en memoria, índices al final
+     * y reproducción de los incrementales encadenados al backup.
+     */
+    public ResultadoRestauracion restaurarBackup(String backupPath) {
+        return restaurarBackup(backupPath, ConfiguracionRestauracion.porDefecto());
+    }
+
+    public ResultadoRestauracion restaurarBackup(String backupPath, ConfiguracionRestauracion config) {
+        logger.info("Iniciando restauración desde: {}", backupPath);
+        try (MongoClient mongoClient = MongoClients.create(connectionString)) {
+            ResultadoRestauracion resultado = new MotorRestauracion(mongoClient, databaseName, config)
+                    .restaurar(Paths.get(backupPath));
+            logger.info("✓ Restauración completada exitosamente");
+            logger.info("{} documentos en {} ms (carga {} ms, índices {} ms)",
+                    resultado.getDocumentos(), resultado.getDuracionMs(),
+                    resultado.getDuracionCargaMs(), resultado.getDuracionIndicesMs());
+            return resultado;
+        } catch (Exception e) {
+            logger.error("Error durante la restauración", e);
+        }
+        return null;
+    }
+
+    /**
+     * Restauración delegando en el ejecutable mongorestore (requiere MongoDB Database Tools).
+     */
+    public void restaurarBackupMongorestore(String backupPath) {
         try {
             logger.info("Iniciando restauración desde: {}", backupPath);
 
@@ -161,7 +457,7 @@ public class BackupService {
                     new InputStreamReader(process.getInputStream()))) {
                 String line;
                 while ((line = reader.readLine()) != null) {
-                    logger.info("mongorestore: {}", line);
+                    logger.debug("mongorestore: {}", line);
                 }
             }
 
@@ -0,0 +1,169 @@
+package com.restaurantes.gdl.service;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Caché de lectura acotado para resultados de consultas: LRU por tamaño más expiración por
+ * TTL.
+ * <p>
+ * Es read-through: ante un fallo el llamador carga el valor y los hilos que piden la misma
+ * clave mientras tanto esperan esa misma carga en lugar de repetirla. La carga se hace fuera
+ * del candado. Cada invalidación incrementa una versión; una carga que empezó antes de una
+ * invalidación entrega su resultado a quien la pidió pero no queda guardada, de modo que una
+ * escritura concurrente nunca deja un resultado viejo en el caché.
+ */
+public class CacheConsultas<K, V> {
+
+    private final int capacidad;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entrada<V>> entradas;
+    private long version;
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder expiraciones = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    private static final class Entrada<V> {
+        final CompletableFuture<V> valor = new CompletableFuture<>();
+        final long version;
+        // Se fija al completar la carga; mientras carga no expira
+        volatile long expiraNanos = Long.MAX_VALUE;
+
+        Entrada(long version) {
+            this.version = version;
+        }
+    }
+
+    /**
+     * Contadores acumulados y ocupación actual.
+     */
+    @Value
+    public static class Metricas {
+        long aciertos;
+        long fallos;
+        // Entradas sacadas por exceder la capacidad (LRU)
+        long desalojos;
+        long expiraciones;
+        // Entradas quitadas por escrituras propias
+        long invalidaciones;
+        int tamaño;
+
+        public double getTasaAciertos() {
+            long total = aciertos + fallos;
+            return total == 0 ? 0 : (double) aciertos / total;
+        }
+    }
+
+    public CacheConsultas(int capacidad, Duration ttl) {
+        this.capacidad = capacidad;
+        this.ttlNanos = ttl.toNanos();
+        // accessOrder = true: la iteración va del menos al más recientemente usado
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> mayor) {
+                if (size() > CacheConsultas.this.capacidad) {
+                    desalojos.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Valor de la clave, cargándolo con {@code cargador} si no está o expiró. Si la carga
+     * falla, la excepción se propaga y la clave no queda en el caché.
+     */
+    public V obtener(K clave, Supplier<V> cargador) {
+        Entrada<V> entrada;
+        boolean cargar = false;
+        synchronized (this) {
+            entrada = entradas.get(clave);
+            if (entrada != null && System.nanoTime() - entrada.expiraNanos > 0) {
+                entradas.remove(clave);
+                expiraciones.increment();
+                entrada = null;
+            }
+            if (entrada == null) {
+                entrada = new Entrada<>(version);
+                entradas.put(clave, entrada);
+                cargar = true;
+                fallos.increment();
+            } else {
+                aciertos.increment();
+            }
+        }
+        if (cargar) {
+            cargar(clave, entrada, cargador);
+        }
+        try {
+            return entrada.valor.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    private void cargar(K clave, Entrada<V> entrada, Supplier<V> cargador) {
+        try {
+            V valor = cargador.get();
+            synchronized (this) {
+                entrada.expiraNanos = System.nanoTime() + ttlNanos;
+                if (entrada.version != version) {
+                    // Hubo una invalidación durante la carga: el resultado puede estar viejo
+                    entradas.remove(clave, entrada);
+                }
+            }
+            entrada.valor.complete(valor);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                entradas.remove(clave, entrada);
+            }
+            entrada.valor.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Quita las entradas cuya clave cumple {@code afectada}; las cargas en curso no se guardarán.
+     */
+    public synchronized int invalidar(Predicate<K> afectada) {
+        version++;
+        int quitadas = 0;
+        Iterator<Map.Entry<K, Entrada<V>>> it = entradas.entrySet().iterator();
+        while (it.hasNext()) {
+            if (afectada.test(it.next().getKey())) {
+                it.remove();
+                quitadas++;
+            }
+        }
+        invalidaciones.add(quitadas);
+        return quitadas;
+    }
+
+    public int invalidarTodo() {
+        return invalidar(clave -> true);
+    }
+
+    public synchronized boolean estaVacio() {
+        return entradas.isEmpty();
+    }
+
+    public synchronized Metricas getMetricas() {
+        return new Metricas(aciertos.sum(), fallos.sum(), desalojos.sum(), expiraciones.sum(),
+                invalidaciones.sum(), entradas.size());
+    }
+}
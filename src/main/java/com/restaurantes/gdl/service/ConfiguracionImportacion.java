@@ -0,0 +1,36 @@
+package com.restaurantes.gdl.service;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Parámetros del pipeline de importación masiva.
+ */
+@Value
+@Builder(toBuilder = true)
+public class ConfiguracionImportacion {
+
+    // Documentos máximos por lote
+    @Builder.Default
+    int tamañoLote = 1000;
+
+    // Tope de bytes BSON por lote (el servidor acepta mensajes de hasta 48 MB)
+    @Builder.Default
+    int bytesMaximosLote = 8 * 1024 * 1024;
+
+    // Hilos escritores concurrentes
+    @Builder.Default
+    int escritores = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    // Lotes en espera entre el productor y los escritores; acota la memoria en vuelo
+    @Builder.Default
+    int capacidadCola = 4;
+
+    // true: RestauranteCodec directo a BSON; false: ruta anterior vía toDocument() (para comparar)
+    @Builder.Default
+    boolean codecNativo = true;
+
+    public static ConfiguracionImportacion porDefecto() {
+        return ConfiguracionImportacion.builder().build();
+    }
+}
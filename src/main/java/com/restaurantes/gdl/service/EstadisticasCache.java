@@ -0,0 +1,367 @@
+package com.restaurantes.gdl.service;
+
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estadísticas materializadas: contadores por municipio y tipo de comida, sumas de
+ * calificación y precio e histograma, mantenidos al escribir en lugar de recalcularse.
+ * <p>
+ * Se alimenta de las importaciones y limpiezas de {@link MongoDBService} y, si el servidor
+ * lo permite (replica set), de un change stream que captura escrituras de otros procesos
+ * como el backend Express. Mientras el change stream está activo es la única fuente de
+ * actualizaciones, para no contar dos veces las escrituras propias. Una reconciliación
+ * periódica con {@link EstadisticasService#calcularEnServidor()} corrige cualquier deriva;
+ * mínimo, máximo y percentiles de precio provienen de la última reconciliación.
+ * <p>
+ * Con el change stream activo la reconciliación lee una instantánea y anota su momento. Los
+ * eventos que llegan mientras se calcula se siguen aplicando a los contadores vigentes y además
+ * se guardan; al cambiar de contadores se reaplican solo los posteriores a la instantánea, y
+ * los que lleguen después con un momento anterior se descartan, porque ya están incluidos.
+ */
+public class EstadisticasCache implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(EstadisticasCache.class);
+
+    private final MongoCollection<Document> collection;
+    private final EstadisticasService estadisticasService;
+    private final Duration intervaloReconciliacion;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicBoolean reconciliacionPendiente = new AtomicBoolean();
+    // Protege el cambio de contadores frente a los eventos del change stream
+    private final Object candado = new Object();
+    private volatile Contadores contadores = new Contadores();
+    private volatile EstadisticasReport base;
+    // Momento que reflejan los contadores; los eventos hasta aquí ya están contados
+    private BsonTimestamp reflejadoHasta;
+    // Eventos recibidos durante una reconciliación, o null si no hay una en curso
+    private List<ChangeStreamDocument<Document>> pendientes;
+    private volatile boolean changeStreamActivo;
+    private volatile boolean cerrado;
+    private volatile MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursorCambios;
+
+    public EstadisticasCache(MongoCollection<Document> collection, EstadisticasService estadisticasService,
+                             Duration intervaloReconciliacion) {
+        this.collection = collection;
+        this.estadisticasService = estadisticasService;
+        this.intervaloReconciliacion = intervaloReconciliacion;
+        this.scheduler = Executors.newScheduledThreadPool(2, r -> {
+            Thread t = new Thread(r, "estadisticas-cache");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Carga el estado inicial, programa la reconciliación periódica y abre el change stream.
+     */
+    public void iniciar() {
+        reconciliar();
+        long periodo = intervaloReconciliacion.toMillis();
+        scheduler.scheduleWithFixedDelay(this::reconciliarSeguro, periodo, periodo, TimeUnit.MILLISECONDS);
+        scheduler.execute(this::escucharCambios);
+    }
+
+    /**
+     * Reporte en O(1) respecto al tamaño de la colección.
+     */
+    public EstadisticasReport obtener() {
+        Contadores c = contadores;
+        EstadisticasReport b = base;
+        long total = c.total.sum();
+        long[] histograma = new long[EstadisticasReport.CUBETAS_CALIFICACION];
+        for (int i = 0; i < histograma.length; i++) {
+            histograma[i] = c.histograma[i].sum();
+        }
+        return EstadisticasReport.builder()
+                .total(total)
+                .porMunicipio(ordenar(c.porMunicipio))
+                .porTipoComida(ordenar(c.porTipoComida))
+                .calificacionPromedio(total == 0 ? 0 : c.sumaCalificacion.sum() / total)
+                .precioPromedio(total == 0 ? 0 : c.sumaPrecio.sum() / total)
+                .histogramaCalificacion(histograma)
+                .precioMinimo(b == null ? 0 : b.getPrecioMinimo())
+                .precioMaximo(b == null ? 0 : b.getPrecioMaximo())
+                .precioP50(b == null ? 0 : b.getPrecioP50())
+                .precioP90(b == null ? 0 : b.getPrecioP90())
+                .precioP99(b == null ? 0 : b.getPrecioP99())
+                .duracionMs(0)
+                .build();
+    }
+
+    /**
+     * Aplica un lote recién insertado por este proceso. Se ignora si el change stream
+     * está activo, porque él mismo entregará esas inserciones.
+     */
+    public void registrarInsercion(List<? extends BsonDocument> documentos) {
+        if (changeStreamActivo) {
+            return;
+        }
+        synchronized (candado) {
+            Contadores c = contadores;
+            for (BsonDocument doc : documentos) {
+                c.aplicar(doc, 1);
+            }
+        }
+    }
+
+    /**
+     * La colección se vació: todos los contadores vuelven a cero.
+     */
+    public void reiniciar() {
+        synchronized (candado) {
+            contadores = new Contadores();
+            base = null;
+        }
+    }
+
+    public synchronized void reconciliar() {
+        if (!changeStreamActivo) {
+            // Solo escrituras locales, sin momento con qué ordenarlas: la agregación manda
+            EstadisticasReport report = estadisticasService.calcularEnServidor();
+            synchronized (candado) {
+                contadores = Contadores.desde(report);
+                base = report;
+                reflejadoHasta = null;
+            }
+            logger.debug("Estadísticas reconciliadas: {} documentos en {} ms", report.getTotal(), report.getDuracionMs());
+            return;
+        }
+
+        synchronized (candado) {
+            pendientes = new ArrayList<>();
+        }
+        try {
+            EstadisticasService.Instantanea instantanea = estadisticasService.calcularEnInstantanea();
+            EstadisticasReport report = instantanea.report();
+            int reaplicados = 0;
+            synchronized (candado) {
+                Contadores nuevos = Contadores.desde(report);
+                base = report;
+                for (ChangeStreamDocument<Document> evento : pendientes) {
+                    if (posterior(evento, instantanea.momento())) {
+                        nuevos = aplicar(nuevos, evento);
+                        reaplicados++;
+                    }
+                }
+                contadores = nuevos;
+                reflejadoHasta = instantanea.momento();
+            }
+            logger.debug("Estadísticas reconciliadas: {} documentos en {} ms, {} eventos reaplicados",
+                    report.getTotal(), report.getDuracionMs(), reaplicados);
+        } finally {
+            synchronized (candado) {
+                pendientes = null;
+            }
+        }
+    }
+
+    public boolean isChangeStreamActivo() {
+        return changeStreamActivo;
+    }
+
+    @Override
+    public void close() {
+        cerrado = true;
+        MongoChangeStreamCursor<?> cursor = cursorCambios;
+        if (cursor != null) {
+            cursor.close();
+        }
+        scheduler.shutdownNow();
+    }
+
+    private void reconciliarSeguro() {
+        reconciliacionPendiente.set(false);
+        try {
+            reconciliar();
+        } catch (Exception e) {
+            logger.warn("No se pudo reconciliar el caché de estadísticas", e);
+        }
+    }
+
+    // Eventos sin imagen previa no se pueden descontar: se adelanta la reconciliación
+    private void marcarDesfasado() {
+        if (reconciliacionPendiente.compareAndSet(false, true)) {
+            scheduler.execute(this::reconciliarSeguro);
+        }
+    }
+
+    private void escucharCambios() {
+        BsonDocument tokenReanudacion = null;
+        while (!cerrado) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = abrirChangeStream(tokenReanudacion)) {
+                cursorCambios = cursor;
+                if (!changeStreamActivo) {
+                    changeStreamActivo = true;
+                    // Lo escrito entre la carga inicial y la apertura del stream se corrige aquí
+                    marcarDesfasado();
+                    logger.info("✓ Caché de estadísticas suscrito al change stream");
+                }
+                while (!cerrado) {
+                    ChangeStreamDocument<Document> evento = cursor.tryNext();
+                    if (evento == null) {
+                        continue;
+                    }
+                    tokenReanudacion = evento.getResumeToken();
+                    if (evento.getOperationType() == OperationType.INVALIDATE) {
+                        break;
+                    }
+                    synchronized (candado) {
+                        if (pendientes != null) {
+                            pendientes.add(evento);
+                        }
+                        if (posterior(evento, reflejadoHasta)) {
+                            contadores = aplicar(contadores, evento);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                if (!cerrado) {
+                    logger.warn("Change stream no disponible; el caché se actualizará solo con escrituras locales: {}",
+                            e.getMessage());
+                }
+                changeStreamActivo = false;
+                return;
+            }
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> abrirChangeStream(BsonDocument token) {
+        ChangeStreamIterable<Document> stream = collection.watch(List.of(Aggregates.match(Filters.in("operationType",
+                        "insert", "update", "replace", "delete", "drop", "invalidate"))))
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (token != null) {
+            stream = stream.startAfter(token);
+        }
+        return stream.cursor();
+    }
+
+    private static boolean posterior(ChangeStreamDocument<Document> evento, BsonTimestamp momento) {
+        return momento == null || evento.getClusterTime() == null || evento.getClusterTime().compareTo(momento) > 0;
+    }
+
+    /**
+     * Aplica un evento a {@code c} y devuelve los contadores con que seguir: los mismos, o
+     * unos nuevos si la colección se eliminó.
+     */
+    private Contadores aplicar(Contadores c, ChangeStreamDocument<Document> evento) {
+        Document despues = evento.getFullDocument();
+        Document antes = evento.getFullDocumentBeforeChange();
+        switch (evento.getOperationType()) {
+            case INSERT:
+                c.aplicar(despues.toBsonDocument(), 1);
+                return c;
+            case UPDATE:
+            case REPLACE:
+                if (antes == null || despues == null) {
+                    marcarDesfasado();
+                } else {
+                    c.aplicar(antes.toBsonDocument(), -1);
+                    c.aplicar(despues.toBsonDocument(), 1);
+                }
+                return c;
+            case DELETE:
+                if (antes == null) {
+                    marcarDesfasado();
+                } else {
+                    c.aplicar(antes.toBsonDocument(), -1);
+                }
+                return c;
+            case DROP:
+                base = null;
+                return new Contadores();
+            default:
+                return c;
+        }
+    }
+
+    private static Map<String, Long> ordenar(ConcurrentHashMap<String, LongAdder> conteos) {
+        Map<String, long[]> valores = new HashMap<>();
+        conteos.forEach((clave, contador) -> {
+            long n = contador.sum();
+            if (n > 0) {
+                valores.put(clave, new long[]{n});
+            }
+        });
+        return AcumuladorEstadisticas.ordenarPorConteo(valores);
+    }
+
+    private static final class Contadores {
+        final ConcurrentHashMap<String, LongAdder> porMunicipio = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<String, LongAdder> porTipoComida = new ConcurrentHashMap<>();
+        final LongAdder total = new LongAdder();
+        final DoubleAdder sumaCalificacion = new DoubleAdder();
+        final DoubleAdder sumaPrecio = new DoubleAdder();
+        final LongAdder[] histograma = new LongAdder[EstadisticasReport.CUBETAS_CALIFICACION];
+
+        Contadores() {
+            for (int i = 0; i < histograma.length; i++) {
+                histograma[i] = new LongAdder();
+            }
+        }
+
+        static Contadores desde(EstadisticasReport report) {
+            Contadores c = new Contadores();
+            report.getPorMunicipio().forEach((k, v) -> c.contador(c.porMunicipio, k).add(v));
+            report.getPorTipoComida().forEach((k, v) -> c.contador(c.porTipoComida, k).add(v));
+            c.total.add(report.getTotal());
+            c.sumaCalificacion.add(report.getCalificacionPromedio() * report.getTotal());
+            c.sumaPrecio.add(report.getPrecioPromedio() * report.getTotal());
+            for (int i = 0; i < c.histograma.length; i++) {
+                c.histograma[i].add(report.getHistogramaCalificacion()[i]);
+            }
+            return c;
+        }
+
+        void aplicar(BsonDocument doc, int signo) {
+            double calificacion = numero(doc.get("calificacion"));
+            contador(porMunicipio, texto(doc.get("municipio"))).add(signo);
+            contador(porTipoComida, texto(doc.get("tipoComida"))).add(signo);
+            total.add(signo);
+            sumaCalificacion.add(signo * calificacion);
+            sumaPrecio.add(signo * numero(doc.get("precioPromedio")));
+            histograma[EstadisticasReport.cubetaCalificacion(calificacion)].add(signo);
+        }
+
+        private LongAdder contador(ConcurrentHashMap<String, LongAdder> mapa, String clave) {
+            return mapa.computeIfAbsent(clave == null ? "" : clave, k -> new LongAdder());
+        }
+
+        private static String texto(BsonValue valor) {
+            return valor != null && valor.isString() ? valor.asString().getValue() : null;
+        }
+
+        private static double numero(BsonValue valor) {
+            return valor != null && valor.isNumber() ? valor.asNumber().doubleValue() : 0;
+        }
+    }
+}
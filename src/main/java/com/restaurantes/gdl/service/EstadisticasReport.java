@@ -0,0 +1,37 @@
+package com.restaurantes.gdl.service;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * Estadísticas de la colección. Los mapas de conteo vienen ordenados de mayor a menor.
+ */
+@Value
+@Builder
+public class EstadisticasReport {
+
+    // Cubetas de 0.5 puntos: [0, 0.5), [0.5, 1) ... [4.5, 5]
+    public static final int CUBETAS_CALIFICACION = 10;
+
+    long total;
+    Map<String, Long> porMunicipio;
+    Map<String, Long> porTipoComida;
+    double calificacionPromedio;
+    long[] histogramaCalificacion;
+    double precioMinimo;
+    double precioMaximo;
+    double precioPromedio;
+    double precioP50;
+    double precioP90;
+    double precioP99;
+
+    // Tiempo que tomó calcular el reporte (ida y vuelta al servidor incluida)
+    long duracionMs;
+
+    public static int cubetaCalificacion(double calificacion) {
+        int cubeta = (int) Math.floor(calificacion * 2);
+        return Math.max(0, Math.min(CUBETAS_CALIFICACION - 1, cubeta));
+    }
+}
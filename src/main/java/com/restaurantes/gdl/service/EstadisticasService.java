@@ -0,0 +1,226 @@
+package com.restaurantes.gdl.service;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Projections;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcula el {@link EstadisticasReport} de la colección de dos formas comparables:
+ * en el servidor con una sola agregación {@code $facet} (una ida y vuelta), o en el cliente
+ * recorriendo una vez un cursor proyectado a los cuatro campos que intervienen.
+ * <p>
+ * La agregación usa {@code $percentile}, que existe desde MongoDB 7.0; con un servidor
+ * anterior {@link #calcularEnServidor()} recurre al cálculo en el cliente. Los percentiles del
+ * servidor son aproximados (el único método que admite {@code $percentile}) y los del cliente
+ * son exactos por rango más cercano, así que en colecciones grandes pueden no coincidir.
+ */
+public class EstadisticasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EstadisticasService.class);
+
+    private static final List<Double> PERCENTILES = List.of(0.5, 0.9, 0.99);
+    private static final int VERSION_MINIMA_PERCENTILE = 7;
+    private static final int VERSION_MINIMA_SNAPSHOT = 5;
+
+    private final MongoClient mongoClient;
+    private final MongoCollection<Document> collection;
+    // Versión mayor del servidor; se consulta buildInfo una sola vez
+    private volatile int versionServidor;
+
+    /**
+     * Reporte junto con el momento del servidor que refleja: incluye exactamente las
+     * escrituras con {@code clusterTime <= momento}.
+     */
+    record Instantanea(EstadisticasReport report, BsonTimestamp momento) {
+    }
+
+    public EstadisticasService(MongoClient mongoClient, MongoCollection<Document> collection) {
+        this.mongoClient = mongoClient;
+        this.collection = collection;
+    }
+
+    public EstadisticasReport calcularEnServidor() {
+        return calcular(null);
+    }
+
+    /**
+     * Calcula el reporte sobre una lectura snapshot (MongoDB 5.0+, replica set) y devuelve el
+     * momento que refleja, para que {@link EstadisticasCache} sepa qué eventos del change
+     * stream ya están incluidos. En servidores anteriores el momento es el operationTime
+     * tomado justo antes de calcular: lo escrito durante el cálculo puede quedar contado dos
+     * veces hasta la siguiente reconciliación.
+     */
+    Instantanea calcularEnInstantanea() {
+        boolean snapshot = versionServidor() >= VERSION_MINIMA_SNAPSHOT;
+        try (ClientSession sesion = mongoClient.startSession(ClientSessionOptions.builder()
+                .snapshot(snapshot)
+                .build())) {
+            BsonTimestamp momento = null;
+            if (!snapshot) {
+                mongoClient.getDatabase("admin").runCommand(sesion, new BsonDocument("ping", new BsonInt32(1)));
+                momento = sesion.getOperationTime();
+            }
+            EstadisticasReport report = calcular(sesion);
+            return new Instantanea(report, snapshot ? sesion.getSnapshotTimestamp() : momento);
+        }
+    }
+
+    private EstadisticasReport calcular(ClientSession sesion) {
+        if (versionServidor() < VERSION_MINIMA_PERCENTILE) {
+            return calcularEnCliente(sesion);
+        }
+        long inicio = System.nanoTime();
+
+        Document facet = new Document("$facet", new Document()
+                .append("porMunicipio", List.of(
+                        new Document("$group", new Document("_id", "$municipio")
+                                .append("count", new Document("$sum", 1))),
+                        new Document("$sort", new Document("count", -1))))
+                .append("porTipoComida", List.of(
+                        new Document("$group", new Document("_id", "$tipoComida")
+                                .append("count", new Document("$sum", 1))),
+                        new Document("$sort", new Document("count", -1))))
+                .append("resumen", List.of(
+                        new Document("$group", new Document("_id", null)
+                                .append("total", new Document("$sum", 1))
+                                .append("avgCalificacion", new Document("$avg", "$calificacion"))
+                                .append("minPrecio", new Document("$min", "$precioPromedio"))
+                                .append("maxPrecio", new Document("$max", "$precioPromedio"))
+                                .append("avgPrecio", new Document("$avg", "$precioPromedio"))
+                                .append("percentiles", new Document("$percentile", new Document()
+                                        .append("input", "$precioPromedio")
+                                        .append("p", PERCENTILES)
+                                        .append("method", "approximate"))))))
+                .append("histograma", List.of(
+                        new Document("$group", new Document("_id", cubetaCalificacion())
+                                .append("count", new Document("$sum", 1))))));
+
+        AggregateIterable<Document> agregacion = sesion == null
+                ? collection.aggregate(List.of(facet))
+                : collection.aggregate(sesion, List.of(facet));
+        Document resultado = agregacion.first();
+        long duracionMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+
+        EstadisticasReport.EstadisticasReportBuilder report = EstadisticasReport.builder()
+                .porMunicipio(conteos(resultado.getList("porMunicipio", Document.class)))
+                .porTipoComida(conteos(resultado.getList("porTipoComida", Document.class)))
+                .histogramaCalificacion(histograma(resultado.getList("histograma", Document.class)))
+                .duracionMs(duracionMs);
+
+        List<Document> resumenes = resultado.getList("resumen", Document.class);
+        if (!resumenes.isEmpty()) {
+            Document resumen = resumenes.get(0);
+            List<Double> percentiles = resumen.getList("percentiles", Double.class);
+            report.total(numero(resumen.get("total")).longValue())
+                    .calificacionPromedio(numero(resumen.get("avgCalificacion")).doubleValue())
+                    .precioMinimo(numero(resumen.get("minPrecio")).doubleValue())
+                    .precioMaximo(numero(resumen.get("maxPrecio")).doubleValue())
+                    .precioPromedio(numero(resumen.get("avgPrecio")).doubleValue())
+                    .precioP50(percentiles.get(0))
+                    .precioP90(percentiles.get(1))
+                    .precioP99(percentiles.get(2));
+        }
+        return report.build();
+    }
+
+    public EstadisticasReport calcularEnCliente() {
+        return calcularEnCliente(null);
+    }
+
+    private EstadisticasReport calcularEnCliente(ClientSession sesion) {
+        long inicio = System.nanoTime();
+        AcumuladorEstadisticas acumulador = new AcumuladorEstadisticas();
+
+        MongoCollection<RawBsonDocument> raw = collection.withDocumentClass(RawBsonDocument.class);
+        FindIterable<RawBsonDocument> consulta = sesion == null ? raw.find() : raw.find(sesion);
+        try (MongoCursor<RawBsonDocument> cursor = consulta
+                .projection(Projections.fields(
+                        Projections.include("municipio", "tipoComida", "calificacion", "precioPromedio"),
+                        Projections.excludeId()))
+                .batchSize(10_000)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                RawBsonDocument doc = cursor.next();
+                acumulador.agregar(
+                        texto(doc.get("municipio")),
+                        texto(doc.get("tipoComida")),
+                        decimal(doc.get("calificacion")),
+                        decimal(doc.get("precioPromedio")));
+            }
+        }
+        return acumulador.construir(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+    }
+
+    private int versionServidor() {
+        int version = versionServidor;
+        if (version == 0) {
+            BsonDocument buildInfo = mongoClient.getDatabase("admin")
+                    .runCommand(new BsonDocument("buildInfo", new BsonInt32(1)), BsonDocument.class);
+            version = buildInfo.getArray("versionArray").get(0).asNumber().intValue();
+            if (version < VERSION_MINIMA_PERCENTILE) {
+                logger.warn("MongoDB {} no tiene $percentile (requiere {}.0); las estadísticas se calcularán en el cliente",
+                        buildInfo.getString("version").getValue(), VERSION_MINIMA_PERCENTILE);
+            }
+            versionServidor = version;
+        }
+        return version;
+    }
+
+    // Mismo cálculo que EstadisticasReport.cubetaCalificacion, expresado en el pipeline. Sin
+    // calificación cuenta como 0, igual que en el cliente
+    private static Document cubetaCalificacion() {
+        Document calificacion = new Document("$ifNull", List.of("$calificacion", 0));
+        Document piso = new Document("$floor", new Document("$multiply", List.of(calificacion, 2)));
+        return new Document("$max", List.of(0,
+                new Document("$min", List.of(EstadisticasReport.CUBETAS_CALIFICACION - 1, piso))));
+    }
+
+    private static Map<String, Long> conteos(List<Document> grupos) {
+        Map<String, Long> conteos = new LinkedHashMap<>();
+        for (Document grupo : grupos) {
+            conteos.put(grupo.getString("_id"), numero(grupo.get("count")).longValue());
+        }
+        return conteos;
+    }
+
+    private static long[] histograma(List<Document> cubetas) {
+        long[] histograma = new long[EstadisticasReport.CUBETAS_CALIFICACION];
+        for (Document cubeta : cubetas) {
+            Object id = cubeta.get("_id");
+            if (id instanceof Number) {
+                histograma[((Number) id).intValue()] += numero(cubeta.get("count")).longValue();
+            }
+        }
+        return histograma;
+    }
+
+    private static Number numero(Object valor) {
+        return valor instanceof Number ? (Number) valor : 0;
+    }
+
+    private static String texto(BsonValue valor) {
+        return valor != null && valor.isString() ? valor.asString().getValue() : null;
+    }
+
+    private static double decimal(BsonValue valor) {
+        return valor != null && valor.isNumber() ? valor.asNumber().doubleValue() : 0;
+    }
+}
@@ -0,0 +1,175 @@
+package com.restaurantes.gdl.service;
+
+import com.restaurantes.gdl.backup.ConfiguracionBackup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecuta backups (completos, incrementales o al repositorio) como trabajos en segundo plano,
+ * uno a la vez, en un hilo dedicado.
+ * <p>
+ * El menú sigue disponible mientras corre un backup. Pedir un trabajo con otro en curso no
+ * encola un segundo: se rechaza, de modo que la programación periódica nunca traslapa corridas.
+ */
+public class GestorTrabajosBackup implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GestorTrabajosBackup.class);
+
+    private static final int MAXIMO_HISTORIAL = 20;
+
+    private final BackupService backupService;
+    private final ExecutorService ejecutor;
+    private final ScheduledExecutorService programador;
+    private final AtomicInteger secuencia = new AtomicInteger();
+    private final List<TrabajoBackup> historial = new ArrayList<>();
+    private TrabajoBackup actual;
+    private ScheduledFuture<?> programacion;
+
+    public GestorTrabajosBackup(BackupService backupService) {
+        this.backupService = backupService;
+        this.ejecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "backup-trabajo");
+            t.setDaemon(true);
+            return t;
+        });
+        this.programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "backup-programador");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Inicia un backup en segundo plano.
+     *
+     * @return el trabajo, o vacío si ya hay uno en curso
+     */
+    public Optional<TrabajoBackup> iniciar(ConfiguracionBackup config) {
+        return iniciar(TrabajoBackup.Tipo.COMPLETO, config);
+    }
+
+    /**
+     * Inicia en segundo plano un incremental sobre el último backup completo encadenable.
+     *
+     * @return el trabajo, o vacío si ya hay uno en curso
+     */
+    public Optional<TrabajoBackup> iniciarIncremental() {
+        return iniciar(TrabajoBackup.Tipo.INCREMENTAL, ConfiguracionBackup.porDefecto());
+    }
+
+    /**
+     * Inicia en segundo plano un backup al repositorio deduplicado.
+     *
+     * @return el trabajo, o vacío si ya hay uno en curso
+     */
+    public Optional<TrabajoBackup> iniciarRepositorio() {
+        return iniciar(TrabajoBackup.Tipo.REPOSITORIO, ConfiguracionBackup.porDefecto());
+    }
+
+    private synchronized Optional<TrabajoBackup> iniciar(TrabajoBackup.Tipo tipo, ConfiguracionBackup config) {
+        if (actual != null && !actual.isTerminado()) {
+            logger.warn("Ya hay un backup en curso: {}", actual.resumen());
+            return Optional.empty();
+        }
+        TrabajoBackup trabajo = new TrabajoBackup(secuencia.incrementAndGet(), tipo, config);
+        actual = trabajo;
+        historial.add(trabajo);
+        if (historial.size() > MAXIMO_HISTORIAL) {
+            historial.remove(0);
+        }
+        ejecutor.execute(() -> ejecutar(trabajo));
+        logger.info("Backup #{} ({}) iniciado en segundo plano", trabajo.getId(), tipo.name().toLowerCase());
+        return Optional.of(trabajo);
+    }
+
+    /**
+     * Programa un backup cada {@code intervalo}; reemplaza la programación anterior.
+     * Si al llegar el turno sigue corriendo el anterior, ese turno se omite.
+     */
+    public synchronized void programar(Duration intervalo, ConfiguracionBackup config) {
+        cancelarProgramacion();
+        long ms = intervalo.toMillis();
+        programacion = programador.scheduleAtFixedRate(() -> {
+            if (iniciar(config).isEmpty()) {
+                logger.info("Backup programado omitido: el anterior sigue en curso");
+            }
+        }, ms, ms, TimeUnit.MILLISECONDS);
+        logger.info("Backup programado cada {} min", intervalo.toMinutes());
+    }
+
+    public synchronized void cancelarProgramacion() {
+        if (programacion != null) {
+            programacion.cancel(false);
+            programacion = null;
+            logger.info("Programación de backups cancelada");
+        }
+    }
+
+    public synchronized boolean isProgramado() {
+        return programacion != null;
+    }
+
+    public synchronized Optional<TrabajoBackup> getActual() {
+        return Optional.ofNullable(actual);
+    }
+
+    public synchronized List<TrabajoBackup> getHistorial() {
+        return List.copyOf(historial);
+    }
+
+    /**
+     * Cancela el trabajo en curso, si lo hay.
+     */
+    public synchronized boolean cancelarActual() {
+        if (actual == null || actual.isTerminado()) {
+            return false;
+        }
+        actual.cancelar();
+        return true;
+    }
+
+    @Override
+    public void close() {
+        programador.shutdownNow();
+        cancelarActual();
+        ejecutor.shutdown();
+        try {
+            if (!ejecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                ejecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ejecutor.shutdownNow();
+        }
+    }
+
+    private void ejecutar(TrabajoBackup trabajo) {
+        trabajo.iniciado();
+        try {
+            trabajo.terminar(switch (trabajo.getTipo()) {
+                case COMPLETO -> backupService.ejecutarBackup(trabajo.getConfig(), trabajo.getProgreso());
+                case INCREMENTAL -> backupService.ejecutarBackupIncremental(trabajo.getProgreso());
+                case REPOSITORIO -> backupService.ejecutarBackupRepositorio(trabajo.getProgreso());
+            });
+            logger.info("✓ {}", trabajo.resumen());
+        } catch (CancellationException e) {
+            trabajo.fallar("cancelado");
+            logger.warn("{}", trabajo.resumen());
+        } catch (Exception e) {
+            trabajo.fallar(e.getMessage());
+            logger.error("✗ Backup #{} falló", trabajo.getId(), e);
+        }
+    }
+}
@@ -1,29 +1,111 @@
 package com.restaurantes.gdl.service;
 
 import com.mongodb.client.*;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.restaurantes.gdl.busqueda.IndiceBusqueda;
+import com.restaurantes.gdl.busqueda.ResultadoBusqueda;
+import com.restaurantes.gdl.codec.RestauranteCodecs;
+import com.restaurantes.gdl.csv.ImportadorCsv;
+import com.restaurantes.gdl.csv.MapeoCsv;
+import com.restaurantes.gdl.json.ExportadorNdjson;
+import com.restaurantes.gdl.json.ImportadorNdjson;
+import com.restaurantes.gdl.json.ResultadoExportacion;
+import com.restaurantes.gdl.model.FiltrosRestaurante;
+import com.restaurantes.gdl.model.IndiceEspacial;
 import com.restaurantes.gdl.model.Restaurante;
+import com.restaurantes.gdl.model.RestauranteCercano;
+import com.restaurantes.gdl.model.RestauranteTable;
+import com.restaurantes.gdl.recomendacion.MotorRecomendaciones;
+import org.bson.BsonArray;
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonString;
+import org.bson.BsonValue;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public class MongoDBService implements AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(MongoDBService.class);
 
+    private static final String CAMPO_DISTANCIA = "distanciaMetros";
+
+    // Consultas tipadas distintas que se recuerdan y cuánto tiempo, como máximo, pueden no
+    // ver escrituras hechas por otros clientes
+    private static final int CAPACIDAD_CACHE_CONSULTAS = 1024;
+    private static final Duration TTL_CACHE_CONSULTAS = Duration.ofSeconds(60);
+
+    // Órdenes de los listados paginados; cada uno tiene un índice que termina en _id
+    private static final OrdenKeyset ORDEN_MUNICIPIO = OrdenKeyset.de("municipio",
+            Sorts.ascending("municipio", "tipoComida"));
+    private static final OrdenKeyset ORDEN_CALIFICACION = OrdenKeyset.de("calificacion",
+            Sorts.descending("calificacion"));
+
     private final MongoClient mongoClient;
     private final MongoDatabase database;
     private final MongoCollection<Document> collection;
+    private final MongoCollection<Restaurante> coleccionRestaurantes;
+    private final EstadisticasService estadisticasService;
+    private volatile EstadisticasCache estadisticasCache;
+    private volatile IndiceBusqueda indiceBusqueda;
+    private final CacheConsultas<ClaveConsulta, List<Restaurante>> cacheConsultas =
+            new CacheConsultas<>(CAPACIDAD_CACHE_CONSULTAS, TTL_CACHE_CONSULTAS);
+
+    /**
+     * Forma normalizada de una consulta tipada: dos llamadas que piden lo mismo dan la misma clave.
+     * Solo se unifica lo que el servidor trata igual; los textos se comparan tal cual, así que
+     * " Tacos" y "Tacos" son consultas distintas, como en {@code $eq}.
+     */
+    private record ClaveConsulta(FiltrosRestaurante filtros, boolean porCalificacion, int limite) {
+
+        static ClaveConsulta de(FiltrosRestaurante filtros, boolean porCalificacion, int limite) {
+            validarLimite(limite);
+            FiltrosRestaurante normalizados = FiltrosRestaurante.builder()
+                    .id(filtros.getId())
+                    .municipio(filtros.getMunicipio())
+                    .tipoComida(filtros.getTipoComida())
+                    // Todas las calificaciones y precios son >= 0: un mínimo <= 0 no filtra
+                    .calificacionMinima(minimo(filtros.getCalificacionMinima()))
+                    .precioMinimo(minimo(filtros.getPrecioMinimo()))
+                    .precioMaximo(filtros.getPrecioMaximo())
+                    .build();
+            return new ClaveConsulta(normalizados, porCalificacion, limite);
+        }
+
+        private static Double minimo(Double valor) {
+            return valor == null || valor <= 0 ? null : valor;
+        }
+    }
 
     public MongoDBService(String connectionString, String databaseName, String collectionName) {
         try {
             this.mongoClient = MongoClients.create(connectionString);
-            this.database = mongoClient.getDatabase(databaseName);
+            this.database = mongoClient.getDatabase(databaseName)
+                    .withCodecRegistry(RestauranteCodecs.REGISTRO);
             this.collection = database.getCollection(collectionName);
+            this.coleccionRestaurantes = database.getCollection(collectionName, Restaurante.class);
+            this.estadisticasService = new EstadisticasService(mongoClient, collection);
             logger.info("Conectado exitosamente a MongoDB: {}", databaseName);
         } catch (Exception e) {
             logger.error("Error al conectar a MongoDB", e);
@@ -32,22 +114,115 @@ public class MongoDBService implements AutoCloseable {
     }
 
     public void importarRestaurantes(List<Restaurante> restaurantes) {
-        try {
-            logger.info("Importando {} restaurantes...", restaurantes.size());
+        logger.info("Importando {} restaurantes...", restaurantes.size());
+        importarRestaurantes(restaurantes.iterator(), ConfiguracionImportacion.porDefecto());
+        logger.info("✓ Se importaron {} restaurantes exitosamente", restaurantes.size());
+    }
 
-            List<Document> documentos = new ArrayList<>();
-            for (Restaurante restaurante : restaurantes) {
-                documentos.add(restaurante.toDocument());
-            }
+    /**
+     * Importa un flujo de restaurantes sin materializarlo: se codifica y envía por lotes.
+     */
+    public ResultadoImportacion importarRestaurantes(Stream<Restaurante> restaurantes,
+                                                     ConfiguracionImportacion config) {
+        try (restaurantes) {
+            return importarRestaurantes(restaurantes.iterator(), config);
+        }
+    }
 
-            collection.insertMany(documentos);
-            logger.info("✓ Se importaron {} restaurantes exitosamente", restaurantes.size());
+    public ResultadoImportacion importarRestaurantes(Iterator<Restaurante> restaurantes,
+                                                     ConfiguracionImportacion config) {
+        try {
+            return new PipelineImportacion(collection, config, this::registrarLoteEnCache).importar(restaurantes);
         } catch (Exception e) {
             logger.error("Error al importar restaurantes", e);
             throw new RuntimeException("Error en la importación", e);
         }
     }
 
+    /**
+     * Importa un feed CSV: el archivo se interpreta en paralelo y los restaurantes entran al
+     * pipeline de importación conforme se leen. Las filas inválidas se descartan y se registran.
+     */
+    public ResultadoImportacion importarCsv(Path archivo, MapeoCsv mapeo, ConfiguracionImportacion config)
+            throws IOException {
+        ImportadorCsv importador = new ImportadorCsv(mapeo, Runtime.getRuntime().availableProcessors());
+        try (ImportadorCsv.LecturaCsv lectura = importador.leer(archivo)) {
+            ResultadoImportacion resultado = importarRestaurantes(lectura, config);
+            logger.info("✓ CSV {} importado: {} restaurantes, {} fila(s) descartada(s), {} docs/s",
+                    archivo.getFileName(), resultado.getDocumentos(), lectura.getFilasInvalidas(),
+                    String.format("%.0f", resultado.getDocumentosPorSegundo()));
+            return resultado;
+        }
+    }
+
+    /**
+     * Exporta la colección a NDJSON (Extended JSON relajado), un archivo por rango de {@code _id}.
+     */
+    public ResultadoExportacion exportarNdjson(Path directorio, int partes) throws IOException {
+        return new ExportadorNdjson(partes).exportar(collection, directorio);
+    }
+
+    /**
+     * Importa en paralelo los archivos {@code .ndjson} de un directorio de exportación.
+     */
+    public ResultadoImportacion importarNdjson(Path directorio, ConfiguracionImportacion config) throws IOException {
+        return new ImportadorNdjson(collection, config, this::registrarLoteEnCache)
+                .importar(ImportadorNdjson.archivos(directorio));
+    }
+
+    private void registrarLoteEnCache(List<RawBsonDocument> lote) {
+        EstadisticasCache cache = estadisticasCache;
+        if (cache != null) {
+            cache.registrarInsercion(lote);
+        }
+        invalidarConsultas(lote);
+        IndiceBusqueda indice = indiceBusqueda;
+        if (indice != null) {
+            indice.agregarDocumentos(lote);
+        }
+    }
+
+    /**
+     * Quita del caché de consultas solo las que alguno de los documentos insertados cumple;
+     * el resto sigue siendo válido.
+     */
+    private void invalidarConsultas(List<RawBsonDocument> lote) {
+        if (cacheConsultas.estaVacio()) {
+            return;
+        }
+        int n = lote.size();
+        ObjectId[] ids = new ObjectId[n];
+        String[] municipios = new String[n];
+        String[] tipos = new String[n];
+        double[] calificaciones = new double[n];
+        double[] precios = new double[n];
+        for (int i = 0; i < n; i++) {
+            RawBsonDocument doc = lote.get(i);
+            BsonValue id = doc.get("_id");
+            ids[i] = id != null && id.isObjectId() ? id.asObjectId().getValue() : null;
+            municipios[i] = texto(doc.get("municipio"));
+            tipos[i] = texto(doc.get("tipoComida"));
+            calificaciones[i] = numero(doc.get("calificacion"));
+            precios[i] = numero(doc.get("precioPromedio"));
+        }
+        cacheConsultas.invalidar(clave -> {
+            for (int i = 0; i < n; i++) {
+                if (clave.filtros().acepta(ids[i], municipios[i], tipos[i], calificaciones[i], precios[i])) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    private static String texto(BsonValue valor) {
+        return valor != null && valor.isString() ? valor.asString().getValue() : null;
+    }
+
+    private static double numero(BsonValue valor) {
+        return valor != null && valor.isNumber() ? valor.asNumber().doubleValue() : 0;
+    }
+
     public void crearIndices() {
         try {
             logger.info("Creando índices...");
@@ -83,6 +258,26 @@ public class MongoDBService implements AutoCloseable {
             );
             logger.info("✓ Índice compuesto creado: idx_municipio_tipo");
 
+            // Índices de paginación: el _id al final da un orden total que el servidor
+            // recorre desde la posición del token sin ordenar en memoria
+            collection.createIndex(
+                    Indexes.compoundIndex(
+                            Indexes.ascending("municipio", "tipoComida"),
+                            Indexes.ascending("_id")
+                    ),
+                    new IndexOptions().name("idx_municipio_tipo_id")
+            );
+            logger.info("✓ Índice compuesto creado: idx_municipio_tipo_id");
+
+            collection.createIndex(
+                    Indexes.compoundIndex(
+                            Indexes.descending("calificacion"),
+                            Indexes.ascending("_id")
+                    ),
+                    new IndexOptions().name("idx_calificacion_id")
+            );
+            logger.info("✓ Índice compuesto creado: idx_calificacion_id");
+
             // Índice geoespacial para búsquedas por ubicación
             collection.createIndex(
                     Indexes.geo2dsphere("ubicacion"),
@@ -103,6 +298,13 @@ public class MongoDBService implements AutoCloseable {
             if (count > 0) {
                 logger.info("Limpiando colección ({} documentos)...", count);
                 collection.drop();
+                if (estadisticasCache != null) {
+                    estadisticasCache.reiniciar();
+                }
+                cacheConsultas.invalidarTodo();
+                if (indiceBusqueda != null) {
+                    indiceBusqueda.vaciar();
+                }
                 logger.info("✓ Colección limpiada");
             }
         } catch (Exception e) {
@@ -110,54 +312,318 @@ public class MongoDBService implements AutoCloseable {
         }
     }
 
+    /**
+     * Vista tipada de la colección: codifica y decodifica con {@code RestauranteCodec}
+     * directamente sobre BSON, sin pasar por {@code Document}.
+     */
+    public MongoCollection<Restaurante> getColeccionRestaurantes() {
+        return coleccionRestaurantes;
+    }
+
+    // ==================== Consultas tipadas ====================
+    //
+    // Pasan por un caché de lectura LRU + TTL. Las escrituras de este servicio invalidan solo
+    // las consultas afectadas; las de otros clientes se ven a más tardar al vencer el TTL.
+    // Las listas devueltas son compartidas entre llamadas y no deben modificarse.
+
+    public Optional<Restaurante> buscarPorId(ObjectId id) {
+        return buscar(FiltrosRestaurante.builder().id(id).build(), 1).stream().findFirst();
+    }
+
+    public List<Restaurante> buscarPorMunicipio(String municipio, int limite) {
+        return buscar(FiltrosRestaurante.builder().municipio(municipio).build(), limite);
+    }
+
+    public List<Restaurante> buscarPorTipoComida(String tipoComida, int limite) {
+        return buscar(FiltrosRestaurante.builder().tipoComida(tipoComida).build(), limite);
+    }
+
+    /**
+     * Restaurantes con al menos esa calificación, de la más alta a la más baja.
+     */
+    public List<Restaurante> buscarPorCalificacionMinima(double calificacionMinima, int limite) {
+        return consultar(ClaveConsulta.de(FiltrosRestaurante.builder()
+                .calificacionMinima(calificacionMinima).build(), true, limite));
+    }
+
+    public List<Restaurante> buscarPorRangoPrecio(double precioMinimo, double precioMaximo, int limite) {
+        return buscar(FiltrosRestaurante.builder()
+                .precioMinimo(precioMinimo).precioMaximo(precioMaximo).build(), limite);
+    }
+
+    /**
+     * Hasta {@code limite} restaurantes que cumplen todos los filtros, en el orden natural de
+     * la colección.
+     */
+    public List<Restaurante> buscar(FiltrosRestaurante filtros, int limite) {
+        return consultar(ClaveConsulta.de(filtros, false, limite));
+    }
+
+    private List<Restaurante> consultar(ClaveConsulta clave) {
+        return cacheConsultas.obtener(clave, () -> {
+            FindIterable<Restaurante> consulta = coleccionRestaurantes.find(clave.filtros().aFiltroMongo())
+                    .limit(clave.limite());
+            if (clave.porCalificacion()) {
+                consulta = consulta.sort(Sorts.orderBy(Sorts.descending("calificacion"), Sorts.ascending("_id")));
+            }
+            return List.copyOf(consulta.into(new ArrayList<>()));
+        });
+    }
+
+    public CacheConsultas.Metricas getMetricasCacheConsultas() {
+        return cacheConsultas.getMetricas();
+    }
+
+    // ==================== Búsqueda de texto ====================
+
+    /**
+     * Búsqueda mientras se escribe sobre nombre, tipo de comida y especialidades: sin
+     * acentos, por prefijo y tolerante a errores de tecleo. La primera llamada construye el
+     * índice en memoria; a partir de ahí las importaciones de este servicio lo mantienen al día.
+     */
+    public List<ResultadoBusqueda> buscarTexto(String consulta, int limite) {
+        return iniciarIndiceBusqueda().buscar(consulta, limite);
+    }
+
+    public synchronized IndiceBusqueda iniciarIndiceBusqueda() {
+        if (indiceBusqueda == null) {
+            long inicio = System.nanoTime();
+            IndiceBusqueda indice = new IndiceBusqueda();
+            // Se registra antes de leer para no perder lotes importados durante la carga; un
+            // documento visto dos veces solo se reemplaza
+            indiceBusqueda = indice;
+            List<RawBsonDocument> lote = new ArrayList<>(10_000);
+            try (MongoCursor<RawBsonDocument> cursor = collection.withDocumentClass(RawBsonDocument.class).find()
+                    .projection(Projections.include("nombre", "tipoComida", "especialidades", "calificacion"))
+                    .batchSize(10_000).iterator()) {
+                while (cursor.hasNext()) {
+                    lote.add(cursor.next());
+                    if (lote.size() == 10_000) {
+                        indice.agregarDocumentos(lote);
+                        lote.clear();
+                    }
+                }
+                indice.agregarDocumentos(lote);
+            } catch (RuntimeException e) {
+                indiceBusqueda = null;
+                throw e;
+            }
+            logger.info("Índice de búsqueda en memoria: {} restaurantes ({} ms)", indice.tamaño(),
+                    (System.nanoTime() - inicio) / 1_000_000);
+        }
+        return indiceBusqueda;
+    }
+
+    // ==================== Listados paginados ====================
+    //
+    // Paginación por keyset en lugar de skip: pasar el token de una página devuelve la
+    // siguiente con el mismo costo sin importar qué tan profunda sea. Un token null pide la
+    // primera página.
+
+    /**
+     * Restaurantes de un municipio ordenados por tipo de comida, opcionalmente de un solo
+     * tipo ({@code tipoComida} null = todos). Recorre {@code idx_municipio_tipo_id}.
+     */
+    public PaginaRestaurantes paginarPorMunicipio(String municipio, String tipoComida, int tamaño,
+                                                  String continuacion) {
+        List<Bson> filtro = new ArrayList<>();
+        filtro.add(Filters.eq("municipio", municipio));
+        if (tipoComida != null) {
+            filtro.add(Filters.eq("tipoComida", tipoComida));
+        }
+        Set<String> fijos = tipoComida == null ? Set.of("municipio") : Set.of("municipio", "tipoComida");
+        return paginar(ORDEN_MUNICIPIO, filtro, fijos, tamaño, continuacion);
+    }
+
+    /**
+     * Todos los restaurantes de la mejor calificación a la peor. Recorre
+     * {@code idx_calificacion_id}.
+     */
+    public PaginaRestaurantes paginarMejorCalificados(int tamaño, String continuacion) {
+        return paginar(ORDEN_CALIFICACION, new ArrayList<>(), Set.of(), tamaño, continuacion);
+    }
+
+    // limit(0) sería sin límite y uno negativo un solo lote: ninguno es lo que se pidió
+    private static void validarLimite(int limite) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite debe ser positivo: " + limite);
+        }
+    }
+
+    private PaginaRestaurantes paginar(OrdenKeyset orden, List<Bson> filtro, Set<String> fijos, int tamaño,
+                                       String continuacion) {
+        if (tamaño <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser positivo: " + tamaño);
+        }
+        if (continuacion != null) {
+            filtro.add(orden.despuesDe(continuacion, fijos));
+        }
+        // Uno de más para saber si hay otra página sin contar
+        List<RawBsonDocument> documentos = collection.withDocumentClass(RawBsonDocument.class)
+                .find(filtro.isEmpty() ? new BsonDocument() : Filters.and(filtro))
+                .sort(orden.orden())
+                .limit(tamaño + 1)
+                .into(new ArrayList<>(tamaño + 1));
+        boolean hayMas = documentos.size() > tamaño;
+        int cantidad = Math.min(tamaño, documentos.size());
+        Codec<Restaurante> codec = coleccionRestaurantes.getCodecRegistry().get(Restaurante.class);
+        List<Restaurante> restaurantes = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            restaurantes.add(documentos.get(i).decode(codec));
+        }
+        return new PaginaRestaurantes(restaurantes,
+                hayMas ? orden.token(documentos.get(cantidad - 1)) : null);
+    }
+
+    /**
+     * Carga la colección completa en una {@link RestauranteTable} columnar para análisis en memoria.
+     */
+    public RestauranteTable cargarTabla() {
+        try (MongoCursor<Restaurante> cursor = coleccionRestaurantes.find().batchSize(10_000).iterator()) {
+            RestauranteTable tabla = RestauranteTable.desde(cursor);
+            logger.info("✓ Tabla columnar cargada: {} restaurantes", tabla.tamaño());
+            return tabla;
+        }
+    }
+
+    /**
+     * Hasta {@code limite} restaurantes a no más de {@code radioMetros} del punto que cumplen
+     * los filtros, del más cercano al más lejano. Usa {@code $geoNear} sobre
+     * {@code idx_ubicacion_geo}; para consultas frecuentes sin viaje al servidor ver
+     * {@link #cargarIndiceEspacial()}.
+     */
+    public List<RestauranteCercano> buscarCercanos(double lon, double lat, double radioMetros, int limite,
+                                                   FiltrosRestaurante filtros) {
+        validarLimite(limite);
+        Codec<Restaurante> codec = coleccionRestaurantes.getCodecRegistry().get(Restaurante.class);
+        List<RestauranteCercano> cercanos = new ArrayList<>(limite);
+        collection.withDocumentClass(RawBsonDocument.class).aggregate(List.of(
+                        new BsonDocument("$geoNear", new BsonDocument()
+                                .append("near", new BsonDocument("type", new BsonString("Point"))
+                                        .append("coordinates", new BsonArray(List.of(
+                                                new BsonDouble(lon), new BsonDouble(lat)))))
+                                .append("distanceField", new BsonString(CAMPO_DISTANCIA))
+                                .append("maxDistance", new BsonDouble(radioMetros))
+                                .append("query", filtros.aFiltroMongo().toBsonDocument())
+                                .append("spherical", BsonBoolean.TRUE)),
+                        Aggregates.limit(limite)))
+                .forEach(raw -> cercanos.add(new RestauranteCercano(raw.decode(codec),
+                        raw.getNumber(CAMPO_DISTANCIA).doubleValue())));
+        return cercanos;
+    }
+
+    /**
+     * Carga la colección y construye un {@link IndiceEspacial} en memoria. Es una foto: no ve
+     * las escrituras posteriores, así que conviene reconstruirlo tras cada importación.
+     */
+    public IndiceEspacial cargarIndiceEspacial() {
+        long inicio = System.nanoTime();
+        IndiceEspacial indice = IndiceEspacial.construir(cargarTabla());
+        logger.info("Índice espacial en memoria: {} restaurantes ({} ms)", indice.tamaño(),
+                (System.nanoTime() - inicio) / 1_000_000);
+        return indice;
+    }
+
+    /**
+     * Carga la colección y construye un {@link MotorRecomendaciones} en memoria. Precalcula las
+     * recomendaciones de los {@code semillasPrecalculadas} restaurantes mejor calificados, que
+     * son los primeros que se muestran y por lo tanto las semillas más pedidas. Como el índice
+     * espacial, es una foto.
+     */
+    public MotorRecomendaciones cargarRecomendaciones(int semillasPrecalculadas, int limite) {
+        long inicio = System.nanoTime();
+        MotorRecomendaciones motor = MotorRecomendaciones.construir(cargarTabla());
+        List<ObjectId> semillas = new ArrayList<>(semillasPrecalculadas);
+        collection.find()
+                .sort(Sorts.orderBy(Sorts.descending("calificacion"), Sorts.ascending("_id")))
+                .projection(Projections.include("_id"))
+                .limit(semillasPrecalculadas)
+                .forEach(doc -> semillas.add(doc.getObjectId("_id")));
+        int precalculadas = motor.precalcular(semillas, limite);
+        logger.info("Motor de recomendaciones: {} restaurantes, {} semillas precalculadas ({} ms)",
+                motor.getTabla().tamaño(), precalculadas, (System.nanoTime() - inicio) / 1_000_000);
+        return motor;
+    }
+
     public long contarDocumentos() {
         return collection.countDocuments();
     }
 
+    /**
+     * Reporte calculado en el servidor con una sola agregación {@code $facet}.
+     */
+    public EstadisticasReport obtenerEstadisticas() {
+        return estadisticasService.calcularEnServidor();
+    }
+
+    /**
+     * Mismo reporte calculado en el cliente recorriendo un cursor proyectado, para comparar costos.
+     */
+    public EstadisticasReport obtenerEstadisticasCliente() {
+        return estadisticasService.calcularEnCliente();
+    }
+
+    /**
+     * Activa el caché de estadísticas materializadas. A partir de aquí {@link #mostrarEstadisticas()}
+     * lee de memoria en lugar de agregar sobre la colección.
+     */
+    public synchronized EstadisticasCache iniciarCacheEstadisticas(Duration intervaloReconciliacion) {
+        if (estadisticasCache == null) {
+            EstadisticasCache cache = new EstadisticasCache(collection, estadisticasService, intervaloReconciliacion);
+            cache.iniciar();
+            estadisticasCache = cache;
+        }
+        return estadisticasCache;
+    }
+
     public void mostrarEstadisticas() {
         try {
-            logger.info("\n=== ESTADÍSTICAS DE LA COLECCIÓN ===");
-            logger.info("Total de restaurantes: {}", collection.countDocuments());
-
-            // Contar por municipio
-            logger.info("\nRestaurantes por municipio:");
-            AggregateIterable<Document> porMunicipio = collection.aggregate(List.of(
-                    new Document("$group", new Document("_id", "$municipio")
-                            .append("count", new Document("$sum", 1))),
-                    new Document("$sort", new Document("count", -1))
-            ));
-            porMunicipio.forEach(doc ->
-                    logger.info("  {}: {}", doc.getString("_id"), doc.getInteger("count")));
-
-            // Contar por tipo de comida
-            logger.info("\nRestaurantes por tipo de comida:");
-            AggregateIterable<Document> porTipo = collection.aggregate(List.of(
-                    new Document("$group", new Document("_id", "$tipoComida")
-                            .append("count", new Document("$sum", 1))),
-                    new Document("$sort", new Document("count", -1))
-            ));
-            porTipo.forEach(doc ->
-                    logger.info("  {} : {}", doc.getString("_id"), doc.getInteger("count")));
-
-            // Calificación promedio
-            AggregateIterable<Document> calificacionPromedio = collection.aggregate(List.of(
-                    new Document("$group", new Document("_id", null)
-                            .append("avgCalificacion", new Document("$avg", "$calificacion")))
-            ));
-            Document avg = calificacionPromedio.first();
-            if (avg != null) {
-                logger.info("\nCalificación promedio: {}",
-                        String.format("%.2f", avg.getDouble("avgCalificacion")));
-            }
-
-            logger.info("=====================================\n");
+            EstadisticasCache cache = estadisticasCache;
+            mostrarEstadisticas(cache != null ? cache.obtener() : obtenerEstadisticas());
         } catch (Exception e) {
             logger.error("Error al mostrar estadísticas", e);
         }
     }
 
+    public void mostrarEstadisticas(EstadisticasReport report) {
+        logger.info("\n=== ESTADÍSTICAS DE LA COLECCIÓN ===");
+        logger.info("Total de restaurantes: {}", report.getTotal());
+
+        logger.info("\nRestaurantes por municipio:");
+        report.getPorMunicipio().forEach((municipio, count) ->
+                logger.info("  {}: {}", municipio, count));
+
+        logger.info("\nRestaurantes por tipo de comida:");
+        report.getPorTipoComida().forEach((tipo, count) ->
+                logger.info("  {} : {}", tipo, count));
+
+        logger.info("\nCalificación promedio: {}",
+                String.format("%.2f", report.getCalificacionPromedio()));
+        logger.info("Distribución de calificaciones:");
+        long[] histograma = report.getHistogramaCalificacion();
+        for (int i = 0; i < histograma.length; i++) {
+            if (histograma[i] > 0) {
+                logger.info("  [{} - {}): {}", i / 2.0, (i + 1) / 2.0, histograma[i]);
+            }
+        }
+
+        logger.info("\nPrecio promedio: {} (mín. {}, máx. {})",
+                String.format("%.2f", report.getPrecioPromedio()),
+                String.format("%.2f", report.getPrecioMinimo()),
+                String.format("%.2f", report.getPrecioMaximo()));
+        logger.info("Percentiles de precio: p50 {}, p90 {}, p99 {}",
+                String.format("%.2f", report.getPrecioP50()),
+                String.format("%.2f", report.getPrecioP90()),
+                String.format("%.2f", report.getPrecioP99()));
+        logger.info("(calculado en {} ms)", report.getDuracionMs());
+        logger.info("=====================================\n");
+    }
+
     @Override
     public void close() {
+        if (estadisticasCache != null) {
+            estadisticasCache.close();
+        }
         if (mongoClient != null) {
             mongoClient.close();
             logger.info("Conexión a MongoDB cerrada");
@@ -0,0 +1,136 @@
+package com.restaurantes.gdl.service;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonNull;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.ByteBuf;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Orden total para paginación por keyset: unos campos más {@code _id} como desempate.
+ * <p>
+ * En lugar de {@code skip}, cada página pide los documentos estrictamente posteriores al
+ * último de la anterior, de modo que el servidor entra al índice justo en ese punto y la
+ * página 500 cuesta lo mismo que la primera. La clave del último documento viaja al cliente
+ * como un token opaco: BSON en Base64 URL, con el nombre del orden para rechazar tokens de
+ * otro listado.
+ */
+final class OrdenKeyset {
+
+    private static final String ID = "_id";
+
+    private final String nombre;
+    private final List<String> campos;
+    // Dirección de cada campo; _id siempre va ascendente
+    private final boolean[] descendente;
+
+    private OrdenKeyset(String nombre, List<String> campos, boolean[] descendente) {
+        this.nombre = nombre;
+        this.campos = campos;
+        this.descendente = descendente;
+    }
+
+    /**
+     * Orden por {@code campos} (como los arma {@code Sorts}) seguido de {@code _id} ascendente.
+     */
+    static OrdenKeyset de(String nombre, Bson campos) {
+        BsonDocument orden = campos.toBsonDocument();
+        List<String> nombres = new ArrayList<>(orden.keySet());
+        boolean[] descendente = new boolean[nombres.size() + 1];
+        for (int i = 0; i < nombres.size(); i++) {
+            descendente[i] = orden.getNumber(nombres.get(i)).intValue() < 0;
+        }
+        nombres.add(ID);
+        return new OrdenKeyset(nombre, List.copyOf(nombres), descendente);
+    }
+
+    Bson orden() {
+        BsonDocument orden = new BsonDocument();
+        for (int i = 0; i < campos.size(); i++) {
+            orden.append(campos.get(i), new BsonInt32(descendente[i] ? -1 : 1));
+        }
+        return orden;
+    }
+
+    /**
+     * Filtro de los documentos posteriores a la posición del token. Los campos de
+     * {@code fijos} tienen un solo valor en la consulta (igualdad), así que no participan.
+     */
+    Bson despuesDe(String token, Set<String> fijos) {
+        List<BsonValue> clave = decodificar(token);
+        BsonArray alternativas = new BsonArray();
+        // (a > x) o (a = x y b > y) o (a = x y b = y y _id > z) ...
+        BsonDocument prefijo = new BsonDocument();
+        for (int i = 0; i < campos.size(); i++) {
+            String campo = campos.get(i);
+            if (fijos.contains(campo)) {
+                continue;
+            }
+            BsonValue valor = clave.get(i);
+            BsonValue posterior = posterior(valor, descendente[i]);
+            if (posterior != null) {
+                alternativas.add(prefijo.clone().append(campo, posterior));
+            }
+            prefijo.append(campo, valor);
+        }
+        return alternativas.isEmpty()
+                // Era el último documento posible: nada cumple
+                ? new BsonDocument(ID, new BsonDocument("$in", new BsonArray()))
+                : new BsonDocument("$or", alternativas);
+    }
+
+    /**
+     * Condición "estrictamente después de {@code valor}" en esa dirección, o null si no hay
+     * nada después.
+     */
+    private static BsonValue posterior(BsonValue valor, boolean descendente) {
+        if (valor.isNull()) {
+            // null (o campo ausente) ordena antes que cualquier otro valor y $gt/$lt no lo
+            // comparan con otros tipos
+            return descendente ? null : new BsonDocument("$ne", BsonNull.VALUE);
+        }
+        return new BsonDocument(descendente ? "$lt" : "$gt", valor);
+    }
+
+    /**
+     * Token que continúa justo después de {@code ultimo}.
+     */
+    String token(BsonDocument ultimo) {
+        BsonArray clave = new BsonArray();
+        for (String campo : campos) {
+            clave.add(ultimo.get(campo, BsonNull.VALUE));
+        }
+        ByteBuf bytes = new RawBsonDocument(new BsonDocument("o", new BsonString(nombre))
+                .append("k", clave), new BsonDocumentCodec()).getByteBuffer();
+        byte[] arreglo = new byte[bytes.remaining()];
+        bytes.get(arreglo);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(arreglo);
+    }
+
+    private List<BsonValue> decodificar(String token) {
+        String origen;
+        List<BsonValue> clave;
+        try {
+            // RawBsonDocument es perezoso: leer los campos aquí valida el contenido
+            BsonDocument documento = new RawBsonDocument(Base64.getUrlDecoder().decode(token));
+            origen = documento.getString("o").getValue();
+            clave = documento.getArray("k").getValues();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Token de continuación inválido", e);
+        }
+        if (!nombre.equals(origen) || clave.size() != campos.size()) {
+            throw new IllegalArgumentException("El token de continuación es de otro listado");
+        }
+        return clave;
+    }
+}
@@ -0,0 +1,20 @@
+package com.restaurantes.gdl.service;
+
+import com.restaurantes.gdl.model.Restaurante;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Una página de un listado por keyset y el token para pedir la siguiente.
+ */
+@Value
+public class PaginaRestaurantes {
+    List<Restaurante> restaurantes;
+    // Opaco; null si esta fue la última página
+    String continuacion;
+
+    public boolean hayMas() {
+        return continuacion != null;
+    }
+}
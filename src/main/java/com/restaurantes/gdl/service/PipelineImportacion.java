@@ -0,0 +1,211 @@
+package com.restaurantes.gdl.service;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import com.restaurantes.gdl.model.Restaurante;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.Consumer;
+
+/**
+ * Importación masiva en tubería: el hilo llamador codifica los restaurantes a BSON y arma
+ * lotes mientras N escritores los envían con inserciones no ordenadas. La cola acotada entre
+ * ambas etapas aplica contrapresión, de modo que en memoria solo viven unos cuantos lotes.
+ */
+public class PipelineImportacion {
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelineImportacion.class);
+
+    private static final List<RawBsonDocument> FIN = new ArrayList<>();
+    private static final InsertManyOptions NO_ORDENADO = new InsertManyOptions().ordered(false);
+
+    private final MongoCollection<RawBsonDocument> collection;
+    private final Codec<Document> documentCodec;
+    private final Codec<Restaurante> restauranteCodec;
+    private final ConfiguracionImportacion config;
+    private final Consumer<List<RawBsonDocument>> alEscribirLote;
+
+    public PipelineImportacion(MongoCollection<?> collection, ConfiguracionImportacion config) {
+        this(collection, config, lote -> { });
+    }
+
+    /**
+     * @param alEscribirLote se invoca desde el hilo escritor con cada lote confirmado por el servidor
+     */
+    public PipelineImportacion(MongoCollection<?> collection, ConfiguracionImportacion config,
+                               Consumer<List<RawBsonDocument>> alEscribirLote) {
+        this.collection = collection.withDocumentClass(RawBsonDocument.class);
+        this.documentCodec = collection.getCodecRegistry().get(Document.class);
+        this.restauranteCodec = collection.getCodecRegistry().get(Restaurante.class);
+        this.config = config;
+        this.alEscribirLote = alEscribirLote;
+    }
+
+    public ResultadoImportacion importar(Iterator<Restaurante> restaurantes) {
+        return importarDocumentos(new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return restaurantes.hasNext();
+            }
+
+            @Override
+            public RawBsonDocument next() {
+                return codificar(restaurantes.next());
+            }
+        });
+    }
+
+    /**
+     * Variante para documentos que ya vienen en BSON (p. ej. leídos de un archivo de intercambio).
+     */
+    public ResultadoImportacion importarDocumentos(Iterator<RawBsonDocument> documentosEntrada) {
+        BlockingQueue<List<RawBsonDocument>> cola = new ArrayBlockingQueue<>(config.getCapacidadCola());
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        AtomicLong documentos = new AtomicLong();
+        AtomicLong lotes = new AtomicLong();
+        AtomicLong nanosLotes = new AtomicLong();
+        LongAccumulator maxNanosLote = new LongAccumulator(Math::max, 0);
+
+        int escritores = config.getEscritores();
+        ExecutorService executor = Executors.newFixedThreadPool(escritores, hilosEscritores());
+        List<Future<?>> tareas = new ArrayList<>(escritores);
+        for (int i = 0; i < escritores; i++) {
+            tareas.add(executor.submit(() ->
+                    escribir(cola, error, documentos, lotes, nanosLotes, maxNanosLote)));
+        }
+
+        long inicio = System.nanoTime();
+        long bytes = 0;
+        try {
+            List<RawBsonDocument> lote = new ArrayList<>(config.getTamañoLote());
+            int bytesLote = 0;
+            while (documentosEntrada.hasNext() && error.get() == null) {
+                RawBsonDocument raw = documentosEntrada.next();
+                int tamaño = raw.getByteBuffer().remaining();
+                if (!lote.isEmpty() && bytesLote + tamaño > config.getBytesMaximosLote()) {
+                    cola.put(lote);
+                    lote = new ArrayList<>(config.getTamañoLote());
+                    bytesLote = 0;
+                }
+                lote.add(raw);
+                bytesLote += tamaño;
+                bytes += tamaño;
+                if (lote.size() >= config.getTamañoLote()) {
+                    cola.put(lote);
+                    lote = new ArrayList<>(config.getTamañoLote());
+                    bytesLote = 0;
+                }
+            }
+            if (!lote.isEmpty() && error.get() == null) {
+                cola.put(lote);
+            }
+            for (int i = 0; i < escritores; i++) {
+                cola.put(FIN);
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error.compareAndSet(null, e);
+        } catch (Exception e) {
+            error.compareAndSet(null, e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (error.get() != null) {
+            throw new RuntimeException("Error en la importación masiva", error.get());
+        }
+
+        long duracionMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        long totalLotes = lotes.get();
+        ResultadoImportacion resultado = new ResultadoImportacion(
+                documentos.get(),
+                totalLotes,
+                bytes,
+                duracionMs,
+                totalLotes == 0 ? 0 : nanosLotes.get() / 1e6 / totalLotes,
+                maxNanosLote.get() / 1e6);
+        logger.info("✓ {} documentos en {} lotes ({} ms, {} docs/s, lote prom. {} ms, máx. {} ms)",
+                resultado.getDocumentos(), resultado.getLotes(), resultado.getDuracionMs(),
+                String.format("%.0f", resultado.getDocumentosPorSegundo()),
+                String.format("%.2f", resultado.getLatenciaPromedioLoteMs()),
+                String.format("%.2f", resultado.getLatenciaMaximaLoteMs()));
+        return resultado;
+    }
+
+    private RawBsonDocument codificar(Restaurante restaurante) {
+        // El driver solo agrega el _id al enviar el documento; se asigna aquí para que los lotes
+        // que recibe alEscribirLote (caché de consultas, índice de búsqueda) ya lo traigan
+        if (restaurante.getId() == null) {
+            restaurante.setId(new ObjectId());
+        }
+        if (config.isCodecNativo()) {
+            return new RawBsonDocument(restaurante, restauranteCodec);
+        }
+        return new RawBsonDocument(restaurante.toDocument(), documentCodec);
+    }
+
+    private void escribir(BlockingQueue<List<RawBsonDocument>> cola, AtomicReference<Throwable> error,
+                          AtomicLong documentos, AtomicLong lotes, AtomicLong nanosLotes,
+                          LongAccumulator maxNanosLote) {
+        try {
+            while (true) {
+                List<RawBsonDocument> lote = cola.take();
+                if (lote == FIN) {
+                    return;
+                }
+                if (error.get() != null) {
+                    // Tras un fallo se sigue drenando la cola para no bloquear al productor
+                    continue;
+                }
+                try {
+                    long inicio = System.nanoTime();
+                    collection.insertMany(lote, NO_ORDENADO);
+                    long nanos = System.nanoTime() - inicio;
+
+                    documentos.addAndGet(lote.size());
+                    long numero = lotes.incrementAndGet();
+                    nanosLotes.addAndGet(nanos);
+                    maxNanosLote.accumulate(nanos);
+                    alEscribirLote.accept(lote);
+                    logger.debug("Lote {}: {} documentos en {} ms", numero, lote.size(), nanos / 1_000_000);
+                } catch (Exception e) {
+                    logger.error("Error al escribir lote de {} documentos", lote.size(), e);
+                    error.compareAndSet(null, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory hilosEscritores() {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "importador-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package com.restaurantes.gdl.service;
+
+import lombok.Value;
+
+/**
+ * Resumen de una importación: volumen, duración y latencia de los lotes enviados.
+ */
+@Value
+public class ResultadoImportacion {
+    long documentos;
+    long lotes;
+    long bytes;
+    long duracionMs;
+    double latenciaPromedioLoteMs;
+    double latenciaMaximaLoteMs;
+
+    public double getDocumentosPorSegundo() {
+        return duracionMs == 0 ? documentos : documentos * 1000.0 / duracionMs;
+    }
+}
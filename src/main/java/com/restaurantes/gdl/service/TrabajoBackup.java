@@ -0,0 +1,139 @@
+package com.restaurantes.gdl.service;
+
+import com.restaurantes.gdl.backup.ConfiguracionBackup;
+import com.restaurantes.gdl.backup.ProgresoBackup;
+import com.restaurantes.gdl.backup.ResultadoBackup;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Un backup que corre en segundo plano en {@link GestorTrabajosBackup}: estado, progreso
+ * en vivo, resultado y cancelación.
+ */
+public class TrabajoBackup {
+
+    public enum Estado {
+        PENDIENTE, EN_CURSO, COMPLETADO, FALLIDO, CANCELADO
+    }
+
+    /**
+     * Qué respalda el trabajo: un directorio completo según su configuración, los cambios
+     * desde el último completo, o un backup al repositorio deduplicado.
+     */
+    public enum Tipo {
+        COMPLETO, INCREMENTAL, REPOSITORIO
+    }
+
+    private static final DateTimeFormatter HORA = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private final int id;
+    private final Tipo tipo;
+    private final ConfiguracionBackup config;
+    private final ProgresoBackup progreso = new ProgresoBackup();
+    private final CompletableFuture<ResultadoBackup> completado = new CompletableFuture<>();
+    private final LocalDateTime creado = LocalDateTime.now();
+    private volatile Estado estado = Estado.PENDIENTE;
+    private volatile String error;
+
+    TrabajoBackup(int id, Tipo tipo, ConfiguracionBackup config) {
+        this.id = id;
+        this.tipo = tipo;
+        this.config = config;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public ConfiguracionBackup getConfig() {
+        return config;
+    }
+
+    public ProgresoBackup getProgreso() {
+        return progreso;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isTerminado() {
+        return completado.isDone();
+    }
+
+    /**
+     * Se completa con el resultado (null si falló o se canceló) cuando el trabajo termina.
+     */
+    public CompletableFuture<ResultadoBackup> getCompletado() {
+        return completado;
+    }
+
+    /**
+     * Pide la cancelación; los lectores la atienden en su siguiente lote.
+     */
+    public void cancelar() {
+        progreso.cancelar();
+    }
+
+    /**
+     * Bloquea hasta que el trabajo termine.
+     */
+    public ResultadoBackup esperar() {
+        return completado.join();
+    }
+
+    void iniciado() {
+        estado = Estado.EN_CURSO;
+    }
+
+    void terminar(ResultadoBackup resultado) {
+        progreso.finalizar();
+        estado = Estado.COMPLETADO;
+        completado.complete(resultado);
+    }
+
+    void fallar(String mensaje) {
+        progreso.finalizar();
+        error = mensaje;
+        estado = progreso.isCancelado() ? Estado.CANCELADO : Estado.FALLIDO;
+        completado.complete(null);
+    }
+
+    /**
+     * Una línea legible para el menú.
+     */
+    public String resumen() {
+        StringBuilder sb = new StringBuilder()
+                .append("Backup #").append(id)
+                .append(tipo == Tipo.COMPLETO ? "" : " " + tipo.name().toLowerCase())
+                .append(" (").append(creado.format(HORA)).append(") ")
+                .append(estado);
+        if (estado == Estado.PENDIENTE) {
+            return sb.toString();
+        }
+        sb.append(": ").append(progreso.getDocumentos());
+        if (progreso.getDocumentosEstimados() > 0) {
+            sb.append(" / ").append(progreso.getDocumentosEstimados());
+        }
+        sb.append(" documentos, ")
+                .append(String.format("%.2f MB (%.1f MB/s)", progreso.getBytes() / (1024.0 * 1024.0),
+                        progreso.getMegabytesPorSegundo()));
+        if (estado == Estado.EN_CURSO && progreso.getEtaSegundos() >= 0) {
+            sb.append(", ETA ").append(progreso.getEtaSegundos()).append(" s");
+        }
+        if (error != null) {
+            sb.append(" — ").append(error);
+        }
+        return sb.toString();
+    }
+}
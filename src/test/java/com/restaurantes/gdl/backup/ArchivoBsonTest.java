@@ -0,0 +1,157 @@
+package com.restaurantes.gdl.backup;
+
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.ByteBuf;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArchivoBsonTest {
+
+    // Ventana mucho menor que el archivo, para que el recorrido cambie de mapeo muchas veces
+    private static final long VENTANA = 1024;
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void losSegmentosCubrenElArchivoEnFronterasDeDocumento() throws IOException {
+        List<BsonDocument> documentos = documentos(2_000, 11L);
+        Path ruta = escribir(documentos);
+        Set<Long> fronteras = fronteras(documentos);
+
+        try (ArchivoBson archivo = new ArchivoBson(ruta, VENTANA)) {
+            assertTrue(archivo.tamaño() > 50 * VENTANA);
+            for (int partes : new int[]{1, 2, 7, 64, 1_000, 100_000}) {
+                List<ArchivoBson.Segmento> segmentos = archivo.segmentar(partes);
+                long esperado = 0;
+                for (ArchivoBson.Segmento segmento : segmentos) {
+                    assertEquals(esperado, segmento.inicio(), "Los segmentos deben ser contiguos");
+                    assertTrue(fronteras.contains(segmento.inicio()));
+                    assertTrue(segmento.longitud() > 0 && segmento.longitud() <= VENTANA,
+                            () -> "Segmento fuera de límite: " + segmento);
+                    esperado += segmento.longitud();
+                }
+                assertEquals(archivo.tamaño(), esperado);
+                assertEquals(documentos, leer(archivo, segmentos), "Falló con partes = " + partes);
+            }
+        }
+    }
+
+    @Test
+    void conLaVentanaPorDefectoUnSoloSegmentoDevuelveTodo() throws IOException {
+        List<BsonDocument> documentos = documentos(300, 3L);
+        try (ArchivoBson archivo = new ArchivoBson(escribir(documentos))) {
+            List<ArchivoBson.Segmento> segmentos = archivo.segmentar(1);
+            assertEquals(1, segmentos.size());
+            assertEquals(documentos, leer(archivo, segmentos));
+        }
+    }
+
+    @Test
+    void unArchivoVacioNoTieneSegmentos() throws IOException {
+        try (ArchivoBson archivo = new ArchivoBson(escribir(List.of()), VENTANA)) {
+            assertEquals(List.of(), archivo.segmentar(4));
+        }
+    }
+
+    @Test
+    void detectaDocumentosTruncadosYLongitudesInvalidas() throws IOException {
+        byte[] completo = Files.readAllBytes(escribir(documentos(50, 5L)));
+
+        Path truncado = directorio.resolve("truncado.bson");
+        Files.write(truncado, Arrays.copyOf(completo, completo.length - 3));
+        try (ArchivoBson archivo = new ArchivoBson(truncado, VENTANA)) {
+            assertThrows(ArchivoBson.CorruptoException.class, () -> archivo.segmentar(4));
+        }
+
+        Path prefijoCortado = directorio.resolve("prefijo.bson");
+        Files.write(prefijoCortado, Arrays.copyOf(completo, completo.length + 2));
+        try (ArchivoBson archivo = new ArchivoBson(prefijoCortado, VENTANA)) {
+            ArchivoBson.CorruptoException e = assertThrows(ArchivoBson.CorruptoException.class,
+                    () -> archivo.segmentar(4));
+            assertEquals(completo.length, e.getPosicion());
+        }
+
+        byte[] invalido = completo.clone();
+        invalido[0] = 2;
+        invalido[1] = invalido[2] = invalido[3] = 0;
+        Path longitudInvalida = directorio.resolve("invalido.bson");
+        Files.write(longitudInvalida, invalido);
+        try (ArchivoBson archivo = new ArchivoBson(longitudInvalida, VENTANA)) {
+            ArchivoBson.CorruptoException e = assertThrows(ArchivoBson.CorruptoException.class,
+                    () -> archivo.segmentar(4));
+            assertEquals(0, e.getPosicion());
+        }
+    }
+
+    private static List<BsonDocument> documentos(int cantidad, long semilla) {
+        Random random = new Random(semilla);
+        List<BsonDocument> documentos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            documentos.add(new BsonDocument("_id", new BsonInt32(i))
+                    .append("nombre", new BsonString("x".repeat(random.nextInt(300)))));
+        }
+        return documentos;
+    }
+
+    private Path escribir(List<BsonDocument> documentos) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        for (BsonDocument documento : documentos) {
+            salida.writeBytes(bytes(documento));
+        }
+        Path ruta = Files.createTempFile(directorio, "coleccion", ".bson");
+        Files.write(ruta, salida.toByteArray());
+        return ruta;
+    }
+
+    private static Set<Long> fronteras(List<BsonDocument> documentos) {
+        Set<Long> fronteras = new HashSet<>();
+        long posicion = 0;
+        for (BsonDocument documento : documentos) {
+            fronteras.add(posicion);
+            posicion += bytes(documento).length;
+        }
+        return fronteras;
+    }
+
+    private static List<BsonDocument> leer(ArchivoBson archivo, List<ArchivoBson.Segmento> segmentos)
+            throws IOException {
+        List<BsonDocument> leidos = new ArrayList<>();
+        for (ArchivoBson.Segmento segmento : segmentos) {
+            MappedByteBuffer buffer = archivo.mapear(segmento);
+            while (buffer.hasRemaining()) {
+                byte[] documento = new byte[buffer.getInt(buffer.position())];
+                buffer.get(documento);
+                leidos.add(new RawBsonDocument(documento).decode(new BsonDocumentCodec()));
+            }
+        }
+        return leidos;
+    }
+
+    private static byte[] bytes(BsonDocument documento) {
+        ByteBuf buffer = new RawBsonDocument(documento, new BsonDocumentCodec()).getByteBuffer();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,131 @@
+package com.restaurantes.gdl.busqueda;
+
+import com.mongodb.client.MongoCollection;
+import com.restaurantes.gdl.codec.RestauranteCodecs;
+import com.restaurantes.gdl.generator.DataGenerator;
+import com.restaurantes.gdl.service.ConfiguracionImportacion;
+import com.restaurantes.gdl.service.PipelineImportacion;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndiceBusquedaTest {
+
+    @Test
+    void loImportadoSePuedeBuscar() {
+        for (boolean codecNativo : new boolean[]{true, false}) {
+            IndiceBusqueda indice = new IndiceBusqueda();
+            ConfiguracionImportacion config = ConfiguracionImportacion.builder()
+                    .tamañoLote(250).escritores(2).codecNativo(codecNativo).build();
+            // Los restaurantes generados llegan sin _id, como en el menú y los feeds CSV sin fecha
+            new PipelineImportacion(coleccionSinServidor(), config, indice::agregarDocumentos)
+                    .importar(new DataGenerator(42L).generarStream(2_000).iterator());
+
+            assertEquals(2_000, indice.tamaño(), "Codec nativo: " + codecNativo);
+            List<ResultadoBusqueda> resultados = indice.buscar("birr", 50);
+            assertEquals(50, resultados.size());
+            Set<ObjectId> ids = new HashSet<>();
+            for (ResultadoBusqueda resultado : resultados) {
+                assertNotNull(resultado.getId());
+                assertTrue(ids.add(resultado.getId()));
+                assertTrue(resultado.getNombre().startsWith("Birriería") || resultado.getTipoComida().equals("Birria"),
+                        resultado::toString);
+            }
+        }
+    }
+
+    @Test
+    void buscaPorPrefijoSinAcentosNiMayusculas() {
+        IndiceBusqueda indice = indice();
+        assertEquals(List.of("Birriería Chuy", "Tacos El Güero"), nombres(indice.buscar("BIRR", 10)));
+        assertEquals(List.of("Tacos El Güero"), nombres(indice.buscar("guer", 10)));
+        assertEquals(List.of("Mariscos La Perla"), nombres(indice.buscar("aguachi", 10)));
+    }
+
+    @Test
+    void lasCoincidenciasExactasVanAntesQueLosPrefijos() {
+        IndiceBusqueda indice = new IndiceBusqueda();
+        indice.agregar(new ObjectId(), "Tacos Tacón", "Tacos", List.of(), 4.9);
+        indice.agregar(new ObjectId(), "El Taco Feliz", "Mexicana", List.of(), 3.0);
+        List<ResultadoBusqueda> resultados = indice.buscar("taco", 10);
+        assertEquals(List.of("El Taco Feliz", "Tacos Tacón"), nombres(resultados));
+        assertTrue(resultados.get(0).getPuntaje() > resultados.get(1).getPuntaje());
+    }
+
+    @Test
+    void toleraErroresDeEscritura() {
+        IndiceBusqueda indice = indice();
+        // También queda a dos ediciones de "birria", la especialidad de los tacos, que pesa menos
+        assertEquals(List.of("Birriería Chuy", "Tacos El Güero"), nombres(indice.buscar("birieria", 10)));
+        assertEquals(List.of("Birriería Chuy"), nombres(indice.buscar("birreiria chuy", 10)));
+        // Tres letras no admiten errores
+        assertTrue(indice.buscar("chy", 10).isEmpty());
+    }
+
+    @Test
+    void todasLasPalabrasDebenCoincidirYLosEmpatesVanPorCalificacion() {
+        IndiceBusqueda indice = indice();
+        assertEquals(List.of("Tacos El Güero"), nombres(indice.buscar("tacos birria", 10)));
+        assertTrue(indice.buscar("tacos pozole", 10).isEmpty());
+        indice.agregar(new ObjectId(), "Tacos Don Beto", "Tacos", List.of(), 4.8);
+        assertEquals(List.of("Tacos Don Beto", "Tacos El Güero"), nombres(indice.buscar("tacos", 10)));
+        assertEquals(List.of("Tacos Don Beto"), nombres(indice.buscar("tacos", 1)));
+    }
+
+    @Test
+    void volverAAgregarUnIdReemplazaAlDocumento() {
+        IndiceBusqueda indice = indice();
+        ObjectId id = indice.buscar("guero", 1).get(0).getId();
+        indice.agregar(id, "Pozolería Doña Mary", "Pozole", List.of("Pozole Rojo"), 4.1);
+
+        assertEquals(3, indice.tamaño());
+        assertTrue(indice.buscar("guero", 10).isEmpty());
+        List<ResultadoBusqueda> pozole = indice.buscar("pozoleria", 10);
+        assertEquals(1, pozole.size());
+        assertEquals(id, pozole.get(0).getId());
+        assertEquals(4.1, pozole.get(0).getCalificacion(), 1e-6);
+        assertEquals(List.of("Birriería Chuy"), nombres(indice.buscar("birria", 10)));
+    }
+
+    @Test
+    void vaciarQuitaTodo() {
+        IndiceBusqueda indice = indice();
+        indice.vaciar();
+        assertEquals(0, indice.tamaño());
+        assertTrue(indice.buscar("tacos", 10).isEmpty());
+        indice.agregar(new ObjectId(), "Fonda Lupita", "Mexicana", List.of(), 4.0);
+        assertEquals(List.of("Fonda Lupita"), nombres(indice.buscar("fonda", 10)));
+        assertTrue(indice.buscar("", 10).isEmpty());
+    }
+
+    private static IndiceBusqueda indice() {
+        IndiceBusqueda indice = new IndiceBusqueda();
+        indice.agregar(new ObjectId(), "Birriería Chuy", "Birria", List.of("Birria de Res"), 4.6);
+        indice.agregar(new ObjectId(), "Tacos El Güero", "Tacos", List.of("Tacos de Birria"), 4.2);
+        indice.agregar(new ObjectId(), "Mariscos La Perla", "Mariscos", List.of("Aguachile"), 4.4);
+        return indice;
+    }
+
+    private static List<String> nombres(List<ResultadoBusqueda> resultados) {
+        return resultados.stream().map(ResultadoBusqueda::getNombre).toList();
+    }
+
+    // Colección que acepta las inserciones sin servidor, como lo haría uno que confirma cada lote
+    private static MongoCollection<?> coleccionSinServidor() {
+        return (MongoCollection<?>) Proxy.newProxyInstance(IndiceBusquedaTest.class.getClassLoader(),
+                new Class<?>[]{MongoCollection.class}, (proxy, metodo, argumentos) -> switch (metodo.getName()) {
+                    case "getCodecRegistry" -> RestauranteCodecs.REGISTRO;
+                    case "withDocumentClass" -> proxy;
+                    case "insertMany" -> null;
+                    default -> throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+}
@@ -0,0 +1,136 @@
+package com.restaurantes.gdl.busqueda;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrieTerminosTest {
+
+    @Test
+    void asignaIdsConsecutivosYEstablesAlPartirAristas() {
+        TrieTerminos trie = new TrieTerminos();
+        // Cada uno parte la arista del anterior o cuelga de la mitad de una
+        String[] palabras = {"birrieria", "birria", "bir", "b", "birrias", "tacos", "taco", "t"};
+        for (int i = 0; i < palabras.length; i++) {
+            assertEquals(i, trie.agregar(palabras[i]), palabras[i]);
+        }
+        for (int i = 0; i < palabras.length; i++) {
+            assertEquals(i, trie.agregar(palabras[i]), "Repetir " + palabras[i]);
+            assertEquals(palabras[i], trie.termino(i));
+        }
+        assertEquals(palabras.length, trie.tamaño());
+    }
+
+    @Test
+    void prefijosCoincidenConUnRecorridoCompleto() {
+        List<String> vocabulario = vocabulario(3_000, new Random(11));
+        TrieTerminos trie = new TrieTerminos();
+        vocabulario.forEach(trie::agregar);
+
+        for (String prefijo : List.of("", "b", "bi", "bir", "ta", "zzz", "a", "ab", "abcabc", vocabulario.get(17))) {
+            Set<String> esperados = new TreeSet<>();
+            for (String termino : vocabulario) {
+                if (termino.startsWith(prefijo)) {
+                    esperados.add(termino);
+                }
+            }
+            Set<String> encontrados = new TreeSet<>();
+            trie.conPrefijo(prefijo, id -> encontrados.add(trie.termino(id)));
+            assertEquals(esperados, encontrados, "Prefijo '" + prefijo + "'");
+        }
+    }
+
+    @Test
+    void aproximadosCoincidenConLaDistanciaCalculadaPorFuerzaBruta() {
+        Random random = new Random(5);
+        List<String> vocabulario = vocabulario(2_000, random);
+        TrieTerminos trie = new TrieTerminos();
+        vocabulario.forEach(trie::agregar);
+
+        List<String> consultas = new ArrayList<>(List.of("birieria", "tcaos", "pozloe", "a", "abcd"));
+        for (int i = 0; i < 40; i++) {
+            consultas.add(mutar(vocabulario.get(random.nextInt(vocabulario.size())), random));
+        }
+        for (String consulta : consultas) {
+            for (int maximo = 1; maximo <= 2; maximo++) {
+                Map<String, Integer> esperados = new TreeMap<>();
+                for (String termino : vocabulario) {
+                    int distancia = distancia(consulta, termino);
+                    if (distancia <= maximo) {
+                        esperados.put(termino, distancia);
+                    }
+                }
+                Map<String, Integer> encontrados = new TreeMap<>();
+                trie.aproximados(consulta, maximo, (id, distancia) -> encontrados.put(trie.termino(id), distancia));
+                assertEquals(esperados, encontrados, "Consulta '" + consulta + "' a distancia " + maximo);
+            }
+        }
+    }
+
+    // Palabras cortas sobre un alfabeto chico para que compartan muchos prefijos, más algunas reales
+    private static List<String> vocabulario(int cantidad, Random random) {
+        Set<String> palabras = new LinkedHashSet<>(List.of("birria", "birrieria", "tacos", "taco", "pozole",
+                "mariscos", "tortas", "torta", "b", "bi"));
+        while (palabras.size() < cantidad) {
+            StringBuilder palabra = new StringBuilder();
+            for (int i = 1 + random.nextInt(8); i > 0; i--) {
+                palabra.append((char) ('a' + random.nextInt(6)));
+            }
+            palabras.add(palabra.toString());
+        }
+        return new ArrayList<>(palabras);
+    }
+
+    private static String mutar(String palabra, Random random) {
+        StringBuilder resultado = new StringBuilder(palabra);
+        for (int i = random.nextInt(3); i > 0; i--) {
+            int posicion = random.nextInt(resultado.length() + 1);
+            switch (random.nextInt(3)) {
+                case 0 -> resultado.insert(posicion, (char) ('a' + random.nextInt(6)));
+                case 1 -> {
+                    if (posicion < resultado.length() && resultado.length() > 1) {
+                        resultado.deleteCharAt(posicion);
+                    }
+                }
+                default -> {
+                    if (posicion + 1 < resultado.length()) {
+                        char c = resultado.charAt(posicion);
+                        resultado.setCharAt(posicion, resultado.charAt(posicion + 1));
+                        resultado.setCharAt(posicion + 1, c);
+                    }
+                }
+            }
+        }
+        return resultado.toString();
+    }
+
+    // Distancia de Damerau-Levenshtein restringida (transposición de dos letras contiguas)
+    private static int distancia(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + costo);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
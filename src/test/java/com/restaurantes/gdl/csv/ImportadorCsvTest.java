@@ -0,0 +1,87 @@
+package com.restaurantes.gdl.csv;
+
+import com.restaurantes.gdl.model.Restaurante;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImportadorCsvTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void leeFeedsConSeparadorQueEsMetacaracterDeRegex() throws IOException {
+        for (char separador : new char[]{'|', '.', ';', '\t'}) {
+            String s = String.valueOf(separador);
+            Path archivo = escribir(String.join(s, "name", "location", "category", "rating", "createdAt") + "\n"
+                    + String.join(s, "Birriería Chuy", "Zapopan", "Birria", "4", "2025-10-01") + "\n");
+            List<Restaurante> leidos = leerTodo(archivo, mapeo(separador));
+            assertEquals(1, leidos.size(), "Separador " + s);
+            assertEquals("Birriería Chuy", leidos.get(0).getNombre());
+            assertEquals("Zapopan", leidos.get(0).getMunicipio());
+        }
+    }
+
+    @Test
+    void filasConLaMismaFechaTienenIdsDistintosEntreImportaciones() throws IOException {
+        StringBuilder csv = new StringBuilder("name|location|category|rating|createdAt\n");
+        for (int i = 0; i < 5_000; i++) {
+            csv.append("Fonda ").append(i).append("|Guadalajara|Mexicana|4.5|2025-10-01\n");
+        }
+        Path archivo = escribir(csv.toString());
+
+        Set<ObjectId> ids = new HashSet<>();
+        long segundos = LocalDate.of(2025, 10, 1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        // Cada lectura usa parsers nuevos, como dos feeds del mismo día
+        for (int importacion = 0; importacion < 2; importacion++) {
+            for (Restaurante restaurante : leerTodo(archivo, mapeo('|'))) {
+                assertEquals(segundos, restaurante.getId().getTimestamp());
+                assertTrue(ids.add(restaurante.getId()), () -> "Id repetido " + restaurante.getId());
+            }
+        }
+        assertEquals(10_000, ids.size());
+    }
+
+    @Test
+    void rechazaUnEncabezadoSinLasColumnasDelMapeo() throws IOException {
+        Path archivo = escribir("name,location\nFonda,Zapopan\n");
+        assertThrows(IOException.class, () -> new ImportadorCsv(mapeo(','), 2).leer(archivo).close());
+    }
+
+    private static MapeoCsv mapeo(char separador) {
+        return MapeoCsv.builder()
+                .columnas(MapeoCsv.feedSocios().getColumnas())
+                .separador(separador)
+                .build();
+    }
+
+    private Path escribir(String contenido) throws IOException {
+        Path archivo = Files.createTempFile(directorio, "feed", ".csv");
+        Files.writeString(archivo, contenido);
+        return archivo;
+    }
+
+    private static List<Restaurante> leerTodo(Path archivo, MapeoCsv mapeo) throws IOException {
+        List<Restaurante> restaurantes = new ArrayList<>();
+        try (ImportadorCsv.LecturaCsv lectura = new ImportadorCsv(mapeo, 4).leer(archivo)) {
+            lectura.forEachRemaining(restaurantes::add);
+            assertEquals(0, lectura.getFilasInvalidas());
+        }
+        return restaurantes;
+    }
+}
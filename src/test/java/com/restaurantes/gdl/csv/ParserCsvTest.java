@@ -0,0 +1,149 @@
+package com.restaurantes.gdl.csv;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParserCsvTest {
+
+    @Test
+    void leerDoubleCoincideConParseDoubleEnCasosLimite() {
+        String[] casos = {
+                "0", "-0", "+0", "0.0", "-0.0", "1", "-1", "+1.5", "3.", ".5", "-.5", "007", "0.1", "0.2",
+                "4.35", "199.99", "-103.3467", "20.6767", "123456.789",
+                // Mantisa en el borde de 2^53
+                "9007199254740991", "9007199254740992", "9007199254740993", "900719925474099.3",
+                "12345678901234567890", "0.12345678901234567890",
+                // 22 decimales (camino exacto) y 23 (respaldo)
+                "0.0000000000000000000001", "1.0000000000000000000001", "0.00000000000000000000001",
+                "1e3", "1E-3", "-2.5e10", "6.02214076e23", "1.7976931348623157e308", "4.9e-324", "1e400",
+        };
+        for (String caso : casos) {
+            assertEquals(Double.parseDouble(caso), leerDouble(caso), caso);
+        }
+    }
+
+    @Test
+    void leerDoubleCoincideConParseDoubleEnValoresAleatorios() {
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            // Hasta 17 dígitos significativos con cualquier cantidad de decimales
+            long mantisa = random.nextLong() % (long) Math.pow(10, 1 + random.nextInt(17));
+            int decimales = random.nextInt(20);
+            String caso = new BigDecimal(BigInteger.valueOf(mantisa), decimales).toPlainString();
+            assertEquals(Double.parseDouble(caso), leerDouble(caso), caso);
+
+            String corto = Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(12) - 4));
+            assertEquals(Double.parseDouble(corto), leerDouble(corto), corto);
+        }
+    }
+
+    @Test
+    void leerDoubleRecortaEspaciosYTomaVacioComoCero() {
+        assertEquals(4.5, leerDouble("  4.5 "));
+        assertEquals(0.0, leerDouble(""));
+        assertEquals(0.0, leerDouble("   "));
+    }
+
+    @Test
+    void leerDoubleRechazaLoQueParseDoubleRechaza() {
+        for (String caso : new String[]{"-", "+", ".", "-.", "abc", "1.2.3", "1-2", "1,5", "4.5x", "--1", "1 2"}) {
+            assertThrows(NumberFormatException.class, () -> Double.parseDouble(caso), caso);
+            assertThrows(NumberFormatException.class, () -> leerDouble(caso), caso);
+        }
+    }
+
+    @Test
+    void leerFechaEpochCoincideConJavaTimeEnCasosLimite() {
+        String[] conZona = {
+                "2025-10-01T12:00:00Z", "1970-01-01T00:00:00Z", "1969-12-31T23:59:59Z",
+                "2000-02-29T12:34:56Z", "2024-02-29T23:59:59Z", "1900-03-01T00:00:00Z",
+                "1600-01-01T00:00:00Z", "9999-12-31T23:59:59Z", "0001-01-01T00:00:00Z",
+                "2025-10-01T12:00:00.250Z", "2025-10-01T12:00:00.123456789Z",
+                "2025-10-01T12:00Z", "2025-10-01T12:00:00-06:00", "2025-10-01T00:30:00+05:30",
+                "2025-01-01T00:00:00+14:00", "2025-12-31T23:00:00-12:00", "2025-10-01T12:00:00.5-06:00",
+        };
+        for (String caso : conZona) {
+            assertEquals(OffsetDateTime.parse(caso).toEpochSecond(), leerFechaEpoch(caso), caso);
+        }
+        String[] sinZona = {"2025-10-01T12:00:00", "2025-10-01T12:00", "2025-10-01T08:15:30.75"};
+        for (String caso : sinZona) {
+            assertEquals(LocalDateTime.parse(caso).toEpochSecond(ZoneOffset.UTC), leerFechaEpoch(caso), caso);
+            // También se admite espacio en lugar de 'T'
+            assertEquals(LocalDateTime.parse(caso).toEpochSecond(ZoneOffset.UTC),
+                    leerFechaEpoch(caso.replace('T', ' ')), caso);
+        }
+        assertEquals(LocalDate.of(2025, 10, 1).toEpochDay() * 86_400, leerFechaEpoch(" 2025-10-01 "));
+        assertEquals(OffsetDateTime.parse("2025-10-01T12:00:00+18:00").toEpochSecond(),
+                leerFechaEpoch("2025-10-01T12:00:00+18:00"));
+    }
+
+    @Test
+    void leerFechaEpochCoincideConJavaTimeEnCadaDia() {
+        for (LocalDate dia = LocalDate.of(1899, 12, 25); dia.getYear() <= 2101; dia = dia.plusDays(1)) {
+            assertEquals(dia.toEpochDay() * 86_400, leerFechaEpoch(dia.toString()), dia.toString());
+        }
+    }
+
+    @Test
+    void leerFechaEpochRechazaFechasYHorasInexistentes() {
+        String[] casos = {
+                "", "2025", "2025-10", "2025-10-1", "2025/10/01", "20251001", "2025-1O-01",
+                "2025-00-10", "2025-13-01", "2025-10-00", "2025-10-32", "2025-02-29", "2100-02-29",
+                "2025-04-31", "2025-06-31", "2025-09-31", "2025-11-31",
+                "2025-10-01T24:00:00Z", "2025-10-01T12:60:00Z", "2025-10-01T12:00:60Z", "2025-10-01T1:00",
+                "2025-10-01T12:00:00+19:00", "2025-10-01T12:00:00+05:60", "2025-10-01T12:00:00X",
+                "2025-10-01T12:00:00ZZ", "2025-10-01T12", "2025-10-01x", "2025-10-01T12:00:5",
+                "2025-10-01T12:00:00.1234567890Z",
+        };
+        for (String caso : casos) {
+            assertThrows(DateTimeParseException.class, () -> parsearConJavaTime(caso), caso);
+            assertThrows(IllegalArgumentException.class, () -> leerFechaEpoch(caso), caso);
+        }
+    }
+
+    // Lo que aceptaría java.time para cualquiera de las formas que admite leerFechaEpoch
+    private static long parsearConJavaTime(String texto) {
+        String t = texto.strip().replace(' ', 'T');
+        if (t.length() == 10) {
+            return LocalDate.parse(t).toEpochDay() * 86_400;
+        }
+        char ultimo = t.isEmpty() ? ' ' : t.charAt(t.length() - 1);
+        if (ultimo == 'Z' || (t.length() > 19 && (t.charAt(t.length() - 6) == '+' || t.charAt(t.length() - 6) == '-'))) {
+            return OffsetDateTime.parse(t).toEpochSecond();
+        }
+        return LocalDateTime.parse(t).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static double leerDouble(String texto) {
+        ByteBuffer datos = envolver(texto);
+        return ParserCsv.leerDouble(datos, datos.position(), datos.limit());
+    }
+
+    private static long leerFechaEpoch(String texto) {
+        ByteBuffer datos = envolver(texto);
+        return ParserCsv.leerFechaEpoch(datos, datos.position(), datos.limit());
+    }
+
+    // Con bytes alrededor, como un campo en medio de una línea
+    private static ByteBuffer envolver(String texto) {
+        byte[] campo = texto.getBytes(StandardCharsets.US_ASCII);
+        byte[] linea = new byte[campo.length + 2];
+        linea[0] = '9';
+        System.arraycopy(campo, 0, linea, 1, campo.length);
+        linea[linea.length - 1] = '9';
+        return ByteBuffer.wrap(linea, 1, campo.length);
+    }
+}
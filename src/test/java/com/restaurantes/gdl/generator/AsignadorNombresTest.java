@@ -0,0 +1,93 @@
+package com.restaurantes.gdl.generator;
+
+import com.restaurantes.gdl.model.Restaurante;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsignadorNombresTest {
+
+    @Test
+    void laPrimeraVueltaRecorreTodoElEspacioSinRepetir() {
+        // Tamaños que no son potencia de 4, para que la permutación tenga que hacer cycle-walking
+        for (int[] tamaños : new int[][]{{1}, {2}, {3}, {5}, {7, 3}, {13, 17, 16}, {10, 10, 10}, {1, 1, 2}}) {
+            AsignadorNombres asignador = new AsignadorNombres(42L, componentes(tamaños));
+            long total = asignador.getCombinacionesBase();
+            assertEquals(IntStream.of(tamaños).asLongStream().reduce(1, Math::multiplyExact), total);
+
+            Set<String> nombres = new HashSet<>();
+            for (long i = 0; i < total; i++) {
+                String nombre = asignador.nombre(i);
+                assertTrue(nombres.add(nombre), () -> "Nombre repetido " + nombre);
+                assertFalse(nombre.matches(".* \\d+$"), () -> "Sufijo numérico en la primera vuelta: " + nombre);
+            }
+            assertEquals(total, nombres.size());
+        }
+    }
+
+    @Test
+    void lasVueltasSiguientesSiguenSiendoUnicas() {
+        AsignadorNombres asignador = new AsignadorNombres(7L, componentes(new int[]{5, 3}));
+        long total = asignador.getCombinacionesBase();
+        Set<String> nombres = new HashSet<>();
+        for (long i = 0; i < total * 4; i++) {
+            assertTrue(nombres.add(asignador.nombre(i)));
+        }
+        assertTrue(asignador.nombre(total * 3).endsWith(" 4"));
+    }
+
+    @Test
+    void elGeneradorNoRepiteNombresAlAgotarSusTablas() {
+        DataGenerator generador = new DataGenerator(2024L);
+        // 13 prefijos × 17 bases × 16 calificadores = 3536 combinaciones; se pide el triple
+        List<Restaurante> restaurantes = generador.generarRestaurantes(3536 * 3);
+        Set<String> nombres = new HashSet<>();
+        for (Restaurante restaurante : restaurantes) {
+            assertTrue(nombres.add(restaurante.getNombre()), () -> "Nombre repetido " + restaurante.getNombre());
+        }
+    }
+
+    @Test
+    void laSemillaDeterminaLaPermutacion() {
+        String[][] componentes = componentes(new int[]{13, 17, 16});
+        AsignadorNombres a = new AsignadorNombres(1L, componentes);
+        AsignadorNombres b = new AsignadorNombres(1L, componentes);
+        AsignadorNombres c = new AsignadorNombres(2L, componentes);
+        boolean distinto = false;
+        for (long i = 0; i < 100; i++) {
+            assertEquals(a.nombre(i), b.nombre(i));
+            distinto |= !a.nombre(i).equals(c.nombre(i));
+        }
+        assertTrue(distinto);
+        // El buffer del llamador se vacía antes de usarse
+        assertEquals(a.nombre(5), a.nombre(5, new StringBuilder("residuo")));
+    }
+
+    @Test
+    void rechazaArgumentosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> new AsignadorNombres(0L));
+        assertThrows(IllegalArgumentException.class, () -> new AsignadorNombres(0L, new String[0]));
+        AsignadorNombres asignador = new AsignadorNombres(0L, componentes(new int[]{3}));
+        assertThrows(IllegalArgumentException.class, () -> asignador.nombre(-1));
+    }
+
+    // Componente i con valores "c<i>v<j>"; el primero de cada uno vacío, como los calificadores
+    private static String[][] componentes(int[] tamaños) {
+        String[][] componentes = new String[tamaños.length][];
+        for (int i = 0; i < tamaños.length; i++) {
+            componentes[i] = new String[tamaños[i]];
+            for (int j = 0; j < tamaños[i]; j++) {
+                componentes[i][j] = j == 0 && tamaños[i] > 1 ? "" : "c" + i + "v" + j;
+            }
+        }
+        return componentes;
+    }
+}
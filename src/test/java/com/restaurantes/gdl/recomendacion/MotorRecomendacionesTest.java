@@ -0,0 +1,87 @@
+package com.restaurantes.gdl.recomendacion;
+
+import com.restaurantes.gdl.generator.DataGenerator;
+import com.restaurantes.gdl.model.Restaurante;
+import com.restaurantes.gdl.model.RestauranteTable;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MotorRecomendacionesTest {
+
+    private static final MotorRecomendaciones MOTOR = MotorRecomendaciones.construir(
+            new DataGenerator(42L).generarStream(5_000)
+                    .peek(r -> r.setId(new ObjectId()))
+                    .collect(RestauranteTable.collector()));
+
+    @Test
+    void unPerfilSoloConPrecioDaSimilitudesFinitas() {
+        List<Recomendacion> recomendaciones = MOTOR.recomendar(PerfilUsuario.builder().precio(250.0).build(), 10);
+        assertEquals(10, recomendaciones.size());
+        assertSimilitudesValidas(recomendaciones);
+        // Con miles de precios alguno queda casi exacto
+        assertEquals(1.0, recomendaciones.get(0).getSimilitud(), 0.01);
+    }
+
+    @Test
+    void unPerfilSoloConUbicacionDaSimilitudesFinitas() {
+        PerfilUsuario perfil = PerfilUsuario.builder().longitud(-103.3467).latitud(20.6767).build();
+        List<Recomendacion> recomendaciones = MOTOR.recomendar(perfil, 10);
+        assertEquals(10, recomendaciones.size());
+        assertSimilitudesValidas(recomendaciones);
+
+        PerfilUsuario conPrecio = PerfilUsuario.builder().precio(120.0).longitud(-103.3467).latitud(20.6767).build();
+        assertSimilitudesValidas(MOTOR.recomendar(conPrecio, 10));
+    }
+
+    @Test
+    void unPerfilVacioNoRecomiendaNada() {
+        assertTrue(MOTOR.recomendar(PerfilUsuario.builder().build(), 10).isEmpty());
+        PerfilUsuario desconocido = PerfilUsuario.builder().favorito(new ObjectId()).tipoComida("Marciana").build();
+        assertTrue(MOTOR.recomendar(desconocido, 10).isEmpty());
+    }
+
+    @Test
+    void admiteMasCombinacionesDeTipoYMunicipioQueUnShort() {
+        // 200 tipos x 200 municipios: códigos de categoría hasta 39 999. Mismo precio,
+        // calificación y ubicación para que solo decidan las categorías
+        List<Restaurante> restaurantes = new DataGenerator(7L).generarStream(400)
+                .peek(r -> r.setId(new ObjectId()))
+                .toList();
+        for (int i = 0; i < restaurantes.size(); i++) {
+            Restaurante restaurante = restaurantes.get(i);
+            restaurante.setTipoComida("Tipo " + i % 200);
+            restaurante.setMunicipio("Municipio " + i % 200);
+            restaurante.setCalificacion(4.0);
+            restaurante.setPrecioPromedio(200.0);
+            restaurante.getUbicacion().setCoordinates(List.of(-103.3467, 20.6767));
+        }
+        MotorRecomendaciones motor = MotorRecomendaciones.construir(RestauranteTable.desde(restaurantes));
+
+        Restaurante semilla = restaurantes.get(199);
+        List<Recomendacion> recomendaciones = motor.recomendar(semilla.getId(), 1);
+        assertEquals(1, recomendaciones.size());
+        // La única otra fila con su tipo y municipio es la 399
+        assertEquals(restaurantes.get(399).getId(), recomendaciones.get(0).getRestaurante().getId());
+
+        PerfilUsuario perfil = PerfilUsuario.builder().tipoComida("Tipo 199").municipio("Municipio 199").build();
+        List<Recomendacion> porPerfil = motor.recomendar(perfil, 2);
+        assertEquals(2, porPerfil.size());
+        porPerfil.forEach(r -> assertEquals("Tipo 199", r.getRestaurante().getTipoComida()));
+        assertSimilitudesValidas(porPerfil);
+    }
+
+    private static void assertSimilitudesValidas(List<Recomendacion> recomendaciones) {
+        double anterior = Double.POSITIVE_INFINITY;
+        for (Recomendacion recomendacion : recomendaciones) {
+            double similitud = recomendacion.getSimilitud();
+            assertTrue(Double.isFinite(similitud) && similitud <= 1 + 1e-6, () -> "Similitud " + similitud);
+            assertTrue(similitud <= anterior, "Ordenadas de mayor a menor");
+            anterior = similitud;
+        }
+    }
+}